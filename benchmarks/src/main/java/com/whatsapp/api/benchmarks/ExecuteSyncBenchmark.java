@@ -0,0 +1,151 @@
+package com.whatsapp.api.benchmarks;
+
+import com.whatsapp.api.WhatsappApiServiceGenerator;
+import com.whatsapp.api.configuration.WhatsappApiConfig;
+import com.whatsapp.api.domain.messages.Message;
+import com.whatsapp.api.domain.messages.Message.MessageBuilder;
+import com.whatsapp.api.domain.messages.TextMessage;
+import com.whatsapp.api.domain.messages.response.MessageResponse;
+import com.whatsapp.api.service.WhatsappBusinessCloudApiService;
+import mockwebserver3.Dispatcher;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.net.ServerSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A message sent with {@link WhatsappApiServiceGenerator#executeSync} to a local {@link MockWebServer}: the
+ * serialization of the request, the round trip over a pooled connection and the deserialization of the response.
+ * The server answers every request with the same response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecuteSyncBenchmark {
+
+    private static final String TOKEN = "df4UIkhjdli48574654SDsdf54654sdf5s4DDF54654654654564654sdfsdf54sdf65s4";
+
+    private static final String PHONE_NUMBER_ID = "888888888888";
+
+    private static final String SEND_MESSAGE_RESPONSE = """
+            {
+              "messaging_product": "whatsapp",
+              "contacts": [{ "input": "48XXXXXXXXX", "wa_id": "48XXXXXXXXX" }],
+              "messages": [{ "id": "wamid.gBGGSFcCNEOPAgkO_KJ55r4w_ww" }]
+            }
+            """;
+
+    private MockWebServer mockWebServer;
+
+    private WhatsappBusinessCloudApiService service;
+
+    private Message message;
+
+    @Setup
+    public void setUp() throws IOException {
+        var response = new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build();
+
+        mockWebServer = new MockWebServer();
+        mockWebServer.setServerSocketFactory(new NoDelayServerSocketFactory());
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return response;
+            }
+        });
+        mockWebServer.start();
+
+        service = WhatsappApiServiceGenerator.createService(WhatsappBusinessCloudApiService.class, TOKEN,
+                String.format("http://localhost:%s", mockWebServer.getPort()));
+
+        message = MessageBuilder.builder()//
+                .setTo("121212121212")//
+                .buildTextMessage(new TextMessage()//
+                        .setBody("Hello world!")//
+                        .setPreviewUrl(false));
+    }
+
+    /**
+     * The server keeps every request it receives: drop them so that they do not pile up over the run.
+     */
+    @TearDown(Level.Iteration)
+    public void dropRecordedRequests() throws InterruptedException {
+        while (mockWebServer.takeRequest(0, TimeUnit.MILLISECONDS) != null) {
+            // dropped
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mockWebServer.close();
+    }
+
+    @Benchmark
+    public MessageResponse sendMessage() {
+        return WhatsappApiServiceGenerator.executeSync(service.sendMessage(WhatsappApiConfig.getApiVersion().getValue(), PHONE_NUMBER_ID, message));
+    }
+
+    /**
+     * Disables Nagle's algorithm on the connections of the server. It writes the headers and the body of a response
+     * separately: otherwise the body waits for the delayed ack of the headers, some 40ms, and every call measures
+     * that wait instead of the client.
+     */
+    private static final class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            return createServerSocket(port, 50, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            return createServerSocket(port, backlog, null);
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress ifAddress) throws IOException {
+            ServerSocket serverSocket = createServerSocket();
+            try {
+                serverSocket.bind(new InetSocketAddress(ifAddress, port), backlog);
+            } catch (IOException e) {
+                serverSocket.close();
+                throw e;
+            }
+            return serverSocket;
+        }
+    }
+}
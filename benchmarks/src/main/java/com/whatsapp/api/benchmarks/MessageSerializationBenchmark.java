@@ -0,0 +1,130 @@
+package com.whatsapp.api.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whatsapp.api.bulk.CompiledMessage;
+import com.whatsapp.api.domain.messages.Action;
+import com.whatsapp.api.domain.messages.Body;
+import com.whatsapp.api.domain.messages.BodyComponent;
+import com.whatsapp.api.domain.messages.Button;
+import com.whatsapp.api.domain.messages.Footer;
+import com.whatsapp.api.domain.messages.Header;
+import com.whatsapp.api.domain.messages.InteractiveMessage;
+import com.whatsapp.api.domain.messages.Language;
+import com.whatsapp.api.domain.messages.Message;
+import com.whatsapp.api.domain.messages.Message.MessageBuilder;
+import com.whatsapp.api.domain.messages.Reply;
+import com.whatsapp.api.domain.messages.TemplateMessage;
+import com.whatsapp.api.domain.messages.TextMessage;
+import com.whatsapp.api.domain.messages.TextParameter;
+import com.whatsapp.api.domain.messages.type.ButtonType;
+import com.whatsapp.api.domain.messages.type.HeaderType;
+import com.whatsapp.api.domain.messages.type.InteractiveMessageType;
+import com.whatsapp.api.domain.templates.type.LanguageType;
+import okhttp3.RequestBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the request body of each type of message, with the same plain {@link ObjectMapper} as the
+ * converter of {@link com.whatsapp.api.WhatsappApiServiceGenerator}.
+ * The template is also rendered from a {@link CompiledMessage}, as the bulk sender does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageSerializationBenchmark {
+
+    private static final String PHONE_NUMBER = "121212121212";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Message textMessage;
+
+    private Message templateMessage;
+
+    private Message interactiveMessage;
+
+    private CompiledMessage compiledTemplateMessage;
+
+    @Setup
+    public void setUp() {
+        textMessage = MessageBuilder.builder()//
+                .setTo(PHONE_NUMBER)//
+                .buildTextMessage(new TextMessage()//
+                        .setBody("*Hello world!*\nSome code here: \n```hello world code here```")//
+                        .setPreviewUrl(false));
+
+        templateMessage = MessageBuilder.builder()//
+                .setTo(PHONE_NUMBER)//
+                .buildTemplateMessage(template("18754269072"));
+
+        interactiveMessage = MessageBuilder.builder()//
+                .setTo(PHONE_NUMBER)//
+                .buildInteractiveMessage(InteractiveMessage.build()//
+                        .setAction(new Action()//
+                                .addButton(new Button()//
+                                        .setType(ButtonType.REPLY).setReply(new Reply()//
+                                                .setId("1278454")//
+                                                .setTitle("YES")))//
+                                .addButton(new Button()//
+                                        .setType(ButtonType.REPLY).setReply(new Reply()//
+                                                .setId("1278455")//
+                                                .setTitle("NO")))//
+                                .addButton(new Button()//
+                                        .setType(ButtonType.REPLY).setReply(new Reply()//
+                                                .setId("1278456")//
+                                                .setTitle("CHANGE"))))//
+                        .setType(InteractiveMessageType.BUTTON)//
+                        .setHeader(new Header()//
+                                .setType(HeaderType.TEXT)//
+                                .setText("Appointment confirmation."))//
+                        .setBody(new Body()//
+                                .setText("Would you like to confirm your appointment for tomorrow?"))//
+                        .setFooter(new Footer().setText("Choose an option:")));
+
+        compiledTemplateMessage = CompiledMessage.compile(MessageBuilder.builder()//
+                .buildTemplateMessage(template(CompiledMessage.placeholder("number"))), "number");
+    }
+
+    @Benchmark
+    public byte[] textMessage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(textMessage);
+    }
+
+    @Benchmark
+    public byte[] templateMessage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(templateMessage);
+    }
+
+    @Benchmark
+    public byte[] interactiveMessage() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(interactiveMessage);
+    }
+
+    @Benchmark
+    public RequestBody compiledTemplateMessage() {
+        return compiledTemplateMessage.render(PHONE_NUMBER, "18754269072");
+    }
+
+    private static TemplateMessage template(String number) {
+        return new TemplateMessage()//
+                .setLanguage(new Language(LanguageType.PT_BR))//
+                .setName("number_confirmation")//
+                .addComponent(new BodyComponent()//
+                        .addParameter(new TextParameter(number)));
+    }
+}
@@ -0,0 +1,76 @@
+package com.whatsapp.api.benchmarks;
+
+import com.whatsapp.api.domain.webhook.Entry;
+import com.whatsapp.api.domain.webhook.Value;
+import com.whatsapp.api.domain.webhook.WebHook;
+import com.whatsapp.api.domain.webhook.WebHookEvent;
+import com.whatsapp.api.domain.webhook.WebHookListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the webhook fixtures of the SDK tests, from src/test/resources/deserialization:
+ * into a {@link WebHookEvent}, and decoded to a listener as they are read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebHookBenchmark {
+
+    @Param({"textMessage", "textMessageStatusDelivered", "imageMessage", "buttonMessage", "contactMessage",
+            "locationMessage", "reactMessage", "rejectedTemplate", "qualityUpdate", "reEngagementMessageError"})
+    public String fixture;
+
+    private String payload;
+
+    private byte[] payloadBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream in = WebHookBenchmark.class.getResourceAsStream("/deserialization/" + fixture + ".json")) {
+            if (in == null) {
+                throw new IllegalStateException("Fixture not found: " + fixture);
+            }
+            payloadBytes = in.readAllBytes();
+        }
+        payload = new String(payloadBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public WebHookEvent constructEvent() throws IOException {
+        return WebHook.constructEvent(payload);
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws IOException {
+        WebHook.decode(payloadBytes, new WebHookListener() {
+            @Override
+            public void onEntry(Entry entry, String json) {
+                blackhole.consume(entry);
+            }
+
+            @Override
+            public void onMessages(Entry entry, Value value) {
+                blackhole.consume(value);
+            }
+        });
+    }
+}
@@ -3,7 +3,9 @@ package com.whatsapp.api;
 
 import com.whatsapp.api.configuration.ApiVersion;
 import com.whatsapp.api.impl.WhatsappBusinessCloudApi;
+import com.whatsapp.api.impl.WhatsappBusinessCloudApiAsync;
 import com.whatsapp.api.impl.WhatsappBusinessManagementApi;
+import com.whatsapp.api.impl.WhatsappBusinessManagementApiAsync;
 
 /**
  * A factory for creating Whatsapp api client objects.
@@ -64,4 +66,34 @@ public class WhatsappApiFactory {
         return new WhatsappBusinessManagementApi(token);
     }
 
+    /**
+     * Creates a new asynchronous/non-blocking Whatsapp business cloud api client
+     *
+     * @return the whatsapp business cloud api async
+     */
+    public WhatsappBusinessCloudApiAsync newBusinessCloudApiAsync() {
+
+        return new WhatsappBusinessCloudApiAsync(token);
+    }
+
+    /**
+     * Creates a new asynchronous/non-blocking Whatsapp business cloud api client, specifying the api version
+     *
+     * @param apiVersion the api version
+     * @return the whatsapp business cloud api async
+     */
+    public WhatsappBusinessCloudApiAsync newBusinessCloudApiAsync(ApiVersion apiVersion) {
+
+        return new WhatsappBusinessCloudApiAsync(token, apiVersion);
+    }
+
+    /**
+     * Creates a new asynchronous/non-blocking Whatsapp business management api client
+     *
+     * @return the whatsapp business management api async
+     */
+    public WhatsappBusinessManagementApiAsync newBusinessManagementApiAsync() {
+        return new WhatsappBusinessManagementApiAsync(token);
+    }
+
 }
@@ -0,0 +1,224 @@
+package com.whatsapp.api.bulk;
+
+import com.whatsapp.api.domain.messages.Message;
+import com.whatsapp.api.domain.messages.response.MessageResponse;
+import com.whatsapp.api.domain.phone.type.LevelType;
+import com.whatsapp.api.impl.WhatsappBusinessCloudApiAsync;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Sends one message to many recipients from a business phone number.
+ * <p>
+ * Sends are paced by the {@link ThroughputPacer} of the phone number and at most {@code maxInFlight} requests
+ * are waiting for a response at any time. The result of each recipient is passed to a listener as soon as its
+ * response arrives, so callers can stream results instead of waiting for the whole batch.
+ * <p>
+ * Each bulk send runs on its own thread taken from the executor; that thread only waits for send slots, the
+ * requests themselves are executed by the OkHttp dispatcher.
+ *
+ * <pre>{@code
+ * var sender = new BulkMessageSender(factory.newBusinessCloudApiAsync());
+ * var message = MessageBuilder.builder().buildTemplateMessage(templateMessage);
+ * sender.send(phoneNumberId, LevelType.STANDARD, message, recipients, result -> log(result))
+ *       .thenAccept(summary -> log(summary));
+ * }</pre>
+ */
+public class BulkMessageSender {
+
+    /**
+     * The default maximum number of requests waiting for a response.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+    private final WhatsappBusinessCloudApiAsync whatsappBusinessCloudApiAsync;
+
+    private final int maxInFlight;
+
+    private final Executor executor;
+
+    /**
+     * Instantiates a new bulk message sender that runs every bulk send on a new daemon thread.
+     *
+     * @param whatsappBusinessCloudApiAsync the api used to send the messages
+     */
+    public BulkMessageSender(WhatsappBusinessCloudApiAsync whatsappBusinessCloudApiAsync) {
+        this(whatsappBusinessCloudApiAsync, DEFAULT_MAX_IN_FLIGHT, BulkMessageSender::startDaemonThread);
+    }
+
+    /**
+     * Instantiates a new bulk message sender that runs every bulk send on a new daemon thread.
+     *
+     * @param whatsappBusinessCloudApiAsync the api used to send the messages
+     * @param maxInFlight                   maximum number of requests waiting for a response, per bulk send
+     */
+    public BulkMessageSender(WhatsappBusinessCloudApiAsync whatsappBusinessCloudApiAsync, int maxInFlight) {
+        this(whatsappBusinessCloudApiAsync, maxInFlight, BulkMessageSender::startDaemonThread);
+    }
+
+    /**
+     * Instantiates a new bulk message sender.
+     *
+     * @param whatsappBusinessCloudApiAsync the api used to send the messages
+     * @param maxInFlight                   maximum number of requests waiting for a response, per bulk send
+     * @param executor                      the executor running the bulk sends. Each bulk send occupies one thread until it completes.
+     */
+    public BulkMessageSender(WhatsappBusinessCloudApiAsync whatsappBusinessCloudApiAsync, int maxInFlight, Executor executor) {
+        Objects.requireNonNull(whatsappBusinessCloudApiAsync, "whatsappBusinessCloudApiAsync cannot be null");
+        Objects.requireNonNull(executor, "executor cannot be null");
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.whatsappBusinessCloudApiAsync = whatsappBusinessCloudApiAsync;
+        this.maxInFlight = maxInFlight;
+        this.executor = executor;
+    }
+
+    /**
+     * Sends a message to every recipient, paced to the throughput level of the phone number.
+     *
+     * @param phoneNumberId the business phone number id
+     * @param level         the throughput level of the phone number
+     * @param message       the message to send. Its recipient is replaced by each of the recipients.
+     * @param recipients    WhatsApp IDs or phone numbers. Iterated lazily, once.
+     * @param listener      receives the result of each recipient. It is called concurrently from the http threads and must be thread safe.
+     * @return a future completed with the totals once every response has been received. Cancelling it stops sending to the remaining recipients.
+     */
+    public CompletableFuture<BulkSendSummary> send(String phoneNumberId, LevelType level, Message message, Iterable<String> recipients, Consumer<BulkSendResult> listener) {
+        return send(phoneNumberId, ThroughputPacer.forPhoneNumber(phoneNumberId, level), message, recipients, listener);
+    }
+
+    /**
+     * Sends a message to every recipient, paced by the given pacer.
+     *
+     * @param phoneNumberId the business phone number id
+     * @param pacer         the pacer
+     * @param message       the message to send. Its recipient is replaced by each of the recipients.
+     * @param recipients    WhatsApp IDs or phone numbers. Iterated lazily, once.
+     * @param listener      receives the result of each recipient. It is called concurrently from the http threads and must be thread safe.
+     * @return a future completed with the totals once every response has been received. Cancelling it stops sending to the remaining recipients.
+     */
+    public CompletableFuture<BulkSendSummary> send(String phoneNumberId, ThroughputPacer pacer, Message message, Iterable<String> recipients, Consumer<BulkSendResult> listener) {
+        Objects.requireNonNull(phoneNumberId, "phoneNumberId cannot be null");
+        Objects.requireNonNull(pacer, "pacer cannot be null");
+        Objects.requireNonNull(message, "message cannot be null");
+        Objects.requireNonNull(recipients, "recipients cannot be null");
+        Objects.requireNonNull(listener, "listener cannot be null");
+
+        return send(pacer, recipient -> whatsappBusinessCloudApiAsync.sendMessage(phoneNumberId, message.copyTo(recipient)), recipients, listener);
+    }
+
+    /**
+     * Sends a compiled message to every recipient, paced to the throughput level of the phone number.
+     * The message is not serialized again for each recipient.
+     *
+     * @param phoneNumberId the business phone number id
+     * @param level         the throughput level of the phone number
+     * @param message       the message to send, without placeholders
+     * @param recipients    WhatsApp IDs or phone numbers. Iterated lazily, once.
+     * @param listener      receives the result of each recipient. It is called concurrently from the http threads and must be thread safe.
+     * @return a future completed with the totals once every response has been received. Cancelling it stops sending to the remaining recipients.
+     */
+    public CompletableFuture<BulkSendSummary> send(String phoneNumberId, LevelType level, CompiledMessage message, Iterable<String> recipients, Consumer<BulkSendResult> listener) {
+        return send(phoneNumberId, ThroughputPacer.forPhoneNumber(phoneNumberId, level), message, recipients, listener);
+    }
+
+    /**
+     * Sends a compiled message to every recipient, paced by the given pacer.
+     *
+     * @param phoneNumberId the business phone number id
+     * @param pacer         the pacer
+     * @param message       the message to send, without placeholders
+     * @param recipients    WhatsApp IDs or phone numbers. Iterated lazily, once.
+     * @param listener      receives the result of each recipient. It is called concurrently from the http threads and must be thread safe.
+     * @return a future completed with the totals once every response has been received. Cancelling it stops sending to the remaining recipients.
+     */
+    public CompletableFuture<BulkSendSummary> send(String phoneNumberId, ThroughputPacer pacer, CompiledMessage message, Iterable<String> recipients, Consumer<BulkSendResult> listener) {
+        Objects.requireNonNull(phoneNumberId, "phoneNumberId cannot be null");
+        Objects.requireNonNull(pacer, "pacer cannot be null");
+        Objects.requireNonNull(message, "message cannot be null");
+        Objects.requireNonNull(recipients, "recipients cannot be null");
+        Objects.requireNonNull(listener, "listener cannot be null");
+        if (!message.getPlaceholders().isEmpty()) {
+            throw new IllegalArgumentException("message cannot have placeholders");
+        }
+
+        return send(pacer, recipient -> whatsappBusinessCloudApiAsync.sendMessage(phoneNumberId, message.render(recipient)), recipients, listener);
+    }
+
+    private CompletableFuture<BulkSendSummary> send(ThroughputPacer pacer, Function<String, CompletableFuture<MessageResponse>> sender, Iterable<String> recipients, Consumer<BulkSendResult> listener) {
+        var summary = new CompletableFuture<BulkSendSummary>();
+        executor.execute(() -> run(pacer, sender, recipients, listener, summary));
+        return summary;
+    }
+
+    private void run(ThroughputPacer pacer, Function<String, CompletableFuture<MessageResponse>> sender, Iterable<String> recipients, Consumer<BulkSendResult> listener, CompletableFuture<BulkSendSummary> summary) {
+        var inFlight = new Semaphore(maxInFlight);
+        var sent = new AtomicInteger();
+        var failed = new AtomicInteger();
+        long start = System.nanoTime();
+        int total = 0;
+
+        try {
+            for (String recipient : recipients) {
+                if (summary.isDone()) {
+                    return;
+                }
+                inFlight.acquire();
+                pacer.acquire();
+                total++;
+
+                CompletableFuture<MessageResponse> response;
+                try {
+                    response = sender.apply(recipient);
+                } catch (RuntimeException e) {
+                    response = CompletableFuture.failedFuture(e);
+                }
+
+                response.whenComplete((messageResponse, error) -> {
+                    try {
+                        var result = toResult(recipient, messageResponse, error);
+                        (result.isSuccess() ? sent : failed).incrementAndGet();
+                        listener.accept(result);
+                    } catch (RuntimeException ignored) {
+                        // a failing listener must not stall the bulk send
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+
+            // wait for the last responses
+            inFlight.acquire(maxInFlight);
+            summary.complete(new BulkSendSummary(total, sent.get(), failed.get(), Duration.ofNanos(System.nanoTime() - start)));
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            summary.completeExceptionally(e);
+        } catch (RuntimeException e) {
+            summary.completeExceptionally(e);
+        }
+    }
+
+    private static BulkSendResult toResult(String recipient, MessageResponse messageResponse, Throwable error) {
+        if (error != null) {
+            return new BulkSendResult(recipient, null, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        }
+        var messageId = messageResponse.messages() == null || messageResponse.messages().isEmpty() ? null : messageResponse.messages().get(0).id();
+        return new BulkSendResult(recipient, messageId, null);
+    }
+
+    private static void startDaemonThread(Runnable runnable) {
+        var thread = new Thread(runnable, "whatsapp-bulk-send");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
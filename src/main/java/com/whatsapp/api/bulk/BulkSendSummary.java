@@ -0,0 +1,14 @@
+package com.whatsapp.api.bulk;
+
+import java.time.Duration;
+
+/**
+ * Totals of a completed bulk send.
+ *
+ * @param total   the number of recipients
+ * @param sent    the number of messages accepted by the api
+ * @param failed  the number of messages that failed
+ * @param elapsed the time between the first and the last send
+ */
+public record BulkSendSummary(int total, int sent, int failed, Duration elapsed) {
+}
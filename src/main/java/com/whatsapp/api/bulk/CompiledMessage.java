@@ -0,0 +1,210 @@
+package com.whatsapp.api.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whatsapp.api.domain.messages.Message;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A message serialized once, to be sent to many recipients with a few values changed.
+ * <p>
+ * The message is serialized to JSON when it is compiled; the recipient and the values of the placeholders are
+ * spliced into the static bytes of each request body, without serializing the message again. A request body is
+ * built in an okio buffer and taken out of it as one array, which gives the segments of the buffer back to okio's
+ * segment pool for the next body.
+ * <p>
+ * A placeholder stands for the whole value of a string field, e.g. a template parameter:
+ *
+ * <pre>{@code
+ * var templateMessage = new TemplateMessage()
+ *         .setLanguage(new Language(LanguageType.EN_US))
+ *         .setName("order_shipped")
+ *         .addComponent(new BodyComponent()
+ *                 .addParameter(new TextParameter(CompiledMessage.placeholder("name")))
+ *                 .addParameter(new TextParameter(CompiledMessage.placeholder("order"))));
+ * var compiled = CompiledMessage.compile(MessageBuilder.builder().buildTemplateMessage(templateMessage), "name", "order");
+ *
+ * whatsappBusinessCloudApi.sendMessage(phoneNumberId, compiled.render("5511999999999", "Maria", "#1234"));
+ * }</pre>
+ */
+public final class CompiledMessage {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=UTF-8");
+
+    /**
+     * Slot of the recipient in {@link #slots}; the others are indexes of placeholders.
+     */
+    private static final int RECIPIENT = -1;
+
+    private final List<String> placeholders;
+
+    /**
+     * The static bytes of the message, one more than the slots: a slot is filled between two segments.
+     */
+    private final byte[][] segments;
+
+    private final int[] slots;
+
+    private CompiledMessage(List<String> placeholders, byte[][] segments, int[] slots) {
+        this.placeholders = placeholders;
+        this.segments = segments;
+        this.slots = slots;
+    }
+
+    /**
+     * The value standing for a placeholder in a message to compile.
+     *
+     * @param name the name of the placeholder
+     * @return the value to set in the message
+     */
+    public static String placeholder(String name) {
+        Objects.requireNonNull(name, "name cannot be null");
+        return "{{" + name + "}}";
+    }
+
+    /**
+     * Compiles a message.
+     *
+     * @param message      the message. Its recipient is ignored: it is set by {@link #render(String, String...)}.
+     * @param placeholders the names of the placeholders set in the message with {@link #placeholder(String)}, in the order of the values passed to {@link #render(String, String...)}
+     * @return the compiled message
+     * @throws IllegalArgumentException if a placeholder is not the whole value of a string field of the message
+     */
+    public static CompiledMessage compile(Message message, String... placeholders) {
+        Objects.requireNonNull(message, "message cannot be null");
+        Objects.requireNonNull(placeholders, "placeholders cannot be null");
+
+        // a recipient that no message content can contain
+        String recipient = placeholder(UUID.randomUUID().toString());
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(message.copyTo(recipient));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize message", e);
+        }
+
+        // the slots of the recipient and of each placeholder, in the order they appear in the json
+        List<int[]> found = new ArrayList<>();
+        addOccurrences(found, json, recipient, RECIPIENT);
+        for (int i = 0; i < placeholders.length; i++) {
+            Objects.requireNonNull(placeholders[i], "placeholders cannot contain null");
+            if (!addOccurrences(found, json, placeholder(placeholders[i]), i)) {
+                throw new IllegalArgumentException("Placeholder not found in message: " + placeholders[i]);
+            }
+        }
+        found.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+        byte[][] segments = new byte[found.size() + 1][];
+        int[] slots = new int[found.size()];
+        int start = 0;
+        for (int i = 0; i < found.size(); i++) {
+            segments[i] = Arrays.copyOfRange(json, start, found.get(i)[0]);
+            slots[i] = found.get(i)[2];
+            start = found.get(i)[1];
+        }
+        segments[found.size()] = Arrays.copyOfRange(json, start, json.length);
+        return new CompiledMessage(List.of(placeholders), segments, slots);
+    }
+
+    /**
+     * Gets the names of the placeholders, in the order of the values passed to {@link #render(String, String...)}.
+     *
+     * @return the placeholders
+     */
+    public List<String> getPlaceholders() {
+        return placeholders;
+    }
+
+    /**
+     * Renders the request body of the message for a recipient.
+     * The body can be written more than once, e.g. when the request is retried.
+     *
+     * @param to     WhatsApp ID or phone number of the recipient
+     * @param values the values of the placeholders, in the order they were compiled
+     * @return the request body, to send with {@link com.whatsapp.api.impl.WhatsappBusinessCloudApi#sendMessage(String, RequestBody)}
+     */
+    public RequestBody render(String to, String... values) {
+        Objects.requireNonNull(to, "to cannot be null");
+        Objects.requireNonNull(values, "values cannot be null");
+        if (values.length != placeholders.size()) {
+            throw new IllegalArgumentException("Expected " + placeholders.size() + " values but got " + values.length);
+        }
+
+        var buffer = new Buffer();
+        for (int i = 0; i < slots.length; i++) {
+            buffer.write(segments[i]);
+            String value = slots[i] == RECIPIENT ? to : values[slots[i]];
+            writeString(buffer, Objects.requireNonNull(value, "values cannot contain null"));
+        }
+        buffer.write(segments[slots.length]);
+        // reading the buffer recycles its segments
+        return RequestBody.create(buffer.readByteArray(), JSON);
+    }
+
+    /**
+     * Adds the offsets of every occurrence of a string value in the json.
+     *
+     * @return false if the value does not occur
+     */
+    private static boolean addOccurrences(List<int[]> found, byte[] json, String value, int slot) {
+        byte[] quoted = ('"' + value + '"').getBytes(StandardCharsets.UTF_8);
+        boolean any = false;
+        for (int from = 0; (from = indexOf(json, quoted, from)) >= 0; from += quoted.length) {
+            found.add(new int[]{from, from + quoted.length, slot});
+            any = true;
+        }
+        return any;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target, int from) {
+        outer:
+        for (int i = from; i <= bytes.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (bytes[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Writes a JSON string, escaped as Jackson does.
+     */
+    private static void writeString(Buffer buffer, String value) {
+        buffer.writeByte('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                continue;
+            }
+            buffer.writeUtf8(value, start, i);
+            switch (c) {
+                case '"' -> buffer.writeUtf8("\\\"");
+                case '\\' -> buffer.writeUtf8("\\\\");
+                case '\n' -> buffer.writeUtf8("\\n");
+                case '\r' -> buffer.writeUtf8("\\r");
+                case '\t' -> buffer.writeUtf8("\\t");
+                case '\b' -> buffer.writeUtf8("\\b");
+                case '\f' -> buffer.writeUtf8("\\f");
+                default -> buffer.writeUtf8(String.format("\\u%04X", (int) c));
+            }
+            start = i + 1;
+        }
+        buffer.writeUtf8(value, start, value.length());
+        buffer.writeByte('"');
+    }
+}
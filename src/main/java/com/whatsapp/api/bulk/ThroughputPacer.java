@@ -0,0 +1,132 @@
+package com.whatsapp.api.bulk;
+
+import com.whatsapp.api.domain.phone.Throughput;
+import com.whatsapp.api.domain.phone.type.LevelType;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spaces out the messages sent from one business phone number so they never exceed its Cloud API throughput.
+ * <p>
+ * Every call to {@link #acquire()} reserves the next free send slot and waits until it is reached. Slots are
+ * reserved atomically, so any number of threads can share one pacer: together they never go faster than
+ * {@link #getMessagesPerSecond()}.
+ * <p>
+ * Meta enforces the limit per phone number, so {@link #forPhoneNumber(String, LevelType)} returns the same pacer
+ * for every sender using that phone number in this JVM.
+ *
+ * @see <a href="https://developers.facebook.com/docs/whatsapp/cloud-api/overview#throughput">Throughput</a>
+ */
+public final class ThroughputPacer {
+
+    /**
+     * Messages per second for a {@link LevelType#STANDARD} phone number.
+     */
+    public static final int STANDARD_MESSAGES_PER_SECOND = 80;
+
+    /**
+     * Messages per second for a {@link LevelType#HIGH} phone number.
+     */
+    public static final int HIGH_MESSAGES_PER_SECOND = 1000;
+
+    private static final Map<String, ThroughputPacer> PACERS = new ConcurrentHashMap<>();
+
+    private final double messagesPerSecond;
+
+    private final long intervalNanos;
+
+    private final AtomicLong nextSlot = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Instantiates a new throughput pacer.
+     *
+     * @param messagesPerSecond the maximum send rate
+     */
+    public ThroughputPacer(double messagesPerSecond) {
+        if (!(messagesPerSecond > 0)) {
+            throw new IllegalArgumentException("messagesPerSecond must be positive");
+        }
+        this.messagesPerSecond = messagesPerSecond;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / messagesPerSecond));
+    }
+
+    /**
+     * Messages per second allowed for a throughput level. {@code null} and {@link LevelType#NOT_APPLICABLE} are
+     * treated as {@link LevelType#STANDARD}.
+     *
+     * @param level the throughput level
+     * @return the messages per second
+     */
+    public static int messagesPerSecond(LevelType level) {
+        return level == LevelType.HIGH ? HIGH_MESSAGES_PER_SECOND : STANDARD_MESSAGES_PER_SECOND;
+    }
+
+    /**
+     * Messages per second allowed for the throughput returned by the phone number api.
+     *
+     * @param throughput the throughput, may be null
+     * @return the messages per second
+     * @see com.whatsapp.api.impl.WhatsappBusinessManagementApi#retrievePhoneNumber(String, String...)
+     */
+    public static int messagesPerSecond(Throughput throughput) {
+        return messagesPerSecond(throughput == null ? null : throughput.Level());
+    }
+
+    /**
+     * Returns the pacer shared by every sender of a business phone number. If the throughput level of the phone
+     * number changed since the pacer was created, it is replaced by a pacer with the new rate.
+     *
+     * @param phoneNumberId the business phone number id
+     * @param level         the current throughput level of the phone number
+     * @return the pacer
+     */
+    public static ThroughputPacer forPhoneNumber(String phoneNumberId, LevelType level) {
+        Objects.requireNonNull(phoneNumberId, "phoneNumberId cannot be null");
+        int rate = messagesPerSecond(level);
+        return PACERS.compute(phoneNumberId, (id, pacer) -> pacer != null && pacer.messagesPerSecond == rate ? pacer : new ThroughputPacer(rate));
+    }
+
+    /**
+     * Waits for the next send slot.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long now = System.nanoTime();
+        long slot = reserve(now);
+        long wait = slot - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Reserves the next send slot without waiting.
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @return the {@link System#nanoTime()} at which the reserved message may be sent
+     */
+    long reserve(long now) {
+        long previous;
+        long slot;
+        do {
+            previous = nextSlot.get();
+            // an idle pacer does not accumulate credit: the first message after a pause goes out now
+            slot = previous == Long.MIN_VALUE || previous - now < 0 ? now : previous;
+        } while (!nextSlot.compareAndSet(previous, slot + intervalNanos));
+        return slot;
+    }
+
+    /**
+     * Gets the maximum send rate.
+     *
+     * @return the messages per second
+     */
+    public double getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+}
@@ -0,0 +1,24 @@
+package com.whatsapp.api.cache;
+
+import java.time.Instant;
+
+/**
+ * A media uploaded to a business phone number, stored by a {@link MediaUploadStore}.
+ *
+ * @param phoneNumberId the business phone number id the media was uploaded to
+ * @param sha256        the hex encoded SHA-256 hash of the media content
+ * @param mediaId       the media id returned by the upload
+ * @param expiresAt     the instant after which the media id is not reused
+ */
+public record CachedUpload(String phoneNumberId, String sha256, String mediaId, Instant expiresAt) {
+
+    /**
+     * Whether the media id can still be reused.
+     *
+     * @param now the current instant
+     * @return true if the upload has not expired
+     */
+    public boolean isValidAt(Instant now) {
+        return now.isBefore(expiresAt);
+    }
+}
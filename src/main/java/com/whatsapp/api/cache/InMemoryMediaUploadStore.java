@@ -0,0 +1,59 @@
+package com.whatsapp.api.cache;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link MediaUploadStore} that keeps the uploads in memory. Uploads are lost when the application stops.
+ */
+public class InMemoryMediaUploadStore implements MediaUploadStore {
+
+    private final Map<Key, CachedUpload> uploads = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<CachedUpload> find(String phoneNumberId, String sha256) {
+        return Optional.ofNullable(uploads.get(new Key(phoneNumberId, sha256)));
+    }
+
+    @Override
+    public void save(CachedUpload upload) {
+        uploads.put(new Key(upload.phoneNumberId(), upload.sha256()), upload);
+    }
+
+    @Override
+    public void remove(String phoneNumberId, String sha256) {
+        uploads.remove(new Key(phoneNumberId, sha256));
+    }
+
+    /**
+     * Remove the uploads that expired before an instant.
+     *
+     * @param now the current instant
+     * @return the number of removed uploads
+     */
+    @Override
+    public int removeExpired(Instant now) {
+        int removed = 0;
+        for (var iterator = uploads.values().iterator(); iterator.hasNext(); ) {
+            if (!iterator.next().isValidAt(now)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Number of stored uploads.
+     *
+     * @return the size
+     */
+    public int size() {
+        return uploads.size();
+    }
+
+    private record Key(String phoneNumberId, String sha256) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.whatsapp.api.cache;
+
+import com.whatsapp.api.exception.WhatsappApiException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link MediaUploadStore} that keeps the uploads in a database table, so they are shared by the instances of an
+ * application and survive restarts.
+ * <p>
+ * The table must have these columns, with a primary key on {@code (phone_number_id, sha256)}:
+ *
+ * <pre>{@code
+ * CREATE TABLE media_uploads (
+ *     phone_number_id VARCHAR(255) NOT NULL,
+ *     sha256 CHAR(64) NOT NULL,
+ *     media_id VARCHAR(255) NOT NULL,
+ *     expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+ *     PRIMARY KEY (phone_number_id, sha256)
+ * );
+ * }</pre>
+ * Only portable SQL is used: a save updates the row, and inserts it when there was none.
+ */
+public class JdbcMediaUploadStore implements MediaUploadStore {
+
+    /**
+     * The default table name.
+     */
+    public static final String DEFAULT_TABLE = "media_uploads";
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+
+    private final DataSource dataSource;
+
+    private final String selectSql;
+
+    private final String updateSql;
+
+    private final String insertSql;
+
+    private final String deleteSql;
+
+    private final String deleteExpiredSql;
+
+    /**
+     * Instantiates a new store on the {@link #DEFAULT_TABLE}.
+     *
+     * @param dataSource the data source
+     */
+    public JdbcMediaUploadStore(DataSource dataSource) {
+        this(dataSource, DEFAULT_TABLE);
+    }
+
+    /**
+     * Instantiates a new store.
+     *
+     * @param dataSource the data source
+     * @param table      the table name, optionally qualified by a schema
+     */
+    public JdbcMediaUploadStore(DataSource dataSource, String table) {
+        this.dataSource = Objects.requireNonNull(dataSource, "dataSource cannot be null");
+        if (table == null || !TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + table);
+        }
+        this.selectSql = "SELECT media_id, expires_at FROM " + table + " WHERE phone_number_id = ? AND sha256 = ?";
+        this.updateSql = "UPDATE " + table + " SET media_id = ?, expires_at = ? WHERE phone_number_id = ? AND sha256 = ?";
+        this.insertSql = "INSERT INTO " + table + " (phone_number_id, sha256, media_id, expires_at) VALUES (?, ?, ?, ?)";
+        this.deleteSql = "DELETE FROM " + table + " WHERE phone_number_id = ? AND sha256 = ?";
+        this.deleteExpiredSql = "DELETE FROM " + table + " WHERE expires_at <= ?";
+    }
+
+    @Override
+    public Optional<CachedUpload> find(String phoneNumberId, String sha256) {
+        try (Connection connection = dataSource.getConnection(); PreparedStatement statement = connection.prepareStatement(selectSql)) {
+            statement.setString(1, phoneNumberId);
+            statement.setString(2, sha256);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new CachedUpload(phoneNumberId, sha256, resultSet.getString(1), resultSet.getTimestamp(2).toInstant()));
+            }
+        } catch (SQLException e) {
+            throw new WhatsappApiException(e);
+        }
+    }
+
+    @Override
+    public void save(CachedUpload upload) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (update(connection, upload) > 0) {
+                return;
+            }
+            try {
+                insert(connection, upload);
+            } catch (SQLException e) {
+                // another instance inserted the same upload in the meantime
+                if (!isIntegrityConstraintViolation(e) || update(connection, upload) == 0) {
+                    throw e;
+                }
+            }
+        } catch (SQLException e) {
+            throw new WhatsappApiException(e);
+        }
+    }
+
+    @Override
+    public void remove(String phoneNumberId, String sha256) {
+        try (Connection connection = dataSource.getConnection(); PreparedStatement statement = connection.prepareStatement(deleteSql)) {
+            statement.setString(1, phoneNumberId);
+            statement.setString(2, sha256);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new WhatsappApiException(e);
+        }
+    }
+
+    /**
+     * Delete the uploads that expired before an instant.
+     *
+     * @param now the current instant
+     * @return the number of deleted uploads
+     */
+    @Override
+    public int removeExpired(Instant now) {
+        try (Connection connection = dataSource.getConnection(); PreparedStatement statement = connection.prepareStatement(deleteExpiredSql)) {
+            statement.setTimestamp(1, Timestamp.from(now));
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new WhatsappApiException(e);
+        }
+    }
+
+    private int update(Connection connection, CachedUpload upload) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(updateSql)) {
+            statement.setString(1, upload.mediaId());
+            statement.setTimestamp(2, Timestamp.from(upload.expiresAt()));
+            statement.setString(3, upload.phoneNumberId());
+            statement.setString(4, upload.sha256());
+            return statement.executeUpdate();
+        }
+    }
+
+    private void insert(Connection connection, CachedUpload upload) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+            statement.setString(1, upload.phoneNumberId());
+            statement.setString(2, upload.sha256());
+            statement.setString(3, upload.mediaId());
+            statement.setTimestamp(4, Timestamp.from(upload.expiresAt()));
+            statement.executeUpdate();
+        }
+    }
+
+    private static boolean isIntegrityConstraintViolation(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith("23");
+    }
+}
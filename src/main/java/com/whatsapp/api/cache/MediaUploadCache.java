@@ -0,0 +1,257 @@
+package com.whatsapp.api.cache;
+
+import com.whatsapp.api.domain.media.FileType;
+import com.whatsapp.api.domain.media.UploadResponse;
+import com.whatsapp.api.exception.WhatsappApiException;
+import com.whatsapp.api.impl.WhatsappBusinessCloudApi;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Uploads media once per content and business phone number, and reuses the media id of the first upload.
+ * <p>
+ * Uploads are keyed by phone number id and SHA-256 hash of the content, so the same file attached to many messages
+ * is only uploaded again once the previous upload expired. Uploaded media persist for 30 days; ids are reused for
+ * {@link #DEFAULT_LIFETIME}, so that a message sent with a reused id is not delivered after its media was deleted.
+ * <p>
+ * Concurrent uploads of the same content to the same phone number share one Graph API call. The uploads are kept
+ * by a {@link MediaUploadStore}.
+ *
+ * <pre>{@code
+ * var cache = new MediaUploadCache(factory.newBusinessCloudApi(), new InMemoryMediaUploadStore());
+ * var mediaId = cache.uploadMedia(phoneNumberId, "house-rules.pdf", FileType.PDF, Path.of("house-rules.pdf")).id();
+ * }</pre>
+ */
+public class MediaUploadCache {
+
+    /**
+     * How long the id of an uploaded media is reused: its 30 days lifetime, minus a day.
+     */
+    public static final Duration DEFAULT_LIFETIME = Duration.ofDays(29);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WhatsappBusinessCloudApi whatsappBusinessCloudApi;
+
+    private final MediaUploadStore store;
+
+    private final Duration lifetime;
+
+    private final Clock clock;
+
+    private final Map<CachedUploadKey, CompletableFuture<UploadResponse>> uploading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder uploads = new LongAdder();
+
+    /**
+     * Instantiates a new media upload cache with the default lifetime.
+     *
+     * @param whatsappBusinessCloudApi the api
+     * @param store                    the store of the uploads
+     */
+    public MediaUploadCache(WhatsappBusinessCloudApi whatsappBusinessCloudApi, MediaUploadStore store) {
+        this(whatsappBusinessCloudApi, store, DEFAULT_LIFETIME, Clock.systemUTC());
+    }
+
+    /**
+     * Instantiates a new media upload cache.
+     *
+     * @param whatsappBusinessCloudApi the api
+     * @param store                    the store of the uploads
+     * @param lifetime                 how long the id of an uploaded media is reused
+     * @param clock                    the clock
+     */
+    public MediaUploadCache(WhatsappBusinessCloudApi whatsappBusinessCloudApi, MediaUploadStore store, Duration lifetime, Clock clock) {
+        this.whatsappBusinessCloudApi = Objects.requireNonNull(whatsappBusinessCloudApi, "whatsappBusinessCloudApi cannot be null");
+        this.store = Objects.requireNonNull(store, "store cannot be null");
+        this.lifetime = Objects.requireNonNull(lifetime, "lifetime cannot be null");
+        this.clock = Objects.requireNonNull(clock, "clock cannot be null");
+        if (lifetime.isNegative() || lifetime.isZero()) {
+            throw new IllegalArgumentException("lifetime must be positive");
+        }
+    }
+
+    /**
+     * Upload media, unless the same content was already uploaded to the phone number and has not expired.
+     *
+     * @param phoneNumberId Business phone number ID.
+     * @param fileName      file name. Ex: photo1.jpg
+     * @param fileType      the file type. See {@link FileType}
+     * @param file          byte[] - file content
+     * @return the {@link UploadResponse} of the upload, or of the previous upload of the same content
+     * @see WhatsappBusinessCloudApi#uploadMedia(String, String, FileType, byte[])
+     */
+    public UploadResponse uploadMedia(String phoneNumberId, String fileName, FileType fileType, byte[] file) {
+        Objects.requireNonNull(file, "file cannot be null");
+        return uploadMedia(phoneNumberId, sha256(file), () -> whatsappBusinessCloudApi.uploadMedia(phoneNumberId, fileName, fileType, file));
+    }
+
+    /**
+     * Upload media from a file, unless the same content was already uploaded to the phone number and has not expired.
+     * The file is read once to compute its hash, and once more if it is uploaded.
+     *
+     * @param phoneNumberId Business phone number ID.
+     * @param fileName      file name. Ex: photo1.jpg
+     * @param fileType      the file type. See {@link FileType}
+     * @param file          the file to upload
+     * @return the {@link UploadResponse} of the upload, or of the previous upload of the same content
+     * @see WhatsappBusinessCloudApi#uploadMedia(String, String, FileType, Path)
+     */
+    public UploadResponse uploadMedia(String phoneNumberId, String fileName, FileType fileType, Path file) {
+        Objects.requireNonNull(file, "file cannot be null");
+        return uploadMedia(phoneNumberId, sha256(file), () -> whatsappBusinessCloudApi.uploadMedia(phoneNumberId, fileName, fileType, file));
+    }
+
+    /**
+     * Forget the upload of a content, for example after the api reported its media id as unknown. The next upload of
+     * the content calls the api again.
+     *
+     * @param phoneNumberId the business phone number id
+     * @param sha256        the hex encoded SHA-256 hash of the content
+     * @see #sha256(byte[])
+     * @see #sha256(Path)
+     */
+    public void invalidate(String phoneNumberId, String sha256) {
+        store.remove(phoneNumberId, sha256);
+    }
+
+    /**
+     * Number of uploads answered with the media id of a previous upload.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of uploads that called the api.
+     *
+     * @return the upload count
+     */
+    public long getUploadCount() {
+        return uploads.sum();
+    }
+
+    /**
+     * The hex encoded SHA-256 hash of a content, as used for the keys of the cache.
+     *
+     * @param content the content
+     * @return the hash
+     */
+    public static String sha256(byte[] content) {
+        MessageDigest digest = newDigest();
+        digest.update(content);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The hex encoded SHA-256 hash of a file, as used for the keys of the cache.
+     *
+     * @param file the file
+     * @return the hash
+     * @throws UncheckedIOException if the file cannot be read
+     */
+    public static String sha256(Path file) {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private UploadResponse uploadMedia(String phoneNumberId, String sha256, Supplier<UploadResponse> upload) {
+        Objects.requireNonNull(phoneNumberId, "phoneNumberId cannot be null");
+        Optional<CachedUpload> cached = findValid(phoneNumberId, sha256);
+        if (cached.isPresent()) {
+            hits.increment();
+            return new UploadResponse(cached.get().mediaId());
+        }
+
+        var key = new CachedUploadKey(phoneNumberId, sha256);
+        var pending = new CompletableFuture<UploadResponse>();
+        var running = uploading.putIfAbsent(key, pending);
+        if (running != null) {
+            // the same content is being uploaded by another thread
+            hits.increment();
+            return join(running);
+        }
+
+        try {
+            // checked again: an upload may have finished between the first check and the registration
+            cached = findValid(phoneNumberId, sha256);
+            UploadResponse response;
+            if (cached.isPresent()) {
+                hits.increment();
+                response = new UploadResponse(cached.get().mediaId());
+            } else {
+                uploads.increment();
+                Instant uploadedAt = clock.instant();
+                response = upload.get();
+                store.save(new CachedUpload(phoneNumberId, sha256, response.id(), uploadedAt.plus(lifetime)));
+            }
+            pending.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            uploading.remove(key, pending);
+        }
+    }
+
+    private Optional<CachedUpload> findValid(String phoneNumberId, String sha256) {
+        Instant now = clock.instant();
+        return store.find(phoneNumberId, sha256).filter(upload -> upload.isValidAt(now));
+    }
+
+    private static UploadResponse join(CompletableFuture<UploadResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new WhatsappApiException(e.getCause());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record CachedUploadKey(String phoneNumberId, String sha256) {
+    }
+}
@@ -0,0 +1,238 @@
+package com.whatsapp.api.cache;
+
+import com.whatsapp.api.domain.media.Media;
+import com.whatsapp.api.exception.WhatsappApiException;
+import com.whatsapp.api.impl.WhatsappBusinessCloudApi;
+import com.whatsapp.api.impl.WhatsappBusinessCloudApiAsync;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of {@link Media} objects by media id, for {@code retrieveMediaUrl}.
+ * <p>
+ * The url of a media is only valid for 5 minutes, so entries expire after {@link #DEFAULT_TTL}, counted from the
+ * moment the url was requested. When full, the least recently used entry is evicted.
+ * <p>
+ * Concurrent lookups of the same media id share one Graph API call: the first lookup starts it, the others
+ * wait for its result. Failed lookups are not cached.
+ *
+ * <pre>{@code
+ * var cache = new MediaUrlCache(factory.newBusinessCloudApi());
+ * var media = cache.retrieveMediaUrl(mediaId);
+ * }</pre>
+ */
+public class MediaUrlCache {
+
+    /**
+     * How long a media url is cached: its 5 minutes validity, minus a margin to download the file.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(4).plusSeconds(30);
+
+    /**
+     * The default maximum number of cached media.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    private final Function<String, CompletableFuture<Media>> loader;
+
+    private final long ttlNanos;
+
+    private final LongSupplier nanoTime;
+
+    private final Map<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Instantiates a new media url cache backed by the blocking api, with the default size and ttl.
+     * The Graph API call is made by the thread of the first lookup.
+     *
+     * @param whatsappBusinessCloudApi the api
+     */
+    public MediaUrlCache(WhatsappBusinessCloudApi whatsappBusinessCloudApi) {
+        this(whatsappBusinessCloudApi, DEFAULT_MAX_SIZE, DEFAULT_TTL);
+    }
+
+    /**
+     * Instantiates a new media url cache backed by the blocking api.
+     *
+     * @param whatsappBusinessCloudApi the api
+     * @param maxSize                  the maximum number of cached media
+     * @param ttl                      how long an entry is valid
+     */
+    public MediaUrlCache(WhatsappBusinessCloudApi whatsappBusinessCloudApi, int maxSize, Duration ttl) {
+        this(blockingLoader(Objects.requireNonNull(whatsappBusinessCloudApi, "whatsappBusinessCloudApi cannot be null")), maxSize, ttl, System::nanoTime);
+    }
+
+    /**
+     * Instantiates a new media url cache backed by the asynchronous api, with the default size and ttl.
+     *
+     * @param whatsappBusinessCloudApiAsync the api
+     */
+    public MediaUrlCache(WhatsappBusinessCloudApiAsync whatsappBusinessCloudApiAsync) {
+        this(whatsappBusinessCloudApiAsync, DEFAULT_MAX_SIZE, DEFAULT_TTL);
+    }
+
+    /**
+     * Instantiates a new media url cache backed by the asynchronous api.
+     *
+     * @param whatsappBusinessCloudApiAsync the api
+     * @param maxSize                       the maximum number of cached media
+     * @param ttl                           how long an entry is valid
+     */
+    public MediaUrlCache(WhatsappBusinessCloudApiAsync whatsappBusinessCloudApiAsync, int maxSize, Duration ttl) {
+        this(Objects.requireNonNull(whatsappBusinessCloudApiAsync, "whatsappBusinessCloudApiAsync cannot be null")::retrieveMediaUrl, maxSize, ttl, System::nanoTime);
+    }
+
+    MediaUrlCache(Function<String, CompletableFuture<Media>> loader, int maxSize, Duration ttl, LongSupplier nanoTime) {
+        Objects.requireNonNull(ttl, "ttl cannot be null");
+        if (maxSize < 1 || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("maxSize and ttl must be positive");
+        }
+        this.loader = loader;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Retrieve the {@link Media} object of a media id, from the cache when it holds a valid entry.
+     *
+     * @param mediaId the media id
+     * @return a future completed with the media
+     * @see WhatsappBusinessCloudApiAsync#retrieveMediaUrl(String)
+     */
+    public CompletableFuture<Media> retrieveMediaUrlAsync(String mediaId) {
+        Objects.requireNonNull(mediaId, "mediaId cannot be null");
+        long now = nanoTime.getAsLong();
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(mediaId);
+            if (entry != null && entry.expiresAt - now > 0) {
+                hits.increment();
+                return entry.media.copy();
+            }
+            entry = new Entry(new CompletableFuture<>(), now + ttlNanos);
+            entries.put(mediaId, entry);
+        }
+        misses.increment();
+
+        // loaded outside the lock; concurrent lookups of the same id get the pending entry
+        var loaded = entry;
+        CompletableFuture<Media> call;
+        try {
+            call = loader.apply(mediaId);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((media, error) -> {
+            if (error == null) {
+                loaded.media.complete(media);
+                return;
+            }
+            synchronized (entries) {
+                entries.remove(mediaId, loaded);
+            }
+            loaded.media.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        });
+        // a copy, so that a caller cancelling its future does not cancel it for the others
+        return loaded.media.copy();
+    }
+
+    /**
+     * Retrieve the {@link Media} object of a media id, from the cache when it holds a valid entry.
+     *
+     * @param mediaId the media id
+     * @return the media
+     * @throws WhatsappApiException if the Graph API call failed
+     * @see WhatsappBusinessCloudApi#retrieveMediaUrl(String)
+     */
+    public Media retrieveMediaUrl(String mediaId) {
+        try {
+            return retrieveMediaUrlAsync(mediaId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new WhatsappApiException(e.getCause());
+        }
+    }
+
+    /**
+     * Removes a media from the cache, for example after its url was rejected.
+     *
+     * @param mediaId the media id
+     */
+    public void invalidate(String mediaId) {
+        synchronized (entries) {
+            entries.remove(mediaId);
+        }
+    }
+
+    /**
+     * Removes every media from the cache.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Number of cached media, expired entries included until they are replaced or evicted.
+     *
+     * @return the size
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Number of lookups answered from the cache, including lookups that joined a pending call.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Number of lookups that made a Graph API call.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private static Function<String, CompletableFuture<Media>> blockingLoader(WhatsappBusinessCloudApi whatsappBusinessCloudApi) {
+        return mediaId -> {
+            try {
+                return CompletableFuture.completedFuture(whatsappBusinessCloudApi.retrieveMediaUrl(mediaId));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        };
+    }
+
+    private record Entry(CompletableFuture<Media> media, long expiresAt) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.whatsapp.api.configuration;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Sizing of the HTTP connection pool and dispatcher shared by every Whatsapp api client.
+ * <p>
+ * All Graph API requests go to the same host, so {@code maxRequestsPerHost} is effectively the number of
+ * concurrent requests a single JVM can have in flight.
+ *
+ * @param maxRequests        maximum number of concurrent requests across all hosts
+ * @param maxRequestsPerHost maximum number of concurrent requests to a single host
+ * @param maxIdleConnections maximum number of idle connections kept in the pool
+ * @param keepAlive          how long an idle connection is kept before being evicted
+ * @see <a href="https://square.github.io/okhttp/5.x/okhttp/okhttp3/-dispatcher/">Dispatcher</a>
+ * @see <a href="https://square.github.io/okhttp/5.x/okhttp/okhttp3/-connection-pool/">ConnectionPool</a>
+ */
+public record ConnectionPoolSettings(int maxRequests, int maxRequestsPerHost, int maxIdleConnections,
+                                     Duration keepAlive) {
+
+    /**
+     * Instantiates new connection pool settings.
+     *
+     * @throws IllegalArgumentException if any of the limits is not positive
+     */
+    public ConnectionPoolSettings {
+        Objects.requireNonNull(keepAlive, "keepAlive cannot be null");
+        if (maxRequests < 1 || maxRequestsPerHost < 1 || maxIdleConnections < 1 || keepAlive.isNegative() || keepAlive.isZero()) {
+            throw new IllegalArgumentException("Connection pool settings must be positive");
+        }
+    }
+
+    /**
+     * The OkHttp defaults: 64 concurrent requests, 5 per host, 5 idle connections kept for 5 minutes.
+     *
+     * @return the default connection pool settings
+     */
+    public static ConnectionPoolSettings defaults() {
+        return new ConnectionPoolSettings(64, 5, 5, Duration.ofMinutes(5));
+    }
+}
@@ -0,0 +1,51 @@
+package com.whatsapp.api.configuration;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Client side rate limiting and retry of throttled Graph API calls.
+ * <p>
+ * Every phone number and WhatsApp Business Account gets its own token bucket of {@code burst} tokens refilled at
+ * {@code permitsPerSecond}. A call waits for a token instead of failing. Throttled calls are retried at most
+ * {@code maxRetries} times with jittered exponential backoff between {@code initialBackoff} and {@code maxBackoff},
+ * or after the delay asked by the {@code Retry-After} header when it is longer.
+ * <p>
+ * Waits count towards the call timeout of the http client.
+ *
+ * @param burst            the capacity of each token bucket
+ * @param permitsPerSecond the refill rate of each token bucket
+ * @param maxRetries       maximum number of retries of a call, 0 disables retries
+ * @param initialBackoff   the backoff before the first retry
+ * @param maxBackoff       the longest backoff, and the longest {@code Retry-After} that is honoured
+ * @see com.whatsapp.api.interceptor.RateLimitInterceptor
+ */
+public record RateLimitSettings(int burst, double permitsPerSecond, int maxRetries, Duration initialBackoff,
+                                Duration maxBackoff) {
+
+    /**
+     * Instantiates new rate limit settings.
+     *
+     * @throws IllegalArgumentException if a limit is out of range
+     */
+    public RateLimitSettings {
+        Objects.requireNonNull(initialBackoff, "initialBackoff cannot be null");
+        Objects.requireNonNull(maxBackoff, "maxBackoff cannot be null");
+        if (burst < 1 || !(permitsPerSecond > 0) || maxRetries < 0) {
+            throw new IllegalArgumentException("burst and permitsPerSecond must be positive, maxRetries cannot be negative");
+        }
+        if (initialBackoff.isNegative() || initialBackoff.isZero() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("initialBackoff must be positive and not greater than maxBackoff");
+        }
+    }
+
+    /**
+     * 80 calls per second with bursts of 80 (the standard Cloud API throughput of a phone number),
+     * 3 retries with a backoff from 500 milliseconds to 8 seconds.
+     *
+     * @return the default rate limit settings
+     */
+    public static RateLimitSettings defaults() {
+        return new RateLimitSettings(80, 80, 3, Duration.ofMillis(500), Duration.ofSeconds(8));
+    }
+}
@@ -0,0 +1,16 @@
+package com.whatsapp.api.domain.media;
+
+/**
+ * Receives the progress of a media download.
+ */
+@FunctionalInterface
+public interface DownloadProgressListener {
+
+    /**
+     * Called after each chunk written.
+     *
+     * @param bytesWritten  number of bytes written so far
+     * @param contentLength size of the file, or -1 if unknown
+     */
+    void onProgress(long bytesWritten, long contentLength);
+}
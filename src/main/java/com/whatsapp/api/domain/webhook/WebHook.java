@@ -1,8 +1,19 @@
 package com.whatsapp.api.domain.webhook;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * The type Webhook.
@@ -11,6 +22,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public final class WebHook {
     private static final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
+    /**
+     * Reads the changes of {@link #decode}: a field, event or type added by WhatsApp is read as null instead of failing the webhook.
+     */
+    private static final ObjectReader changeReader = mapper.readerFor(Change.class)
+            .with(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL);
+
+    private static final String OBJECT_WHATSAPP_BUSINESS_ACCOUNT = "whatsapp_business_account";
+
     /**
      * Construct WebHookEvent object
      *
@@ -24,4 +43,126 @@ public final class WebHook {
 
     }
 
+    /**
+     * Decode a webhook as it is read, and dispatch its entries and changes to a listener.
+     * <p>
+     * Unlike {@link #constructEvent(String)}, the payload is neither read into a String nor into a {@link WebHookEvent}:
+     * each change is read into its records straight from the stream, and the listener is called once the entry of
+     * the change is read.
+     *
+     * @param payload  the webhook payload json sent by Whatsapp. It is not closed.
+     * @param listener the listener
+     * @throws IOException if the payload cannot be read or is not a webhook
+     */
+    public static void decode(InputStream payload, WebHookListener listener) throws IOException {
+        Objects.requireNonNull(payload, "payload cannot be null");
+        Objects.requireNonNull(listener, "listener cannot be null");
+        try (JsonParser parser = mapper.getFactory().createParser(payload)) {
+            decode(parser, null, listener);
+        }
+    }
+
+    /**
+     * Decode a webhook, and dispatch its entries and changes to a listener.
+     * The listener also receives the JSON of each entry as received.
+     *
+     * @param payload  the webhook payload json sent by Whatsapp, UTF-8 encoded
+     * @param listener the listener
+     * @throws IOException if the payload is not a webhook
+     * @see #decode(InputStream, WebHookListener)
+     */
+    public static void decode(byte[] payload, WebHookListener listener) throws IOException {
+        Objects.requireNonNull(payload, "payload cannot be null");
+        Objects.requireNonNull(listener, "listener cannot be null");
+        try (JsonParser parser = mapper.getFactory().createParser(payload)) {
+            decode(parser, payload, listener);
+        }
+    }
+
+    private static void decode(JsonParser parser, byte[] source, WebHookListener listener) throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+        String object = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "object" -> {
+                    object = parser.getValueAsString();
+                    if (!OBJECT_WHATSAPP_BUSINESS_ACCOUNT.equals(object)) {
+                        listener.onUnsupportedObject(object);
+                    }
+                }
+                case "entry" -> {
+                    if (object == null || OBJECT_WHATSAPP_BUSINESS_ACCOUNT.equals(object)) {
+                        decodeEntries(parser, source, listener);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+    }
+
+    private static void decodeEntries(JsonParser parser, byte[] source, WebHookListener listener) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            decodeEntry(parser, source, listener);
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+    }
+
+    private static void decodeEntry(JsonParser parser, byte[] source, WebHookListener listener) throws IOException {
+        long start = parser.currentTokenLocation().getByteOffset();
+        String id = null;
+        long time = 0;
+        List<Change> changes = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            switch (name) {
+                case "id" -> id = parser.getValueAsString();
+                case "time" -> time = parser.getValueAsLong();
+                case "changes" -> {
+                    expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        changes.add(changeReader.readValue(parser));
+                    }
+                    expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+
+        String json = null;
+        if (source != null) {
+            // the entry ends with the closing brace just read
+            long end = parser.currentTokenLocation().getByteOffset() + 1;
+            json = new String(source, (int) start, (int) (end - start), StandardCharsets.UTF_8);
+        }
+
+        var entry = new Entry(changes, id, time);
+        listener.onEntry(entry, json);
+        for (Change change : changes) {
+            if (change.field() == null) {
+                listener.onOtherChange(entry, change);
+                continue;
+            }
+            switch (change.field()) {
+                case MESSAGES -> listener.onMessages(entry, change.value());
+                case ACCOUNT_UPDATE -> listener.onAccountUpdate(entry, change.value());
+                case MESSAGE_TEMPLATE_STATUS_UPDATE -> listener.onTemplateStatusUpdate(entry, change.value());
+                default -> listener.onOtherChange(entry, change);
+            }
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expected) throws JsonParseException {
+        if (token != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " in webhook but found " + token);
+        }
+    }
+
 }
@@ -0,0 +1,63 @@
+package com.whatsapp.api.domain.webhook;
+
+import com.whatsapp.api.domain.webhook.type.FieldType;
+
+/**
+ * Receives the entries and changes of a webhook as {@link WebHook#decode(java.io.InputStream, WebHookListener)} reads
+ * them. Each change is dispatched to the method of its {@link FieldType}; the methods do nothing by default.
+ */
+public interface WebHookListener {
+
+    /**
+     * Called for each entry, before its changes are dispatched.
+     *
+     * @param entry the entry, with all its changes
+     * @param json  the JSON of the entry as received, when the payload was decoded from bytes; null otherwise
+     */
+    default void onEntry(Entry entry, String json) {
+    }
+
+    /**
+     * Called for a change of field {@link FieldType#MESSAGES}: inbound messages and statuses of sent messages.
+     *
+     * @param entry the entry of the change
+     * @param value the value of the change
+     */
+    default void onMessages(Entry entry, Value value) {
+    }
+
+    /**
+     * Called for a change of field {@link FieldType#ACCOUNT_UPDATE}.
+     *
+     * @param entry the entry of the change
+     * @param value the value of the change
+     */
+    default void onAccountUpdate(Entry entry, Value value) {
+    }
+
+    /**
+     * Called for a change of field {@link FieldType#MESSAGE_TEMPLATE_STATUS_UPDATE}.
+     *
+     * @param entry the entry of the change
+     * @param value the value of the change
+     */
+    default void onTemplateStatusUpdate(Entry entry, Value value) {
+    }
+
+    /**
+     * Called for a change of any other field. The field is null when it is not a known {@link FieldType}.
+     *
+     * @param entry  the entry of the change
+     * @param change the change
+     */
+    default void onOtherChange(Entry entry, Change change) {
+    }
+
+    /**
+     * Called when the webhook is not about a WhatsApp Business Account; its entries are skipped.
+     *
+     * @param object the object of the webhook
+     */
+    default void onUnsupportedObject(String object) {
+    }
+}
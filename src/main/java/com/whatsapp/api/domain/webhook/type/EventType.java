@@ -10,6 +10,14 @@ public enum EventType {
      * Disabled update event type.
      */
     DISABLED_UPDATE, //
+    /**
+     * Partner added event type: the business shared its WhatsApp Business Account with the app.
+     */
+    PARTNER_ADDED, //
+    /**
+     * Partner removed event type: the business stopped sharing its WhatsApp Business Account with the app.
+     */
+    PARTNER_REMOVED, //
     /**
      * Verified account event type.
      */
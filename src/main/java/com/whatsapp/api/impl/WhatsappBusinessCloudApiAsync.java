@@ -0,0 +1,331 @@
+package com.whatsapp.api.impl;
+
+import com.whatsapp.api.configuration.ApiVersion;
+import com.whatsapp.api.domain.media.DownloadProgressListener;
+import com.whatsapp.api.domain.media.FileType;
+import com.whatsapp.api.domain.media.Media;
+import com.whatsapp.api.domain.media.MediaDownload;
+import com.whatsapp.api.domain.media.MediaFile;
+import com.whatsapp.api.domain.media.UploadResponse;
+import com.whatsapp.api.domain.messages.Message;
+import com.whatsapp.api.domain.messages.ReadMessage;
+import com.whatsapp.api.domain.messages.response.MessageResponse;
+import com.whatsapp.api.domain.phone.TwoStepCode;
+import com.whatsapp.api.domain.response.Response;
+import com.whatsapp.api.service.WhatsappBusinessCloudApiService;
+import com.whatsapp.api.utils.StreamingRequestBody;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.MultipartBody.Part;
+import okhttp3.RequestBody;
+import retrofit2.Call;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static com.whatsapp.api.WhatsappApiServiceGenerator.*;
+import static com.whatsapp.api.configuration.WhatsappApiConfig.getApiVersion;
+
+/**
+ * Implementation of WhatsApp Business Platform Cloud API with asynchronous/non-blocking
+ * method calls.
+ * <p>
+ * Every method enqueues the request on the shared OkHttp dispatcher and returns immediately with a
+ * {@link CompletableFuture}. Failed requests complete the future exceptionally with a
+ * {@link com.whatsapp.api.exception.WhatsappApiException}, exactly as the blocking {@link WhatsappBusinessCloudApi} would throw it.
+ *
+ * @see <a href="https://developers.facebook.com/docs/whatsapp/cloud-api">WhatsApp Business Platform Cloud API</a>
+ */
+public class WhatsappBusinessCloudApiAsync {
+
+    private final WhatsappBusinessCloudApiService whatsappBusinessCloudApiService;
+
+    private final ApiVersion apiVersion;
+
+    /**
+     * Instantiates a new asynchronous Whatsapp business cloud api.
+     *
+     * @param token the token
+     */
+    public WhatsappBusinessCloudApiAsync(String token) {
+        this.apiVersion = getApiVersion();
+        this.whatsappBusinessCloudApiService = createService(WhatsappBusinessCloudApiService.class, token);
+    }
+
+    /**
+     * Instantiates a new asynchronous Whatsapp business cloud api, specifying API version
+     *
+     * @param token      the token
+     * @param apiVersion api version
+     */
+    public WhatsappBusinessCloudApiAsync(String token, ApiVersion apiVersion) {
+        this.apiVersion = apiVersion;
+        this.whatsappBusinessCloudApiService = createService(WhatsappBusinessCloudApiService.class, token);
+    }
+
+    /**
+     * Send message.
+     *
+     * @param phoneNumberId Represents a specific phone number.
+     * @param message       The {@link Message} object.
+     * @return a future completed with the {@link MessageResponse}
+     * @see WhatsappBusinessCloudApi#sendMessage(String, Message)
+     */
+    public CompletableFuture<MessageResponse> sendMessage(String phoneNumberId, Message message) {
+
+        return executeAsync(whatsappBusinessCloudApiService.sendMessage(apiVersion.getValue(), phoneNumberId, message));
+    }
+
+    /**
+     * Send a message whose body is already serialized.
+     *
+     * @param phoneNumberId Represents a specific phone number.
+     * @param message       The json of the message.
+     * @return a future completed with the {@link MessageResponse}
+     * @see WhatsappBusinessCloudApi#sendMessage(String, RequestBody)
+     */
+    public CompletableFuture<MessageResponse> sendMessage(String phoneNumberId, RequestBody message) {
+
+        return executeAsync(whatsappBusinessCloudApiService.sendMessage(apiVersion.getValue(), phoneNumberId, message));
+    }
+
+    /**
+     * Upload media.
+     *
+     * @param phoneNumberId Business phone number ID.
+     * @param fileName      file name. Ex: photo1.jpg
+     * @param fileType      the file type. See {@link FileType}
+     * @param file          byte[] - file content
+     * @return a future completed with the {@link UploadResponse}
+     * @see WhatsappBusinessCloudApi#uploadMedia(String, String, FileType, byte[])
+     */
+    public CompletableFuture<UploadResponse> uploadMedia(String phoneNumberId, String fileName, FileType fileType, byte[] file) {
+
+        var requestFile = MultipartBody.create(file, MediaType.parse(fileType.getType()));
+
+        return uploadMedia(phoneNumberId, fileName, requestFile);
+    }
+
+    /**
+     * Upload media from a file, without loading it in memory.
+     * <p>
+     * The file is streamed to the connection when the request is sent, and the upload is not bound by the call timeout; see {@link WhatsappBusinessCloudApi#uploadMedia(String, String, FileType, byte[])}.
+     *
+     * @param phoneNumberId Business phone number ID.
+     * @param fileName      file name. Ex: photo1.jpg
+     * @param fileType      the file type. See {@link FileType}
+     * @param file          the file to upload
+     * @return a future completed with the {@link UploadResponse}
+     * @see StreamingRequestBody#fromPath(Path, MediaType)
+     */
+    public CompletableFuture<UploadResponse> uploadMedia(String phoneNumberId, String fileName, FileType fileType, Path file) {
+
+        return uploadStreamedMedia(phoneNumberId, fileName, StreamingRequestBody.fromPath(file, MediaType.parse(fileType.getType())));
+    }
+
+    /**
+     * Upload media from an input stream, without loading it in memory.
+     * <p>
+     * The stream is read to the end but not closed. As it cannot be read twice, the upload is never retried.
+     *
+     * @param phoneNumberId Business phone number ID.
+     * @param fileName      file name. Ex: photo1.jpg
+     * @param fileType      the file type. See {@link FileType}
+     * @param inputStream   the file content
+     * @return a future completed with the {@link UploadResponse}
+     * @see StreamingRequestBody#fromInputStream(InputStream, MediaType, long)
+     */
+    public CompletableFuture<UploadResponse> uploadMedia(String phoneNumberId, String fileName, FileType fileType, InputStream inputStream) {
+
+        return uploadStreamedMedia(phoneNumberId, fileName, StreamingRequestBody.fromInputStream(inputStream, MediaType.parse(fileType.getType()), -1));
+    }
+
+    /**
+     * Upload media from a channel, without loading it in memory.
+     * <p>
+     * The channel is read to the end but not closed. As it cannot be read twice, the upload is never retried.
+     *
+     * @param phoneNumberId Business phone number ID.
+     * @param fileName      file name. Ex: photo1.jpg
+     * @param fileType      the file type. See {@link FileType}
+     * @param channel       the file content
+     * @return a future completed with the {@link UploadResponse}
+     * @see StreamingRequestBody#fromChannel(ReadableByteChannel, MediaType, long)
+     */
+    public CompletableFuture<UploadResponse> uploadMedia(String phoneNumberId, String fileName, FileType fileType, ReadableByteChannel channel) {
+
+        return uploadStreamedMedia(phoneNumberId, fileName, StreamingRequestBody.fromChannel(channel, MediaType.parse(fileType.getType()), -1));
+    }
+
+    private CompletableFuture<UploadResponse> uploadMedia(String phoneNumberId, String fileName, RequestBody requestFile) {
+
+        return executeAsync(uploadMediaCall(phoneNumberId, fileName, requestFile));
+    }
+
+    private CompletableFuture<UploadResponse> uploadStreamedMedia(String phoneNumberId, String fileName, RequestBody requestFile) {
+
+        return executeUploadAsync(uploadMediaCall(phoneNumberId, fileName, requestFile));
+    }
+
+    private Call<UploadResponse> uploadMediaCall(String phoneNumberId, String fileName, RequestBody requestFile) {
+        Part body = Part.createFormData("file", fileName, requestFile);
+
+        var messageProduct = Part.createFormData("messaging_product", "whatsapp");
+
+        return whatsappBusinessCloudApiService.uploadMedia(apiVersion.getValue(), phoneNumberId, body, messageProduct);
+    }
+
+    /**
+     * Retrieve {@link Media} object. The URL is only valid for 5 minutes.
+     *
+     * @param mediaId the media id
+     * @return a future completed with the media
+     * @see WhatsappBusinessCloudApi#retrieveMediaUrl(String)
+     */
+    public CompletableFuture<Media> retrieveMediaUrl(String mediaId) {
+
+        return executeAsync(whatsappBusinessCloudApiService.retrieveMediaUrl(apiVersion.getValue(), mediaId));
+    }
+
+    /**
+     * Download media file from whatsapp server
+     *
+     * @param url the url
+     * @return a future completed with the media file {@link MediaFile}
+     * @see WhatsappBusinessCloudApi#downloadMediaFile(String)
+     */
+    public CompletableFuture<MediaFile> downloadMediaFile(String url) {
+
+        return executeDownloadAsync(whatsappBusinessCloudApiService.downloadMediaFile(url));
+    }
+
+    /**
+     * Download media file from whatsapp server to a file, without loading it in memory.
+     *
+     * @param url    the url
+     * @param target the file to write. Replaced if it exists.
+     * @return a future completed with the {@link MediaDownload}
+     * @see #downloadMediaFile(String, Path, boolean, DownloadProgressListener)
+     */
+    public CompletableFuture<MediaDownload> downloadMediaFile(String url, Path target) {
+
+        return downloadMediaFile(url, target, false, null);
+    }
+
+    /**
+     * Download media file from whatsapp server to a file, without loading it in memory.
+     * <p>
+     * The content is written to a temporary file next to {@code target} and moved to {@code target} once complete.
+     *
+     * @param url           the url
+     * @param target        the file to write. Replaced if it exists.
+     * @param computeSha256 whether to compute the SHA-256 of the content
+     * @param listener      the progress listener, may be null
+     * @return a future completed with the {@link MediaDownload}
+     * @see <a href="https://developers.facebook.com/docs/whatsapp/cloud-api/reference/media">official documentation</a>
+     */
+    public CompletableFuture<MediaDownload> downloadMediaFile(String url, Path target, boolean computeSha256, DownloadProgressListener listener) {
+
+        return executeDownloadAsync(whatsappBusinessCloudApiService.downloadMediaFile(url), target, computeSha256, listener);
+    }
+
+    /**
+     * Download media file from whatsapp server to an output stream, without loading it in memory.
+     *
+     * @param url          the url
+     * @param outputStream the stream the file is written to. It is not closed.
+     * @return a future completed with the {@link MediaDownload}
+     * @see #downloadMediaFile(String, OutputStream, boolean, DownloadProgressListener)
+     */
+    public CompletableFuture<MediaDownload> downloadMediaFile(String url, OutputStream outputStream) {
+
+        return downloadMediaFile(url, outputStream, false, null);
+    }
+
+    /**
+     * Download media file from whatsapp server to an output stream, without loading it in memory.
+     *
+     * @param url           the url
+     * @param outputStream  the stream the file is written to. It is not closed.
+     * @param computeSha256 whether to compute the SHA-256 of the content
+     * @param listener      the progress listener, may be null
+     * @return a future completed with the {@link MediaDownload}
+     * @see <a href="https://developers.facebook.com/docs/whatsapp/cloud-api/reference/media">official documentation</a>
+     */
+    public CompletableFuture<MediaDownload> downloadMediaFile(String url, OutputStream outputStream, boolean computeSha256, DownloadProgressListener listener) {
+
+        return downloadMediaFile(url, Channels.newChannel(outputStream), computeSha256, listener);
+    }
+
+    /**
+     * Download media file from whatsapp server to a channel, without loading it in memory.
+     *
+     * @param url     the url
+     * @param channel the channel the file is written to. It is not closed.
+     * @return a future completed with the {@link MediaDownload}
+     * @see #downloadMediaFile(String, WritableByteChannel, boolean, DownloadProgressListener)
+     */
+    public CompletableFuture<MediaDownload> downloadMediaFile(String url, WritableByteChannel channel) {
+
+        return downloadMediaFile(url, channel, false, null);
+    }
+
+    /**
+     * Download media file from whatsapp server to a channel, without loading it in memory.
+     *
+     * @param url           the url
+     * @param channel       the channel the file is written to. It is not closed.
+     * @param computeSha256 whether to compute the SHA-256 of the content
+     * @param listener      the progress listener, may be null
+     * @return a future completed with the {@link MediaDownload}
+     * @see <a href="https://developers.facebook.com/docs/whatsapp/cloud-api/reference/media">official documentation</a>
+     */
+    public CompletableFuture<MediaDownload> downloadMediaFile(String url, WritableByteChannel channel, boolean computeSha256, DownloadProgressListener listener) {
+
+        return executeDownloadAsync(whatsappBusinessCloudApiService.downloadMediaFile(url), channel, computeSha256, listener);
+    }
+
+    /**
+     * Delete media from whatsapp server
+     *
+     * @param mediaId the media id
+     * @return a future completed with the response
+     * @see WhatsappBusinessCloudApi#deleteMedia(String)
+     */
+    public CompletableFuture<Response> deleteMedia(String mediaId) {
+
+        return executeAsync(whatsappBusinessCloudApiService.deleteMedia(apiVersion.getValue(), mediaId));
+    }
+
+    /**
+     * Mark a message as Read
+     *
+     * @param phoneNumberId Represents a specific phone number.
+     * @param message       The {@link ReadMessage} object.
+     * @return a future completed with the response
+     * @see WhatsappBusinessCloudApi#markMessageAsRead(String, ReadMessage)
+     */
+    public CompletableFuture<Response> markMessageAsRead(String phoneNumberId, ReadMessage message) {
+
+        return executeAsync(whatsappBusinessCloudApiService.markMessageAsRead(apiVersion.getValue(), phoneNumberId, message));
+    }
+
+    /**
+     * Two-step verification.
+     *
+     * @param phoneNumberId Represents a specific phone number.
+     * @param twoStepCode   The {@link TwoStepCode} object.
+     * @return a future completed with the response
+     * @see WhatsappBusinessCloudApi#twoStepVerification(String, TwoStepCode)
+     */
+    public CompletableFuture<Response> twoStepVerification(String phoneNumberId, TwoStepCode twoStepCode) {
+
+        return executeAsync(whatsappBusinessCloudApiService.twoStepVerification(apiVersion.getValue(), phoneNumberId, twoStepCode));
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.whatsapp.api.interceptor;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * A snapshot of the state of a {@link RateLimitInterceptor}.
+ *
+ * @param requests        number of requests sent to the api, retries included
+ * @param retries         number of retried requests
+ * @param throttled       number of responses reporting a rate limit error
+ * @param waited          total time calls spent waiting for a token or a backoff
+ * @param availableTokens tokens available per phone number or WhatsApp Business Account id; negative when calls are waiting
+ */
+public record RateLimitMetrics(long requests, long retries, long throttled, Duration waited,
+                               Map<String, Double> availableTokens) {
+}
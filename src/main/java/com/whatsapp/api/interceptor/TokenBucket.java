@@ -0,0 +1,83 @@
+package com.whatsapp.api.interceptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket that hands out reservations: a caller always gets a token, and is told how long to wait before
+ * using it. Tokens go negative while callers are queued, which keeps them in arrival order.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+
+    private final double tokensPerNano;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    private long pausedUntil;
+
+    TokenBucket(int capacity, double tokensPerSecond, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.lastRefill = now;
+        this.pausedUntil = now;
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @return how many nanoseconds to wait before the token may be used
+     */
+    synchronized long reserve(long now) {
+        refill(now);
+        tokens -= 1;
+        long wait = tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+        return Math.max(wait, pausedUntil - now);
+    }
+
+    /**
+     * Gives back a token taken by {@link #reserve(long)} for a call that was not sent.
+     *
+     * @param now the current {@link System#nanoTime()}
+     */
+    synchronized void release(long now) {
+        refill(now);
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    /**
+     * Stops handing out usable tokens until the given time and drops the tokens saved up so far.
+     * Used when the api reports that the limit was hit anyway.
+     *
+     * @param until the {@link System#nanoTime()} until which calls must wait
+     */
+    synchronized void pause(long until) {
+        if (until - pausedUntil > 0) {
+            pausedUntil = until;
+        }
+        tokens = Math.min(tokens, 0);
+    }
+
+    /**
+     * Tokens available right now; negative when callers are waiting.
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @return the available tokens
+     */
+    synchronized double available(long now) {
+        refill(now);
+        return tokens;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -92,6 +92,16 @@ public interface WhatsappBusinessManagementApiService {
     @GET("/{api-version}/{whatsapp-business-account-ID}/phone_numbers")
     Call<PhoneNumbers> retrievePhoneNumbers(@Path("api-version") String apiVersion, @Path("whatsapp-business-account-ID") String whatsappBusinessAccountId);
 
+    /**
+     * Retrieve phone numbers call.
+     *
+     * @param whatsappBusinessAccountId the whatsapp business account id
+     * @param filters                   the filters, e.g. limit and after
+     * @return the call
+     */
+    @GET("/{api-version}/{whatsapp-business-account-ID}/phone_numbers")
+    Call<PhoneNumbers> retrievePhoneNumbers(@Path("api-version") String apiVersion, @Path("whatsapp-business-account-ID") String whatsappBusinessAccountId, @QueryMap Map<String, Object> filters);
+
     /**
      * Request code call.
      *
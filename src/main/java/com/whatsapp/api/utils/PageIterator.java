@@ -0,0 +1,137 @@
+package com.whatsapp.api.utils;
+
+import com.whatsapp.api.domain.response.Paging;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An iterator over the items of a paginated Graph API list, which follows the pages as the items are consumed.
+ * <p>
+ * The next page is requested in the background as soon as a page is received, so that it is usually there when the
+ * items of the current page are consumed. At most the current page and the next one are held in memory, whatever
+ * the number of items.
+ * <p>
+ * A page is followed while its {@code paging.next} is present, with its {@code paging.cursors.after} cursor.
+ * A failed request throws its {@link com.whatsapp.api.exception.WhatsappApiException} from {@link #hasNext()}.
+ * Close the iterator to cancel the request of a page not consumed.
+ *
+ * @param <T> the type of the items
+ */
+public final class PageIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final Function<String, CompletableFuture<Page<T>>> fetchPage;
+
+    private Iterator<T> current = Collections.emptyIterator();
+
+    /**
+     * The page requested in the background, null once the last page is received or the iterator closed.
+     */
+    private CompletableFuture<Page<T>> next;
+
+    private PageIterator(Function<String, CompletableFuture<Page<T>>> fetchPage) {
+        this.fetchPage = fetchPage;
+        this.next = fetchPage.apply(null);
+    }
+
+    /**
+     * Creates an iterator and requests its first page.
+     *
+     * @param <P>       the type of the pages
+     * @param <T>       the type of the items
+     * @param fetchPage requests the page after a cursor, the first page for a null cursor
+     * @param data      the items of a page
+     * @param paging    the paging of a page
+     * @return the iterator
+     */
+    public static <P, T> PageIterator<T> of(Function<String, CompletableFuture<P>> fetchPage, Function<P, List<T>> data, Function<P, Paging> paging) {
+        Objects.requireNonNull(fetchPage, "fetchPage cannot be null");
+        Objects.requireNonNull(data, "data cannot be null");
+        Objects.requireNonNull(paging, "paging cannot be null");
+        return new PageIterator<>(after -> {
+            CompletableFuture<P> request = fetchPage.apply(after);
+            CompletableFuture<Page<T>> page = request.thenApply(response -> new Page<>(data.apply(response), nextCursor(paging.apply(response))));
+            // cancelling the page cancels its request
+            page.whenComplete((result, throwable) -> {
+                if (page.isCancelled()) {
+                    request.cancel(true);
+                }
+            });
+            return page;
+        });
+    }
+
+    /**
+     * Streams the items. Closing the stream closes the iterator.
+     *
+     * @return the stream
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (next == null) {
+                return false;
+            }
+            Page<T> page = join(next);
+            // request the next page before the items of this one are consumed
+            next = page.after() == null ? null : fetchPage.apply(page.after());
+            current = page.data() == null ? Collections.emptyIterator() : page.data().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Cancels the request of the next page, if any. The items of the current page can still be consumed.
+     */
+    @Override
+    public void close() {
+        if (next != null) {
+            next.cancel(true);
+            next = null;
+        }
+    }
+
+    private static String nextCursor(Paging paging) {
+        if (paging == null || paging.next() == null || paging.cursors() == null) {
+            return null;
+        }
+        return paging.cursors().after();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Page<T>(List<T> data, String after) {
+    }
+}
@@ -2,7 +2,9 @@ package com.whatsapp.api;
 
 import com.whatsapp.api.configuration.WhatsappApiConfig;
 import com.whatsapp.api.impl.WhatsappBusinessCloudApi;
+import com.whatsapp.api.impl.WhatsappBusinessCloudApiAsync;
 import com.whatsapp.api.impl.WhatsappBusinessManagementApi;
+import com.whatsapp.api.impl.WhatsappBusinessManagementApiAsync;
 import mockwebserver3.MockWebServer;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -23,6 +25,10 @@ public class MockServerUtilsTest extends TestUtils {
 
     public static WhatsappBusinessManagementApi whatsappBusinessManagementApi;
 
+    public static WhatsappBusinessCloudApiAsync whatsappBusinessCloudApiAsync;
+
+    public static WhatsappBusinessManagementApiAsync whatsappBusinessManagementApiAsync;
+
 
     @BeforeEach
     public void setUp() throws IOException {
@@ -40,6 +46,10 @@ public class MockServerUtilsTest extends TestUtils {
 
         whatsappBusinessManagementApi = factory.newBusinessManagementApi();
 
+        whatsappBusinessCloudApiAsync = factory.newBusinessCloudApiAsync();
+
+        whatsappBusinessManagementApiAsync = factory.newBusinessManagementApiAsync();
+
     }
 
     @AfterEach
@@ -38,5 +38,26 @@ class WhatsappApiFactoryTest {
 
         Assertions.assertNotNull(wapi);
     }
-}
 
+    /**
+     * Method under test: {@link WhatsappApiFactory#newBusinessCloudApiAsync()}
+     */
+    @Test
+    void testNewBusinessCloudApiAsync() {
+
+        var wapi = WhatsappApiFactory.newInstance("Api Key").newBusinessCloudApiAsync();
+
+        Assertions.assertNotNull(wapi);
+    }
+
+    /**
+     * Method under test: {@link WhatsappApiFactory#newBusinessManagementApiAsync()}
+     */
+    @Test
+    void testNewBusinessManagementApiAsync() {
+
+        var wapi = WhatsappApiFactory.newInstance("Api Key").newBusinessManagementApiAsync();
+
+        Assertions.assertNotNull(wapi);
+    }
+}
@@ -1,20 +1,33 @@
 package com.whatsapp.api;
 
+import com.whatsapp.api.configuration.ConnectionPoolSettings;
+import com.whatsapp.api.configuration.WhatsappApiConfig;
 import com.whatsapp.api.domain.errors.WhatsappApiError;
+import com.whatsapp.api.domain.media.FileType;
+import com.whatsapp.api.exception.WhatsappApiException;
+import com.whatsapp.api.service.WhatsappBusinessCloudApiService;
 import com.whatsapp.api.utils.proxy.CustomHttpProxySelector;
 import com.whatsapp.api.utils.proxy.CustomProxyAuthenticator;
 import okhttp3.Authenticator;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.ResponseBody;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import retrofit2.Call;
 import retrofit2.Response;
 
 import java.io.IOException;
 import java.net.ProxySelector;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -116,4 +129,96 @@ class WhatsappApiServiceGeneratorTest extends TestUtils {
         assertEquals(CustomProxyAuthenticator.class, WhatsappApiServiceGenerator.getSharedClient().proxyAuthenticator().getClass(), "Authenticator should be CustomProxyAuthenticator");
 
     }
+
+    /**
+     * Method under test:
+     * {@link WhatsappApiServiceGenerator#setConnectionPoolSettings(ConnectionPoolSettings)}
+     */
+    @Test
+    void testSetConnectionPoolSettings() {
+
+        WhatsappApiServiceGenerator.setConnectionPoolSettings(new ConnectionPoolSettings(256, 128, 32, Duration.ofMinutes(1)));
+
+        assertEquals(256, WhatsappApiServiceGenerator.getSharedClient().dispatcher().getMaxRequests());
+        assertEquals(128, WhatsappApiServiceGenerator.getSharedClient().dispatcher().getMaxRequestsPerHost());
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionPoolSettings(0, 1, 1, Duration.ofMinutes(1)));
+    }
+
+    /**
+     * Method under test:
+     * {@link WhatsappApiServiceGenerator#createTenantService(Class, String, String)}
+     */
+    @Test
+    void testCreateTenantService() throws IOException, InterruptedException {
+        try (MockWebServer mockWebServer = new MockWebServer()) {
+            mockWebServer.start();
+            String baseUrl = String.format("http://localhost:%s", mockWebServer.getPort());
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body("{\"id\":\"1\"}").build());
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body("{\"id\":\"2\"}").build());
+
+            var tenant1 = WhatsappApiServiceGenerator.createTenantService(WhatsappBusinessCloudApiService.class, "TOKEN-1", baseUrl);
+            var tenant2 = WhatsappApiServiceGenerator.createTenantService(WhatsappBusinessCloudApiService.class, "TOKEN-2", baseUrl);
+
+            assertNotSame(tenant1, tenant2);
+            assertSame(WhatsappApiServiceGenerator.getSharedRetrofit(baseUrl), WhatsappApiServiceGenerator.getSharedRetrofit(baseUrl));
+
+            WhatsappApiServiceGenerator.executeSync(tenant1.retrieveMediaUrl("v19.0", "1"));
+            WhatsappApiServiceGenerator.executeSync(tenant2.retrieveMediaUrl("v19.0", "2"));
+
+            assertEquals("Bearer TOKEN-1", mockWebServer.takeRequest().getHeaders().get("Authorization"));
+            assertEquals("Bearer TOKEN-2", mockWebServer.takeRequest().getHeaders().get("Authorization"));
+        }
+    }
+
+    /**
+     * Method under test:
+     * {@link WhatsappApiServiceGenerator#createService(Class, String, String)} in shared service mode
+     */
+    @Test
+    void testCreateServiceInSharedServiceMode() throws IOException, InterruptedException {
+        try (MockWebServer mockWebServer = new MockWebServer()) {
+            mockWebServer.start();
+            String baseUrl = String.format("http://localhost:%s", mockWebServer.getPort());
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body("{\"success\":true}").build());
+
+            WhatsappApiConfig.setSharedServiceMode(true);
+            try {
+                var service = WhatsappApiServiceGenerator.createService(WhatsappBusinessCloudApiService.class, "TOKEN-3", baseUrl);
+                assertTrue(WhatsappApiServiceGenerator.executeSync(service.deleteMedia("v19.0", "1")).success());
+            } finally {
+                WhatsappApiConfig.setSharedServiceMode(false);
+            }
+
+            assertEquals("Bearer TOKEN-3", mockWebServer.takeRequest().getHeaders().get("Authorization"));
+        }
+    }
+
+    /**
+     * Method under test:
+     * {@link WhatsappApiServiceGenerator#executeUploadSync(Call)}
+     */
+    @Test
+    void testStreamedUploadNotBoundByCallTimeout(@TempDir Path dir) throws IOException, URISyntaxException, InterruptedException {
+        WhatsappApiServiceGenerator.sharedClient = WhatsappApiServiceGenerator.createDefaultHttpClient().newBuilder()
+                .callTimeout(500, TimeUnit.MILLISECONDS)
+                .build();
+        try (MockWebServer mockWebServer = new MockWebServer()) {
+            mockWebServer.start();
+            WhatsappApiConfig.setBaseDomain(String.format("http://localhost:%s", mockWebServer.getPort()));
+            var slowResponse = new MockResponse().newBuilder().code(200)
+                    .body(fromResource("/uploadResponse.json"))
+                    .bodyDelay(1, TimeUnit.SECONDS);
+            mockWebServer.enqueue(slowResponse.build());
+            mockWebServer.enqueue(slowResponse.build());
+
+            var api = WhatsappApiFactory.newInstance("TOKEN").newBusinessCloudApi();
+            var file = Files.write(dir.resolve("starwars.png"), bytesFromResource("/starwars.png"));
+
+            assertEquals("985569392615996", api.uploadMedia("1", "starwars.png", FileType.PNG, file).id());
+            assertEquals(103923, mockWebServer.takeRequest().getBodySize());
+
+            // a buffered upload is still bound by the call timeout
+            assertThrows(WhatsappApiException.class, () -> api.uploadMedia("1", "starwars.png", FileType.PNG, Files.readAllBytes(file)));
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package com.whatsapp.api.bulk;
+
+import com.whatsapp.api.MockServerUtilsTest;
+import com.whatsapp.api.domain.messages.Message.MessageBuilder;
+import com.whatsapp.api.domain.messages.TextMessage;
+import com.whatsapp.api.domain.phone.type.LevelType;
+import com.whatsapp.api.exception.WhatsappApiException;
+import mockwebserver3.MockResponse;
+import mockwebserver3.RecordedRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class BulkMessageSenderTest extends MockServerUtilsTest {
+
+    private final String PHONE_NUMBER_ID = "888888888888";
+
+    private final String SEND_MESSAGE_RESPONSE = """
+            {
+              "messaging_product": "whatsapp",
+              "contacts": [{ "input": "48XXXXXXXXX", "wa_id": "48XXXXXXXXX" }],
+              "messages": [{ "id": "wamid.gBGGSFcCNEOPAgkO_KJ55r4w_ww" }]
+            }
+            """;
+
+    private final String RATE_LIMIT_RESPONSE = """
+            {
+              "error": {
+                "message": "(#130429) Rate limit hit",
+                "type": "OAuthException",
+                "code": 130429,
+                "fbtrace_id": "Az8or2yhqkZfEZ-_4Qn_Bam"
+              }
+            }
+            """;
+
+    @Test
+    void testSendToAllRecipients() throws Exception {
+        int total = 30;
+        for (int i = 0; i < total; i++) {
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+        }
+
+        var recipients = IntStream.range(0, total).mapToObj(i -> "4800000" + i).toList();
+        var message = MessageBuilder.builder().buildTextMessage(new TextMessage().setBody("Hello!"));
+        var results = new ConcurrentLinkedQueue<BulkSendResult>();
+
+        var sender = new BulkMessageSender(whatsappBusinessCloudApiAsync);
+        var summary = sender.send(PHONE_NUMBER_ID, LevelType.HIGH, message, recipients, results::add).get(10, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(total, summary.total());
+        Assertions.assertEquals(total, summary.sent());
+        Assertions.assertEquals(0, summary.failed());
+        Assertions.assertEquals(total, results.size());
+        Assertions.assertTrue(results.stream().allMatch(r -> "wamid.gBGGSFcCNEOPAgkO_KJ55r4w_ww".equals(r.messageId())));
+
+        Set<String> recipientsSent = new HashSet<>();
+        for (int i = 0; i < total; i++) {
+            RecordedRequest recordedRequest = mockWebServer.takeRequest();
+            Assertions.assertEquals("/" + PHONE_NUMBER_ID + "/messages", recordedRequest.getPath().substring(recordedRequest.getPath().indexOf('/', 1)));
+            var body = recordedRequest.getBody().readUtf8();
+            Assertions.assertTrue(body.contains("\"body\":\"Hello!\""));
+            recipientsSent.add(body.replaceAll(".*\"to\":\"([0-9]+)\".*", "$1"));
+        }
+        Assertions.assertEquals(Set.copyOf(recipients), recipientsSent);
+        Assertions.assertNull(message.getTo());
+    }
+
+    @Test
+    void testSendCompiledMessage() throws Exception {
+        int total = 5;
+        for (int i = 0; i < total; i++) {
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+        }
+
+        var recipients = IntStream.range(0, total).mapToObj(i -> "4800000" + i).toList();
+        var compiled = CompiledMessage.compile(MessageBuilder.builder().buildTextMessage(new TextMessage().setBody("Hello!")));
+
+        var sender = new BulkMessageSender(whatsappBusinessCloudApiAsync);
+        var summary = sender.send(PHONE_NUMBER_ID, LevelType.HIGH, compiled, recipients, r -> {
+        }).get(10, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(total, summary.sent());
+
+        Set<String> recipientsSent = new HashSet<>();
+        for (int i = 0; i < total; i++) {
+            var body = mockWebServer.takeRequest().getBody().readUtf8();
+            Assertions.assertTrue(body.contains("\"body\":\"Hello!\""));
+            recipientsSent.add(body.replaceAll(".*\"to\":\"([0-9]+)\".*", "$1"));
+        }
+        Assertions.assertEquals(Set.copyOf(recipients), recipientsSent);
+    }
+
+    @Test
+    void testSendCompiledMessageWithPlaceholders() {
+        var compiled = CompiledMessage.compile(MessageBuilder.builder()//
+                .buildTextMessage(new TextMessage().setBody(CompiledMessage.placeholder("name"))), "name");
+
+        var sender = new BulkMessageSender(whatsappBusinessCloudApiAsync);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> sender.send(PHONE_NUMBER_ID, LevelType.HIGH, compiled, List.of("48000001"), r -> {
+        }));
+    }
+
+    @Test
+    void testSendReportsFailuresPerRecipient() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(400).body(RATE_LIMIT_RESPONSE).build());
+
+        var message = MessageBuilder.builder().buildTextMessage(new TextMessage().setBody("Hello!"));
+        var results = new ConcurrentLinkedQueue<BulkSendResult>();
+
+        // one request at a time so responses match the recipients in order
+        var sender = new BulkMessageSender(whatsappBusinessCloudApiAsync, 1, Executors.newSingleThreadExecutor());
+        var summary = sender.send(PHONE_NUMBER_ID, new ThroughputPacer(1000), message, List.of("48000001", "48000002"), results::add).get(10, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(2, summary.total());
+        Assertions.assertEquals(1, summary.sent());
+        Assertions.assertEquals(1, summary.failed());
+
+        var failures = results.stream().filter(r -> !r.isSuccess()).collect(Collectors.toList());
+        Assertions.assertEquals(1, failures.size());
+        Assertions.assertEquals("48000002", failures.get(0).recipient());
+        Assertions.assertInstanceOf(WhatsappApiException.class, failures.get(0).error());
+        Assertions.assertEquals(130429, ((WhatsappApiException) failures.get(0).error()).getError().error().code());
+    }
+
+    @Test
+    void testSendIsPaced() throws Exception {
+        int total = 6;
+        for (int i = 0; i < total; i++) {
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+        }
+
+        var recipients = IntStream.range(0, total).mapToObj(i -> "4800000" + i).toList();
+        var message = MessageBuilder.builder().buildTextMessage(new TextMessage().setBody("Hello!"));
+
+        var sender = new BulkMessageSender(whatsappBusinessCloudApiAsync);
+        var summary = sender.send(PHONE_NUMBER_ID, new ThroughputPacer(20), message, recipients, r -> {
+        }).get(10, TimeUnit.SECONDS);
+
+        // 6 messages at 20 per second: the last one leaves 250ms after the first
+        Assertions.assertEquals(total, summary.sent());
+        Assertions.assertTrue(summary.elapsed().toMillis() >= 240, "elapsed " + summary.elapsed());
+    }
+}
@@ -0,0 +1,106 @@
+package com.whatsapp.api.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whatsapp.api.TestUtils;
+import com.whatsapp.api.domain.messages.BodyComponent;
+import com.whatsapp.api.domain.messages.Language;
+import com.whatsapp.api.domain.messages.Message.MessageBuilder;
+import com.whatsapp.api.domain.messages.TemplateMessage;
+import com.whatsapp.api.domain.messages.TextMessage;
+import com.whatsapp.api.domain.messages.TextParameter;
+import com.whatsapp.api.domain.templates.type.LanguageType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import org.json.JSONException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+class CompiledMessageTest extends TestUtils {
+
+    private final String EXPECTED_FOLDER = "/expected/message/";
+
+    @Test
+    void testRenderTemplate() throws IOException, URISyntaxException, JSONException {
+        var templateMessage = new TemplateMessage()//
+                .setLanguage(new Language(LanguageType.PT_BR))//
+                .setName("number_confirmation")//
+                .addComponent(new BodyComponent().addParameter(new TextParameter(CompiledMessage.placeholder("number"))));
+        var compiled = CompiledMessage.compile(MessageBuilder.builder().buildTemplateMessage(templateMessage), "number");
+
+        var body = compiled.render("121212121212", "18754269072");
+
+        Assertions.assertEquals("application/json; charset=UTF-8", String.valueOf(body.contentType()));
+        JSONAssert.assertEquals(fromResource(EXPECTED_FOLDER + "expectedMessage2.json"), readUtf8(body), JSONCompareMode.STRICT);
+    }
+
+    @Test
+    void testRenderMatchesSerializedMessage() throws IOException {
+        var mapper = new ObjectMapper();
+        var compiled = CompiledMessage.compile(MessageBuilder.builder()//
+                .buildTextMessage(new TextMessage().setBody(CompiledMessage.placeholder("text")).setPreviewUrl(false)), "text");
+
+        for (String text : new String[]{"Hello!", "quote \" backslash \\ slash /", "lines\n\r\ttab \u0001 \u001f", "ünïcödé 😀 ✓"}) {
+            var expected = MessageBuilder.builder()//
+                    .setTo("5511999999999")//
+                    .buildTextMessage(new TextMessage().setBody(text).setPreviewUrl(false));
+            var body = readUtf8(compiled.render("5511999999999", text));
+
+            Assertions.assertEquals(mapper.readTree(mapper.writeValueAsString(expected)), mapper.readTree(body));
+            Assertions.assertEquals(text, mapper.readTree(body).get("text").get("body").asText());
+        }
+    }
+
+    @Test
+    void testRenderEveryOccurrence() throws IOException {
+        var templateMessage = new TemplateMessage()//
+                .setLanguage(new Language(LanguageType.EN_US))//
+                .setName("greeting")//
+                .addComponent(new BodyComponent()//
+                        .addParameter(new TextParameter(CompiledMessage.placeholder("name")))//
+                        .addParameter(new TextParameter("fixed"))//
+                        .addParameter(new TextParameter(CompiledMessage.placeholder("name"))));
+        var compiled = CompiledMessage.compile(MessageBuilder.builder().setTo("ignored").buildTemplateMessage(templateMessage), "name");
+
+        var json = new ObjectMapper().readTree(readUtf8(compiled.render("48000001", "Maria")));
+
+        Assertions.assertEquals("48000001", json.get("to").asText());
+        var parameters = json.get("template").get("components").get(0).get("parameters");
+        Assertions.assertEquals("Maria", parameters.get(0).get("text").asText());
+        Assertions.assertEquals("fixed", parameters.get(1).get("text").asText());
+        Assertions.assertEquals("Maria", parameters.get(2).get("text").asText());
+    }
+
+    @Test
+    void testBodyCanBeWrittenTwice() throws IOException {
+        var compiled = CompiledMessage.compile(MessageBuilder.builder().buildTextMessage(new TextMessage().setBody("Hello!")));
+        var body = compiled.render("48000001");
+
+        var first = readUtf8(body);
+        Assertions.assertEquals(first, readUtf8(body));
+        Assertions.assertEquals(first.length(), body.contentLength());
+    }
+
+    @Test
+    void testInvalidPlaceholdersAndValues() {
+        var message = MessageBuilder.builder().buildTextMessage(new TextMessage().setBody(CompiledMessage.placeholder("text") + "!"));
+
+        // a placeholder must be the whole value
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompiledMessage.compile(message, "text"));
+
+        var compiled = CompiledMessage.compile(MessageBuilder.builder().buildTextMessage(new TextMessage().setBody(CompiledMessage.placeholder("text"))), "text");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> compiled.render("48000001"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> compiled.render("48000001", "a", "b"));
+        Assertions.assertThrows(NullPointerException.class, () -> compiled.render("48000001", (String) null));
+    }
+
+    private static String readUtf8(RequestBody body) throws IOException {
+        var buffer = new Buffer();
+        body.writeTo(buffer);
+        return buffer.readUtf8();
+    }
+}
@@ -0,0 +1,52 @@
+package com.whatsapp.api.bulk;
+
+import com.whatsapp.api.domain.phone.Throughput;
+import com.whatsapp.api.domain.phone.type.LevelType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+class ThroughputPacerTest {
+
+    @Test
+    void testMessagesPerSecond() {
+        Assertions.assertEquals(80, ThroughputPacer.messagesPerSecond(LevelType.STANDARD));
+        Assertions.assertEquals(1000, ThroughputPacer.messagesPerSecond(LevelType.HIGH));
+        Assertions.assertEquals(80, ThroughputPacer.messagesPerSecond(LevelType.NOT_APPLICABLE));
+        Assertions.assertEquals(80, ThroughputPacer.messagesPerSecond((Throughput) null));
+        Assertions.assertEquals(1000, ThroughputPacer.messagesPerSecond(new Throughput(LevelType.HIGH)));
+    }
+
+    @Test
+    void testReserveSpacesSlots() {
+        var pacer = new ThroughputPacer(100);
+        long interval = TimeUnit.MILLISECONDS.toNanos(10);
+        long now = 1_000_000_000L;
+
+        Assertions.assertEquals(now, pacer.reserve(now));
+        Assertions.assertEquals(now + interval, pacer.reserve(now));
+        Assertions.assertEquals(now + 2 * interval, pacer.reserve(now + 1));
+
+        // after a pause the next message goes out immediately, no burst credit is accumulated
+        long later = now + TimeUnit.SECONDS.toNanos(5);
+        Assertions.assertEquals(later, pacer.reserve(later));
+        Assertions.assertEquals(later + interval, pacer.reserve(later));
+    }
+
+    @Test
+    void testForPhoneNumber() {
+        var standard = ThroughputPacer.forPhoneNumber("111", LevelType.STANDARD);
+        Assertions.assertSame(standard, ThroughputPacer.forPhoneNumber("111", LevelType.STANDARD));
+        Assertions.assertNotSame(standard, ThroughputPacer.forPhoneNumber("222", LevelType.STANDARD));
+
+        var high = ThroughputPacer.forPhoneNumber("111", LevelType.HIGH);
+        Assertions.assertEquals(1000, high.getMessagesPerSecond());
+        Assertions.assertSame(high, ThroughputPacer.forPhoneNumber("111", LevelType.HIGH));
+    }
+
+    @Test
+    void testInvalidRate() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ThroughputPacer(0));
+    }
+}
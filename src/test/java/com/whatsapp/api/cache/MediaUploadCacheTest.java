@@ -0,0 +1,181 @@
+package com.whatsapp.api.cache;
+
+import com.whatsapp.api.MockServerUtilsTest;
+import com.whatsapp.api.domain.media.FileType;
+import com.whatsapp.api.exception.WhatsappApiException;
+import mockwebserver3.MockResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+class MediaUploadCacheTest extends MockServerUtilsTest {
+
+    private static final String PHONE_NUMBER_ID = "85183945243";
+
+    private static final byte[] CONTENT = "house rules".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T00:00:00Z"));
+
+    private final InMemoryMediaUploadStore store = new InMemoryMediaUploadStore();
+
+    private MediaUploadCache cache() {
+        return new MediaUploadCache(whatsappBusinessCloudApi, store, MediaUploadCache.DEFAULT_LIFETIME, clock);
+    }
+
+    private void enqueueUploadResponse(String id) {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body("{\"id\": \"" + id + "\"}").build());
+    }
+
+    @Test
+    void testSameContentIsUploadedOnce() throws IOException, URISyntaxException {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/uploadResponse.json")).build());
+
+        var cache = cache();
+
+        var first = cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT);
+        var second = cache.uploadMedia(PHONE_NUMBER_ID, "other-name.txt", FileType.TEXT, CONTENT.clone());
+
+        Assertions.assertEquals("985569392615996", first.id());
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(1, mockWebServer.getRequestCount());
+        Assertions.assertEquals(1, cache.getUploadCount());
+        Assertions.assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    void testUploadsAreKeyedByPhoneNumberAndContent() {
+        enqueueUploadResponse("1");
+        enqueueUploadResponse("2");
+        enqueueUploadResponse("3");
+
+        var cache = cache();
+
+        Assertions.assertEquals("1", cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT).id());
+        Assertions.assertEquals("2", cache.uploadMedia("111111111", "rules.txt", FileType.TEXT, CONTENT).id());
+        Assertions.assertEquals("3", cache.uploadMedia(PHONE_NUMBER_ID, "map.txt", FileType.TEXT, "map".getBytes(StandardCharsets.UTF_8)).id());
+        Assertions.assertEquals(3, store.size());
+    }
+
+    @Test
+    void testExpiredUploadIsUploadedAgain() {
+        enqueueUploadResponse("1");
+        enqueueUploadResponse("2");
+
+        var cache = cache();
+
+        Assertions.assertEquals("1", cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT).id());
+        clock.advance(Duration.ofDays(28));
+        Assertions.assertEquals("1", cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT).id());
+        clock.advance(Duration.ofDays(1));
+        Assertions.assertEquals("2", cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT).id());
+
+        var stored = store.find(PHONE_NUMBER_ID, MediaUploadCache.sha256(CONTENT)).orElseThrow();
+        Assertions.assertEquals("2", stored.mediaId());
+        Assertions.assertEquals(clock.instant().plus(MediaUploadCache.DEFAULT_LIFETIME), stored.expiresAt());
+    }
+
+    @Test
+    void testRemoveExpiredUploads() {
+        enqueueUploadResponse("1");
+        enqueueUploadResponse("2");
+
+        var cache = cache();
+
+        cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT);
+        clock.advance(Duration.ofDays(10));
+        cache.uploadMedia(PHONE_NUMBER_ID, "map.txt", FileType.TEXT, "map".getBytes(StandardCharsets.UTF_8));
+        clock.advance(Duration.ofDays(20));
+
+        Assertions.assertEquals(1, store.removeExpired(clock.instant()));
+        Assertions.assertEquals(1, store.size());
+        Assertions.assertEquals(0, store.removeExpired(clock.instant()));
+    }
+
+    @Test
+    void testUploadFromPath() throws IOException {
+        enqueueUploadResponse("1");
+        Path file = Files.write(tempDir.resolve("rules.txt"), CONTENT);
+
+        var cache = cache();
+
+        Assertions.assertEquals("1", cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, file).id());
+        // same content as bytes: same hash
+        Assertions.assertEquals("1", cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT).id());
+        Assertions.assertEquals(MediaUploadCache.sha256(CONTENT), MediaUploadCache.sha256(file));
+        Assertions.assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void testFailedUploadIsNotCached() {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(400).body("""
+                {"error": {"message": "Invalid parameter", "type": "OAuthException", "code": 100}}
+                """).build());
+        enqueueUploadResponse("1");
+
+        var cache = cache();
+
+        Assertions.assertThrows(WhatsappApiException.class, () -> cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT));
+        Assertions.assertEquals(0, store.size());
+        Assertions.assertEquals("1", cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT).id());
+    }
+
+    @Test
+    void testInvalidate() {
+        enqueueUploadResponse("1");
+        enqueueUploadResponse("2");
+
+        var cache = cache();
+
+        cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT);
+        cache.invalidate(PHONE_NUMBER_ID, MediaUploadCache.sha256(CONTENT));
+
+        Assertions.assertEquals("2", cache.uploadMedia(PHONE_NUMBER_ID, "rules.txt", FileType.TEXT, CONTENT).id());
+    }
+
+    @Test
+    void testSha256() {
+        Assertions.assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", MediaUploadCache.sha256(new byte[0]));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
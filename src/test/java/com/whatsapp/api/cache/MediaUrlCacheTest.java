@@ -0,0 +1,141 @@
+package com.whatsapp.api.cache;
+
+import com.whatsapp.api.MockServerUtilsTest;
+import com.whatsapp.api.domain.media.FileType;
+import com.whatsapp.api.domain.media.Media;
+import com.whatsapp.api.exception.WhatsappApiException;
+import mockwebserver3.MockResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class MediaUrlCacheTest extends MockServerUtilsTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private static Media media(String id) {
+        return new Media("sha", FileType.PNG, "whatsapp", id, "https://lookaside.fbsbx.com/" + id, 10);
+    }
+
+    private MediaUrlCache cache(int maxSize) {
+        return new MediaUrlCache(id -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture(media(id));
+        }, maxSize, Duration.ofMinutes(4), now::get);
+    }
+
+    @Test
+    void testRetrieveMediaUrlIsCached() {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body("""
+                {
+                  "messaging_product": "whatsapp",
+                  "url": "https://lookaside.fbsbx.com/whatsapp_business/attachments/?mid=1227829768162607",
+                  "mime_type": "image/jpeg",
+                  "sha256": "9ae5a2b8ac3b4f5a2b1c3d4e",
+                  "file_size": 12345,
+                  "id": "1227829768162607"
+                }
+                """).build());
+
+        var cache = new MediaUrlCache(whatsappBusinessCloudApi);
+
+        var first = cache.retrieveMediaUrl("1227829768162607");
+        var second = cache.retrieveMediaUrl("1227829768162607");
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals("1227829768162607", first.id());
+        Assertions.assertEquals(1, mockWebServer.getRequestCount());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testRetrieveMediaUrlError() throws IOException, URISyntaxException {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(404).body(fromResource("/phone/phoneNumberNotFoundError.json")).build());
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(404).body(fromResource("/phone/phoneNumberNotFoundError.json")).build());
+
+        var cache = new MediaUrlCache(whatsappBusinessCloudApiAsync);
+
+        Assertions.assertThrows(WhatsappApiException.class, () -> cache.retrieveMediaUrl("1227829768162607"));
+        // failures are not cached
+        Assertions.assertThrows(WhatsappApiException.class, () -> cache.retrieveMediaUrl("1227829768162607"));
+        Assertions.assertEquals(2, mockWebServer.getRequestCount());
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testEntriesExpire() {
+        var cache = cache(10);
+
+        cache.retrieveMediaUrl("1");
+        now.addAndGet(TimeUnit.MINUTES.toNanos(3));
+        cache.retrieveMediaUrl("1");
+        Assertions.assertEquals(1, calls.get());
+
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        cache.retrieveMediaUrl("1");
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        var cache = cache(2);
+
+        cache.retrieveMediaUrl("1");
+        cache.retrieveMediaUrl("2");
+        cache.retrieveMediaUrl("1");
+        cache.retrieveMediaUrl("3");
+
+        Assertions.assertEquals(2, cache.size());
+        cache.retrieveMediaUrl("1");
+        Assertions.assertEquals(3, calls.get());
+        cache.retrieveMediaUrl("2");
+        Assertions.assertEquals(4, calls.get());
+    }
+
+    @Test
+    void testConcurrentLookupsAreCollapsed() throws ExecutionException, InterruptedException {
+        var pending = new CompletableFuture<Media>();
+        var cache = new MediaUrlCache(id -> {
+            calls.incrementAndGet();
+            return pending;
+        }, 10, Duration.ofMinutes(4), now::get);
+
+        List<CompletableFuture<Media>> lookups = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            lookups.add(cache.retrieveMediaUrlAsync("1"));
+        }
+        // cancelling one lookup does not affect the others
+        lookups.get(0).cancel(false);
+
+        pending.complete(media("1"));
+
+        Assertions.assertEquals(1, calls.get());
+        for (int i = 1; i < lookups.size(); i++) {
+            Assertions.assertEquals("1", lookups.get(i).get().id());
+        }
+    }
+
+    @Test
+    void testInvalidate() {
+        var cache = cache(10);
+
+        cache.retrieveMediaUrl("1");
+        cache.invalidate("1");
+        cache.retrieveMediaUrl("1");
+
+        Assertions.assertEquals(2, calls.get());
+    }
+}
@@ -0,0 +1,168 @@
+package com.whatsapp.api.domain.webhook;
+
+import com.whatsapp.api.TestUtils;
+import com.whatsapp.api.domain.messages.type.MessageType;
+import com.whatsapp.api.domain.webhook.type.EventType;
+import com.whatsapp.api.domain.webhook.type.FieldType;
+import com.whatsapp.api.domain.webhook.type.MessageStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class WebHookDecodeTest extends TestUtils {
+
+    private final String JSON_FOLDER = "/deserialization/";
+
+    @Test
+    void testDecodeTextMessage() throws IOException, URISyntaxException {
+        var payload = bytesFromResource(JSON_FOLDER + "textMessage.json");
+        var listener = new RecordingListener();
+
+        WebHook.decode(payload, listener);
+
+        Assertions.assertEquals(1, listener.entries.size());
+        Assertions.assertEquals("880480571844883", listener.entries.get(0).id());
+        Assertions.assertEquals(1, listener.messages.size());
+        var message = listener.messages.get(0).messages().get(0);
+        Assertions.assertEquals("hi everyone!", message.text().body());
+        Assertions.assertEquals(MessageType.TEXT, message.type());
+        Assertions.assertEquals("Mauricio Binda", listener.messages.get(0).contacts().get(0).profile().name());
+
+        // the JSON of the entry is the slice of the payload
+        var json = listener.json.get(0);
+        Assertions.assertTrue(json.startsWith("{") && json.endsWith("}"));
+        var event = WebHook.constructEvent(new String(payload, StandardCharsets.UTF_8));
+        Assertions.assertEquals(event.entry().get(0), WebHook.constructEvent("{\"entry\":[" + json + "]}").entry().get(0));
+    }
+
+    @Test
+    void testDecodeStatusFromStream() throws IOException, URISyntaxException {
+        var payload = bytesFromResource(JSON_FOLDER + "textMessageStatusSent.json");
+        var listener = new RecordingListener();
+
+        WebHook.decode(new ByteArrayInputStream(payload), listener);
+
+        Assertions.assertEquals(1, listener.entries.size());
+        Assertions.assertNull(listener.json.get(0));
+        Assertions.assertEquals(1, listener.messages.size());
+        var status = listener.messages.get(0).statuses().get(0);
+        Assertions.assertEquals(MessageStatus.SENT, status.status());
+        Assertions.assertEquals("8eb644d2350611f3746e7f0985bddfc1", status.conversation().id());
+    }
+
+    @Test
+    void testDecodeDispatchesPerField() throws IOException, URISyntaxException {
+        var listener = new RecordingListener();
+
+        WebHook.decode(bytesFromResource(JSON_FOLDER + "rejectedTemplate.json"), listener);
+        WebHook.decode(bytesFromResource(JSON_FOLDER + "verifiedAccount.json"), listener);
+        WebHook.decode(bytesFromResource(JSON_FOLDER + "phoneNumberNameUpdate.json"), listener);
+
+        Assertions.assertEquals(3, listener.entries.size());
+        Assertions.assertTrue(listener.messages.isEmpty());
+        Assertions.assertEquals(1, listener.templateStatusUpdates.size());
+        Assertions.assertEquals(EventType.REJECTED, listener.templateStatusUpdates.get(0).event());
+        Assertions.assertEquals("schedule_confirmation4", listener.templateStatusUpdates.get(0).messageTemplateName());
+        Assertions.assertEquals(1, listener.accountUpdates.size());
+        Assertions.assertEquals(EventType.VERIFIED_ACCOUNT, listener.accountUpdates.get(0).event());
+        Assertions.assertEquals(1, listener.otherChanges.size());
+        Assertions.assertEquals(FieldType.PHONE_NUMBER_NAME_UPDATE, listener.otherChanges.get(0).field());
+        Assertions.assertEquals("APPROVED", listener.otherChanges.get(0).value().decision());
+    }
+
+    @Test
+    void testDecodeUnknownFieldAndValues() throws IOException {
+        var payload = """
+                {"object":"whatsapp_business_account","entry":[{"id":"1","time":1,"extra":{"a":[1,2]},"changes":[
+                {"field":"some_new_field","value":{"event":"SOME_NEW_EVENT"}},
+                {"value":{"messages":[{"id":"wamid.1","type":"some_new_type","from":"2"}]},"field":"messages"}]}]}
+                """.getBytes(StandardCharsets.UTF_8);
+        var listener = new RecordingListener();
+
+        WebHook.decode(payload, listener);
+
+        Assertions.assertEquals(1, listener.otherChanges.size());
+        Assertions.assertNull(listener.otherChanges.get(0).field());
+        Assertions.assertNull(listener.otherChanges.get(0).value().event());
+        Assertions.assertEquals(1, listener.messages.size());
+        Assertions.assertEquals("wamid.1", listener.messages.get(0).messages().get(0).id());
+        Assertions.assertNull(listener.messages.get(0).messages().get(0).type());
+    }
+
+    @Test
+    void testDecodeUnsupportedObject() throws IOException {
+        var payload = """
+                {"object":"page","entry":[{"id":"1","changes":[{"field":"messages","value":{}}]}]}
+                """.getBytes(StandardCharsets.UTF_8);
+        var listener = new RecordingListener();
+
+        WebHook.decode(payload, listener);
+
+        Assertions.assertEquals(List.of("page"), listener.unsupportedObjects);
+        Assertions.assertTrue(listener.entries.isEmpty());
+    }
+
+    @Test
+    void testDecodeMalformed() {
+        var listener = new RecordingListener();
+
+        Assertions.assertThrows(IOException.class, () -> WebHook.decode("[]".getBytes(StandardCharsets.UTF_8), listener));
+        Assertions.assertThrows(IOException.class, () -> WebHook.decode("{\"entry\":{}}".getBytes(StandardCharsets.UTF_8), listener));
+        Assertions.assertThrows(IOException.class, () -> WebHook.decode(new ByteArrayInputStream("{\"entry\":[{\"id\":".getBytes(StandardCharsets.UTF_8)), listener));
+        Assertions.assertTrue(listener.entries.isEmpty());
+    }
+
+    private static class RecordingListener implements WebHookListener {
+
+        private final List<Entry> entries = new ArrayList<>();
+
+        private final List<String> json = new ArrayList<>();
+
+        private final List<Value> messages = new ArrayList<>();
+
+        private final List<Value> accountUpdates = new ArrayList<>();
+
+        private final List<Value> templateStatusUpdates = new ArrayList<>();
+
+        private final List<Change> otherChanges = new ArrayList<>();
+
+        private final List<String> unsupportedObjects = new ArrayList<>();
+
+        @Override
+        public void onEntry(Entry entry, String json) {
+            entries.add(entry);
+            this.json.add(json);
+        }
+
+        @Override
+        public void onMessages(Entry entry, Value value) {
+            messages.add(value);
+        }
+
+        @Override
+        public void onAccountUpdate(Entry entry, Value value) {
+            accountUpdates.add(value);
+        }
+
+        @Override
+        public void onTemplateStatusUpdate(Entry entry, Value value) {
+            templateStatusUpdates.add(value);
+        }
+
+        @Override
+        public void onOtherChange(Entry entry, Change change) {
+            otherChanges.add(change);
+        }
+
+        @Override
+        public void onUnsupportedObject(String object) {
+            unsupportedObjects.add(object);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.whatsapp.api.examples;
+
+import com.whatsapp.api.WhatsappApiFactory;
+import com.whatsapp.api.domain.templates.response.Template;
+import com.whatsapp.api.impl.WhatsappBusinessManagementApi;
+
+import static com.whatsapp.api.TestConstants.TOKEN;
+import static com.whatsapp.api.TestConstants.WABA_ID;
+
+public class StreamTemplatesExample {
+
+    public static void main(String[] args) {
+
+        WhatsappApiFactory factory = WhatsappApiFactory.newInstance(TOKEN);
+
+        WhatsappBusinessManagementApi whatsappBusinessCloudApi = factory.newBusinessManagementApi();
+
+        // the pages are followed as the templates are consumed, the next one fetched in the background
+        try (var templates = whatsappBusinessCloudApi.streamTemplates(WABA_ID, 100)) {
+            templates.filter(template -> "APPROVED".equals(template.status()))
+                    .map(Template::name)
+                    .forEach(System.out::println);
+        }
+    }
+}
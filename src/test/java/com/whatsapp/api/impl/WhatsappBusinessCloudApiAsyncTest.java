@@ -0,0 +1,177 @@
+package com.whatsapp.api.impl;
+
+import com.whatsapp.api.MockServerUtilsTest;
+import com.whatsapp.api.domain.media.FileType;
+import com.whatsapp.api.domain.messages.Message.MessageBuilder;
+import com.whatsapp.api.domain.messages.TextMessage;
+import com.whatsapp.api.exception.WhatsappApiException;
+import mockwebserver3.MockResponse;
+import mockwebserver3.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.whatsapp.api.configuration.WhatsappApiConfig.getApiVersion;
+
+class WhatsappBusinessCloudApiAsyncTest extends MockServerUtilsTest {
+
+    private final String PHONE_NUMBER_1 = "121212121212";
+    private final String PHONE_NUMBER_ID = "888888888888";
+    private final String API_VERSION = getApiVersion().getValue();
+    private final String EXPECTED_FOLDER = "/expected/message/";
+
+    private final String DEFAULT_SEND_MESSAGE_RESPONSE = """
+            {
+              "messaging_product": "whatsapp",
+              "contacts": [
+                {
+                  "input": "48XXXXXXXXX",
+                  "wa_id": "48XXXXXXXXX "
+                }
+              ],
+              "messages": [
+                {
+                  "id": "wamid.gBGGSFcCNEOPAgkO_KJ55r4w_ww"
+                }
+              ]
+            }
+            """;
+
+    @Test
+    void testSendTextMessage() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(DEFAULT_SEND_MESSAGE_RESPONSE).build());
+
+        var expectedJson = fromResource(EXPECTED_FOLDER + "expectedMessage1.json");
+
+        var message = MessageBuilder.builder()//
+                .setTo(PHONE_NUMBER_1)//
+                .buildTextMessage(new TextMessage()//
+                        .setBody("*Hello world!*\nSome code here: \n```hello world code here```")//
+                        .setPreviewUrl(false));
+
+        var response = whatsappBusinessCloudApiAsync.sendMessage(PHONE_NUMBER_ID, message).get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("POST", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "/messages", recordedRequest.getPath());
+
+        JSONAssert.assertEquals(expectedJson, recordedRequest.getBody().readUtf8(), JSONCompareMode.STRICT);
+
+        Assertions.assertEquals("wamid.gBGGSFcCNEOPAgkO_KJ55r4w_ww", response.messages().get(0).id());
+    }
+
+    @Test
+    void testSendMessageError() {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(500).body("{" +//
+                "  \"error\": {\n" +//
+                "    \"message\": \"(#130429) Rate limit hit\",\n" +//
+                "    \"type\": \"OAuthException\",\n" +//
+                "    \"code\": 130429,\n" +//
+                "    \"error_data\": {\n" +//
+                "        \"messaging_product\": \"whatsapp\", \n" +//
+                "        \"details\": \"Message failed to send because there were too many messages sent from this phone number in a short period of time\"\n" +//
+                "    },\n" +//
+                "    \"error_subcode\": 2494055,\n" +//
+                "    \"fbtrace_id\": \"Az8or2yhqkZfEZ-_4Qn_Bam\"\n" +//
+                "  }\n" +//
+                "}").build());
+
+        var message = MessageBuilder.builder()//
+                .setTo(PHONE_NUMBER_1)//
+                .buildTextMessage(new TextMessage().setBody("Hello world!"));
+
+        var future = whatsappBusinessCloudApiAsync.sendMessage(PHONE_NUMBER_ID, message);
+
+        var ex = Assertions.assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+
+        Assertions.assertInstanceOf(WhatsappApiException.class, ex.getCause());
+        var apiException = (WhatsappApiException) ex.getCause();
+        Assertions.assertEquals(130429, apiException.getError().error().code());
+        Assertions.assertEquals("[130429] (#130429) Rate limit hit | Message failed to send because there were too many messages sent from this phone number in a short period of time", apiException.getMessage());
+    }
+
+    @Test
+    void testSendManyMessagesConcurrently() throws Exception {
+        int total = 20;
+        for (int i = 0; i < total; i++) {
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(DEFAULT_SEND_MESSAGE_RESPONSE).build());
+        }
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            var message = MessageBuilder.builder()//
+                    .setTo(PHONE_NUMBER_1)//
+                    .buildTextMessage(new TextMessage().setBody("Message " + i));
+            futures.add(whatsappBusinessCloudApiAsync.sendMessage(PHONE_NUMBER_ID, message));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(total, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void testUploadMedia() throws IOException, URISyntaxException, InterruptedException, ExecutionException, TimeoutException {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/uploadResponse.json")).build());
+
+        var fileContent = bytesFromResource("/starwars.png");
+
+        var response = whatsappBusinessCloudApiAsync.uploadMedia(PHONE_NUMBER_ID, "starwars.png", FileType.PNG, fileContent).get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("POST", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "/media", recordedRequest.getPath());
+        Assertions.assertEquals(103923, recordedRequest.getBodySize());
+        Assertions.assertEquals("985569392615996", response.id());
+    }
+
+    @Test
+    void testDownloadMediaFileNotFound() {
+        mockWebServer.enqueue(new MockResponse().newBuilder().body("<html>.</html>").code(404).build());
+
+        var future = whatsappBusinessCloudApiAsync.downloadMediaFile(baseUrl + "/whatsapp_business/attachments/?mid=1228169767822607");
+
+        var ex = Assertions.assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+
+        Assertions.assertInstanceOf(WhatsappApiException.class, ex.getCause());
+        Assertions.assertEquals("Not found", ex.getCause().getMessage());
+    }
+
+    @Test
+    void testDownloadMediaFile() throws IOException, URISyntaxException, InterruptedException, ExecutionException, TimeoutException {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/starwars.png")).addHeader("Content-Disposition", "inline;filename=starwars.png").build());
+
+        var response = whatsappBusinessCloudApiAsync.downloadMediaFile(baseUrl + "/whatsapp_business/attachments/?mid=1228169767822607").get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals("starwars.png", response.fileName());
+        Assertions.assertTrue(response.content().length > 0);
+    }
+
+    @Test
+    void testDownloadMediaFileToPath(@TempDir Path dir) throws IOException, URISyntaxException, InterruptedException, ExecutionException, TimeoutException {
+        var fileContent = bytesFromResource("/starwars.png");
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(new Buffer().write(fileContent)).addHeader("Content-Disposition", "inline;filename=starwars.png").build());
+
+        var target = dir.resolve("starwars.png");
+        var response = whatsappBusinessCloudApiAsync.downloadMediaFile(baseUrl + "/whatsapp_business/attachments/?mid=1228169767822607", target, true, null).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals("starwars.png", response.fileName());
+        Assertions.assertEquals(fileContent.length, response.size());
+        Assertions.assertEquals(64, response.sha256().length());
+        Assertions.assertArrayEquals(fileContent, Files.readAllBytes(target));
+    }
+}
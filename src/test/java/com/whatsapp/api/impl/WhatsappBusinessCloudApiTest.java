@@ -2,6 +2,7 @@ package com.whatsapp.api.impl;
 
 import com.whatsapp.api.MockServerUtilsTest;
 import com.whatsapp.api.WhatsappApiFactory;
+import com.whatsapp.api.bulk.CompiledMessage;
 import com.whatsapp.api.configuration.ApiVersion;
 import com.whatsapp.api.domain.media.FileType;
 import com.whatsapp.api.domain.messages.*;
@@ -13,14 +14,27 @@ import com.whatsapp.api.exception.WhatsappApiException;
 import com.whatsapp.api.utils.Formatter;
 import mockwebserver3.MockResponse;
 import mockwebserver3.RecordedRequest;
+import okio.Buffer;
 import org.json.JSONException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
 
 import static com.whatsapp.api.configuration.WhatsappApiConfig.getApiVersion;
 
@@ -108,6 +122,31 @@ class WhatsappBusinessCloudApiTest extends MockServerUtilsTest {
         Assertions.assertEquals("wamid.gBGGSFcCNEOPAgkO_KJ55r4w_ww", response.messages().get(0).id());
     }
 
+    @Test
+    void testSendCompiledMessage() throws IOException, URISyntaxException, InterruptedException, JSONException {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(DEFAULT_SEND_MESSAGE_RESPONSE).build());
+
+        var expectedJson = fromResource(EXPECTED_FOLDER + "expectedMessage2.json");
+
+        var templateMessage = new TemplateMessage()//
+                .setLanguage(new Language(LanguageType.PT_BR))//
+                .setName("number_confirmation")//
+                .addComponent(new BodyComponent().addParameter(new TextParameter(CompiledMessage.placeholder("number"))));
+        var compiled = CompiledMessage.compile(MessageBuilder.builder().buildTemplateMessage(templateMessage), "number");
+
+
+        var response = whatsappBusinessCloudApi.sendMessage(PHONE_NUMBER_ID, compiled.render(PHONE_NUMBER_1, "18754269072"));
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("POST", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "/messages", recordedRequest.getPath());
+        Assertions.assertEquals("application/json; charset=UTF-8", recordedRequest.getHeaders().get("Content-Type"));
+
+        JSONAssert.assertEquals(expectedJson, recordedRequest.getBody().readUtf8(), JSONCompareMode.STRICT);
+
+        Assertions.assertEquals("wamid.gBGGSFcCNEOPAgkO_KJ55r4w_ww", response.messages().get(0).id());
+    }
+
     @Test
     void testSendContactMessage() throws IOException, URISyntaxException, InterruptedException, JSONException {
         mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(DEFAULT_SEND_MESSAGE_RESPONSE).build());
@@ -988,6 +1027,52 @@ class WhatsappBusinessCloudApiTest extends MockServerUtilsTest {
         Assertions.assertEquals("985569392615996", response.id());
     }
 
+    @Test
+    void testUploadMediaFromPath() throws IOException, URISyntaxException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/uploadResponse.json")).build());
+
+        var file = Path.of(Objects.requireNonNull(getClass().getResource("/starwars.png")).toURI());
+
+        var response = whatsappBusinessCloudApi.uploadMedia(PHONE_NUMBER_ID, "starwars.png", FileType.PNG, file);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("POST", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "/media", recordedRequest.getPath());
+        Assertions.assertEquals("103923", recordedRequest.getHeaders().get("Content-Length"));
+        Assertions.assertEquals(103923, recordedRequest.getBodySize());
+        Assertions.assertEquals("985569392615996", response.id());
+    }
+
+    @Test
+    void testUploadMediaFromInputStream() throws IOException, URISyntaxException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/uploadResponse.json")).build());
+
+        var fileContent = bytesFromResource("/starwars.png");
+
+        var response = whatsappBusinessCloudApi.uploadMedia(PHONE_NUMBER_ID, "starwars.png", FileType.PNG, new ByteArrayInputStream(fileContent));
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "/media", recordedRequest.getPath());
+        // unknown length: sent chunked
+        Assertions.assertEquals("chunked", recordedRequest.getHeaders().get("Transfer-Encoding"));
+        Assertions.assertEquals(103923, recordedRequest.getBodySize());
+        Assertions.assertEquals("985569392615996", response.id());
+    }
+
+    @Test
+    void testUploadMediaFromChannel() throws IOException, URISyntaxException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/uploadResponse.json")).build());
+
+        var fileContent = bytesFromResource("/starwars.png");
+
+        var response = whatsappBusinessCloudApi.uploadMedia(PHONE_NUMBER_ID, "starwars.png", FileType.PNG, Channels.newChannel(new ByteArrayInputStream(fileContent)));
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "/media", recordedRequest.getPath());
+        Assertions.assertEquals(103923, recordedRequest.getBodySize());
+        Assertions.assertEquals("985569392615996", response.id());
+    }
+
     @Test
     void testRetrieveMediaUrl() throws IOException, URISyntaxException, InterruptedException {
         mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/media.json")).build());
@@ -1036,6 +1121,60 @@ class WhatsappBusinessCloudApiTest extends MockServerUtilsTest {
 
     }
 
+    @Test
+    void testDownloadMediaFileToPath(@TempDir Path dir) throws IOException, URISyntaxException, NoSuchAlgorithmException {
+        var fileContent = bytesFromResource("/starwars.png");
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(new Buffer().write(fileContent)).addHeader("Content-Type", "image/png").addHeader("Content-Disposition", "inline;filename=starwars.png").build());
+
+        var target = dir.resolve("starwars.png");
+        List<Long> progress = new ArrayList<>();
+
+        var response = whatsappBusinessCloudApi.downloadMediaFile(baseUrl + "/whatsapp_business/attachments/?mid=1228169767822607", target, true, (written, length) -> {
+            Assertions.assertEquals(fileContent.length, length);
+            progress.add(written);
+        });
+
+        Assertions.assertEquals("starwars.png", response.fileName());
+        Assertions.assertEquals("image/png", response.mimeType());
+        Assertions.assertEquals(fileContent.length, response.size());
+        Assertions.assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(fileContent)), response.sha256());
+        Assertions.assertArrayEquals(fileContent, Files.readAllBytes(target));
+        Assertions.assertFalse(progress.isEmpty());
+        Assertions.assertEquals(fileContent.length, progress.get(progress.size() - 1));
+
+        // only the target is left in the directory
+        try (var files = Files.list(dir)) {
+            Assertions.assertEquals(List.of(target), files.toList());
+        }
+    }
+
+    @Test
+    void testDownloadMediaFileToPathNotFound(@TempDir Path dir) throws IOException {
+        mockWebServer.enqueue(new MockResponse().newBuilder().body("<html>.</html>").code(404).build());
+
+        var target = dir.resolve("starwars.png");
+        var exception = Assertions.assertThrows(WhatsappApiException.class, () -> whatsappBusinessCloudApi.downloadMediaFile(baseUrl + "/whatsapp_business/attachments/?mid=1228169767822607", target));
+
+        Assertions.assertEquals("Not found", exception.getMessage());
+        try (var files = Files.list(dir)) {
+            Assertions.assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testDownloadMediaFileToOutputStream() throws IOException, URISyntaxException {
+        var fileContent = bytesFromResource("/starwars.png");
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(new Buffer().write(fileContent)).addHeader("Content-Disposition", "inline;filename=starwars.png").build());
+
+        var outputStream = new ByteArrayOutputStream();
+        var response = whatsappBusinessCloudApi.downloadMediaFile(baseUrl + "/whatsapp_business/attachments/?mid=1228169767822607", outputStream);
+
+        Assertions.assertEquals("starwars.png", response.fileName());
+        Assertions.assertEquals(fileContent.length, response.size());
+        Assertions.assertNull(response.sha256());
+        Assertions.assertArrayEquals(fileContent, outputStream.toByteArray());
+    }
+
     @Test
     void testDeleteMedia() throws IOException, URISyntaxException, InterruptedException {
         mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/reponse.json")).build());
@@ -0,0 +1,231 @@
+package com.whatsapp.api.impl;
+
+import com.whatsapp.api.MockServerUtilsTest;
+import com.whatsapp.api.domain.config.CommerceDataItem;
+import com.whatsapp.api.domain.phone.RequestCode;
+import com.whatsapp.api.domain.phone.VerifyCode;
+import com.whatsapp.api.domain.phone.type.CodeMethodType;
+import com.whatsapp.api.domain.phone.type.NameStatusType;
+import com.whatsapp.api.domain.templates.BodyComponent;
+import com.whatsapp.api.domain.templates.HeaderComponent;
+import com.whatsapp.api.domain.templates.MessageTemplate;
+import com.whatsapp.api.domain.templates.type.Category;
+import com.whatsapp.api.domain.templates.type.HeaderFormat;
+import com.whatsapp.api.domain.templates.type.LanguageType;
+import com.whatsapp.api.exception.WhatsappApiException;
+import mockwebserver3.MockResponse;
+import mockwebserver3.RecordedRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.whatsapp.api.configuration.WhatsappApiConfig.getApiVersion;
+
+class WhatsappBusinessManagementApiAsyncTest extends MockServerUtilsTest {
+
+    private final String API_VERSION = getApiVersion().getValue();
+    private final String PHONE_NUMBER_ID = "411001010101010";
+    private final String WABA_ID = "57856727575875757";
+
+    private final String DEFAULT_TEMPLATE_RESPONSE = """
+            {
+              "status": "PENDING",
+              "category": "UTILITY",
+              "id": "952305634123456"
+            }
+            """;
+
+    @Test
+    void testCreateMessageTemplate() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(DEFAULT_TEMPLATE_RESPONSE).build());
+
+        var template = new MessageTemplate();
+
+        template.setName("welcome_template")//
+                .setCategory(Category.UTILITY)//
+                .setLanguage(LanguageType.EN_US)//
+                .addComponent(new HeaderComponent()//
+                        .setText("Welcome title")//
+                        .setFormat(HeaderFormat.TEXT))//
+                .addComponent(new BodyComponent()//
+                        .setText("Hello, welcome to our test."));
+
+        var response = whatsappBusinessManagementApiAsync.createMessageTemplate(WABA_ID, template).get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("POST", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + WABA_ID + "/message_templates", recordedRequest.getPath());
+
+        Assertions.assertEquals("952305634123456", response.id());
+        Assertions.assertEquals("PENDING", response.status());
+        Assertions.assertEquals(Category.UTILITY, response.category());
+    }
+
+    @Test
+    void testDeleteMessageTemplate() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/deleteTemplate.json")).build());
+
+        var response = whatsappBusinessManagementApiAsync.deleteMessageTemplate(WABA_ID, "welcome_template").get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("DELETE", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + WABA_ID + "/message_templates?name=welcome_template", recordedRequest.getPath());
+
+        Assertions.assertTrue(response.success());
+    }
+
+    @Test
+    void testRetrieveTemplates() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/retTemplate2.json")).build());
+
+        var templates = whatsappBusinessManagementApiAsync.retrieveTemplates(WABA_ID, 2).get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("GET", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + WABA_ID + "/message_templates?limit=2", recordedRequest.getPath());
+
+        Assertions.assertEquals(2, templates.data().size());
+        Assertions.assertEquals("welcome_template3", templates.data().get(0).name());
+        Assertions.assertEquals("MQZDZD", templates.paging().cursors().after());
+    }
+
+    @Test
+    void testRetrieveTemplatesAfter() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/retTemplate3.json")).build());
+
+        var templates = whatsappBusinessManagementApiAsync.retrieveTemplates(WABA_ID, 1, "MQZDZD").get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("GET", recordedRequest.getMethod());
+        Assertions.assertEquals("1", recordedRequest.getRequestUrl().queryParameter("limit"));
+        Assertions.assertEquals("MQZDZD", recordedRequest.getRequestUrl().queryParameter("after"));
+
+        Assertions.assertEquals(1, templates.data().size());
+    }
+
+    @Test
+    void testRetrievePhoneNumberWithSpecificFields() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/phone/phoneWithSpecificFields.json")).build());
+
+        var phoneNumber = whatsappBusinessManagementApiAsync.retrievePhoneNumber(PHONE_NUMBER_ID, "name_status", "verified_name").get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("GET", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "?fields=name_status%2Cverified_name", recordedRequest.getPath());
+
+        Assertions.assertEquals(NameStatusType.APPROVED, phoneNumber.nameStatus());
+        Assertions.assertEquals("Test Number", phoneNumber.verifiedName());
+    }
+
+    @Test
+    void testRetrievePhoneNumberNotFoundError() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(400).body(fromResource("/phone/phoneNumberNotFoundError.json")).build());
+
+        var future = whatsappBusinessManagementApiAsync.retrievePhoneNumber("454545");
+
+        var ex = Assertions.assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+
+        Assertions.assertInstanceOf(WhatsappApiException.class, ex.getCause());
+        Assertions.assertEquals(
+                "Unsupported get request. Object with ID '454545' does not exist, cannot be loaded due to missing permissions, or does not support this operation. Please read the Graph API documentation at https://developers.facebook.com/docs/graph-api",
+                ex.getCause().getMessage());
+    }
+
+    @Test
+    void testRetrievePhoneNumbers() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/phone/phoneNumbersList.json")).build());
+
+        var phoneNumbers = whatsappBusinessManagementApiAsync.retrievePhoneNumbers(WABA_ID).get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("GET", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + WABA_ID + "/phone_numbers", recordedRequest.getPath());
+
+        Assertions.assertEquals(4, phoneNumbers.data().size());
+        Assertions.assertEquals("109219652874979", phoneNumbers.data().get(0).id());
+    }
+
+    @Test
+    void testRequestCodeError() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(400).body(fromResource("/phone/requestCodeError.json")).build());
+
+        var future = whatsappBusinessManagementApiAsync.requestCode(PHONE_NUMBER_ID, new RequestCode(CodeMethodType.SMS, LanguageType.EN_US));
+
+        var ex = Assertions.assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("POST", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "/request_code", recordedRequest.getPath());
+        Assertions.assertEquals("{\"code_method\":\"SMS\",\"language\":\"en_US\"}", recordedRequest.getBody().readUtf8());
+
+        Assertions.assertInstanceOf(WhatsappApiException.class, ex.getCause());
+        Assertions.assertEquals("[136024] Request code error | Tente novamente depois de um tempo.", ex.getCause().getMessage());
+    }
+
+    @Test
+    void testVerifyCode() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/reponse.json")).build());
+
+        var response = whatsappBusinessManagementApiAsync.verifyCode(PHONE_NUMBER_ID, new VerifyCode("12345678")).get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("POST", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "/verify_code", recordedRequest.getPath());
+        Assertions.assertEquals("{\"code\":\"12345678\"}", recordedRequest.getBody().readUtf8());
+
+        Assertions.assertTrue(response.success());
+    }
+
+    @Test
+    void testGetWhatsappCommerceSettings() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/config/commerceSettings.json")).build());
+
+        var response = whatsappBusinessManagementApiAsync.getWhatsappCommerceSettings(PHONE_NUMBER_ID, "is_catalog_visible").get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("GET", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "/whatsapp_commerce_settings?fields=is_catalog_visible", recordedRequest.getPath());
+
+        Assertions.assertEquals("1001185490903808", response.data().get(0).getId());
+        Assertions.assertTrue(response.data().get(0).isCatalogVisible());
+    }
+
+    @Test
+    void testUpdateWhatsappCommerceSettings() throws Exception {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/reponse.json")).build());
+
+        var commerceDataItem = new CommerceDataItem()
+                .setCartEnabled(true)
+                .setCatalogVisible(true);
+
+        var response = whatsappBusinessManagementApiAsync.updateWhatsappCommerceSettings(PHONE_NUMBER_ID, commerceDataItem).get(5, TimeUnit.SECONDS);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("POST", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + PHONE_NUMBER_ID + "/whatsapp_commerce_settings", recordedRequest.getPath());
+
+        Assertions.assertTrue(response.success());
+    }
+
+    @Test
+    void testRetrieveManyPhoneNumbersConcurrently() throws Exception {
+        int total = 10;
+        for (int i = 0; i < total; i++) {
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/phone/phoneNumber.json")).build());
+        }
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            futures.add(whatsappBusinessManagementApiAsync.retrievePhoneNumber(PHONE_NUMBER_ID));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(total, mockWebServer.getRequestCount());
+    }
+}
@@ -11,6 +11,7 @@ import com.whatsapp.api.domain.phone.VerifyCode;
 import com.whatsapp.api.domain.phone.type.*;
 
 import com.whatsapp.api.domain.templates.*;
+import com.whatsapp.api.domain.templates.response.Template;
 import com.whatsapp.api.domain.templates.type.ButtonType;
 import com.whatsapp.api.domain.templates.type.Category;
 import com.whatsapp.api.domain.templates.type.HeaderFormat;
@@ -28,6 +29,9 @@ import org.skyscreamer.jsonassert.JSONCompareMode;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 
 import static com.whatsapp.api.configuration.WhatsappApiConfig.getApiVersion;
 
@@ -523,6 +527,104 @@ class WhatsappBusinessManagementApiTest extends MockServerUtilsTest {
 
     }
 
+    @Test
+    void testStreamTemplates() throws IOException, URISyntaxException, InterruptedException {
+        WhatsappApiFactory factory = WhatsappApiFactory.newInstance(TOKEN);
+
+        WhatsappBusinessManagementApi whatsappBusinessCloudApi = factory.newBusinessManagementApi();
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/retTemplate2.json")).build());
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/retTemplate3.json")).build());
+
+        List<String> names;
+        try (var templates = whatsappBusinessCloudApi.streamTemplates(WABA_ID, 2)) {
+            names = templates.map(Template::name).toList();
+        }
+
+        Assertions.assertEquals(3, names.size());
+        Assertions.assertEquals("welcome_template3", names.get(0));
+        Assertions.assertEquals("welcome_template3", names.get(2));
+
+        RecordedRequest firstPage = mockWebServer.takeRequest();
+        Assertions.assertEquals("/" + API_VERSION + "/" + WABA_ID + "/message_templates", firstPage.getRequestUrl().encodedPath());
+        Assertions.assertEquals("2", firstPage.getRequestUrl().queryParameter("limit"));
+        Assertions.assertNull(firstPage.getRequestUrl().queryParameter("after"));
+
+        RecordedRequest secondPage = mockWebServer.takeRequest();
+        Assertions.assertEquals("2", secondPage.getRequestUrl().queryParameter("limit"));
+        Assertions.assertEquals("MQZDZD", secondPage.getRequestUrl().queryParameter("after"));
+
+        // the last page has no next page
+        Assertions.assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void testIterateTemplatesPrefetchesNextPage() throws IOException, URISyntaxException, InterruptedException {
+        WhatsappApiFactory factory = WhatsappApiFactory.newInstance(TOKEN);
+
+        WhatsappBusinessManagementApi whatsappBusinessCloudApi = factory.newBusinessManagementApi();
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/retTemplate2.json")).build());
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/retTemplate3.json")).build());
+
+        try (var templates = whatsappBusinessCloudApi.iterateTemplates(WABA_ID, 2)) {
+            Assertions.assertTrue(templates.hasNext());
+            Assertions.assertEquals("welcome_template3", templates.next().name());
+
+            // the second page is requested while the first one is consumed
+            mockWebServer.takeRequest();
+            RecordedRequest secondPage = mockWebServer.takeRequest(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(secondPage);
+            Assertions.assertEquals("MQZDZD", secondPage.getRequestUrl().queryParameter("after"));
+
+            int remaining = 0;
+            while (templates.hasNext()) {
+                templates.next();
+                remaining++;
+            }
+            Assertions.assertEquals(2, remaining);
+            Assertions.assertThrows(NoSuchElementException.class, templates::next);
+        }
+    }
+
+    @Test
+    void testIterateTemplatesError() throws IOException, URISyntaxException {
+        WhatsappApiFactory factory = WhatsappApiFactory.newInstance(TOKEN);
+
+        WhatsappBusinessManagementApi whatsappBusinessCloudApi = factory.newBusinessManagementApi();
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/retTemplate2.json")).build());
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(400).body(fromResource("/phone/phoneNumberNotFoundError.json")).build());
+
+        try (var templates = whatsappBusinessCloudApi.iterateTemplates(WABA_ID, 2)) {
+            templates.next();
+            templates.next();
+
+            var ex = Assertions.assertThrows(WhatsappApiException.class, templates::hasNext);
+            Assertions.assertNotNull(ex.getMessage());
+        }
+    }
+
+    @Test
+    void testStreamPhoneNumbers() throws IOException, URISyntaxException, InterruptedException {
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/phone/phoneNumbersList.json")).build());
+
+        WhatsappApiFactory factory = WhatsappApiFactory.newInstance(TestConstants.TOKEN);
+
+        WhatsappBusinessManagementApi businessManagementApi = factory.newBusinessManagementApi();
+
+        long count;
+        try (var phoneNumbers = businessManagementApi.streamPhoneNumbers(WABA_ID, 25)) {
+            count = phoneNumbers.count();
+        }
+
+        Assertions.assertEquals(4, count);
+
+        RecordedRequest recordedRequest = mockWebServer.takeRequest();
+        Assertions.assertEquals("GET", recordedRequest.getMethod());
+        Assertions.assertEquals("/" + API_VERSION + "/" + WABA_ID + "/phone_numbers", recordedRequest.getRequestUrl().encodedPath());
+        Assertions.assertEquals("25", recordedRequest.getRequestUrl().queryParameter("limit"));
+        // the page has no next page, only cursors
+        Assertions.assertEquals(1, mockWebServer.getRequestCount());
+    }
+
     @Test
     void testRetrievePhoneNumber() throws IOException, URISyntaxException, InterruptedException {
         mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(fromResource("/phone/phoneNumber.json")).build());
@@ -0,0 +1,319 @@
+package com.whatsapp.api.interceptor;
+
+import com.whatsapp.api.MockServerUtilsTest;
+import com.whatsapp.api.WhatsappApiServiceGenerator;
+import com.whatsapp.api.configuration.RateLimitSettings;
+import com.whatsapp.api.domain.media.FileType;
+import com.whatsapp.api.domain.messages.Message.MessageBuilder;
+import com.whatsapp.api.domain.messages.TextMessage;
+import com.whatsapp.api.exception.WhatsappApiException;
+import com.whatsapp.api.impl.WhatsappBusinessCloudApi;
+import com.whatsapp.api.impl.WhatsappBusinessManagementApi;
+import mockwebserver3.MockResponse;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+class RateLimitInterceptorTest extends MockServerUtilsTest {
+
+    private final String TOKEN = "df4UIkhjdli48574654SDsdf54654sdf5s4DDF54654654654564654sdfsdf54sdf65s4";
+
+    private final String PHONE_NUMBER_ID = "888888888888";
+
+    private final String SEND_MESSAGE_RESPONSE = """
+            {
+              "messaging_product": "whatsapp",
+              "contacts": [{ "input": "48XXXXXXXXX", "wa_id": "48XXXXXXXXX" }],
+              "messages": [{ "id": "wamid.gBGGSFcCNEOPAgkO_KJ55r4w_ww" }]
+            }
+            """;
+
+    private final String THROUGHPUT_ERROR = """
+            {
+              "error": {
+                "message": "(#130429) Rate limit hit",
+                "type": "OAuthException",
+                "code": 130429,
+                "fbtrace_id": "Az8or2yhqkZfEZ-_4Qn_Bam"
+              }
+            }
+            """;
+
+    private final String PAIR_RATE_LIMIT_ERROR = """
+            {
+              "error": {
+                "message": "(#131056) (Business Account, Consumer Account) pair rate limit hit",
+                "type": "OAuthException",
+                "code": 131056,
+                "fbtrace_id": "Az8or2yhqkZfEZ-_4Qn_Bam"
+              }
+            }
+            """;
+
+    private final String PHONE_NUMBER_RESPONSE = """
+            {
+              "verified_name": "Test Number",
+              "display_phone_number": "+1 555-025-3483",
+              "id": "888888888888",
+              "quality_rating": "GREEN"
+            }
+            """;
+
+    @AfterEach
+    void disableRateLimiting() {
+        WhatsappApiServiceGenerator.setRateLimitSettings(null);
+    }
+
+    private WhatsappBusinessCloudApi cloudApi(RateLimitSettings settings) {
+        WhatsappApiServiceGenerator.setRateLimitSettings(settings);
+        return new WhatsappBusinessCloudApi(TOKEN);
+    }
+
+    private static RateLimitSettings fastRetries(int maxRetries) {
+        return new RateLimitSettings(100, 100, maxRetries, Duration.ofMillis(10), Duration.ofMillis(100));
+    }
+
+    @Test
+    void testThrottledCallIsRetried() throws InterruptedException {
+        var api = cloudApi(fastRetries(3));
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(400).body(THROUGHPUT_ERROR).build());
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+
+        var message = MessageBuilder.builder().setTo("121212121212").buildTextMessage(new TextMessage().setBody("Hello"));
+        var response = api.sendMessage(PHONE_NUMBER_ID, message);
+
+        Assertions.assertEquals("wamid.gBGGSFcCNEOPAgkO_KJ55r4w_ww", response.messages().get(0).id());
+        Assertions.assertEquals(2, mockWebServer.getRequestCount());
+        Assertions.assertEquals("Bearer " + TOKEN, mockWebServer.takeRequest().getHeaders().get("Authorization"));
+        Assertions.assertEquals("Bearer " + TOKEN, mockWebServer.takeRequest().getHeaders().get("Authorization"));
+
+        var metrics = WhatsappApiServiceGenerator.getRateLimitInterceptor().getMetrics();
+        Assertions.assertEquals(2, metrics.requests());
+        Assertions.assertEquals(1, metrics.retries());
+        Assertions.assertEquals(1, metrics.throttled());
+        Assertions.assertTrue(metrics.availableTokens().containsKey(PHONE_NUMBER_ID));
+    }
+
+    @Test
+    void testRetriesExhausted() {
+        var api = cloudApi(fastRetries(2));
+        for (int i = 0; i < 3; i++) {
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(400).body(THROUGHPUT_ERROR).build());
+        }
+
+        var message = MessageBuilder.builder().setTo("121212121212").buildTextMessage(new TextMessage().setBody("Hello"));
+        var ex = Assertions.assertThrows(WhatsappApiException.class, () -> api.sendMessage(PHONE_NUMBER_ID, message));
+
+        Assertions.assertEquals(130429, ex.getError().error().code());
+        Assertions.assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void testRetryAfterIsHonoured() {
+        var api = cloudApi(new RateLimitSettings(100, 100, 1, Duration.ofMillis(10), Duration.ofSeconds(2)));
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(429).addHeader("Retry-After", "1").body("{}").build());
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+
+        var message = MessageBuilder.builder().setTo("121212121212").buildTextMessage(new TextMessage().setBody("Hello"));
+        long start = System.nanoTime();
+        api.sendMessage(PHONE_NUMBER_ID, message);
+
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(950));
+        Assertions.assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void testRetryAfterLongerThanMaxBackoffIsNotRetried() {
+        var api = cloudApi(fastRetries(3));
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(429).addHeader("Retry-After", "3600").body(THROUGHPUT_ERROR).build());
+
+        var message = MessageBuilder.builder().setTo("121212121212").buildTextMessage(new TextMessage().setBody("Hello"));
+        Assertions.assertThrows(WhatsappApiException.class, () -> api.sendMessage(PHONE_NUMBER_ID, message));
+
+        Assertions.assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void testStreamedUploadIsNotRetried() {
+        var api = cloudApi(fastRetries(3));
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(400).body(THROUGHPUT_ERROR).build());
+
+        var content = new ByteArrayInputStream(new byte[]{1, 2, 3});
+        var ex = Assertions.assertThrows(WhatsappApiException.class, () -> api.uploadMedia(PHONE_NUMBER_ID, "file.png", FileType.PNG, content));
+
+        Assertions.assertEquals(130429, ex.getError().error().code());
+        Assertions.assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void testTransientErrorRetriedOnlyForIdempotentCalls() {
+        WhatsappApiServiceGenerator.setRateLimitSettings(fastRetries(3));
+        var cloudApi = new WhatsappBusinessCloudApi(TOKEN);
+        var managementApi = new WhatsappBusinessManagementApi(TOKEN);
+
+        // GET is retried
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(503).body("{}").build());
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(PHONE_NUMBER_RESPONSE).build());
+        Assertions.assertEquals(PHONE_NUMBER_ID, managementApi.retrievePhoneNumber(PHONE_NUMBER_ID).id());
+        Assertions.assertEquals(2, mockWebServer.getRequestCount());
+
+        // POST is not: the message may have been sent
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(503).body("{}").build());
+        var message = MessageBuilder.builder().setTo("121212121212").buildTextMessage(new TextMessage().setBody("Hello"));
+        Assertions.assertThrows(WhatsappApiException.class, () -> cloudApi.sendMessage(PHONE_NUMBER_ID, message));
+        Assertions.assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void testBurstIsSmoothed() {
+        var api = cloudApi(new RateLimitSettings(2, 10, 0, Duration.ofMillis(10), Duration.ofMillis(100)));
+        for (int i = 0; i < 5; i++) {
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+        }
+
+        var message = MessageBuilder.builder().setTo("121212121212").buildTextMessage(new TextMessage().setBody("Hello"));
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            api.sendMessage(PHONE_NUMBER_ID, message);
+        }
+
+        // 2 tokens at once, then 3 more at 10 per second
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(280));
+        Assertions.assertTrue(WhatsappApiServiceGenerator.getRateLimitInterceptor().getMetrics().waited().toMillis() >= 100);
+    }
+
+    @Test
+    void testSetLimit() {
+        var api = cloudApi(new RateLimitSettings(1, 1, 0, Duration.ofMillis(10), Duration.ofMillis(100)));
+        WhatsappApiServiceGenerator.getRateLimitInterceptor().setLimit(PHONE_NUMBER_ID, 1000, 1000);
+        for (int i = 0; i < 3; i++) {
+            mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+        }
+
+        var message = MessageBuilder.builder().setTo("121212121212").buildTextMessage(new TextMessage().setBody("Hello"));
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            api.sendMessage(PHONE_NUMBER_ID, message);
+        }
+
+        // at 1 per second the default bucket would have held the calls for 2 seconds
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void testObjectCallsGetNoBucket() {
+        WhatsappApiServiceGenerator.setRateLimitSettings(fastRetries(0));
+        var managementApi = new WhatsappBusinessManagementApi(TOKEN);
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(PHONE_NUMBER_RESPONSE).build());
+
+        managementApi.retrievePhoneNumber(PHONE_NUMBER_ID);
+
+        Assertions.assertTrue(WhatsappApiServiceGenerator.getRateLimitInterceptor().getMetrics().availableTokens().isEmpty());
+    }
+
+    @Test
+    void testPairRateLimitOnlyHoldsBackTheRecipient() throws Exception {
+        var api = cloudApi(new RateLimitSettings(100, 100, 1, Duration.ofMillis(10), Duration.ofSeconds(2)));
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(400).addHeader("Retry-After", "1").body(PAIR_RATE_LIMIT_ERROR).build());
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+
+        var throttledMessage = MessageBuilder.builder().setTo("121212121212").buildTextMessage(new TextMessage().setBody("Hello"));
+        var otherMessage = MessageBuilder.builder().setTo("343434343434").buildTextMessage(new TextMessage().setBody("Hello"));
+
+        long start = System.nanoTime();
+        var throttled = CompletableFuture.runAsync(() -> api.sendMessage(PHONE_NUMBER_ID, throttledMessage));
+        mockWebServer.takeRequest(5, TimeUnit.SECONDS);
+        Thread.sleep(100);
+
+        // the other recipient of the same phone number is not held back
+        api.sendMessage(PHONE_NUMBER_ID, otherMessage);
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(800));
+        Assertions.assertTrue(mockWebServer.takeRequest(5, TimeUnit.SECONDS).getBody().readUtf8().contains("343434343434"));
+
+        throttled.get(5, TimeUnit.SECONDS);
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(950));
+        Assertions.assertTrue(mockWebServer.takeRequest(5, TimeUnit.SECONDS).getBody().readUtf8().contains("121212121212"));
+    }
+
+    @Test
+    void testRetryLongerThanCallTimeoutReturnsThrottledResponse() throws IOException {
+        var client = new OkHttpClient.Builder()
+                .callTimeout(500, TimeUnit.MILLISECONDS)
+                .addInterceptor(new RateLimitInterceptor(new RateLimitSettings(100, 100, 3, Duration.ofMillis(10), Duration.ofSeconds(2))))
+                .build();
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(400).addHeader("Retry-After", "1").body(THROUGHPUT_ERROR).build());
+        var request = new Request.Builder().url(mockWebServer.url("/v19.0/" + PHONE_NUMBER_ID + "/messages"))
+                .post(RequestBody.create("{}", MediaType.parse("application/json")))
+                .build();
+
+        long start = System.nanoTime();
+        try (var response = client.newCall(request).execute()) {
+            // the retry would have been cancelled by the call timeout while it waited
+            Assertions.assertEquals(400, response.code());
+            Assertions.assertTrue(response.body().string().contains("130429"));
+        }
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+        Assertions.assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    void testWaitLongerThanCallTimeoutGivesTokenBack() throws IOException {
+        var interceptor = new RateLimitInterceptor(new RateLimitSettings(1, 0.1, 0, Duration.ofMillis(10), Duration.ofMillis(100)));
+        var client = new OkHttpClient.Builder()
+                .callTimeout(500, TimeUnit.MILLISECONDS)
+                .addInterceptor(interceptor)
+                .build();
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).body(SEND_MESSAGE_RESPONSE).build());
+        var request = new Request.Builder().url(mockWebServer.url("/v19.0/" + PHONE_NUMBER_ID + "/messages"))
+                .post(RequestBody.create("{}", MediaType.parse("application/json")))
+                .build();
+
+        client.newCall(request).execute().close();
+        // the next token comes in 10 seconds, after the call timeout
+        Assertions.assertThrows(InterruptedIOException.class, () -> client.newCall(request).execute());
+
+        Assertions.assertEquals(1, mockWebServer.getRequestCount());
+        Assertions.assertTrue(interceptor.getMetrics().availableTokens().get(PHONE_NUMBER_ID) > -0.5);
+    }
+
+    @Test
+    void testRateLimitKey() {
+        Assertions.assertEquals("123", RateLimitInterceptor.rateLimitKey(new Request.Builder().url("https://graph.facebook.com/v19.0/123/messages").build()));
+        Assertions.assertEquals("123", RateLimitInterceptor.rateLimitKey(new Request.Builder().url("https://graph.facebook.com/v19.0/123/message_templates/789").build()));
+        // a single object, such as a media id, gets no bucket
+        Assertions.assertNull(RateLimitInterceptor.rateLimitKey(new Request.Builder().url("https://graph.facebook.com/v19.0/456").build()));
+        Assertions.assertNull(RateLimitInterceptor.rateLimitKey(new Request.Builder().url("https://lookaside.fbsbx.com/whatsapp_business/attachments/?mid=1").build()));
+    }
+
+    @Test
+    void testTokenBucket() {
+        long now = 0;
+        var bucket = new TokenBucket(2, 10, now);
+
+        Assertions.assertEquals(0, bucket.reserve(now));
+        Assertions.assertEquals(0, bucket.reserve(now));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), bucket.reserve(now));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(200), bucket.reserve(now));
+
+        bucket.pause(TimeUnit.SECONDS.toNanos(5));
+        Assertions.assertEquals(TimeUnit.SECONDS.toNanos(5), bucket.reserve(now));
+        Assertions.assertTrue(bucket.available(now) < 0);
+
+        var released = new TokenBucket(1, 10, now);
+        released.reserve(now);
+        released.release(now);
+        Assertions.assertEquals(0, released.reserve(now));
+    }
+}
@@ -0,0 +1,68 @@
+package com.whatsapp.api.utils;
+
+import okhttp3.MediaType;
+import okio.Buffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+class StreamingRequestBodyTest {
+
+    private static final MediaType PNG = MediaType.parse("image/png");
+
+    private final byte[] content = randomBytes(300_000);
+
+    @Test
+    void testFromPath(@TempDir Path dir) throws IOException {
+        Path file = Files.write(dir.resolve("file.png"), content);
+        var body = StreamingRequestBody.fromPath(file, PNG);
+
+        Assertions.assertEquals(content.length, body.contentLength());
+        Assertions.assertEquals(PNG, body.contentType());
+        Assertions.assertFalse(body.isOneShot());
+
+        // can be written twice, for retries
+        for (int i = 0; i < 2; i++) {
+            var buffer = new Buffer();
+            body.writeTo(buffer);
+            Assertions.assertArrayEquals(content, buffer.readByteArray());
+        }
+    }
+
+    @Test
+    void testFromInputStream() throws IOException {
+        var body = StreamingRequestBody.fromInputStream(new ByteArrayInputStream(content), PNG, -1);
+
+        Assertions.assertEquals(-1, body.contentLength());
+        Assertions.assertTrue(body.isOneShot());
+
+        var buffer = new Buffer();
+        body.writeTo(buffer);
+        Assertions.assertArrayEquals(content, buffer.readByteArray());
+    }
+
+    @Test
+    void testFromChannel() throws IOException {
+        var body = StreamingRequestBody.fromChannel(Channels.newChannel(new ByteArrayInputStream(content)), PNG, content.length);
+
+        Assertions.assertEquals(content.length, body.contentLength());
+        Assertions.assertTrue(body.isOneShot());
+
+        var buffer = new Buffer();
+        body.writeTo(buffer);
+        Assertions.assertArrayEquals(content, buffer.readByteArray());
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
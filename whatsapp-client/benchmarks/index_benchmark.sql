@@ -0,0 +1,166 @@
+-- Index benchmark of the conversation, message and webhook event queries
+--
+-- Seeds a scratch schema shaped like whatsapp_integration, then prints the plan, buffers and execution time of each
+-- query the application runs, first with the indexes of V1 and then with those of V4 and V5, and the size of each index.
+-- Nothing outside the index_benchmark schema is touched; it is dropped at the start of every run.
+--
+-- Usage (PostgreSQL 13 or later):
+--   psql -d whatsapp -f benchmarks/index_benchmark.sql
+--   psql -d whatsapp -v tenants=200 -v conversations=200000 -v messages=5000000 -v events=2000000 -f benchmarks/index_benchmark.sql
+
+\set ON_ERROR_STOP on
+\pset pager off
+
+\if :{?tenants}
+\else
+\set tenants 50
+\endif
+\if :{?conversations}
+\else
+\set conversations 100000
+\endif
+\if :{?messages}
+\else
+\set messages 2000000
+\endif
+\if :{?events}
+\else
+\set events 1000000
+\endif
+
+DROP SCHEMA IF EXISTS index_benchmark CASCADE;
+CREATE SCHEMA index_benchmark;
+SET search_path = index_benchmark;
+
+-- Same columns and constraints as V1, without the foreign keys to tenants
+CREATE TABLE conversations (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    tenant_id UUID NOT NULL,
+    customer_wa_id VARCHAR(255) NOT NULL,
+    customer_phone VARCHAR(50) NOT NULL,
+    customer_name VARCHAR(255),
+    customer_profile_pic_url TEXT,
+    status VARCHAR(50) NOT NULL DEFAULT 'ACTIVE',
+    last_message_at TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT unique_tenant_customer UNIQUE (tenant_id, customer_wa_id)
+);
+
+CREATE TABLE messages (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    conversation_id UUID NOT NULL,
+    whatsapp_message_id VARCHAR(255),
+    direction VARCHAR(20) NOT NULL CHECK (direction IN ('INBOUND', 'OUTBOUND')),
+    message_type VARCHAR(50) NOT NULL,
+    content TEXT,
+    media_url TEXT,
+    media_mime_type VARCHAR(100),
+    media_filename VARCHAR(255),
+    media_id VARCHAR(255),
+    status VARCHAR(50) NOT NULL DEFAULT 'SENT',
+    status_updated_at TIMESTAMP WITH TIME ZONE,
+    sent_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    delivered_at TIMESTAMP WITH TIME ZONE,
+    read_at TIMESTAMP WITH TIME ZONE,
+    failed_reason TEXT,
+    CONSTRAINT unique_whatsapp_message_id UNIQUE (whatsapp_message_id),
+    CONSTRAINT fk_conversation FOREIGN KEY (conversation_id) REFERENCES conversations(id) ON DELETE CASCADE
+);
+
+CREATE TABLE webhook_events (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    tenant_id UUID,
+    event_type VARCHAR(100) NOT NULL,
+    payload JSONB NOT NULL,
+    processed BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Seed: conversations spread over the tenants, messages and events inserted in time order as in production,
+-- a few conversations without messages, and the last hundred events not yet processed
+\echo Seeding :tenants tenants, :conversations conversations, :messages messages and :events webhook events
+
+INSERT INTO conversations (id, tenant_id, customer_wa_id, customer_phone, customer_name, last_message_at)
+SELECT md5('conversation' || c)::uuid,
+       md5('tenant' || (c % :tenants))::uuid,
+       (5511900000000 + c)::text,
+       (5511900000000 + c)::text,
+       'Customer ' || c,
+       CASE WHEN c % 100 = 0 THEN NULL ELSE now() - (c % 86400) * interval '1 minute' END
+FROM generate_series(1, :conversations) AS c;
+
+INSERT INTO messages (conversation_id, whatsapp_message_id, direction, message_type, content, status, sent_at)
+SELECT md5('conversation' || (1 + (m::bigint * 7919) % :conversations))::uuid,
+       'wamid.' || m,
+       CASE WHEN m % 2 = 0 THEN 'INBOUND' ELSE 'OUTBOUND' END,
+       'TEXT',
+       'Message ' || m,
+       'READ',
+       now() - (:messages - m) * interval '1 second'
+FROM generate_series(1, :messages) AS m;
+
+INSERT INTO webhook_events (tenant_id, event_type, payload, processed, created_at)
+SELECT md5('tenant' || (e % :tenants))::uuid,
+       CASE e % 3 WHEN 0 THEN 'messages' WHEN 1 THEN 'account_update' ELSE 'message_template_status_update' END,
+       jsonb_build_object('id', e),
+       e <= :events - 100,
+       now() - (:events - e) * interval '1 second'
+FROM generate_series(1, :events) AS e;
+
+-- Parameters of the queries
+SELECT md5('tenant' || 1)::uuid AS tenant_id,
+       (5511900000000 + 1 + :tenants)::text AS customer_phone,
+       md5('conversation' || 1)::uuid AS conversation_id \gset
+
+-- The queries of the repositories, with the parameters of a busy tenant and conversation
+\set q_conversation_by_phone 'SELECT * FROM conversations WHERE tenant_id = ' :'tenant_id' ' AND customer_phone = ' :'customer_phone'
+\set q_conversations_offset 'SELECT * FROM conversations WHERE tenant_id = ' :'tenant_id' ' ORDER BY last_message_at DESC LIMIT 50 OFFSET 1000'
+\set q_conversations_keyset 'SELECT * FROM conversations WHERE tenant_id = ' :'tenant_id' ' AND (last_message_at, id) < (now() - interval ''1 day'', ''ffffffff-ffff-ffff-ffff-ffffffffffff'') ORDER BY last_message_at DESC, id DESC LIMIT 51'
+\set q_messages_offset 'SELECT * FROM messages WHERE conversation_id = ' :'conversation_id' ' ORDER BY sent_at DESC LIMIT 50 OFFSET 10'
+\set q_messages_keyset 'SELECT * FROM messages WHERE conversation_id = ' :'conversation_id' ' AND (sent_at, id) < (now() - interval ''1 hour'', ''ffffffff-ffff-ffff-ffff-ffffffffffff'') ORDER BY sent_at DESC, id DESC LIMIT 51'
+\set q_unprocessed_events 'SELECT * FROM webhook_events WHERE processed = false ORDER BY created_at'
+\set q_events_by_tenant 'SELECT * FROM webhook_events WHERE tenant_id = ' :'tenant_id' ' ORDER BY created_at DESC LIMIT 20'
+\set q_events_by_type 'SELECT * FROM webhook_events WHERE event_type = ''account_update'' ORDER BY created_at DESC LIMIT 20'
+\set q_recent_inbound_ids 'SELECT whatsapp_message_id FROM messages WHERE direction = ''INBOUND'' AND sent_at >= now() - interval ''1 hour'''
+
+-- Indexes of V1
+CREATE INDEX idx_conversations_tenant_id ON conversations(tenant_id);
+CREATE INDEX idx_conversations_customer_phone ON conversations(customer_phone);
+CREATE INDEX idx_conversations_last_message_at ON conversations(last_message_at);
+CREATE INDEX idx_messages_conversation_id ON messages(conversation_id);
+CREATE INDEX idx_messages_direction ON messages(direction);
+CREATE INDEX idx_messages_sent_at ON messages(sent_at);
+CREATE INDEX idx_webhook_events_tenant_id ON webhook_events(tenant_id);
+CREATE INDEX idx_webhook_events_event_type ON webhook_events(event_type);
+CREATE INDEX idx_webhook_events_created_at ON webhook_events(created_at);
+VACUUM ANALYZE conversations, messages, webhook_events;
+
+\echo
+\echo ======== Indexes of V1 ========
+\ir index_benchmark_queries.sql
+
+-- Indexes of V4 and V5
+CREATE INDEX idx_conversations_tenant_keyset ON conversations(tenant_id, last_message_at DESC, id DESC);
+CREATE INDEX idx_messages_conversation_keyset ON messages(conversation_id, sent_at DESC, id DESC);
+CREATE INDEX idx_conversations_tenant_customer_phone ON conversations(tenant_id, customer_phone);
+DROP INDEX idx_conversations_customer_phone;
+DROP INDEX idx_conversations_tenant_id;
+DROP INDEX idx_messages_conversation_id;
+DROP INDEX idx_messages_direction;
+CREATE INDEX idx_webhook_events_tenant_created_at ON webhook_events(tenant_id, created_at DESC);
+CREATE INDEX idx_webhook_events_event_type_created_at ON webhook_events(event_type, created_at DESC);
+DROP INDEX idx_webhook_events_tenant_id;
+DROP INDEX idx_webhook_events_event_type;
+CREATE INDEX idx_webhook_events_unprocessed ON webhook_events(created_at) WHERE processed = FALSE;
+CREATE INDEX idx_messages_sent_at_brin ON messages USING BRIN (sent_at);
+CREATE INDEX idx_webhook_events_created_at_brin ON webhook_events USING BRIN (created_at);
+DROP INDEX idx_messages_sent_at;
+DROP INDEX idx_webhook_events_created_at;
+VACUUM ANALYZE conversations, messages, webhook_events;
+
+\echo
+\echo ======== Indexes of V4 and V5 ========
+\ir index_benchmark_queries.sql
+
+DROP SCHEMA index_benchmark CASCADE;
@@ -0,0 +1,45 @@
+-- Queries of index_benchmark.sql, run once with each set of indexes.
+-- Each query is run once to warm the cache before the measured run.
+
+\echo
+\echo -------- Index sizes --------
+SELECT indexrelname AS index, pg_size_pretty(pg_relation_size(indexrelid)) AS size
+FROM pg_stat_user_indexes
+WHERE schemaname = 'index_benchmark'
+ORDER BY relname, indexrelname;
+
+\echo -------- Conversation by tenant and customer phone --------
+:q_conversation_by_phone \g /dev/null
+EXPLAIN (ANALYZE, BUFFERS) :q_conversation_by_phone;
+
+\echo -------- Conversations of a tenant, offset page --------
+:q_conversations_offset \g /dev/null
+EXPLAIN (ANALYZE, BUFFERS) :q_conversations_offset;
+
+\echo -------- Conversations of a tenant, keyset page --------
+:q_conversations_keyset \g /dev/null
+EXPLAIN (ANALYZE, BUFFERS) :q_conversations_keyset;
+
+\echo -------- Messages of a conversation, offset page --------
+:q_messages_offset \g /dev/null
+EXPLAIN (ANALYZE, BUFFERS) :q_messages_offset;
+
+\echo -------- Messages of a conversation, keyset page --------
+:q_messages_keyset \g /dev/null
+EXPLAIN (ANALYZE, BUFFERS) :q_messages_keyset;
+
+\echo -------- Unprocessed webhook events, oldest first --------
+:q_unprocessed_events \g /dev/null
+EXPLAIN (ANALYZE, BUFFERS) :q_unprocessed_events;
+
+\echo -------- Webhook events of a tenant, newest first --------
+:q_events_by_tenant \g /dev/null
+EXPLAIN (ANALYZE, BUFFERS) :q_events_by_tenant;
+
+\echo -------- Webhook events of a type, newest first --------
+:q_events_by_type \g /dev/null
+EXPLAIN (ANALYZE, BUFFERS) :q_events_by_type;
+
+\echo -------- Inbound message IDs of the last hour (message ID index rebuild) --------
+:q_recent_inbound_ids \g /dev/null
+EXPLAIN (ANALYZE, BUFFERS) :q_recent_inbound_ids;
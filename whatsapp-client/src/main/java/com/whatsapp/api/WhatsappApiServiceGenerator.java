@@ -2,17 +2,27 @@ package com.whatsapp.api;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whatsapp.api.configuration.ConnectionPoolSettings;
+import com.whatsapp.api.configuration.RateLimitSettings;
 import com.whatsapp.api.configuration.WhatsappApiConfig;
 import com.whatsapp.api.domain.errors.Error;
 import com.whatsapp.api.domain.errors.WhatsappApiError;
+import com.whatsapp.api.domain.media.DownloadProgressListener;
+import com.whatsapp.api.domain.media.MediaDownload;
 import com.whatsapp.api.domain.media.MediaFile;
 import com.whatsapp.api.exception.WhatsappApiException;
 import com.whatsapp.api.interceptor.AuthenticationInterceptor;
+import com.whatsapp.api.interceptor.RateLimitInterceptor;
+import com.whatsapp.api.interceptor.TenantAuthenticationInterceptor;
 import com.whatsapp.api.utils.proxy.CustomHttpProxySelector;
 import com.whatsapp.api.utils.proxy.CustomProxyAuthenticator;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import okhttp3.ResponseBody;
+import okio.BufferedSource;
 import retrofit2.Call;
+import retrofit2.Callback;
 import retrofit2.Converter;
 import retrofit2.Response;
 import retrofit2.Retrofit;
@@ -20,7 +30,21 @@ import retrofit2.converter.jackson.JacksonConverterFactory;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -37,6 +61,17 @@ public class WhatsappApiServiceGenerator {
           .configure(DeserializationFeature.FAIL_ON_INVALID_SUBTYPE, false)
     );
 
+    private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
+    private static final TenantAuthenticationInterceptor tenantAuthenticationInterceptor = new TenantAuthenticationInterceptor();
+
+    private static RateLimitInterceptor rateLimitInterceptor;
+
+    /**
+     * Shared Retrofit instances by base url, used by the tenant-aware service mode.
+     */
+    private static final Map<String, SharedRetrofit> sharedRetrofits = new ConcurrentHashMap<>();
+
     @SuppressWarnings("unchecked")
     private static final Converter<ResponseBody, WhatsappApiError> errorBodyConverter = (Converter<ResponseBody, WhatsappApiError>) converterFactory.responseBodyConverter(WhatsappApiError.class, new Annotation[0], null);
 
@@ -55,6 +90,62 @@ public class WhatsappApiServiceGenerator {
                 .build();
     }
 
+    /**
+     * Sets the connection pool and dispatcher limits of the shared client.
+     * <p>
+     * Every client created from the shared client, including the ones already created, keeps using the
+     * connection pool and dispatcher it was built with. Configure this before creating clients.
+     *
+     * @param settings the connection pool settings
+     */
+    public static void setConnectionPoolSettings(ConnectionPoolSettings settings) {
+        Objects.requireNonNull(settings, "Settings cannot be null");
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(settings.maxRequests());
+        dispatcher.setMaxRequestsPerHost(settings.maxRequestsPerHost());
+
+        ConnectionPool connectionPool = new ConnectionPool(settings.maxIdleConnections(), settings.keepAlive().toMillis(), TimeUnit.MILLISECONDS);
+
+        sharedClient = sharedClient.newBuilder()
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .build();
+    }
+
+    /**
+     * Enables client side rate limiting and retry of throttled calls on the shared client, or disables it when
+     * {@code settings} is null.
+     * <p>
+     * Like {@link #setConnectionPoolSettings(ConnectionPoolSettings)}, only clients created afterwards are affected.
+     *
+     * @param settings the rate limit settings, or null
+     * @see RateLimitInterceptor
+     */
+    public static void setRateLimitSettings(RateLimitSettings settings) {
+        OkHttpClient.Builder builder = sharedClient.newBuilder();
+        if (rateLimitInterceptor != null) {
+            builder.interceptors().remove(rateLimitInterceptor);
+        }
+
+        rateLimitInterceptor = settings == null ? null : new RateLimitInterceptor(settings);
+        if (rateLimitInterceptor != null) {
+            // first in the chain, so each retry goes through the authentication interceptors again
+            builder.interceptors().add(0, rateLimitInterceptor);
+        }
+
+        sharedClient = builder.build();
+    }
+
+    /**
+     * Gets the rate limit interceptor of the shared client, to read its metrics.
+     *
+     * @return the rate limit interceptor, or null if rate limiting is disabled
+     */
+    public static RateLimitInterceptor getRateLimitInterceptor() {
+        return rateLimitInterceptor;
+    }
+
     /**
      * Sets http proxy for the shared client.
      * <p>If you need to use a proxy to connect to the internet,
@@ -107,6 +198,10 @@ public class WhatsappApiServiceGenerator {
      * @return the s
      */
     public static <S> S createService(Class<S> serviceClass, String token, String baseUrl) {
+        if (token != null && WhatsappApiConfig.isSharedServiceMode()) {
+            return createTenantService(serviceClass, token, baseUrl);
+        }
+
         Retrofit.Builder retrofitBuilder = new Retrofit.Builder()
                 .baseUrl(baseUrl)
                 .addConverterFactory(converterFactory);
@@ -141,6 +236,60 @@ public class WhatsappApiServiceGenerator {
 
     }
 
+    /**
+     * Create a tenant-aware service.
+     * <p>
+     * The service is backed by one Retrofit instance (per base url) shared by every tenant, so all of them use the
+     * same OkHttp connection pool and dispatcher. The token travels with each call and is applied by a
+     * {@link TenantAuthenticationInterceptor}; no client, interceptor or Retrofit instance is built per token.
+     *
+     * @param <S>          the type parameter
+     * @param serviceClass the service class
+     * @param token        the token
+     * @param baseUrl      the base url
+     * @return the s
+     */
+    public static <S> S createTenantService(Class<S> serviceClass, String token, String baseUrl) {
+        Objects.requireNonNull(token, "Token cannot be null");
+        S service = getSharedRetrofit(baseUrl).create(serviceClass);
+        return tenantAuthenticationInterceptor.register(service, token);
+    }
+
+    /**
+     * Create a tenant-aware service using the configured base domain.
+     *
+     * @param <S>          the type parameter
+     * @param serviceClass the service class
+     * @param token        the token
+     * @return the s
+     * @see #createTenantService(Class, String, String)
+     */
+    public static <S> S createTenantService(Class<S> serviceClass, String token) {
+        return createTenantService(serviceClass, token, WhatsappApiConfig.getBaseDomain());
+    }
+
+    /**
+     * Returns the Retrofit instance shared by tenant-aware services, rebuilding it when the shared client
+     * was replaced (for example after {@link #setHttpProxy} or {@link #setConnectionPoolSettings}).
+     */
+    static Retrofit getSharedRetrofit(String baseUrl) {
+        OkHttpClient source = sharedClient;
+        return sharedRetrofits.compute(baseUrl, (url, current) -> {
+            if (current != null && current.source() == source) {
+                return current;
+            }
+            OkHttpClient tenantClient = source.newBuilder()
+                    .addInterceptor(tenantAuthenticationInterceptor)
+                    .build();
+            Retrofit retrofit = new Retrofit.Builder()
+                    .baseUrl(url)
+                    .addConverterFactory(converterFactory)
+                    .client(tenantClient)
+                    .build();
+            return new SharedRetrofit(source, retrofit);
+        }).retrofit();
+    }
+
     /**
      * Execute sync t.
      *
@@ -163,6 +312,23 @@ public class WhatsappApiServiceGenerator {
         }
     }
 
+    /**
+     * Execute sync media upload, streaming the request body.
+     * <p>
+     * The upload is not bound by the call timeout of the http client, so large files can take as long as they need;
+     * the write and read timeouts still detect a stalled transfer.
+     *
+     * @param <T>  the type parameter
+     * @param call the call
+     * @return the t
+     * @see #executeSync(Call)
+     */
+    public static <T> T executeUploadSync(Call<T> call) {
+        // large files take longer than the call timeout
+        call.timeout().clearTimeout();
+        return executeSync(call);
+    }
+
     /**
      * Execute sync file download
      *
@@ -172,27 +338,294 @@ public class WhatsappApiServiceGenerator {
      */
     public static <T> MediaFile executeDownloadSync(Call<T> call) {
         try {
-            Response<T> response = call.execute();
-            if (response.isSuccessful()) {
+            return toMediaFile(call.execute());
+        } catch (IOException e) {
+            throw new WhatsappApiException(e);
+        }
+    }
 
-                var fileName = Objects.requireNonNull(response.headers().get("Content-Disposition")).split("=")[1];
-                ResponseBody body = (ResponseBody) response.body();
+    /**
+     * Execute sync file download, streaming the file to a channel in fixed-size chunks.
+     * <p>
+     * Memory use does not depend on the file size. The download is not bound by the call timeout of the http
+     * client, so large files can take as long as they need; the read timeout still detects a stalled transfer.
+     *
+     * @param <T>           the type parameter
+     * @param call          the call
+     * @param target        the channel the file is written to. It is not closed.
+     * @param computeSha256 whether to compute the SHA-256 of the content while it is written
+     * @param listener      the progress listener, may be null
+     * @return the media download
+     */
+    public static <T> MediaDownload executeDownloadSync(Call<T> call, WritableByteChannel target, boolean computeSha256, DownloadProgressListener listener) {
+        Objects.requireNonNull(target, "target cannot be null");
+        return executeDownloadSync(call, response -> writeDownload(response, target, computeSha256, listener));
+    }
 
-                assert body != null;
-                return new MediaFile(fileName, body.bytes());
-            } else {
-                if (response.code() == 404) {
-                    var error = new Error(404, null, 404, null, "Not found", null, null, null, false, null, null);
-                    throw new WhatsappApiException(new WhatsappApiError(error));
-                }
-                WhatsappApiError apiError = getWhatsappApiError(response);
-                throw new WhatsappApiException(apiError);
-            }
+    /**
+     * Execute sync file download, streaming the file to a path.
+     * <p>
+     * The file is written to a temporary file next to {@code target}, which is moved to {@code target} once the
+     * download is complete: a failed download never leaves a partial file at {@code target}.
+     *
+     * @param <T>           the type parameter
+     * @param call          the call
+     * @param target        the file to write. Replaced if it exists.
+     * @param computeSha256 whether to compute the SHA-256 of the content while it is written
+     * @param listener      the progress listener, may be null
+     * @return the media download
+     * @see #executeDownloadSync(Call, WritableByteChannel, boolean, DownloadProgressListener)
+     */
+    public static <T> MediaDownload executeDownloadSync(Call<T> call, Path target, boolean computeSha256, DownloadProgressListener listener) {
+        Objects.requireNonNull(target, "target cannot be null");
+        return executeDownloadSync(call, response -> writeDownload(response, target, computeSha256, listener));
+    }
+
+    private static <T> MediaDownload executeDownloadSync(Call<T> call, DownloadWriter writer) {
+        // large files take longer than the call timeout
+        call.timeout().clearTimeout();
+        try {
+            return writer.write(call.execute());
         } catch (IOException e) {
             throw new WhatsappApiException(e);
         }
     }
 
+    /**
+     * Execute async.
+     * <p>
+     * The call is enqueued on the OkHttp dispatcher, so no caller thread is held while the request is in flight.
+     * The returned future completes with the response body, or exceptionally with a {@link WhatsappApiException}
+     * built the same way as in {@link #executeSync(Call)}. Cancelling the future cancels the underlying call.
+     *
+     * @param <T>  the type parameter
+     * @param call the call
+     * @return the completable future
+     */
+    public static <T> CompletableFuture<T> executeAsync(Call<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                if (response.isSuccessful()) {
+                    future.complete(response.body());
+                    return;
+                }
+                try {
+                    WhatsappApiError apiError = getWhatsappApiError(response);
+                    future.completeExceptionally(new WhatsappApiException(apiError));
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(new WhatsappApiException(e));
+                }
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                future.completeExceptionally(new WhatsappApiException(t));
+            }
+        });
+        cancelOnCompletion(future, call);
+        return future;
+    }
+
+    /**
+     * Execute async media upload, streaming the request body.
+     * <p>
+     * The request body is read by an http client thread.
+     *
+     * @param <T>  the type parameter
+     * @param call the call
+     * @return the completable future
+     * @see #executeUploadSync(Call)
+     */
+    public static <T> CompletableFuture<T> executeUploadAsync(Call<T> call) {
+        call.timeout().clearTimeout();
+        return executeAsync(call);
+    }
+
+    /**
+     * Execute async file download.
+     *
+     * @param <T>  the type parameter
+     * @param call the call
+     * @return the completable future
+     * @see #executeAsync(Call)
+     */
+    public static <T> CompletableFuture<MediaFile> executeDownloadAsync(Call<T> call) {
+        CompletableFuture<MediaFile> future = new CompletableFuture<>();
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                try {
+                    future.complete(toMediaFile(response));
+                } catch (WhatsappApiException e) {
+                    future.completeExceptionally(e);
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(new WhatsappApiException(e));
+                }
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                future.completeExceptionally(new WhatsappApiException(t));
+            }
+        });
+        cancelOnCompletion(future, call);
+        return future;
+    }
+
+    /**
+     * Execute async file download, streaming the file to a channel in fixed-size chunks.
+     * <p>
+     * The file is written by an http client thread.
+     *
+     * @param <T>           the type parameter
+     * @param call          the call
+     * @param target        the channel the file is written to. It is not closed.
+     * @param computeSha256 whether to compute the SHA-256 of the content while it is written
+     * @param listener      the progress listener, may be null
+     * @return the completable future
+     * @see #executeDownloadSync(Call, WritableByteChannel, boolean, DownloadProgressListener)
+     */
+    public static <T> CompletableFuture<MediaDownload> executeDownloadAsync(Call<T> call, WritableByteChannel target, boolean computeSha256, DownloadProgressListener listener) {
+        Objects.requireNonNull(target, "target cannot be null");
+        return executeDownloadAsync(call, response -> writeDownload(response, target, computeSha256, listener));
+    }
+
+    /**
+     * Execute async file download, streaming the file to a path.
+     * <p>
+     * The file is written by an http client thread.
+     *
+     * @param <T>           the type parameter
+     * @param call          the call
+     * @param target        the file to write. Replaced if it exists.
+     * @param computeSha256 whether to compute the SHA-256 of the content while it is written
+     * @param listener      the progress listener, may be null
+     * @return the completable future
+     * @see #executeDownloadSync(Call, Path, boolean, DownloadProgressListener)
+     */
+    public static <T> CompletableFuture<MediaDownload> executeDownloadAsync(Call<T> call, Path target, boolean computeSha256, DownloadProgressListener listener) {
+        Objects.requireNonNull(target, "target cannot be null");
+        return executeDownloadAsync(call, response -> writeDownload(response, target, computeSha256, listener));
+    }
+
+    private static <T> CompletableFuture<MediaDownload> executeDownloadAsync(Call<T> call, DownloadWriter writer) {
+        call.timeout().clearTimeout();
+        CompletableFuture<MediaDownload> future = new CompletableFuture<>();
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                try {
+                    future.complete(writer.write(response));
+                } catch (WhatsappApiException e) {
+                    future.completeExceptionally(e);
+                } catch (IOException | RuntimeException e) {
+                    future.completeExceptionally(new WhatsappApiException(e));
+                }
+            }
+
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                future.completeExceptionally(new WhatsappApiException(t));
+            }
+        });
+        cancelOnCompletion(future, call);
+        return future;
+    }
+
+    private static void cancelOnCompletion(CompletableFuture<?> future, Call<?> call) {
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+    }
+
+    private static <T> MediaFile toMediaFile(Response<T> response) throws IOException {
+        checkDownloadResponse(response);
+
+        var fileName = Objects.requireNonNull(response.headers().get("Content-Disposition")).split("=")[1];
+        ResponseBody body = (ResponseBody) response.body();
+
+        assert body != null;
+        return new MediaFile(fileName, body.bytes());
+    }
+
+    private static <T> void checkDownloadResponse(Response<T> response) throws IOException {
+        if (response.isSuccessful()) {
+            return;
+        }
+        if (response.code() == 404) {
+            var error = new Error(404, null, 404, null, "Not found", null, null, null, false, null, null);
+            throw new WhatsappApiException(new WhatsappApiError(error));
+        }
+        WhatsappApiError apiError = getWhatsappApiError(response);
+        throw new WhatsappApiException(apiError);
+    }
+
+    private static <T> MediaDownload writeDownload(Response<T> response, Path target, boolean computeSha256, DownloadProgressListener listener) throws IOException {
+        checkDownloadResponse(response);
+
+        Path directory = target.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+        try {
+            MediaDownload download;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                download = writeDownload(response, channel, computeSha256, listener);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return download;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static <T> MediaDownload writeDownload(Response<T> response, WritableByteChannel target, boolean computeSha256, DownloadProgressListener listener) throws IOException {
+        checkDownloadResponse(response);
+
+        try (ResponseBody body = (ResponseBody) Objects.requireNonNull(response.body())) {
+            MessageDigest digest = computeSha256 ? sha256() : null;
+            long contentLength = body.contentLength();
+            long written = 0;
+
+            BufferedSource source = body.source();
+            ByteBuffer buffer = ByteBuffer.allocate(DOWNLOAD_BUFFER_SIZE);
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                if (digest != null) {
+                    digest.update(buffer.duplicate());
+                }
+                written += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                buffer.clear();
+                if (listener != null) {
+                    listener.onProgress(written, contentLength);
+                }
+            }
+
+            var contentDisposition = response.headers().get("Content-Disposition");
+            var fileName = contentDisposition == null || !contentDisposition.contains("=") ? null : contentDisposition.split("=")[1];
+            var mimeType = body.contentType() == null ? null : body.contentType().toString();
+            return new MediaDownload(fileName, mimeType, written, digest == null ? null : HexFormat.of().formatHex(digest.digest()));
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Gets whatsapp api error.
      *
@@ -217,4 +650,12 @@ public class WhatsappApiServiceGenerator {
     public static OkHttpClient getSharedClient() {
         return sharedClient;
     }
+
+    private record SharedRetrofit(OkHttpClient source, Retrofit retrofit) {
+    }
+
+    @FunctionalInterface
+    private interface DownloadWriter {
+        MediaDownload write(Response<?> response) throws IOException;
+    }
 }
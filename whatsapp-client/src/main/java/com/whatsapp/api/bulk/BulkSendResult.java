@@ -0,0 +1,21 @@
+package com.whatsapp.api.bulk;
+
+/**
+ * The outcome of sending a bulk message to one recipient.
+ *
+ * @param recipient the WhatsApp ID or phone number the message was sent to
+ * @param messageId the id of the sent message, null if the send failed
+ * @param error     the failure, null if the message was sent. Api errors are
+ *                  {@link com.whatsapp.api.exception.WhatsappApiException}.
+ */
+public record BulkSendResult(String recipient, String messageId, Throwable error) {
+
+    /**
+     * Whether the message was accepted by the api.
+     *
+     * @return true if the message was sent
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
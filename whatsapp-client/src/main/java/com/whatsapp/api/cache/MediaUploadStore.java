@@ -0,0 +1,50 @@
+package com.whatsapp.api.cache;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Persistence of the uploads of a {@link MediaUploadCache}, keyed by phone number id and content hash.
+ * <p>
+ * Implementations must be thread safe.
+ *
+ * @see InMemoryMediaUploadStore
+ * @see JdbcMediaUploadStore
+ */
+public interface MediaUploadStore {
+
+    /**
+     * Find the upload of a content to a phone number. Expired uploads may be returned.
+     *
+     * @param phoneNumberId the business phone number id
+     * @param sha256        the hex encoded SHA-256 hash of the content
+     * @return the upload, if any
+     */
+    Optional<CachedUpload> find(String phoneNumberId, String sha256);
+
+    /**
+     * Save an upload, replacing a previous upload of the same content to the same phone number.
+     *
+     * @param upload the upload
+     */
+    void save(CachedUpload upload);
+
+    /**
+     * Remove the upload of a content to a phone number.
+     *
+     * @param phoneNumberId the business phone number id
+     * @param sha256        the hex encoded SHA-256 hash of the content
+     */
+    void remove(String phoneNumberId, String sha256);
+
+    /**
+     * Remove the uploads that expired before an instant. A store that keeps its uploads bounded otherwise may keep
+     * this default, which removes none.
+     *
+     * @param now the current instant
+     * @return the number of removed uploads
+     */
+    default int removeExpired(Instant now) {
+        return 0;
+    }
+}
@@ -17,6 +17,10 @@ public class WhatsappApiConfig {
      * The constant BASE_DOMAIN.
      */
     private static String baseDomain = "https://graph.facebook.com/";
+    /**
+     * When enabled, clients share one Retrofit instance and pass their token per call.
+     */
+    private static boolean sharedServiceMode = false;
 
     /**
      * Sets base domain.
@@ -54,5 +58,28 @@ public class WhatsappApiConfig {
         return baseDomain;
     }
 
+    /**
+     * Enables or disables the tenant-aware shared service mode.
+     * <p>
+     * In this mode every client created afterwards is backed by the same Retrofit instance and OkHttp client,
+     * and the bearer token is attached to each call instead of through a per-client interceptor.
+     * Useful when one process holds clients for thousands of different tokens.
+     *
+     * @param sharedServiceMode true to share one Retrofit instance between all clients
+     * @see com.whatsapp.api.WhatsappApiServiceGenerator#createTenantService(Class, String)
+     */
+    public static void setSharedServiceMode(boolean sharedServiceMode) {
+        WhatsappApiConfig.sharedServiceMode = sharedServiceMode;
+    }
+
+    /**
+     * Checks if the shared service mode is enabled
+     *
+     * @return sharedServiceMode
+     */
+    public static boolean isSharedServiceMode() {
+        return sharedServiceMode;
+    }
+
 
 }
@@ -0,0 +1,12 @@
+package com.whatsapp.api.domain.media;
+
+/**
+ * A media file downloaded to a file, stream or channel.
+ *
+ * @param fileName file name, from the Content-Disposition header
+ * @param mimeType the content type of the file
+ * @param size     number of bytes written
+ * @param sha256   hex encoded SHA-256 of the content, null if it was not computed
+ */
+public record MediaDownload(String fileName, String mimeType, long size, String sha256) {
+}
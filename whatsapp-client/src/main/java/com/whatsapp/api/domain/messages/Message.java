@@ -209,6 +209,30 @@ public class Message {
         return locationMessage;
     }
 
+    /**
+     * Creates a copy of this message addressed to another recipient.
+     * <p>
+     * The content objects (text, template, media...) are shared with this message, not copied.
+     *
+     * @param to WhatsApp ID or phone number of the new recipient
+     * @return the new message
+     */
+    public Message copyTo(String to) {
+        var message = new Message(to, type, context);
+        message.interactiveMessage = interactiveMessage;
+        message.textMessage = textMessage;
+        message.contactMessage = contactMessage;
+        message.templateMessage = templateMessage;
+        message.audioMessage = audioMessage;
+        message.documentMessage = documentMessage;
+        message.imageMessage = imageMessage;
+        message.stickerMessage = stickerMessage;
+        message.videoMessage = videoMessage;
+        message.reactionMessage = reactionMessage;
+        message.locationMessage = locationMessage;
+        return message;
+    }
+
     /**
      * The type Message builder.
      */
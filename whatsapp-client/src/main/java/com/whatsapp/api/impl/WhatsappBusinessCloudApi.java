@@ -1,8 +1,10 @@
 package com.whatsapp.api.impl;
 
 import com.whatsapp.api.configuration.ApiVersion;
+import com.whatsapp.api.domain.media.DownloadProgressListener;
 import com.whatsapp.api.domain.media.FileType;
 import com.whatsapp.api.domain.media.Media;
+import com.whatsapp.api.domain.media.MediaDownload;
 import com.whatsapp.api.domain.media.MediaFile;
 import com.whatsapp.api.domain.media.UploadResponse;
 import com.whatsapp.api.domain.messages.Message;
@@ -11,9 +13,19 @@ import com.whatsapp.api.domain.messages.response.MessageResponse;
 import com.whatsapp.api.domain.phone.TwoStepCode;
 import com.whatsapp.api.domain.response.Response;
 import com.whatsapp.api.service.WhatsappBusinessCloudApiService;
+import com.whatsapp.api.utils.StreamingRequestBody;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.MultipartBody.Part;
+import okhttp3.RequestBody;
+import retrofit2.Call;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 
 import static com.whatsapp.api.WhatsappApiServiceGenerator.*;
 import static com.whatsapp.api.configuration.WhatsappApiConfig.getApiVersion;
@@ -68,6 +80,19 @@ public class WhatsappBusinessCloudApi {
         return executeSync(whatsappBusinessCloudApiService.sendMessage(apiVersion.getValue(), phoneNumberId, message));
     }
 
+    /**
+     * Send a message whose body is already serialized, e.g. rendered from a {@link com.whatsapp.api.bulk.CompiledMessage}.
+     *
+     * @param phoneNumberId Represents a specific phone number.
+     * @param message       The json of the message.
+     * @return {@link MessageResponse}
+     * @see #sendMessage(String, Message)
+     */
+    public MessageResponse sendMessage(String phoneNumberId, RequestBody message) {
+
+        return executeSync(whatsappBusinessCloudApiService.sendMessage(apiVersion.getValue(), phoneNumberId, message));
+    }
+
     /**
      * You can use the endpoint to upload media:
      * All media files sent through this endpoint are encrypted and persist for 30 days, unless they are deleted earlier
@@ -85,11 +110,77 @@ public class WhatsappBusinessCloudApi {
     public UploadResponse uploadMedia(String phoneNumberId, String fileName, FileType fileType, byte[] file) {
 
         var requestFile = MultipartBody.create(file, MediaType.parse(fileType.getType()));
+
+        return uploadMedia(phoneNumberId, fileName, requestFile);
+    }
+
+    /**
+     * Upload media from a file, without loading it in memory.
+     * <p>
+     * The file is streamed to the connection when the request is sent, and the upload is not bound by the call timeout; see {@link #uploadMedia(String, String, FileType, byte[])}.
+     *
+     * @param phoneNumberId Business phone number ID.
+     * @param fileName      file name. Ex: photo1.jpg
+     * @param fileType      the file type. See {@link FileType}
+     * @param file          the file to upload
+     * @return {@link UploadResponse}
+     * @see StreamingRequestBody#fromPath(Path, MediaType)
+     */
+    public UploadResponse uploadMedia(String phoneNumberId, String fileName, FileType fileType, Path file) {
+
+        return uploadStreamedMedia(phoneNumberId, fileName, StreamingRequestBody.fromPath(file, MediaType.parse(fileType.getType())));
+    }
+
+    /**
+     * Upload media from an input stream, without loading it in memory.
+     * <p>
+     * The stream is read to the end but not closed. As it cannot be read twice, the upload is never retried.
+     *
+     * @param phoneNumberId Business phone number ID.
+     * @param fileName      file name. Ex: photo1.jpg
+     * @param fileType      the file type. See {@link FileType}
+     * @param inputStream   the file content
+     * @return {@link UploadResponse}
+     * @see StreamingRequestBody#fromInputStream(InputStream, MediaType, long)
+     */
+    public UploadResponse uploadMedia(String phoneNumberId, String fileName, FileType fileType, InputStream inputStream) {
+
+        return uploadStreamedMedia(phoneNumberId, fileName, StreamingRequestBody.fromInputStream(inputStream, MediaType.parse(fileType.getType()), -1));
+    }
+
+    /**
+     * Upload media from a channel, without loading it in memory.
+     * <p>
+     * The channel is read to the end but not closed. As it cannot be read twice, the upload is never retried.
+     *
+     * @param phoneNumberId Business phone number ID.
+     * @param fileName      file name. Ex: photo1.jpg
+     * @param fileType      the file type. See {@link FileType}
+     * @param channel       the file content
+     * @return {@link UploadResponse}
+     * @see StreamingRequestBody#fromChannel(ReadableByteChannel, MediaType, long)
+     */
+    public UploadResponse uploadMedia(String phoneNumberId, String fileName, FileType fileType, ReadableByteChannel channel) {
+
+        return uploadStreamedMedia(phoneNumberId, fileName, StreamingRequestBody.fromChannel(channel, MediaType.parse(fileType.getType()), -1));
+    }
+
+    private UploadResponse uploadMedia(String phoneNumberId, String fileName, RequestBody requestFile) {
+
+        return executeSync(uploadMediaCall(phoneNumberId, fileName, requestFile));
+    }
+
+    private UploadResponse uploadStreamedMedia(String phoneNumberId, String fileName, RequestBody requestFile) {
+
+        return executeUploadSync(uploadMediaCall(phoneNumberId, fileName, requestFile));
+    }
+
+    private Call<UploadResponse> uploadMediaCall(String phoneNumberId, String fileName, RequestBody requestFile) {
         Part body = Part.createFormData("file", fileName, requestFile);
 
         var messageProduct = Part.createFormData("messaging_product", "whatsapp");
 
-        return executeSync(whatsappBusinessCloudApiService.uploadMedia(apiVersion.getValue(), phoneNumberId, body, messageProduct));
+        return whatsappBusinessCloudApiService.uploadMedia(apiVersion.getValue(), phoneNumberId, body, messageProduct);
     }
 
     /**
@@ -117,6 +208,92 @@ public class WhatsappBusinessCloudApi {
 
     }
 
+    /**
+     * Download media file from whatsapp server to a file, without loading it in memory.
+     *
+     * @param url    the url
+     * @param target the file to write. Replaced if it exists.
+     * @return the {@link MediaDownload}
+     * @see #downloadMediaFile(String, Path, boolean, DownloadProgressListener)
+     */
+    public MediaDownload downloadMediaFile(String url, Path target) {
+
+        return downloadMediaFile(url, target, false, null);
+    }
+
+    /**
+     * Download media file from whatsapp server to a file, without loading it in memory.
+     * <p>
+     * The content is written to a temporary file next to {@code target} and moved to {@code target} once complete.
+     *
+     * @param url           the url
+     * @param target        the file to write. Replaced if it exists.
+     * @param computeSha256 whether to compute the SHA-256 of the content
+     * @param listener      the progress listener, may be null
+     * @return the {@link MediaDownload}
+     * @see <a href="https://developers.facebook.com/docs/whatsapp/cloud-api/reference/media">official documentation</a>
+     */
+    public MediaDownload downloadMediaFile(String url, Path target, boolean computeSha256, DownloadProgressListener listener) {
+
+        return executeDownloadSync(whatsappBusinessCloudApiService.downloadMediaFile(url), target, computeSha256, listener);
+    }
+
+    /**
+     * Download media file from whatsapp server to an output stream, without loading it in memory.
+     *
+     * @param url          the url
+     * @param outputStream the stream the file is written to. It is not closed.
+     * @return the {@link MediaDownload}
+     * @see #downloadMediaFile(String, OutputStream, boolean, DownloadProgressListener)
+     */
+    public MediaDownload downloadMediaFile(String url, OutputStream outputStream) {
+
+        return downloadMediaFile(url, outputStream, false, null);
+    }
+
+    /**
+     * Download media file from whatsapp server to an output stream, without loading it in memory.
+     *
+     * @param url           the url
+     * @param outputStream  the stream the file is written to. It is not closed.
+     * @param computeSha256 whether to compute the SHA-256 of the content
+     * @param listener      the progress listener, may be null
+     * @return the {@link MediaDownload}
+     * @see <a href="https://developers.facebook.com/docs/whatsapp/cloud-api/reference/media">official documentation</a>
+     */
+    public MediaDownload downloadMediaFile(String url, OutputStream outputStream, boolean computeSha256, DownloadProgressListener listener) {
+
+        return downloadMediaFile(url, Channels.newChannel(outputStream), computeSha256, listener);
+    }
+
+    /**
+     * Download media file from whatsapp server to a channel, without loading it in memory.
+     *
+     * @param url     the url
+     * @param channel the channel the file is written to. It is not closed.
+     * @return the {@link MediaDownload}
+     * @see #downloadMediaFile(String, WritableByteChannel, boolean, DownloadProgressListener)
+     */
+    public MediaDownload downloadMediaFile(String url, WritableByteChannel channel) {
+
+        return downloadMediaFile(url, channel, false, null);
+    }
+
+    /**
+     * Download media file from whatsapp server to a channel, without loading it in memory.
+     *
+     * @param url           the url
+     * @param channel       the channel the file is written to. It is not closed.
+     * @param computeSha256 whether to compute the SHA-256 of the content
+     * @param listener      the progress listener, may be null
+     * @return the {@link MediaDownload}
+     * @see <a href="https://developers.facebook.com/docs/whatsapp/cloud-api/reference/media">official documentation</a>
+     */
+    public MediaDownload downloadMediaFile(String url, WritableByteChannel channel, boolean computeSha256, DownloadProgressListener listener) {
+
+        return executeDownloadSync(whatsappBusinessCloudApiService.downloadMediaFile(url), channel, computeSha256, listener);
+    }
+
     /**
      * Delete media from whatsapp server
      *
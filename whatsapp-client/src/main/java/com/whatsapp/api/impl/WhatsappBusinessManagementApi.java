@@ -12,12 +12,15 @@ import com.whatsapp.api.domain.templates.MessageTemplate;
 import com.whatsapp.api.domain.templates.response.MessageTemplates;
 import com.whatsapp.api.domain.templates.response.Template;
 import com.whatsapp.api.service.WhatsappBusinessManagementApiService;
+import com.whatsapp.api.utils.PageIterator;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 import static com.whatsapp.api.WhatsappApiServiceGenerator.createService;
+import static com.whatsapp.api.WhatsappApiServiceGenerator.executeAsync;
 import static com.whatsapp.api.WhatsappApiServiceGenerator.executeSync;
 import static com.whatsapp.api.configuration.WhatsappApiConfig.getApiVersion;
 
@@ -139,6 +142,32 @@ public class WhatsappBusinessManagementApi {
         return executeSync(whatsappBusinessManagementApiService.retrieveTemplates(apiVersion.getValue(), whatsappBusinessAccountId, Map.of("limit", limit, "after", after)));
     }
 
+    /**
+     * Iterates over all the message templates, following the pages as they are consumed.
+     * The next page is requested in the background while the current one is consumed: at most two pages are in memory.
+     *
+     * @param whatsappBusinessAccountId Represents a specific WhatsApp Business Account (WABA). Make the API call to the WABA ID.
+     * @param limit                     the number of template names per page
+     * @return the templates. Close the iterator if it is not consumed to the end.
+     * @see #retrieveTemplates(String, int, String)
+     */
+    public PageIterator<Template> iterateTemplates(String whatsappBusinessAccountId, int limit) {
+        return PageIterator.of(after -> executeAsync(whatsappBusinessManagementApiService.retrieveTemplates(apiVersion.getValue(), whatsappBusinessAccountId, pageFilters(limit, after))),
+                MessageTemplates::data, MessageTemplates::paging);
+    }
+
+    /**
+     * Streams all the message templates, following the pages as they are consumed.
+     *
+     * @param whatsappBusinessAccountId Represents a specific WhatsApp Business Account (WABA). Make the API call to the WABA ID.
+     * @param limit                     the number of template names per page
+     * @return the templates. Close the stream if it is not consumed to the end.
+     * @see #iterateTemplates(String, int)
+     */
+    public Stream<Template> streamTemplates(String whatsappBusinessAccountId, int limit) {
+        return iterateTemplates(whatsappBusinessAccountId, limit).stream();
+    }
+
     /**
      * Retrieve a phone number by ID
      *
@@ -182,6 +211,31 @@ public class WhatsappBusinessManagementApi {
         return executeSync(whatsappBusinessManagementApiService.retrievePhoneNumbers(apiVersion.getValue(), whatsappBusinessAccountId));
     }
 
+    /**
+     * Iterates over all the phone numbers of a Whatsapp Business Account, following the pages as they are consumed.
+     * The next page is requested in the background while the current one is consumed: at most two pages are in memory.
+     *
+     * @param whatsappBusinessAccountId the whatsapp business account id
+     * @param limit                     the number of phone numbers per page
+     * @return the phone numbers. Close the iterator if it is not consumed to the end.
+     */
+    public PageIterator<PhoneNumber> iteratePhoneNumbers(String whatsappBusinessAccountId, int limit) {
+        return PageIterator.of(after -> executeAsync(whatsappBusinessManagementApiService.retrievePhoneNumbers(apiVersion.getValue(), whatsappBusinessAccountId, pageFilters(limit, after))),
+                PhoneNumbers::data, PhoneNumbers::paging);
+    }
+
+    /**
+     * Streams all the phone numbers of a Whatsapp Business Account, following the pages as they are consumed.
+     *
+     * @param whatsappBusinessAccountId the whatsapp business account id
+     * @param limit                     the number of phone numbers per page
+     * @return the phone numbers. Close the stream if it is not consumed to the end.
+     * @see #iteratePhoneNumbers(String, int)
+     */
+    public Stream<PhoneNumber> streamPhoneNumbers(String whatsappBusinessAccountId, int limit) {
+        return iteratePhoneNumbers(whatsappBusinessAccountId, limit).stream();
+    }
+
 
     /**
      * You need to verify the phone number you want to use to send messages to your customers. Phone numbers must be verified through SMS/voice call. The verification process can be done through this method.
@@ -236,4 +290,7 @@ public class WhatsappBusinessManagementApi {
         return executeSync(whatsappBusinessManagementApiService.updateWhatsappCommerceSettings(apiVersion.getValue(), phoneNumberId, commerceDataItem));
     }
 
+    private static Map<String, Object> pageFilters(int limit, String after) {
+        return after == null ? Map.of("limit", limit) : Map.of("limit", limit, "after", after);
+    }
 }
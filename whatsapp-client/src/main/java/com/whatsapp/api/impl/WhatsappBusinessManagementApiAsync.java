@@ -0,0 +1,229 @@
+package com.whatsapp.api.impl;
+
+import com.whatsapp.api.configuration.ApiVersion;
+import com.whatsapp.api.domain.config.CommerceDataItem;
+import com.whatsapp.api.domain.config.GraphCommerceSettings;
+import com.whatsapp.api.domain.phone.PhoneNumber;
+import com.whatsapp.api.domain.phone.PhoneNumbers;
+import com.whatsapp.api.domain.phone.RequestCode;
+import com.whatsapp.api.domain.phone.VerifyCode;
+import com.whatsapp.api.domain.response.Response;
+import com.whatsapp.api.domain.templates.MessageTemplate;
+import com.whatsapp.api.domain.templates.response.MessageTemplates;
+import com.whatsapp.api.domain.templates.response.Template;
+import com.whatsapp.api.service.WhatsappBusinessManagementApiService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import static com.whatsapp.api.WhatsappApiServiceGenerator.createService;
+import static com.whatsapp.api.WhatsappApiServiceGenerator.executeAsync;
+import static com.whatsapp.api.configuration.WhatsappApiConfig.getApiVersion;
+
+/**
+ * Implementation of WhatsApp Business Management API with asynchronous/non-blocking method calls.
+ *
+ * @see WhatsappBusinessManagementApi
+ */
+public class WhatsappBusinessManagementApiAsync {
+
+    private final ApiVersion apiVersion;
+
+    private final WhatsappBusinessManagementApiService whatsappBusinessManagementApiService;
+
+    /**
+     * Instantiates a new asynchronous Whatsapp business management api.
+     *
+     * @param token the token
+     */
+    public WhatsappBusinessManagementApiAsync(String token) {
+        this.apiVersion = getApiVersion();
+        this.whatsappBusinessManagementApiService = createService(WhatsappBusinessManagementApiService.class, token);
+    }
+
+    /**
+     * Instantiates a new asynchronous Whatsapp business management api, specifying api version
+     *
+     * @param token      the token
+     * @param apiVersion api version
+     */
+    public WhatsappBusinessManagementApiAsync(String token, ApiVersion apiVersion) {
+        this.apiVersion = apiVersion;
+        this.whatsappBusinessManagementApiService = createService(WhatsappBusinessManagementApiService.class, token);
+    }
+
+    /**
+     * Create message template.
+     *
+     * @param whatsappBusinessAccountId Represents a specific WhatsApp Business Account (WABA).
+     * @param messageTemplate           {@link MessageTemplate} object
+     * @return a future completed with the {@link Template}
+     * @see WhatsappBusinessManagementApi#createMessageTemplate(String, MessageTemplate)
+     */
+    public CompletableFuture<Template> createMessageTemplate(String whatsappBusinessAccountId, MessageTemplate messageTemplate) {
+
+        return executeAsync(whatsappBusinessManagementApiService.createMessageTemplate(apiVersion.getValue(), whatsappBusinessAccountId, messageTemplate));
+    }
+
+    /**
+     * Update message template.
+     *
+     * @param whatsappBusinessAccountId the whatsapp business account id
+     * @param messageTemplateId         the message template id
+     * @param messageTemplate           the message template
+     * @return a future completed with the {@link Template}
+     * @see WhatsappBusinessManagementApi#updateMessageTemplate(String, String, MessageTemplate)
+     */
+    public CompletableFuture<Template> updateMessageTemplate(String whatsappBusinessAccountId, String messageTemplateId, MessageTemplate messageTemplate) {
+
+        return executeAsync(whatsappBusinessManagementApiService.updateMessageTemplate(apiVersion.getValue(), whatsappBusinessAccountId, messageTemplateId, messageTemplate));
+    }
+
+    /**
+     * Delete message template.
+     *
+     * @param whatsappBusinessAccountId the whatsapp business account id
+     * @param name                      the name
+     * @return a future completed with the response
+     * @see WhatsappBusinessManagementApi#deleteMessageTemplate(String, String)
+     */
+    public CompletableFuture<Response> deleteMessageTemplate(String whatsappBusinessAccountId, String name) {
+
+        return executeAsync(whatsappBusinessManagementApiService.deleteMessageTemplate(apiVersion.getValue(), whatsappBusinessAccountId, name));
+    }
+
+    /**
+     * Retrieve templates.
+     *
+     * @param whatsappBusinessAccountId Represents a specific WhatsApp Business Account (WABA).
+     * @return a future completed with the {@link MessageTemplates}
+     * @see WhatsappBusinessManagementApi#retrieveTemplates(String)
+     */
+    public CompletableFuture<MessageTemplates> retrieveTemplates(String whatsappBusinessAccountId) {
+        return executeAsync(whatsappBusinessManagementApiService.retrieveTemplates(apiVersion.getValue(), whatsappBusinessAccountId));
+    }
+
+    /**
+     * Retrieve templates.
+     *
+     * @param whatsappBusinessAccountId Represents a specific WhatsApp Business Account (WABA).
+     * @param limit                     maximum number of message template names returned
+     * @return a future completed with the {@link MessageTemplates}
+     * @see WhatsappBusinessManagementApi#retrieveTemplates(String, int)
+     */
+    public CompletableFuture<MessageTemplates> retrieveTemplates(String whatsappBusinessAccountId, int limit) {
+        return executeAsync(whatsappBusinessManagementApiService.retrieveTemplates(apiVersion.getValue(), whatsappBusinessAccountId, Map.of("limit", limit)));
+    }
+
+    /**
+     * Retrieve templates.
+     *
+     * @param whatsappBusinessAccountId Represents a specific WhatsApp Business Account (WABA).
+     * @param templateName              template name.
+     * @return a future completed with the {@link MessageTemplates}
+     * @see WhatsappBusinessManagementApi#retrieveTemplates(String, String)
+     */
+    public CompletableFuture<MessageTemplates> retrieveTemplates(String whatsappBusinessAccountId, String templateName) {
+        return executeAsync(whatsappBusinessManagementApiService.retrieveTemplates(apiVersion.getValue(), whatsappBusinessAccountId, Map.of("name", templateName)));
+    }
+
+    /**
+     * Retrieve templates.
+     *
+     * @param whatsappBusinessAccountId Represents a specific WhatsApp Business Account (WABA).
+     * @param limit                     maximum number of message template names returned
+     * @param after                     next
+     * @return a future completed with the {@link MessageTemplates}
+     * @see WhatsappBusinessManagementApi#retrieveTemplates(String, int, String)
+     */
+    public CompletableFuture<MessageTemplates> retrieveTemplates(String whatsappBusinessAccountId, int limit, String after) {
+        return executeAsync(whatsappBusinessManagementApiService.retrieveTemplates(apiVersion.getValue(), whatsappBusinessAccountId, Map.of("limit", limit, "after", after)));
+    }
+
+    /**
+     * Retrieve a phone number by ID
+     *
+     * @param phoneNumberId the phone number id
+     * @return a future completed with the phone number
+     * @see WhatsappBusinessManagementApi#retrievePhoneNumber(String)
+     */
+    public CompletableFuture<PhoneNumber> retrievePhoneNumber(String phoneNumberId) {
+
+        return executeAsync(whatsappBusinessManagementApiService.retrievePhoneNumber(apiVersion.getValue(), phoneNumberId, new HashMap<>()));
+    }
+
+    /**
+     * Retrieve phone number.
+     *
+     * @param phoneNumberId the phone number id
+     * @param fields        the fields
+     * @return a future completed with the phone number
+     * @see WhatsappBusinessManagementApi#retrievePhoneNumber(String, String...)
+     */
+    public CompletableFuture<PhoneNumber> retrievePhoneNumber(String phoneNumberId, String... fields) {
+        Objects.requireNonNull(fields, "fields cannot be null");
+        return executeAsync(whatsappBusinessManagementApiService.retrievePhoneNumber(apiVersion.getValue(), phoneNumberId, Map.of("fields", String.join(",", fields))));
+    }
+
+    /**
+     * Retrieve phone numbers from a Whatsapp Business Account
+     *
+     * @param whatsappBusinessAccountId the whatsapp business account id
+     * @return a future completed with the phone numbers
+     * @see WhatsappBusinessManagementApi#retrievePhoneNumbers(String)
+     */
+    public CompletableFuture<PhoneNumbers> retrievePhoneNumbers(String whatsappBusinessAccountId) {
+        return executeAsync(whatsappBusinessManagementApiService.retrievePhoneNumbers(apiVersion.getValue(), whatsappBusinessAccountId));
+    }
+
+    /**
+     * Request a verification code.
+     *
+     * @param phoneNumberId the phone number id
+     * @param requestCode   the request code
+     * @return a future completed with the response
+     * @see WhatsappBusinessManagementApi#requestCode(String, RequestCode)
+     */
+    public CompletableFuture<Response> requestCode(String phoneNumberId, RequestCode requestCode) {
+        return executeAsync(whatsappBusinessManagementApiService.requestCode(apiVersion.getValue(), phoneNumberId, requestCode));
+    }
+
+    /**
+     * Verify a received code.
+     *
+     * @param phoneNumberId the phone number id
+     * @param verifyCode    the verify code
+     * @return a future completed with the response
+     * @see WhatsappBusinessManagementApi#verifyCode(String, VerifyCode)
+     */
+    public CompletableFuture<Response> verifyCode(String phoneNumberId, VerifyCode verifyCode) {
+        return executeAsync(whatsappBusinessManagementApiService.verifyCode(apiVersion.getValue(), phoneNumberId, verifyCode));
+    }
+
+    /**
+     * Get a business phone number's WhatsApp Commerce Settings.
+     *
+     * @param phoneNumberId the phone number id
+     * @param fields        the fields
+     * @return a future completed with the commerce settings
+     * @see WhatsappBusinessManagementApi#getWhatsappCommerceSettings(String, String...)
+     */
+    public CompletableFuture<GraphCommerceSettings> getWhatsappCommerceSettings(String phoneNumberId, String... fields) {
+        return executeAsync(whatsappBusinessManagementApiService.getWhatsappCommerceSettings(apiVersion.getValue(), phoneNumberId, Map.of("fields", String.join(",", fields))));
+    }
+
+    /**
+     * Update a business WhatsApp Commerce Settings.
+     *
+     * @param phoneNumberId    the phone number id
+     * @param commerceDataItem the commerce configuration fields
+     * @return a future completed with the response
+     * @see WhatsappBusinessManagementApi#updateWhatsappCommerceSettings(String, CommerceDataItem)
+     */
+    public CompletableFuture<Response> updateWhatsappCommerceSettings(String phoneNumberId, CommerceDataItem commerceDataItem) {
+        return executeAsync(whatsappBusinessManagementApiService.updateWhatsappCommerceSettings(apiVersion.getValue(), phoneNumberId, commerceDataItem));
+    }
+
+}
@@ -0,0 +1,360 @@
+package com.whatsapp.api.interceptor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whatsapp.api.configuration.RateLimitSettings;
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Rate limits calls per phone number and WhatsApp Business Account, and retries throttled calls.
+ * <p>
+ * The phone number or WhatsApp Business Account id of an edge call ({@code /v19.0/{phone-number-id}/messages},
+ * {@code /v19.0/{waba-id}/message_templates}...) selects a token bucket. Calls wait for a token, so bursts are
+ * smoothed instead of being rejected by the api. Calls on a single object ({@code /v19.0/{media-id}}...) are not
+ * limited, so that media, template or message ids do not each get a bucket.
+ * <p>
+ * A response is throttled when its status is 429 or its error code is one of the Graph API rate limit codes. The
+ * api rejects throttled calls before processing them, so they are retried whatever their method. Network errors
+ * and 502/503/504 responses are only retried for idempotent methods. Each retry waits for a jittered exponential
+ * backoff, or for the {@code Retry-After} delay when it is longer, and holds back the other calls of the same
+ * bucket for that time. A pair rate limit error only holds back the calls of the same bucket to the same recipient.
+ * Requests with a one-shot body (streamed uploads) are never retried. When retries are
+ * exhausted the last response is returned unchanged.
+ * <p>
+ * The waits of a call never outlast its call timeout, which would cancel the call while it waits: when the next
+ * attempt cannot start in time the last throttled response is returned, or the call fails with an
+ * {@link InterruptedIOException} if it was never sent. A token reserved by a call that is not sent is given back.
+ *
+ * @see <a href="https://developers.facebook.com/docs/whatsapp/cloud-api/support/error-codes#throttling-errors">Throttling errors</a>
+ */
+public class RateLimitInterceptor implements Interceptor {
+
+    /**
+     * Graph API error codes that mean the call was throttled: application rate limit, WhatsApp Business Account
+     * rate limit, Cloud API throughput reached, and pair rate limit.
+     */
+    public static final Set<Integer> RATE_LIMIT_ERROR_CODES = Set.of(4, 80007, 130429, 131056);
+
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+
+    private static final Set<Integer> TRANSIENT_STATUS_CODES = Set.of(502, 503, 504);
+
+    private static final Pattern API_VERSION = Pattern.compile("v\\d+\\.\\d+");
+
+    /**
+     * Pair rate limit: too many messages sent to the same recipient, the other recipients are not limited.
+     */
+    private static final int PAIR_RATE_LIMIT_ERROR_CODE = 131056;
+
+    private static final long MAX_ERROR_BODY_SIZE = 16 * 1024;
+
+    private static final long MAX_RECIPIENT_BODY_SIZE = 64 * 1024;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final RateLimitSettings settings;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * {@link System#nanoTime()} until which the calls of a bucket to a recipient wait, by bucket and recipient.
+     */
+    private final Map<String, Long> pairPauses = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder throttled = new LongAdder();
+
+    private final LongAdder waitedNanos = new LongAdder();
+
+    /**
+     * Instantiates a new rate limit interceptor.
+     *
+     * @param settings the rate limit settings
+     */
+    public RateLimitInterceptor(RateLimitSettings settings) {
+        this.settings = Objects.requireNonNull(settings, "settings cannot be null");
+    }
+
+    @NotNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String key = rateLimitKey(request);
+        TokenBucket bucket = key == null ? null : buckets.computeIfAbsent(key, k -> new TokenBucket(settings.burst(), settings.permitsPerSecond(), System.nanoTime()));
+        boolean idempotent = IDEMPOTENT_METHODS.contains(request.method());
+        // a streamed upload cannot be sent twice
+        boolean replayable = request.body() == null || !request.body().isOneShot();
+        // only read from the body when a recipient is held back, or was throttled
+        String pair = null;
+        Call call = chain.call();
+        long callTimeout = call.timeout().timeoutNanos();
+        long deadline = System.nanoTime() + callTimeout;
+        // the last throttled response, returned when the next attempt cannot be made in time
+        Response last = null;
+
+        for (int attempt = 0; ; attempt++) {
+            if (bucket != null) {
+                long now = System.nanoTime();
+                long wait = bucket.reserve(now);
+                if (!pairPauses.isEmpty()) {
+                    pair = pair != null ? pair : pairKey(key, request);
+                    wait = Math.max(wait, pairPauseNanos(pair, now));
+                }
+                if (callTimeout > 0 && wait >= deadline - now) {
+                    bucket.release(now);
+                    if (last != null) {
+                        return last;
+                    }
+                    throw new InterruptedIOException("Rate limit wait exceeds the call timeout");
+                }
+                try {
+                    sleep(wait);
+                } catch (InterruptedIOException e) {
+                    bucket.release(System.nanoTime());
+                    throw e;
+                }
+                if (call.isCanceled()) {
+                    bucket.release(System.nanoTime());
+                    throw new IOException("Canceled");
+                }
+            }
+            requests.increment();
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (!idempotent || !replayable || attempt >= settings.maxRetries() || call.isCanceled()) {
+                    throw e;
+                }
+                long backoff = backoffNanos(attempt);
+                if (callTimeout > 0 && backoff >= deadline - System.nanoTime()) {
+                    throw e;
+                }
+                retries.increment();
+                sleep(backoff);
+                continue;
+            }
+
+            int throttleCode = throttleCode(response);
+            boolean isThrottled = throttleCode != 0;
+            if (isThrottled) {
+                throttled.increment();
+            }
+            if (!(isThrottled || idempotent && TRANSIENT_STATUS_CODES.contains(response.code())) || !replayable || attempt >= settings.maxRetries()) {
+                return response;
+            }
+
+            long retryAfter = retryAfterNanos(response);
+            if (retryAfter > settings.maxBackoff().toNanos()) {
+                // the api asks for a longer pause than we are willing to hold a call for
+                return response;
+            }
+            long delay = Math.max(retryAfter, backoffNanos(attempt));
+            if (callTimeout > 0 && delay >= deadline - System.nanoTime()) {
+                return response;
+            }
+            // keep the error, not the connection, in case the next attempt runs out of time
+            last = response.newBuilder().body(response.peekBody(MAX_ERROR_BODY_SIZE)).build();
+            response.close();
+            retries.increment();
+
+            if (isThrottled && bucket != null && throttleCode == PAIR_RATE_LIMIT_ERROR_CODE) {
+                pair = pair != null ? pair : pairKey(key, request);
+                if (pair != null) {
+                    // the next attempt waits for the pause, together with the other calls to the same recipient
+                    pairPauses.merge(pair, System.nanoTime() + delay, Math::max);
+                } else {
+                    sleep(delay);
+                }
+            } else if (isThrottled && bucket != null) {
+                // the next reservation waits for the pause, together with every other call of the bucket
+                bucket.pause(System.nanoTime() + delay);
+            } else {
+                sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Overrides the limit of one phone number or WhatsApp Business Account, for example for a phone number whose
+     * throughput was upgraded to {@link com.whatsapp.api.domain.phone.type.LevelType#HIGH}.
+     *
+     * @param key              the phone number or WhatsApp Business Account id
+     * @param burst            the capacity of the token bucket
+     * @param permitsPerSecond the refill rate of the token bucket
+     */
+    public void setLimit(String key, int burst, double permitsPerSecond) {
+        Objects.requireNonNull(key, "key cannot be null");
+        if (burst < 1 || !(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("burst and permitsPerSecond must be positive");
+        }
+        buckets.put(key, new TokenBucket(burst, permitsPerSecond, System.nanoTime()));
+    }
+
+    /**
+     * Snapshot of the counters and of the token buckets.
+     *
+     * @return the metrics
+     */
+    public RateLimitMetrics getMetrics() {
+        long now = System.nanoTime();
+        Map<String, Double> availableTokens = new HashMap<>();
+        buckets.forEach((key, bucket) -> availableTokens.put(key, bucket.available(now)));
+        return new RateLimitMetrics(requests.sum(), retries.sum(), throttled.sum(), Duration.ofNanos(waitedNanos.sum()), Map.copyOf(availableTokens));
+    }
+
+    /**
+     * Gets the rate limit settings.
+     *
+     * @return the settings
+     */
+    public RateLimitSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * The phone number or WhatsApp Business Account id a request is limited by: the id of an edge call.
+     *
+     * @param request the request
+     * @return the id, or null for calls on a single object (media, template or message ids) and for requests outside
+     * the versioned Graph API (media downloads)
+     */
+    static String rateLimitKey(Request request) {
+        List<String> segments = request.url().pathSegments();
+        if (segments.size() < 3 || !API_VERSION.matcher(segments.get(0)).matches() || segments.get(1).isEmpty() || segments.get(2).isEmpty()) {
+            return null;
+        }
+        return segments.get(1);
+    }
+
+    /**
+     * The rate limit error of a response.
+     *
+     * @param response the response
+     * @return the Graph API rate limit error code, 429 for a 429 response without one, 0 if the call was not throttled
+     * @throws IOException if the error body cannot be read
+     */
+    static int throttleCode(Response response) throws IOException {
+        if (!response.isSuccessful() && response.body() != null) {
+            try {
+                JsonNode code = objectMapper.readTree(response.peekBody(MAX_ERROR_BODY_SIZE).string()).path("error").path("code");
+                if (code.isInt() && RATE_LIMIT_ERROR_CODES.contains(code.asInt())) {
+                    return code.asInt();
+                }
+            } catch (JsonProcessingException e) {
+                // not a Graph API error
+            }
+        }
+        return response.code() == 429 ? 429 : 0;
+    }
+
+    /**
+     * The bucket and recipient of a message: the {@code to} field of its json body.
+     *
+     * @param key     the rate limit key
+     * @param request the request
+     * @return the pair key, or null if the request has no recipient
+     */
+    static String pairKey(String key, Request request) {
+        RequestBody body = request.body();
+        try {
+            if (body == null || body.isOneShot() || body.contentLength() < 0 || body.contentLength() > MAX_RECIPIENT_BODY_SIZE
+                    || body.contentType() == null || !"json".equals(body.contentType().subtype())) {
+                return null;
+            }
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            JsonNode to = objectMapper.readTree(buffer.inputStream()).path("to");
+            return to.isTextual() ? key + '/' + to.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * How long a call to a recipient still waits for a pair rate limit. Drops the pauses that are over.
+     */
+    private long pairPauseNanos(String pair, long now) {
+        pairPauses.values().removeIf(until -> until - now <= 0);
+        if (pair == null) {
+            return 0;
+        }
+        Long until = pairPauses.get(pair);
+        return until == null ? 0 : until - now;
+    }
+
+    /**
+     * The delay asked by a {@code Retry-After} header, in seconds or as an http date.
+     *
+     * @param response the response
+     * @return the delay in nanoseconds, 0 if there is none
+     */
+    static long retryAfterNanos(Response response) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return 0;
+        }
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                var date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toNanos());
+            } catch (DateTimeParseException | ArithmeticException ignored) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half of the backoff is fixed, the other half random.
+     */
+    private long backoffNanos(int attempt) {
+        long initial = settings.initialBackoff().toNanos();
+        long max = settings.maxBackoff().toNanos();
+        long backoff = attempt >= 62 || initial > (max >> attempt) ? max : initial << attempt;
+        long half = backoff / 2;
+        return half + ThreadLocalRandom.current().nextLong(backoff - half + 1);
+    }
+
+    private void sleep(long nanos) throws InterruptedIOException {
+        if (nanos <= 0) {
+            return;
+        }
+        waitedNanos.add(nanos);
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.whatsapp.api.interceptor;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.jetbrains.annotations.NotNull;
+import retrofit2.Invocation;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * Authentication interceptor for services created from one shared Retrofit instance.
+ * <p>
+ * Instead of building one client per token, every service proxy is registered with its token. Retrofit tags each
+ * request with the {@link Invocation} that produced it, and the proxy it was invoked on is used to look up the
+ * token for that call. Registrations are weak: once a service proxy is no longer referenced its token is dropped.
+ */
+public class TenantAuthenticationInterceptor implements Interceptor {
+
+    private final Map<Object, String> tokens = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Associates a service proxy with the token used to authenticate its calls.
+     *
+     * @param <S>     the service type
+     * @param service the service proxy created by the shared Retrofit instance
+     * @param token   the token
+     * @return the service
+     */
+    public <S> S register(S service, String token) {
+        Objects.requireNonNull(service, "service cannot be null");
+        Objects.requireNonNull(token, "token cannot be null");
+        tokens.put(service, token);
+        return service;
+    }
+
+    /**
+     * Number of live service registrations.
+     *
+     * @return the number of registered services
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    @NotNull
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Invocation invocation = request.tag(Invocation.class);
+        String token = invocation == null ? null : tokens.get(invocation.instance());
+
+        if (token == null) {
+            return chain.proceed(request);
+        }
+
+        Request newRequest = request //
+                .newBuilder() //
+                .header("Authorization", "Bearer " + token) //
+                .build();
+
+        return chain.proceed(newRequest);
+    }
+}
@@ -8,6 +8,7 @@ import com.whatsapp.api.domain.messages.response.MessageResponse;
 import com.whatsapp.api.domain.phone.TwoStepCode;
 import com.whatsapp.api.domain.response.Response;
 import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.*;
@@ -27,6 +28,16 @@ public interface WhatsappBusinessCloudApiService {
     @POST("/{api-version}/{Phone-Number-ID}/messages")
     Call<MessageResponse> sendMessage(@Path("api-version") String apiVersion, @Path("Phone-Number-ID") String phoneNumberId, @Body Message message);
 
+    /**
+     * Send message call with a body already serialized.
+     *
+     * @param phoneNumberId the phone number id
+     * @param message       the message json
+     * @return the call
+     */
+    @POST("/{api-version}/{Phone-Number-ID}/messages")
+    Call<MessageResponse> sendMessage(@Path("api-version") String apiVersion, @Path("Phone-Number-ID") String phoneNumberId, @Body RequestBody message);
+
     /**
      * Upload media call.
      *
@@ -0,0 +1,156 @@
+package com.whatsapp.api.utils;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Request bodies that stream their content to the connection instead of holding it in memory.
+ * <p>
+ * Use them to upload large media files: memory use stays at a few buffers whatever the file size.
+ */
+public final class StreamingRequestBody {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private StreamingRequestBody() {
+        throw new IllegalStateException("Cannot instantiate StreamingRequestBody is an utility class!");
+    }
+
+    /**
+     * A body that transfers a file with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+     * <p>
+     * The file is read when the request is written, and again if the request is retried.
+     *
+     * @param path        the file
+     * @param contentType the content type
+     * @return the request body
+     */
+    public static RequestBody fromPath(Path path, MediaType contentType) {
+        Objects.requireNonNull(path, "path cannot be null");
+        return new PathRequestBody(path, contentType);
+    }
+
+    /**
+     * A body that copies an input stream. The stream is read to the end but not closed, and cannot be retried.
+     *
+     * @param inputStream   the input stream
+     * @param contentType   the content type
+     * @param contentLength the number of bytes in the stream, or -1 if unknown (the body is then sent chunked)
+     * @return the request body
+     */
+    public static RequestBody fromInputStream(InputStream inputStream, MediaType contentType, long contentLength) {
+        Objects.requireNonNull(inputStream, "inputStream cannot be null");
+        return new OneShotRequestBody(contentType, contentLength) {
+            @Override
+            public void writeTo(@NotNull BufferedSink sink) throws IOException {
+                // not closed: the caller owns the stream
+                Source source = Okio.source(inputStream);
+                sink.writeAll(source);
+            }
+        };
+    }
+
+    /**
+     * A body that copies a channel. The channel is read to the end but not closed, and cannot be retried.
+     *
+     * @param channel       the channel
+     * @param contentType   the content type
+     * @param contentLength the number of bytes in the channel, or -1 if unknown (the body is then sent chunked)
+     * @return the request body
+     */
+    public static RequestBody fromChannel(ReadableByteChannel channel, MediaType contentType, long contentLength) {
+        Objects.requireNonNull(channel, "channel cannot be null");
+        return new OneShotRequestBody(contentType, contentLength) {
+            @Override
+            public void writeTo(@NotNull BufferedSink sink) throws IOException {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        sink.write(buffer);
+                    }
+                    buffer.clear();
+                }
+            }
+        };
+    }
+
+    private static final class PathRequestBody extends RequestBody {
+
+        private final Path path;
+
+        private final MediaType contentType;
+
+        private PathRequestBody(Path path, MediaType contentType) {
+            this.path = path;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return Files.size(path);
+        }
+
+        @Override
+        public void writeTo(@NotNull BufferedSink sink) throws IOException {
+            try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = fileChannel.size();
+                long position = 0;
+                // the sink is a WritableByteChannel: the file goes straight from the channel to the sink buffers
+                while (position < size) {
+                    long transferred = fileChannel.transferTo(position, size - position, sink);
+                    if (transferred <= 0) {
+                        throw new IOException("File was truncated while uploading: " + path);
+                    }
+                    position += transferred;
+                }
+            }
+        }
+    }
+
+    private abstract static class OneShotRequestBody extends RequestBody {
+
+        private final MediaType contentType;
+
+        private final long contentLength;
+
+        private OneShotRequestBody(MediaType contentType, long contentLength) {
+            this.contentType = contentType;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return true;
+        }
+    }
+}
@@ -3,29 +3,39 @@ package com.whatsapp.client.api.factory;
 import com.whatsapp.api.WhatsappApiFactory;
 import com.whatsapp.api.configuration.ApiVersion;
 import com.whatsapp.api.impl.WhatsappBusinessCloudApi;
+import com.whatsapp.api.impl.WhatsappBusinessCloudApiAsync;
 import com.whatsapp.api.impl.WhatsappBusinessManagementApi;
 import com.whatsapp.client.tenant.model.WhatsAppTenant;
-import com.whatsapp.client.tenant.repository.WhatsAppTenantRepository;
+import com.whatsapp.client.tenant.service.TenantDirectory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
- * Factory for creating and caching WhatsApp API clients for tenants
+ * Factory for creating and caching WhatsApp API clients for tenants.
+ * A cached client is kept with the access token it was built with, and built again once the tenant has another token,
+ * e.g. one refreshed by another instance.
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class WhatsAppClientFactory {
     
-    private final WhatsAppTenantRepository tenantRepository;
+    private final TenantDirectory tenantDirectory;
     
     // Cache of API instances by tenant ID
-    private final Map<UUID, WhatsappBusinessCloudApi> apiInstanceCache = new ConcurrentHashMap<>();
+    private final Map<UUID, CachedClient<WhatsappBusinessCloudApi>> apiInstanceCache = new ConcurrentHashMap<>();
+    
+    // Cache of non-blocking API instances by tenant ID
+    private final Map<UUID, CachedClient<WhatsappBusinessCloudApiAsync>> asyncApiInstanceCache = new ConcurrentHashMap<>();
     
     /**
      * Get a WhatsApp business cloud API client for a tenant
@@ -35,25 +45,34 @@ public class WhatsAppClientFactory {
      * @throws IllegalArgumentException if the tenant is not found or not connected
      */
     public WhatsappBusinessCloudApi getClientForTenant(UUID tenantId) {
-        WhatsAppTenant tenant = tenantRepository.findByTenantId(tenantId)
+        WhatsAppTenant tenant = tenantDirectory.findByTenantId(tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("WhatsApp tenant not found for ID: " + tenantId));
         
         if (!tenant.isConnected()) {
             throw new IllegalArgumentException("WhatsApp is not connected for tenant: " + tenantId);
         }
         
-        // Return cached instance if it exists and token is not expired
-        if (apiInstanceCache.containsKey(tenantId) && !tenant.isTokenExpired()) {
-            return apiInstanceCache.get(tenantId);
-        }
-        
-        // Create a new instance
-        WhatsappBusinessCloudApi api = WhatsappApiFactory.newInstance(tenant.getAccessToken()).newBusinessCloudApi();
+        // Return the cached instance, or create one; a renewed token replaces it through swapClients
+        return getCached(apiInstanceCache, tenant, WhatsappApiFactory::newBusinessCloudApi);
+    }
+    
+    /**
+     * Get a non-blocking WhatsApp business cloud API client for a tenant.
+     * Sends return a CompletableFuture and do not hold the calling thread during the Graph API round trip.
+     * 
+     * @param tenantId The tenant ID
+     * @return WhatsappBusinessCloudApiAsync instance for the tenant
+     * @throws IllegalArgumentException if the tenant is not found or not connected
+     */
+    public WhatsappBusinessCloudApiAsync getAsyncClientForTenant(UUID tenantId) {
+        WhatsAppTenant tenant = tenantDirectory.findByTenantId(tenantId)
+                .orElseThrow(() -> new IllegalArgumentException("WhatsApp tenant not found for ID: " + tenantId));
         
-        // Cache the instance
-        apiInstanceCache.put(tenantId, api);
+        if (!tenant.isConnected()) {
+            throw new IllegalArgumentException("WhatsApp is not connected for tenant: " + tenantId);
+        }
         
-        return api;
+        return getCached(asyncApiInstanceCache, tenant, WhatsappApiFactory::newBusinessCloudApiAsync);
     }
     
     /**
@@ -64,7 +83,7 @@ public class WhatsAppClientFactory {
      * @return WhatsappBusinessCloudApi instance for the tenant
      */
     public WhatsappBusinessCloudApi getClientForTenant(UUID tenantId, ApiVersion apiVersion) {
-        WhatsAppTenant tenant = tenantRepository.findByTenantId(tenantId)
+        WhatsAppTenant tenant = tenantDirectory.findByTenantId(tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("WhatsApp tenant not found for ID: " + tenantId));
         
         if (!tenant.isConnected()) {
@@ -82,7 +101,7 @@ public class WhatsAppClientFactory {
      * @return WhatsappBusinessManagementApi instance for the tenant
      */
     public WhatsappBusinessManagementApi getManagementClientForTenant(UUID tenantId) {
-        WhatsAppTenant tenant = tenantRepository.findByTenantId(tenantId)
+        WhatsAppTenant tenant = tenantDirectory.findByTenantId(tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("WhatsApp tenant not found for ID: " + tenantId));
         
         if (!tenant.isConnected()) {
@@ -103,11 +122,68 @@ public class WhatsAppClientFactory {
     }
     
     /**
-     * Invalidate the cached API instance for a tenant
+     * Replace the cached API instances of a tenant with ones using a renewed access token.
+     * The instances are built first and then swapped in, so that a send running meanwhile gets either the previous
+     * instance or the new one, and never waits for an instance to be created again.
+     * Within a transaction the instances are swapped after the commit, once the token is stored.
+     * 
+     * @param tenantId The tenant ID
+     * @param accessToken The renewed access token
+     */
+    public void swapClients(UUID tenantId, String accessToken) {
+        tenantDirectory.invalidate(tenantId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    putClients(tenantId, accessToken);
+                }
+            });
+        } else {
+            putClients(tenantId, accessToken);
+        }
+    }
+    
+    private void putClients(UUID tenantId, String accessToken) {
+        WhatsappApiFactory factory = WhatsappApiFactory.newInstance(accessToken);
+        apiInstanceCache.put(tenantId, new CachedClient<>(accessToken, factory.newBusinessCloudApi()));
+        asyncApiInstanceCache.put(tenantId, new CachedClient<>(accessToken, factory.newBusinessCloudApiAsync()));
+        log.debug("Swapped API clients of tenant {}", tenantId);
+    }
+    
+    /**
+     * Invalidate the cached API instance and tenant details for a tenant
      * 
      * @param tenantId The tenant ID
      */
     public void invalidateClient(UUID tenantId) {
+        tenantDirectory.invalidate(tenantId);
         apiInstanceCache.remove(tenantId);
+        asyncApiInstanceCache.remove(tenantId);
+    }
+    
+    /**
+     * Get the cached client of a tenant, building it again if it was built with another access token
+     */
+    private static <T> T getCached(Map<UUID, CachedClient<T>> cache, WhatsAppTenant tenant,
+                                   Function<WhatsappApiFactory, T> build) {
+        String accessToken = tenant.getAccessToken();
+        CachedClient<T> cached = cache.get(tenant.getTenantId());
+        if (cached == null || !cached.isFor(accessToken)) {
+            cached = cache.compute(tenant.getTenantId(), (id, current) -> current != null && current.isFor(accessToken)
+                    ? current
+                    : new CachedClient<>(accessToken, build.apply(WhatsappApiFactory.newInstance(accessToken))));
+        }
+        return cached.api();
+    }
+    
+    /**
+     * An API client and the access token it sends
+     */
+    private record CachedClient<T>(String accessToken, T api) {
+        
+        private boolean isFor(String accessToken) {
+            return Objects.equals(this.accessToken, accessToken);
+        }
     }
 }
\ No newline at end of file
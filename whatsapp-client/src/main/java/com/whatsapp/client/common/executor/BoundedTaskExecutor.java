@@ -0,0 +1,306 @@
+package com.whatsapp.client.common.executor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Task executor with a bounded number of running and of waiting tasks.
+ * <p>
+ * Tasks run either on a fixed pool of platform threads, or each on its own virtual thread with a semaphore bounding
+ * how many run at once, so that blocking Graph API and JDBC calls neither pile up threads nor exhaust the connection
+ * pool. A task submitted while the queue is full is run by the submitting thread, slowing the producer down, or
+ * rejected.
+ * <p>
+ * Queue depth, running tasks and the time tasks wait and run are exported as JMX attributes.
+ */
+@ManagedResource(description = "Bounded task executor")
+@Slf4j
+public class BoundedTaskExecutor implements AsyncTaskExecutor, DisposableBean {
+
+    /**
+     * Threads the tasks run on
+     */
+    public enum Mode {
+        /** One virtual thread per task, with at most the concurrency running */
+        VIRTUAL,
+        /** A pool of as many platform threads as the concurrency */
+        PLATFORM
+    }
+
+    /**
+     * What is done with a task submitted while the queue is full
+     */
+    public enum RejectionPolicy {
+        /** Run the task on the submitting thread */
+        CALLER_RUNS,
+        /** Throw a {@link TaskRejectedException} */
+        ABORT
+    }
+
+    private final String name;
+    private final Mode mode;
+    private final int concurrency;
+    private final int queueCapacity;
+    private final RejectionPolicy rejectionPolicy;
+    private final Duration shutdownTimeout;
+    private final ExecutorService executor;
+
+    /**
+     * Bounds the running virtual threads; null on platform threads, bounded by the pool size
+     */
+    private final Semaphore running;
+
+    /**
+     * Tasks submitted and not finished, bounded by the concurrency plus the queue capacity
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder executionNanos = new LongAdder();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param name            Name of the executor, prefix of its thread names
+     * @param mode            Threads the tasks run on
+     * @param concurrency     Maximum number of tasks running at once
+     * @param queueCapacity   Maximum number of tasks waiting to run
+     * @param rejectionPolicy What is done with a task submitted while the queue is full
+     * @param keepAlive       How long an idle platform thread is kept
+     * @param shutdownTimeout How long the remaining tasks are waited for on shutdown
+     */
+    public BoundedTaskExecutor(
+            String name,
+            Mode mode,
+            int concurrency,
+            int queueCapacity,
+            RejectionPolicy rejectionPolicy,
+            Duration keepAlive,
+            Duration shutdownTimeout) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity cannot be negative");
+        }
+        this.name = name;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.rejectionPolicy = rejectionPolicy;
+        this.shutdownTimeout = shutdownTimeout;
+
+        ExecutorService virtualExecutor = mode == Mode.VIRTUAL ? newVirtualThreadExecutor(name) : null;
+        if (virtualExecutor != null) {
+            this.mode = Mode.VIRTUAL;
+            this.executor = virtualExecutor;
+            this.running = new Semaphore(concurrency);
+        } else {
+            if (mode == Mode.VIRTUAL) {
+                log.warn("Virtual threads need Java 21 or later, executor {} uses platform threads", name);
+            }
+            // Admission is bounded by the pending count, the pool queue only holds admitted tasks
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                    concurrency, concurrency, keepAlive.toMillis(), TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), platformThreadFactory(name));
+            pool.allowCoreThreadTimeOut(true);
+            this.mode = Mode.PLATFORM;
+            this.executor = pool;
+            this.running = null;
+        }
+        log.info("Executor {} runs up to {} tasks on {} threads with a queue of {}", name, concurrency, this.mode, queueCapacity);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            rejected.increment();
+            throw new TaskRejectedException("Executor " + name + " is shut down");
+        }
+        if (pending.incrementAndGet() > concurrency + queueCapacity) {
+            pending.decrementAndGet();
+            reject(task);
+            return;
+        }
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(task, submittedAt));
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            rejected.increment();
+            throw new TaskRejectedException("Executor " + name + " did not accept a task", e);
+        }
+    }
+
+    private void run(Runnable task, long submittedAt) {
+        try {
+            if (running != null) {
+                running.acquire();
+            }
+        } catch (InterruptedException e) {
+            // Shut down before the task could start
+            pending.decrementAndGet();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long startedAt = System.nanoTime();
+        long queueWait = startedAt - submittedAt;
+        queueWaitNanos.add(queueWait);
+        maxQueueWaitNanos.accumulateAndGet(queueWait, Math::max);
+        active.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            executionNanos.add(System.nanoTime() - startedAt);
+            completed.increment();
+            active.decrementAndGet();
+            pending.decrementAndGet();
+            if (running != null) {
+                running.release();
+            }
+        }
+    }
+
+    private void reject(Runnable task) {
+        if (rejectionPolicy == RejectionPolicy.CALLER_RUNS) {
+            callerRuns.increment();
+            task.run();
+            return;
+        }
+        rejected.increment();
+        throw new TaskRejectedException("Executor " + name + " queue is full (" + queueCapacity + " tasks)");
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        shutdown = true;
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Executor {} still had {} tasks after {}, interrupting them", name, pending.get(), shutdownTimeout);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Threads the tasks run on
+     */
+    @ManagedAttribute(description = "Threads the tasks run on")
+    public String getMode() {
+        return mode.name();
+    }
+
+    /**
+     * Number of tasks waiting to run
+     */
+    @ManagedAttribute(description = "Tasks waiting to run")
+    public int getQueueDepth() {
+        return Math.max(0, pending.get() - active.get());
+    }
+
+    /**
+     * Number of tasks running
+     */
+    @ManagedAttribute(description = "Tasks running")
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * Number of tasks completed since startup
+     */
+    @ManagedAttribute(description = "Tasks completed since startup")
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /**
+     * Number of tasks rejected since startup
+     */
+    @ManagedAttribute(description = "Tasks rejected since startup")
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Number of tasks run by the submitting thread since startup, because the queue was full
+     */
+    @ManagedAttribute(description = "Tasks run by the submitting thread since startup")
+    public long getCallerRunsCount() {
+        return callerRuns.sum();
+    }
+
+    /**
+     * Average time a task waited before running, in milliseconds
+     */
+    @ManagedAttribute(description = "Average time a task waited before running (ms)")
+    public double getAverageQueueWaitMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : queueWaitNanos.sum() / 1e6 / count;
+    }
+
+    /**
+     * Longest time a task waited before running, in milliseconds
+     */
+    @ManagedAttribute(description = "Longest time a task waited before running (ms)")
+    public double getMaxQueueWaitMillis() {
+        return maxQueueWaitNanos.get() / 1e6;
+    }
+
+    /**
+     * Average time a task ran, in milliseconds
+     */
+    @ManagedAttribute(description = "Average time a task ran (ms)")
+    public double getAverageExecutionMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0 : executionNanos.sum() / 1e6 / count;
+    }
+
+    private static ThreadFactory platformThreadFactory(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Create an executor running each task on a new virtual thread, looked up reflectively as the application is
+     * built for Java 17
+     *
+     * @param name Prefix of the thread names
+     * @return The executor, or null if the runtime has no virtual threads
+     */
+    private static ExecutorService newVirtualThreadExecutor(String name) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
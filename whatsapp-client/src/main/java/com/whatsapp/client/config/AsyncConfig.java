@@ -0,0 +1,65 @@
+package com.whatsapp.client.config;
+
+import com.whatsapp.client.common.executor.BoundedTaskExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Configuration of the executor of the asynchronous work: {@code @Async} methods and streamed responses
+ */
+@Configuration
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+    
+    private final WhatsAppProperties whatsAppProperties;
+    
+    public AsyncConfig(WhatsAppProperties whatsAppProperties) {
+        this.whatsAppProperties = whatsAppProperties;
+    }
+    
+    /**
+     * Executor of the asynchronous work, bounded in running and waiting tasks
+     */
+    @Bean("whatsAppTaskExecutor")
+    public BoundedTaskExecutor whatsAppTaskExecutor() {
+        WhatsAppProperties.Executor executor = whatsAppProperties.getExecutor();
+        return new BoundedTaskExecutor(
+                "whatsapp-task",
+                executor.getMode(),
+                executor.getConcurrency(),
+                executor.getQueueCapacity(),
+                executor.getRejectionPolicy(),
+                executor.getKeepAlive(),
+                executor.getShutdownTimeout());
+    }
+    
+    @Override
+    public Executor getAsyncExecutor() {
+        return whatsAppTaskExecutor();
+    }
+    
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (e, method, params) -> log.error("Error in async {}: {}", method.getName(), e.getMessage(), e);
+    }
+    
+    /**
+     * Run streamed responses on the same executor instead of a thread per response
+     */
+    @Bean
+    public WebMvcConfigurer asyncSupportConfigurer(BoundedTaskExecutor whatsAppTaskExecutor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(whatsAppTaskExecutor);
+            }
+        };
+    }
+}
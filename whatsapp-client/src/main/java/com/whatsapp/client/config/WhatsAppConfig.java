@@ -3,6 +3,15 @@ package com.whatsapp.client.config;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.whatsapp.api.WhatsappApiServiceGenerator;
+import com.whatsapp.api.cache.InMemoryMediaUploadStore;
+import com.whatsapp.api.cache.JdbcMediaUploadStore;
+import com.whatsapp.api.cache.MediaUploadStore;
+import com.whatsapp.api.configuration.ConnectionPoolSettings;
+import com.whatsapp.api.configuration.RateLimitSettings;
+import com.whatsapp.api.configuration.WhatsappApiConfig;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
@@ -11,6 +20,7 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import javax.sql.DataSource;
 import java.time.Duration;
 
 /**
@@ -19,6 +29,35 @@ import java.time.Duration;
 @Configuration
 public class WhatsAppConfig {
     
+    private final WhatsAppProperties whatsAppProperties;
+    
+    public WhatsAppConfig(WhatsAppProperties whatsAppProperties) {
+        this.whatsAppProperties = whatsAppProperties;
+    }
+    
+    /**
+     * Apply the HTTP settings to the WhatsApp SDK before any tenant client is created.
+     * All tenant clients share one connection pool and dispatcher.
+     */
+    @PostConstruct
+    public void configureWhatsappSdk() {
+        WhatsAppProperties.Http http = whatsAppProperties.getHttp();
+        WhatsappApiServiceGenerator.setConnectionPoolSettings(new ConnectionPoolSettings(
+                http.getMaxRequests(),
+                http.getMaxRequestsPerHost(),
+                http.getMaxIdleConnections(),
+                http.getKeepAlive()));
+        WhatsappApiServiceGenerator.setRateLimitSettings(http.isRateLimitEnabled()
+                ? new RateLimitSettings(
+                        http.getRateLimitBurst(),
+                        http.getRateLimitPerSecond(),
+                        http.getMaxRetries(),
+                        http.getInitialBackoff(),
+                        http.getMaxBackoff())
+                : null);
+        WhatsappApiConfig.setSharedServiceMode(http.isSharedServices());
+    }
+    
     /**
      * Rest template for making HTTP requests to the WhatsApp API
      * Using a qualifier to avoid conflicts with existing beans
@@ -42,6 +81,21 @@ public class WhatsAppConfig {
                 .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     }
     
+    /**
+     * Store of the media uploaded per content hash, shared by all tenants
+     */
+    @Bean
+    public MediaUploadStore mediaUploadStore(ObjectProvider<DataSource> dataSource) {
+        WhatsAppProperties.Media media = whatsAppProperties.getMedia();
+        if ("memory".equalsIgnoreCase(media.getUploadStore())) {
+            return new InMemoryMediaUploadStore();
+        }
+        if (!"jdbc".equalsIgnoreCase(media.getUploadStore())) {
+            throw new IllegalStateException("Unknown whatsapp.media.upload-store: " + media.getUploadStore());
+        }
+        return new JdbcMediaUploadStore(dataSource.getObject(), media.getUploadTable());
+    }
+    
     /**
      * Configure CORS to allow cross-origin requests from the frontend
      */
@@ -1,8 +1,12 @@
 package com.whatsapp.client.config;
 
+import com.whatsapp.client.common.executor.BoundedTaskExecutor;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
 
 /**
  * Configuration properties for WhatsApp integration
@@ -41,4 +45,498 @@ public class WhatsAppProperties {
      * Configuration ID for embedded signup
      */
     private String configurationId;
-}
\ No newline at end of file
+    
+    /**
+     * HTTP client settings for calls to the Graph API
+     */
+    private Http http = new Http();
+    
+    /**
+     * Connection pool and dispatcher settings shared by all tenant clients
+     */
+    @Data
+    public static class Http {
+        
+        /**
+         * Share one Retrofit instance across tenants and pass the token per call
+         */
+        private boolean sharedServices = true;
+        
+        /**
+         * Maximum number of concurrent requests
+         */
+        private int maxRequests = 256;
+        
+        /**
+         * Maximum number of concurrent requests to graph.facebook.com
+         */
+        private int maxRequestsPerHost = 128;
+        
+        /**
+         * Maximum number of idle connections kept in the pool
+         */
+        private int maxIdleConnections = 32;
+        
+        /**
+         * How long an idle connection is kept alive
+         */
+        private Duration keepAlive = Duration.ofMinutes(5);
+        
+        /**
+         * Rate limit calls per phone number and WABA, and retry throttled calls
+         */
+        private boolean rateLimitEnabled = true;
+        
+        /**
+         * Calls allowed in a burst, per phone number or WABA
+         */
+        private int rateLimitBurst = 80;
+        
+        /**
+         * Sustained calls per second, per phone number or WABA
+         */
+        private double rateLimitPerSecond = 80;
+        
+        /**
+         * Maximum number of retries of a throttled call
+         */
+        private int maxRetries = 3;
+        
+        /**
+         * Backoff before the first retry, doubled on each retry
+         */
+        private Duration initialBackoff = Duration.ofMillis(500);
+        
+        /**
+         * Longest backoff, and longest Retry-After that is waited for
+         */
+        private Duration maxBackoff = Duration.ofSeconds(8);
+    }
+    
+    /**
+     * Bulk send settings
+     */
+    private Bulk bulk = new Bulk();
+    
+    /**
+     * Settings for sending one message to many recipients
+     */
+    @Data
+    public static class Bulk {
+        
+        /**
+         * Maximum number of send requests waiting for a response, per bulk send
+         */
+        private int maxInFlight = 64;
+        
+        /**
+         * Maximum number of recipients accepted in one bulk request
+         */
+        private int maxRecipients = 100000;
+    }
+    
+    /**
+     * Media upload settings
+     */
+    private Media media = new Media();
+    
+    /**
+     * Settings for uploading media once per content
+     */
+    @Data
+    public static class Media {
+        
+        /**
+         * Where uploaded media ids are kept: "jdbc" (shared, survives restarts) or "memory"
+         */
+        private String uploadStore = "jdbc";
+        
+        /**
+         * Table of the jdbc upload store
+         */
+        private String uploadTable = "whatsapp_integration.media_uploads";
+        
+        /**
+         * How long an uploaded media id is reused; media are deleted by WhatsApp after 30 days
+         */
+        private Duration uploadLifetime = Duration.ofDays(29);
+        
+        /**
+         * Interval between two deletions of the expired uploads from the upload store
+         */
+        private Duration cleanupInterval = Duration.ofHours(1);
+    }
+    
+    /**
+     * Webhook ingestion settings
+     */
+    private Ingestion ingestion = new Ingestion();
+    
+    /**
+     * Settings for writing webhook events, messages and statuses in batches
+     */
+    @Data
+    public static class Ingestion {
+        
+        /**
+         * Maximum number of records written in one transaction
+         */
+        private int batchSize = 500;
+        
+        /**
+         * How long the first record of a batch waits for more records
+         */
+        private Duration linger = Duration.ofMillis(50);
+        
+        /**
+         * Maximum number of records waiting to be written
+         */
+        private int queueCapacity = 50000;
+        
+        /**
+         * How long a webhook waits for room in a full queue before it is rejected (and redelivered by WhatsApp)
+         */
+        private Duration enqueueTimeout = Duration.ofSeconds(1);
+        
+        /**
+         * Pause before writing a batch again while the database is unavailable
+         */
+        private Duration retryBackoff = Duration.ofSeconds(1);
+        
+        /**
+         * How long shutdown waits for the queued records to be written
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+    }
+    
+    /**
+     * Webhook spool settings
+     */
+    private Spool spool = new Spool();
+    
+    /**
+     * Settings for the local file webhooks are written to before they are acknowledged
+     */
+    @Data
+    public static class Spool {
+        
+        /**
+         * Write webhooks to the spool before acknowledging them; when disabled they are only queued in memory
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Directory of the spool files, on a local disk
+         */
+        private String directory = "data/webhook-spool";
+        
+        /**
+         * Size of a spool segment file
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+        
+        /**
+         * Number of segments after which webhooks are rejected (and redelivered by WhatsApp) until the consumer catches up
+         */
+        private int maxSegments = 16;
+        
+        /**
+         * Pause of the consumer when the spool is empty or the ingestion queue full
+         */
+        private Duration pollInterval = Duration.ofMillis(5);
+        
+        /**
+         * How often the position of the consumer is saved
+         */
+        private Duration checkpointInterval = Duration.ofMillis(200);
+    }
+    
+    /**
+     * Tenant cache settings
+     */
+    private TenantCache tenantCache = new TenantCache();
+    
+    /**
+     * Settings for the cache of tenants used to route webhooks and sends
+     */
+    @Data
+    public static class TenantCache {
+        
+        /**
+         * How long a tenant is cached; tenants changed through this instance are dropped right away
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+        
+        /**
+         * How long an unknown WABA or phone number ID is remembered
+         */
+        private Duration negativeTtl = Duration.ofSeconds(30);
+        
+        /**
+         * Size of an index above which the unknown IDs are dropped
+         */
+        private int maxEntries = 10000;
+    }
+    
+    /**
+     * Inbound message ID index settings
+     */
+    private MessageIndex messageIndex = new MessageIndex();
+    
+    /**
+     * Settings for the index of stored inbound message IDs used to skip redelivered webhooks
+     */
+    @Data
+    public static class MessageIndex {
+        
+        /**
+         * Number of most recent IDs known to be stored, whose redeliveries are dropped without being written
+         */
+        private int recentCapacity = 100_000;
+    }
+    
+    /**
+     * Partition maintenance settings
+     */
+    private Partitions partitions = new Partitions();
+    
+    /**
+     * Settings for the monthly partitions of the messages and webhook events tables
+     */
+    @Data
+    public static class Partitions {
+        
+        /**
+         * Whether partitions are created ahead and old ones retired by this instance
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Number of months after the current one with a partition ready
+         */
+        private int premakeMonths = 3;
+        
+        /**
+         * Interval between two maintenance runs
+         */
+        private Duration checkInterval = Duration.ofHours(6);
+        
+        /**
+         * Number of past months of messages kept besides the current one; 0 keeps them all
+         */
+        private int messagesRetentionMonths = 0;
+        
+        /**
+         * Number of past months of webhook events kept besides the current one; 0 keeps them all
+         */
+        private int webhookEventsRetentionMonths = 3;
+        
+        /**
+         * What is done with the partitions past the retention
+         */
+        private RetentionAction retentionAction = RetentionAction.ARCHIVE;
+    }
+    
+    /**
+     * What is done with a partition past the retention
+     */
+    public enum RetentionAction {
+        /** Detach the partition and move it to the archive schema, to be dumped and dropped by an operator */
+        ARCHIVE,
+        /** Drop the partition */
+        DROP
+    }
+    
+    /**
+     * Task executor settings
+     */
+    private Executor executor = new Executor();
+    
+    /**
+     * Settings for the executor of the asynchronous work: tracking of sent messages and streamed responses
+     */
+    @Data
+    public static class Executor {
+        
+        /**
+         * VIRTUAL runs each task on its own virtual thread (Java 21+, falls back to PLATFORM on older runtimes);
+         * PLATFORM runs the tasks on a fixed pool of platform threads
+         */
+        private BoundedTaskExecutor.Mode mode = BoundedTaskExecutor.Mode.PLATFORM;
+        
+        /**
+         * Maximum number of tasks running at once: the number of platform threads, or of virtual threads let through
+         */
+        private int concurrency = 32;
+        
+        /**
+         * Maximum number of tasks waiting to run; beyond it the rejection policy applies
+         */
+        private int queueCapacity = 1000;
+        
+        /**
+         * What is done with a task submitted while the queue is full
+         */
+        private BoundedTaskExecutor.RejectionPolicy rejectionPolicy = BoundedTaskExecutor.RejectionPolicy.CALLER_RUNS;
+        
+        /**
+         * How long an idle platform thread is kept
+         */
+        private Duration keepAlive = Duration.ofSeconds(60);
+        
+        /**
+         * How long the tasks still queued or running are waited for on shutdown
+         */
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+    }
+    
+    /**
+     * Token refresh settings
+     */
+    private TokenRefresh tokenRefresh = new TokenRefresh();
+    
+    /**
+     * Settings for the background refresh of the tenants' access tokens
+     */
+    @Data
+    public static class TokenRefresh {
+        
+        /**
+         * Whether access tokens are refreshed ahead of their expiry by this instance
+         */
+        private boolean enabled = true;
+        
+        /**
+         * How long before its expiry a token is refreshed
+         */
+        private Duration refreshAhead = Duration.ofMinutes(15);
+        
+        /**
+         * Interval between two scans of the tenants for tokens expiring soon
+         */
+        private Duration scanInterval = Duration.ofMinutes(5);
+        
+        /**
+         * Maximum number of tokens refreshed at once
+         */
+        private int maxConcurrent = 4;
+        
+        /**
+         * Delay before a failed refresh is retried
+         */
+        private Duration retryDelay = Duration.ofMinutes(1);
+    }
+    
+    /**
+     * Push settings
+     */
+    private Push push = new Push();
+    
+    /**
+     * Settings for the server-sent events pushing the changes of conversations to subscribed clients
+     */
+    @Data
+    public static class Push {
+        
+        /**
+         * Events buffered per subscriber; a subscriber whose buffer is full is evicted
+         */
+        private int bufferSize = 256;
+        
+        /**
+         * Maximum number of subscribers connected for a tenant
+         */
+        private int maxSubscribersPerTenant = 50;
+        
+        /**
+         * Number of threads kept to send the buffered events to the subscribers; more are started while writes are blocked
+         */
+        private int senderThreads = 4;
+        
+        /**
+         * How long a write to a subscriber may block before the subscriber is evicted, checked at each heartbeat
+         */
+        private Duration writeTimeout = Duration.ofSeconds(10);
+        
+        /**
+         * Interval between two heartbeats sent to each subscriber
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+        
+        /**
+         * How long a subscription lasts before the client has to reconnect
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+    
+    /**
+     * Conversation window settings
+     */
+    private ConversationWindow conversationWindow = new ConversationWindow();
+    
+    /**
+     * Settings for the index of the customer service windows and conversations of each customer
+     */
+    @Data
+    public static class ConversationWindow {
+        
+        /**
+         * Whether free-form messages to a customer whose customer service window is closed are refused,
+         * instead of being sent and failing. Only enforce it when this instance receives every webhook of its tenants;
+         * otherwise a closed window is only logged.
+         */
+        private boolean enforce = false;
+        
+        /**
+         * How long a customer service window stays open after a message of the customer
+         */
+        private Duration serviceWindow = Duration.ofHours(24);
+        
+        /**
+         * Interval between two sweeps of the expired windows and conversations
+         */
+        private Duration sweepInterval = Duration.ofMinutes(10);
+    }
+    
+    /**
+     * Template settings
+     */
+    private Templates templates = new Templates();
+    
+    /**
+     * Settings for the catalog of the message templates of each tenant
+     */
+    @Data
+    public static class Templates {
+        
+        /**
+         * Whether template sends are validated against the catalog before being sent
+         */
+        private boolean validate = true;
+        
+        /**
+         * Table the templates are stored in
+         */
+        private String table = "whatsapp_integration.templates";
+        
+        /**
+         * Templates per page when they are retrieved from the Graph API
+         */
+        private int pageSize = 100;
+        
+        /**
+         * Interval after which the catalog of a tenant is reloaded from the table, for the changes received by other instances
+         */
+        private Duration reloadInterval = Duration.ofMinutes(10);
+        
+        /**
+         * Interval after which a catalog that could not be loaded is loaded again; template sends are not validated meanwhile
+         */
+        private Duration retryInterval = Duration.ofMinutes(1);
+        
+        /**
+         * How long a template the Graph API does not have is refused without looking it up again
+         */
+        private Duration unknownNameTtl = Duration.ofMinutes(5);
+    }
+}
@@ -0,0 +1,220 @@
+package com.whatsapp.client.conversation.controller;
+
+import com.whatsapp.client.common.WhatsAppConstants.Request;
+import com.whatsapp.client.conversation.dto.ConversationDto;
+import com.whatsapp.client.conversation.dto.KeysetPage;
+import com.whatsapp.client.conversation.dto.MessageDto;
+import com.whatsapp.client.conversation.model.Conversation;
+import com.whatsapp.client.conversation.model.Message;
+import com.whatsapp.client.conversation.service.ConversationEventBroker;
+import com.whatsapp.client.conversation.service.ConversationService;
+import com.whatsapp.client.conversation.service.ConversationWindowIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Controller for listing WhatsApp conversations, their messages and customer service windows, and streaming their changes.
+ * Listings are keyset paginated: each page returns the cursor to pass to get the next one.
+ */
+@RestController
+@RequestMapping("/api/whatsapp/conversation")
+@CrossOrigin(origins = "*", maxAge = 3600)
+@Slf4j
+public class ConversationController {
+    
+    private static final String DEFAULT_PAGE_SIZE = "50";
+    
+    private final ConversationService conversationService;
+    private final ConversationEventBroker eventBroker;
+    private final ConversationWindowIndex conversationWindowIndex;
+    
+    @Autowired
+    public ConversationController(
+            ConversationService conversationService,
+            ConversationEventBroker eventBroker,
+            ConversationWindowIndex conversationWindowIndex) {
+        this.conversationService = conversationService;
+        this.eventBroker = eventBroker;
+        this.conversationWindowIndex = conversationWindowIndex;
+    }
+    
+    /**
+     * List the conversations of a tenant, most recent message first
+     * 
+     * @param tenantId The tenant ID
+     * @param cursor The cursor returned with the previous page, absent for the first page
+     * @param limit Maximum number of conversations to return
+     * @return Page of conversations
+     */
+    @GetMapping("/{tenantId}")
+    public ResponseEntity<Object> getConversations(
+            @PathVariable UUID tenantId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        
+        try {
+            KeysetPage<Conversation> page = conversationService.getConversations(tenantId, cursor, limit);
+            
+            return ResponseEntity.ok(KeysetPage.<ConversationDto>builder()
+                    .items(page.getItems().stream().map(this::toDto).toList())
+                    .nextCursor(page.getNextCursor())
+                    .build());
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            Request.SUCCESS, false,
+                            "error", e.getMessage()
+                    ));
+        } catch (Exception e) {
+            log.error("Error listing conversations for tenant {}: {}", tenantId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            Request.SUCCESS, false,
+                            "error", e.getMessage()
+                    ));
+        }
+    }
+    
+    /**
+     * List the messages of a conversation, newest first
+     * 
+     * @param tenantId The tenant ID
+     * @param conversationId The conversation ID
+     * @param cursor The cursor returned with the previous page, absent for the first page
+     * @param limit Maximum number of messages to return
+     * @return Page of messages
+     */
+    @GetMapping("/{tenantId}/{conversationId}/messages")
+    public ResponseEntity<Object> getMessages(
+            @PathVariable UUID tenantId,
+            @PathVariable UUID conversationId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        
+        try {
+            if (conversationService.findConversation(tenantId, conversationId).isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of(
+                                Request.SUCCESS, false,
+                                "error", "Conversation not found"
+                        ));
+            }
+            
+            KeysetPage<Message> page = conversationService.getMessages(conversationId, cursor, limit);
+            
+            return ResponseEntity.ok(KeysetPage.<MessageDto>builder()
+                    .items(page.getItems().stream().map(this::toDto).toList())
+                    .nextCursor(page.getNextCursor())
+                    .build());
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            Request.SUCCESS, false,
+                            "error", e.getMessage()
+                    ));
+        } catch (Exception e) {
+            log.error("Error listing messages of conversation {}: {}", conversationId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            Request.SUCCESS, false,
+                            "error", e.getMessage()
+                    ));
+        }
+    }
+    
+    /**
+     * Stream the new messages and statuses of the conversations of a tenant, or of one conversation, as server-sent
+     * events named MESSAGE and STATUS. Events are not replayed: a client reconnecting lists the conversations
+     * again to catch up.
+     * 
+     * @param tenantId The tenant ID
+     * @param conversationId The conversation ID, absent for every conversation of the tenant
+     * @return The event stream
+     */
+    @GetMapping(value = "/{tenantId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @PathVariable UUID tenantId,
+            @RequestParam(value = "conversationId", required = false) UUID conversationId) {
+        
+        if (conversationId != null && conversationService.findConversation(tenantId, conversationId).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Conversation not found");
+        }
+        
+        try {
+            return eventBroker.subscribe(tenantId, conversationId);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+    }
+    
+    /**
+     * Get the open customer service windows and conversations of a tenant, or the window of one customer
+     * 
+     * @param tenantId The tenant ID
+     * @param customerPhone The phone number of the customer, absent for the counts of every customer
+     * @return The counts, or the state and the window of the customer
+     */
+    @GetMapping("/{tenantId}/windows")
+    public ResponseEntity<Object> getWindows(
+            @PathVariable UUID tenantId,
+            @RequestParam(value = "customerPhone", required = false) String customerPhone) {
+        
+        if (customerPhone == null) {
+            return ResponseEntity.ok(conversationWindowIndex.summarize(tenantId));
+        }
+        
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("customerPhone", customerPhone);
+        body.put("state", conversationWindowIndex.check(tenantId, customerPhone));
+        body.put("window", conversationWindowIndex.find(tenantId, customerPhone));
+        return ResponseEntity.ok(body);
+    }
+    
+    private ConversationDto toDto(Conversation conversation) {
+        return ConversationDto.builder()
+                .id(conversation.getId())
+                .tenantId(conversation.getTenantId())
+                .customerWaId(conversation.getCustomerWaId())
+                .customerPhone(conversation.getCustomerPhone())
+                .customerName(conversation.getCustomerName())
+                .customerProfilePicUrl(conversation.getCustomerProfilePicUrl())
+                .status(conversation.getStatus().toString())
+                .lastMessageAt(conversation.getLastMessageAt())
+                .createdAt(conversation.getCreatedAt())
+                .updatedAt(conversation.getUpdatedAt())
+                .build();
+    }
+    
+    private MessageDto toDto(Message message) {
+        return MessageDto.builder()
+                .id(message.getId())
+                .conversationId(message.getConversationId())
+                .whatsappMessageId(message.getWhatsappMessageId())
+                .direction(message.getDirection().toString())
+                .messageType(message.getMessageType().toString())
+                .content(message.getContent())
+                .mediaUrl(message.getMediaUrl())
+                .mediaMimeType(message.getMediaMimeType())
+                .mediaFilename(message.getMediaFilename())
+                .mediaId(message.getMediaId())
+                .status(message.getStatus().toString())
+                .statusUpdatedAt(message.getStatusUpdatedAt())
+                .sentAt(message.getSentAt())
+                .deliveredAt(message.getDeliveredAt())
+                .readAt(message.getReadAt())
+                .failedReason(message.getFailedReason())
+                .build();
+    }
+}
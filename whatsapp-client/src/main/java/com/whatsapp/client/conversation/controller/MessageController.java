@@ -5,20 +5,38 @@ import com.whatsapp.api.domain.messages.*;
 import com.whatsapp.api.domain.messages.response.MessageResponse;
 import com.whatsapp.client.api.factory.WhatsAppClientFactory;
 import com.whatsapp.client.common.WhatsAppConstants.Request;
+import com.whatsapp.api.bulk.BulkSendResult;
+import com.whatsapp.api.bulk.BulkSendSummary;
+import com.whatsapp.client.conversation.dto.BulkMessageRequest;
 import com.whatsapp.client.conversation.dto.MessageRequest;
+import com.whatsapp.client.conversation.service.BulkSendService;
 import com.whatsapp.client.conversation.service.ConversationService;
+import com.whatsapp.client.conversation.service.ConversationWindowIndex;
+import com.whatsapp.client.conversation.service.MediaUploadService;
+import com.whatsapp.client.template.service.TemplateCatalog;
 import com.whatsapp.client.tenant.model.WhatsAppTenant;
 import com.whatsapp.client.tenant.service.WhatsAppTenantService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller for sending WhatsApp messages
@@ -29,9 +47,15 @@ import java.util.UUID;
 @Slf4j
 public class MessageController {
     
+    private static final String WINDOW_CLOSED = "The customer service window with this recipient is closed, send a template message";
+    
     private final WhatsAppTenantService tenantService;
     private final WhatsAppClientFactory clientFactory;
     private final ConversationService conversationService;
+    private final BulkSendService bulkSendService;
+    private final MediaUploadService mediaUploadService;
+    private final ConversationWindowIndex conversationWindowIndex;
+    private final TemplateCatalog templateCatalog;
     private final ObjectMapper objectMapper;
     
     @Autowired
@@ -39,10 +63,18 @@ public class MessageController {
             WhatsAppTenantService tenantService,
             WhatsAppClientFactory clientFactory,
             ConversationService conversationService,
+            BulkSendService bulkSendService,
+            MediaUploadService mediaUploadService,
+            ConversationWindowIndex conversationWindowIndex,
+            TemplateCatalog templateCatalog,
             @Qualifier("whatsAppObjectMapper") ObjectMapper objectMapper) {
         this.tenantService = tenantService;
         this.clientFactory = clientFactory;
         this.conversationService = conversationService;
+        this.bulkSendService = bulkSendService;
+        this.mediaUploadService = mediaUploadService;
+        this.conversationWindowIndex = conversationWindowIndex;
+        this.templateCatalog = templateCatalog;
         this.objectMapper = objectMapper;
     }
     
@@ -70,6 +102,15 @@ public class MessageController {
                         ));
             }
             
+            // Free-form messages are refused outside the customer service window when it is enforced
+            if (!conversationWindowIndex.canSendFreeForm(tenantId, request.getRecipientPhone())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of(
+                                Request.SUCCESS, false,
+                                "error", WINDOW_CLOSED
+                        ));
+            }
+            
             // Get tenant
             WhatsAppTenant tenant = tenantService.getTenant(tenantId);
             
@@ -139,9 +180,19 @@ public class MessageController {
             Map<String, Object> templateMap = (Map<String, Object>) request.get("template");
             String templateName = (String) templateMap.get("name");
             
-            // Convert map to template message
-            String jsonString = objectMapper.writeValueAsString(request);
-            TemplateMessage templateMessage = objectMapper.readValue(jsonString, TemplateMessage.class);
+            // Convert the template map to a template message
+            TemplateMessage templateMessage = objectMapper.convertValue(templateMap, TemplateMessage.class);
+            
+            // Validate the template locally instead of having the send rejected
+            try {
+                templateCatalog.validate(tenantId, templateMessage);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of(
+                                Request.SUCCESS, false,
+                                "error", e.getMessage()
+                        ));
+            }
             
             // Build full message
             com.whatsapp.api.domain.messages.Message message = 
@@ -171,6 +222,145 @@ public class MessageController {
         }
     }
     
+    /**
+     * Send the same text or template message to many recipients.
+     * The response is streamed as newline-delimited JSON: one line per recipient as soon as
+     * its result is known, then a summary line.
+     * 
+     * @param tenantId The tenant ID
+     * @param request The recipients and the text or template to send
+     * @return Streamed per-recipient results
+     */
+    @PostMapping(value = "/{tenantId}/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> sendBulkMessage(
+            @PathVariable UUID tenantId,
+            @RequestBody BulkMessageRequest request) {
+        
+        log.info("Sending bulk message for tenant: {} to {} recipients", tenantId,
+                request.getRecipientPhones() == null ? 0 : request.getRecipientPhones().size());
+        
+        // Check if tenant is connected
+        if (!tenantService.isConnected(tenantId)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(out -> writeLine(out, Map.of(
+                            Request.SUCCESS, false,
+                            "error", "WhatsApp is not connected for this tenant"
+                    )));
+        }
+        
+        BlockingQueue<BulkSendResult> results = new LinkedBlockingQueue<>();
+        CompletableFuture<BulkSendSummary> summary;
+        try {
+            summary = bulkSendService.sendBulk(tenantId, request, results::add);
+        } catch (Exception e) {
+            log.error("Error starting bulk send for tenant {}: {}", tenantId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(out -> writeLine(out, Map.of(
+                            Request.SUCCESS, false,
+                            "error", String.valueOf(e.getMessage())
+                    )));
+        }
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> {
+                    try {
+                        // Forward results until the bulk send is complete and every result is written
+                        while (!summary.isDone() || !results.isEmpty()) {
+                            BulkSendResult result = results.poll(1, TimeUnit.SECONDS);
+                            if (result != null) {
+                                writeLine(out, toResultLine(result));
+                            }
+                        }
+                        writeLine(out, toSummaryLine(summary.get()));
+                    } catch (IOException e) {
+                        // Client went away, stop sending to the remaining recipients
+                        summary.cancel(false);
+                        throw e;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        summary.cancel(false);
+                    } catch (ExecutionException e) {
+                        writeLine(out, Map.of(
+                                Request.SUCCESS, false,
+                                "error", String.valueOf(e.getCause().getMessage())
+                        ));
+                    }
+                });
+    }
+    
+    private void writeLine(OutputStream out, Object line) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(line));
+        out.write('\n');
+        out.flush();
+    }
+    
+    private Map<String, Object> toResultLine(BulkSendResult result) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("recipient", result.recipient());
+        line.put(Request.SUCCESS, result.isSuccess());
+        if (result.isSuccess()) {
+            line.put("messageId", result.messageId());
+        } else {
+            line.put("error", result.error().getMessage());
+        }
+        return line;
+    }
+    
+    private Map<String, Object> toSummaryLine(BulkSendSummary summary) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("total", summary.total());
+        line.put("sent", summary.sent());
+        line.put("failed", summary.failed());
+        line.put("elapsedMillis", summary.elapsed().toMillis());
+        return line;
+    }
+    
+    /**
+     * Upload a media file, to be sent by ID in media messages.
+     * A file already uploaded with the same content is not uploaded again.
+     * 
+     * @param tenantId The tenant ID
+     * @param file The file to upload
+     * @return Upload response with the media ID
+     */
+    @PostMapping(value = "/{tenantId}/media", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Object> uploadMedia(
+            @PathVariable UUID tenantId,
+            @RequestParam("file") MultipartFile file) {
+        
+        log.info("Uploading media {} for tenant: {}", file.getOriginalFilename(), tenantId);
+        
+        try {
+            if (!tenantService.isConnected(tenantId)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of(
+                                Request.SUCCESS, false,
+                                "error", "WhatsApp is not connected for this tenant"
+                        ));
+            }
+            
+            var response = mediaUploadService.uploadMedia(
+                    tenantId, file.getOriginalFilename(), file.getContentType(), file.getBytes());
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of(
+                            Request.SUCCESS, false,
+                            "error", e.getMessage()
+                    ));
+        } catch (Exception e) {
+            log.error("Error uploading media for tenant {}: {}", tenantId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            Request.SUCCESS, false,
+                            "error", e.getMessage()
+                    ));
+        }
+    }
+    
     /**
      * Send a media message (image, document, audio, video)
      * 
@@ -206,6 +396,15 @@ public class MessageController {
             // First get "to" from the request map
             String to = (String) request.get("to");
             
+            // Free-form messages are refused outside the customer service window when it is enforced
+            if (to != null && !conversationWindowIndex.canSendFreeForm(tenantId, to)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of(
+                                Request.SUCCESS, false,
+                                "error", WINDOW_CLOSED
+                        ));
+            }
+            
             // Convert request to appropriate message type
             String jsonString = objectMapper.writeValueAsString(request);
             com.whatsapp.api.domain.messages.Message message;
@@ -319,4 +518,57 @@ public class MessageController {
                     ));
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * List the message templates of a tenant
+     * 
+     * @param tenantId The tenant ID
+     * @return The templates
+     */
+    @GetMapping("/{tenantId}/templates")
+    public ResponseEntity<Object> getTemplates(@PathVariable UUID tenantId) {
+        try {
+            return ResponseEntity.ok(templateCatalog.getTemplates(tenantId));
+        } catch (Exception e) {
+            log.error("Error listing templates for tenant {}: {}", tenantId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            Request.SUCCESS, false,
+                            "error", String.valueOf(e.getMessage())
+                    ));
+        }
+    }
+    
+    /**
+     * Synchronize the message templates of a tenant with WhatsApp
+     * 
+     * @param tenantId The tenant ID
+     * @return The templates
+     */
+    @PostMapping("/{tenantId}/templates/sync")
+    public ResponseEntity<Object> synchronizeTemplates(@PathVariable UUID tenantId) {
+        
+        log.info("Synchronizing templates for tenant: {}", tenantId);
+        
+        try {
+            // Check if tenant is connected
+            if (!tenantService.isConnected(tenantId)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(Map.of(
+                                Request.SUCCESS, false,
+                                "error", "WhatsApp is not connected for this tenant"
+                        ));
+            }
+            
+            return ResponseEntity.ok(templateCatalog.synchronize(tenantId));
+            
+        } catch (Exception e) {
+            log.error("Error synchronizing templates for tenant {}: {}", tenantId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            Request.SUCCESS, false,
+                            "error", String.valueOf(e.getMessage())
+                    ));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.whatsapp.client.conversation.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request for sending the same message to many recipients.
+ * Either a text or a template must be given.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkMessageRequest {
+    
+    @NotEmpty(message = "At least one recipient phone number is required")
+    private List<String> recipientPhones;
+    
+    /**
+     * Text of a text message
+     */
+    private String text;
+    
+    /**
+     * Template object of a template message, as sent to the WhatsApp API
+     */
+    private Map<String, Object> template;
+}
@@ -0,0 +1,30 @@
+package com.whatsapp.client.conversation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for WhatsApp conversation details, without its messages
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationDto {
+    
+    private UUID id;
+    private UUID tenantId;
+    private String customerWaId;
+    private String customerPhone;
+    private String customerName;
+    private String customerProfilePicUrl;
+    private String status;
+    private OffsetDateTime lastMessageAt;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime updatedAt;
+}
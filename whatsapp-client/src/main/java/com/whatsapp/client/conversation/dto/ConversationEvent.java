@@ -0,0 +1,77 @@
+package com.whatsapp.client.conversation.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.whatsapp.client.conversation.model.Message;
+import com.whatsapp.client.conversation.model.Message.MessageStatus;
+import com.whatsapp.client.webhook.repository.WebhookBatchRepository.StatusChange;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for a change of a conversation pushed to its subscribers: a new message, or a new status of a message
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConversationEvent {
+    
+    /**
+     * Kind of change
+     */
+    public enum EventType {
+        /** A message was received or sent; the event has the message */
+        MESSAGE,
+        /** A message moved to a new status */
+        STATUS
+    }
+    
+    private EventType type;
+    private UUID tenantId;
+    private UUID conversationId;
+    private Message message;
+    private UUID messageId;
+    private String whatsappMessageId;
+    private MessageStatus status;
+    private OffsetDateTime statusUpdatedAt;
+    
+    /**
+     * Event of a new message
+     * 
+     * @param tenantId The tenant ID
+     * @param message The message, stored
+     * @return The event
+     */
+    public static ConversationEvent message(UUID tenantId, Message message) {
+        return ConversationEvent.builder()
+                .type(EventType.MESSAGE)
+                .tenantId(tenantId)
+                .conversationId(message.getConversationId())
+                .message(message)
+                .build();
+    }
+    
+    /**
+     * Event of a new status of a message
+     * 
+     * @param change The status change, stored
+     * @return The event
+     */
+    public static ConversationEvent status(StatusChange change) {
+        return ConversationEvent.builder()
+                .type(EventType.STATUS)
+                .tenantId(change.tenantId())
+                .conversationId(change.conversationId())
+                .messageId(change.messageId())
+                .whatsappMessageId(change.whatsappMessageId())
+                .status(change.status())
+                .statusUpdatedAt(change.statusUpdatedAt())
+                .build();
+    }
+}
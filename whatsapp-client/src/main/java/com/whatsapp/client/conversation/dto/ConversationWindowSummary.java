@@ -0,0 +1,30 @@
+package com.whatsapp.client.conversation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * DTO for the open customer service windows and conversations of a tenant
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationWindowSummary {
+    
+    private UUID tenantId;
+    private long openServiceWindows;
+    private long openConversations;
+    private long billableConversations;
+    private Map<String, Long> conversationsByCategory;
+    
+    /**
+     * False until the windows are rebuilt after startup: customers who wrote before may be missing
+     */
+    private boolean complete;
+}
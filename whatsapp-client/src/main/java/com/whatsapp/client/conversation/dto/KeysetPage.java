@@ -0,0 +1,27 @@
+package com.whatsapp.client.conversation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of a keyset paginated listing
+ *
+ * @param <T> Type of the items
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPage<T> {
+    
+    private List<T> items;
+    
+    /**
+     * Cursor of the next page, null if this is the last page
+     */
+    private String nextCursor;
+}
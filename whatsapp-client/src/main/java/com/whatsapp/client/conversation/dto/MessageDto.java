@@ -0,0 +1,36 @@
+package com.whatsapp.client.conversation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for a message of a WhatsApp conversation
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageDto {
+
+    private UUID id;
+    private UUID conversationId;
+    private String whatsappMessageId;
+    private String direction;
+    private String messageType;
+    private String content;
+    private String mediaUrl;
+    private String mediaMimeType;
+    private String mediaFilename;
+    private String mediaId;
+    private String status;
+    private OffsetDateTime statusUpdatedAt;
+    private OffsetDateTime sentAt;
+    private OffsetDateTime deliveredAt;
+    private OffsetDateTime readAt;
+    private String failedReason;
+}
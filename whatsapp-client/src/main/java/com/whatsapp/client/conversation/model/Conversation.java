@@ -14,7 +14,7 @@ import java.util.UUID;
  * Represents a WhatsApp conversation between a business and a customer
  */
 @Entity
-@Table(name = "conversations")
+@Table(name = "conversations", schema = "whatsapp_integration")
 @Getter
 @Setter
 @NoArgsConstructor
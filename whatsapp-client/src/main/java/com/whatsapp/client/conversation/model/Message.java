@@ -11,7 +11,7 @@ import java.util.UUID;
  * Represents a WhatsApp message in a conversation
  */
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", schema = "whatsapp_integration")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -101,7 +101,22 @@ public class Message {
         SENT,       // Message sent to WhatsApp
         DELIVERED,  // Message delivered to recipient's device
         READ,       // Message read by recipient
-        FAILED      // Message failed to send
+        FAILED;     // Message failed to send
+        
+        /**
+         * Rank of the status in the message flow SENT -> DELIVERED -> READ; a message only moves to a status of higher rank.
+         * FAILED is outside the flow: a failed message is never updated and no update makes a message failed.
+         * 
+         * @return The rank, 0 for FAILED
+         */
+        public int rank() {
+            return switch (this) {
+                case SENT -> 1;
+                case DELIVERED -> 2;
+                case READ -> 3;
+                case FAILED -> 0;
+            };
+        }
     }
     
     /**
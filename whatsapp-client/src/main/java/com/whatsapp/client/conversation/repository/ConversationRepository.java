@@ -4,8 +4,12 @@ import com.whatsapp.client.conversation.model.Conversation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -24,6 +28,65 @@ public interface ConversationRepository extends JpaRepository<Conversation, UUID
      */
     Page<Conversation> findByTenantIdOrderByLastMessageAtDesc(UUID tenantId, Pageable pageable);
     
+    /**
+     * Find the first conversations with messages for a tenant, ordered by most recent message then ID.
+     * Reads only the rows returned from the index on (tenant_id, last_message_at, id), without a count query.
+     * 
+     * @param tenantId The tenant ID
+     * @param limit Maximum number of conversations to return
+     * @return List of conversations
+     */
+    @Query(value = "SELECT * FROM whatsapp_integration.conversations WHERE tenant_id = :tenantId AND last_message_at IS NOT NULL "
+            + "ORDER BY last_message_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Conversation> findFirstKeyset(@Param("tenantId") UUID tenantId, @Param("limit") int limit);
+    
+    /**
+     * Find the conversations with messages for a tenant that come after a given one,
+     * ordered by most recent message then ID
+     * 
+     * @param tenantId The tenant ID
+     * @param lastMessageAt Last message time of the last conversation returned
+     * @param id ID of the last conversation returned
+     * @param limit Maximum number of conversations to return
+     * @return List of conversations
+     */
+    @Query(value = "SELECT * FROM whatsapp_integration.conversations WHERE tenant_id = :tenantId "
+            + "AND (last_message_at, id) < (:lastMessageAt, :id) "
+            + "ORDER BY last_message_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Conversation> findNextKeyset(
+            @Param("tenantId") UUID tenantId,
+            @Param("lastMessageAt") OffsetDateTime lastMessageAt,
+            @Param("id") UUID id,
+            @Param("limit") int limit);
+    
+    /**
+     * Find the first conversations without messages for a tenant, ordered by ID.
+     * They are listed after the conversations with messages.
+     * 
+     * @param tenantId The tenant ID
+     * @param limit Maximum number of conversations to return
+     * @return List of conversations
+     */
+    @Query(value = "SELECT * FROM whatsapp_integration.conversations WHERE tenant_id = :tenantId AND last_message_at IS NULL "
+            + "ORDER BY id DESC LIMIT :limit", nativeQuery = true)
+    List<Conversation> findFirstKeysetWithoutMessages(@Param("tenantId") UUID tenantId, @Param("limit") int limit);
+    
+    /**
+     * Find the conversations without messages for a tenant that come after a given one, ordered by ID
+     * 
+     * @param tenantId The tenant ID
+     * @param id ID of the last conversation returned
+     * @param limit Maximum number of conversations to return
+     * @return List of conversations
+     */
+    @Query(value = "SELECT * FROM whatsapp_integration.conversations WHERE tenant_id = :tenantId AND last_message_at IS NULL "
+            + "AND id < :id "
+            + "ORDER BY id DESC LIMIT :limit", nativeQuery = true)
+    List<Conversation> findNextKeysetWithoutMessages(
+            @Param("tenantId") UUID tenantId,
+            @Param("id") UUID id,
+            @Param("limit") int limit);
+    
     /**
      * Find a conversation by tenant ID and customer WhatsApp ID
      * 
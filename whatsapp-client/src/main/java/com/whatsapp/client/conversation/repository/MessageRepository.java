@@ -4,8 +4,11 @@ import com.whatsapp.client.conversation.model.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,6 +28,36 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
      */
     Page<Message> findByConversationIdOrderBySentAtDesc(UUID conversationId, Pageable pageable);
     
+    /**
+     * Find the first messages of a conversation, ordered by sent time then ID (newest first).
+     * Reads only the rows returned from the index on (conversation_id, sent_at, id), without a count query.
+     * 
+     * @param conversationId The conversation ID
+     * @param limit Maximum number of messages to return
+     * @return List of messages
+     */
+    @Query(value = "SELECT * FROM whatsapp_integration.messages WHERE conversation_id = :conversationId "
+            + "ORDER BY sent_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Message> findFirstKeyset(@Param("conversationId") UUID conversationId, @Param("limit") int limit);
+    
+    /**
+     * Find the messages of a conversation sent before a given one, ordered by sent time then ID (newest first)
+     * 
+     * @param conversationId The conversation ID
+     * @param sentAt Sent time of the last message returned
+     * @param id ID of the last message returned
+     * @param limit Maximum number of messages to return
+     * @return List of messages
+     */
+    @Query(value = "SELECT * FROM whatsapp_integration.messages WHERE conversation_id = :conversationId "
+            + "AND (sent_at, id) < (:sentAt, :id) "
+            + "ORDER BY sent_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<Message> findNextKeyset(
+            @Param("conversationId") UUID conversationId,
+            @Param("sentAt") OffsetDateTime sentAt,
+            @Param("id") UUID id,
+            @Param("limit") int limit);
+    
     /**
      * Find a message by its WhatsApp message ID
      * 
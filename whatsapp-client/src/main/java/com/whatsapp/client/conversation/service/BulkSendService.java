@@ -0,0 +1,189 @@
+package com.whatsapp.client.conversation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whatsapp.api.WhatsappApiServiceGenerator;
+import com.whatsapp.api.bulk.BulkMessageSender;
+import com.whatsapp.api.bulk.BulkSendResult;
+import com.whatsapp.api.bulk.BulkSendSummary;
+import com.whatsapp.api.bulk.CompiledMessage;
+import com.whatsapp.api.bulk.ThroughputPacer;
+import com.whatsapp.api.domain.messages.TemplateMessage;
+import com.whatsapp.api.domain.messages.TextMessage;
+import com.whatsapp.api.domain.phone.type.LevelType;
+import com.whatsapp.client.api.factory.WhatsAppClientFactory;
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.conversation.dto.BulkMessageRequest;
+import com.whatsapp.client.conversation.model.Message.MessageType;
+import com.whatsapp.client.conversation.service.ConversationWindowIndex.WindowState;
+import com.whatsapp.client.template.service.TemplateCatalog;
+import com.whatsapp.client.tenant.model.WhatsAppTenant;
+import com.whatsapp.client.tenant.service.WhatsAppTenantService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Service for sending the same message to many recipients of a tenant.
+ * Sends are paced to the throughput level of the tenant's business phone number.
+ */
+@Service
+@Slf4j
+public class BulkSendService {
+
+    private static final String FIELD_THROUGHPUT = "throughput";
+
+    private final WhatsAppTenantService tenantService;
+    private final WhatsAppClientFactory clientFactory;
+    private final ConversationService conversationService;
+    private final ConversationWindowIndex conversationWindowIndex;
+    private final TemplateCatalog templateCatalog;
+    private final WhatsAppProperties whatsAppProperties;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public BulkSendService(
+            WhatsAppTenantService tenantService,
+            WhatsAppClientFactory clientFactory,
+            ConversationService conversationService,
+            ConversationWindowIndex conversationWindowIndex,
+            TemplateCatalog templateCatalog,
+            WhatsAppProperties whatsAppProperties,
+            @Qualifier("whatsAppObjectMapper") ObjectMapper objectMapper) {
+        this.tenantService = tenantService;
+        this.clientFactory = clientFactory;
+        this.conversationService = conversationService;
+        this.conversationWindowIndex = conversationWindowIndex;
+        this.templateCatalog = templateCatalog;
+        this.whatsAppProperties = whatsAppProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Start a bulk send. Each sent message is tracked in its conversation.
+     * When the windows are enforced, a text fails at once for the recipients whose customer service window is closed,
+     * without a request.
+     *
+     * @param tenantId The tenant ID
+     * @param request The recipients and the text or template to send
+     * @param listener Receives the result of each recipient, concurrently from the HTTP threads
+     * @return Future completed with the totals once every recipient has been processed
+     */
+    public CompletableFuture<BulkSendSummary> sendBulk(UUID tenantId, BulkMessageRequest request, Consumer<BulkSendResult> listener) {
+        if (request.getRecipientPhones() == null || request.getRecipientPhones().isEmpty()) {
+            throw new IllegalArgumentException("At least one recipient phone number is required");
+        }
+        if (request.getRecipientPhones().size() > whatsAppProperties.getBulk().getMaxRecipients()) {
+            throw new IllegalArgumentException("Too many recipients, the maximum is " + whatsAppProperties.getBulk().getMaxRecipients());
+        }
+
+        WhatsAppTenant tenant = tenantService.getTenant(tenantId);
+        if (tenant.getBusinessPhoneNumberId() == null) {
+            throw new IllegalStateException("Phone number ID not found for tenant: " + tenantId);
+        }
+
+        // Build the message once, the sender copies it for every recipient
+        com.whatsapp.api.domain.messages.Message message;
+        MessageType messageType;
+        String content;
+        if (request.getTemplate() != null) {
+            TemplateMessage templateMessage = objectMapper.convertValue(request.getTemplate(), TemplateMessage.class);
+            // Refused once here rather than by the Graph API for every recipient
+            templateCatalog.validate(tenantId, templateMessage);
+            message = com.whatsapp.api.domain.messages.Message.MessageBuilder.builder()
+                    .buildTemplateMessage(templateMessage);
+            messageType = MessageType.TEMPLATE;
+            content = "Template: " + templateMessage.getName();
+        } else if (request.getText() != null && !request.getText().isBlank()) {
+            message = com.whatsapp.api.domain.messages.Message.MessageBuilder.builder()
+                    .buildTextMessage(new TextMessage().setBody(request.getText()));
+            messageType = MessageType.TEXT;
+            content = request.getText();
+        } else {
+            throw new IllegalArgumentException("Either a text or a template is required");
+        }
+
+        // Free-form messages can only be sent within the customer service window
+        List<String> recipients = request.getRecipientPhones();
+        List<String> windowClosed = List.of();
+        if (messageType == MessageType.TEXT) {
+            Map<Boolean, List<String>> byWindow = recipients.stream()
+                    .collect(Collectors.partitioningBy(phone -> conversationWindowIndex.check(tenantId, phone) != WindowState.CLOSED));
+            if (conversationWindowIndex.isEnforced()) {
+                recipients = byWindow.get(true);
+                windowClosed = byWindow.get(false);
+            } else if (!byWindow.get(false).isEmpty()) {
+                log.warn("Customer service window with {} of {} recipients of tenant {} looks closed, sending anyway",
+                        byWindow.get(false).size(), recipients.size(), tenantId);
+            }
+        }
+
+        String phoneNumberId = tenant.getBusinessPhoneNumberId();
+        LevelType level = getThroughputLevel(tenantId, phoneNumberId);
+
+        // Let the SDK rate limiter follow the throughput of the phone number
+        var rateLimitInterceptor = WhatsappApiServiceGenerator.getRateLimitInterceptor();
+        if (rateLimitInterceptor != null) {
+            int messagesPerSecond = ThroughputPacer.messagesPerSecond(level);
+            rateLimitInterceptor.setLimit(phoneNumberId, messagesPerSecond, messagesPerSecond);
+        }
+        
+        log.info("Starting bulk send for tenant {} to {} recipients at {} throughput",
+                tenantId, request.getRecipientPhones().size(), level);
+
+        BulkMessageSender sender = new BulkMessageSender(
+                clientFactory.getAsyncClientForTenant(tenantId),
+                whatsAppProperties.getBulk().getMaxInFlight());
+
+        // Serialize the message once: each recipient only gets its number spliced in
+        CompiledMessage compiled = CompiledMessage.compile(message);
+
+        windowClosed.forEach(phone -> listener.accept(new BulkSendResult(phone, null,
+                new IllegalStateException("Customer service window closed, send a template message"))));
+        int skipped = windowClosed.size();
+
+        return sender.send(phoneNumberId, level, compiled, recipients, result -> {
+            if (result.isSuccess()) {
+                conversationService.trackOutboundBulkMessage(tenantId, result.recipient(), messageType, content, result.messageId());
+            }
+            listener.accept(result);
+        }).thenApply(summary -> skipped == 0 ? summary
+                : new BulkSendSummary(summary.total() + skipped, summary.sent(), summary.failed() + skipped, summary.elapsed())
+        ).whenComplete((summary, e) -> {
+            if (e != null) {
+                log.error("Bulk send for tenant {} stopped: {}", tenantId, e.getMessage(), e);
+            } else {
+                log.info("Bulk send for tenant {} finished: {} sent, {} failed in {}",
+                        tenantId, summary.sent(), summary.failed(), summary.elapsed());
+            }
+        });
+    }
+
+    /**
+     * Get the throughput level of a business phone number, falling back to STANDARD
+     *
+     * @param tenantId The tenant ID
+     * @param phoneNumberId The business phone number ID
+     * @return The throughput level
+     */
+    private LevelType getThroughputLevel(UUID tenantId, String phoneNumberId) {
+        try {
+            var phoneNumber = clientFactory.getManagementClientForTenant(tenantId)
+                    .retrievePhoneNumber(phoneNumberId, FIELD_THROUGHPUT);
+            if (phoneNumber.throughput() != null && phoneNumber.throughput().Level() != null) {
+                return phoneNumber.throughput().Level();
+            }
+        } catch (Exception e) {
+            log.warn("Could not retrieve throughput of phone number {} for tenant {}, using STANDARD: {}",
+                    phoneNumberId, tenantId, e.getMessage());
+        }
+        return LevelType.STANDARD;
+    }
+}
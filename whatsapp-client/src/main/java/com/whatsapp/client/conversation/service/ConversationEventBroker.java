@@ -0,0 +1,328 @@
+package com.whatsapp.client.conversation.service;
+
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.conversation.dto.ConversationEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the new messages and statuses of conversations to the clients subscribed to a tenant or to one of its
+ * conversations, as server-sent events, instead of the clients polling the conversation listings.
+ * <p>
+ * Publishing never waits for a client: each subscriber has a bounded buffer, emptied by the sender threads.
+ * A subscriber whose buffer is full is too slow to keep up and is evicted; its client reconnects and lists the
+ * conversations again to catch up. A heartbeat is sent at an interval to keep idle connections open and to find
+ * the closed ones.
+ * <p>
+ * A write to a client blocks its sender thread while the client does not read. Sender threads are added beyond
+ * the configured number as needed, so that a stalled client never holds back the others, and the heartbeat evicts
+ * a subscriber whose write has lasted longer than the write timeout.
+ * <p>
+ * Events are not replayed: a client gets the events published while it is subscribed, on this instance.
+ */
+@Service
+@Slf4j
+public class ConversationEventBroker {
+
+    /**
+     * Queued to subscribers as a heartbeat, sent as a comment
+     */
+    private static final ConversationEvent HEARTBEAT = new ConversationEvent();
+
+    private final WhatsAppProperties.Push settings;
+
+    /**
+     * Subscribers by tenant ID
+     */
+    private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicLong eventIds = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private ExecutorService senders;
+    private ScheduledExecutorService heartbeat;
+
+    @Autowired
+    public ConversationEventBroker(WhatsAppProperties whatsAppProperties) {
+        this.settings = whatsAppProperties.getPush();
+    }
+
+    /**
+     * Start the sender threads and the heartbeat
+     */
+    @PostConstruct
+    public void start() {
+        AtomicInteger threads = new AtomicInteger();
+        // Kept alive up to the configured number, added beyond while writes are blocked
+        senders = new ThreadPoolExecutor(settings.getSenderThreads(), Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "conversation-push-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "conversation-push-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getHeartbeatInterval().toMillis();
+        heartbeat.scheduleWithFixedDelay(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Close the connections of the subscribers
+     */
+    @PreDestroy
+    public void stop() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        subscribers.values().forEach(tenantSubscribers -> tenantSubscribers.forEach(this::close));
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+    }
+
+    /**
+     * Subscribe to the events of a tenant, or of one of its conversations
+     *
+     * @param tenantId The tenant ID
+     * @param conversationId The conversation ID, null for every conversation of the tenant
+     * @return The emitter to return from the request
+     * @throws IllegalStateException if the tenant has the maximum number of subscribers
+     */
+    public SseEmitter subscribe(UUID tenantId, UUID conversationId) {
+        SseEmitter emitter = new SseEmitter(settings.getTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(tenantId, conversationId, emitter, settings.getBufferSize());
+
+        // Added within the computation, so that the set of the tenant is not dropped meanwhile by a removal
+        subscribers.compute(tenantId, (id, tenantSubscribers) -> {
+            Set<Subscriber> added = tenantSubscribers != null ? tenantSubscribers : ConcurrentHashMap.newKeySet();
+            if (added.size() >= settings.getMaxSubscribersPerTenant()) {
+                throw new IllegalStateException("Too many subscribers for tenant: " + tenantId);
+            }
+            added.add(subscriber);
+            return added;
+        });
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        log.debug("Subscribed to events of tenant {}, conversation {}", tenantId, conversationId);
+        return emitter;
+    }
+
+    /**
+     * Push an event to the subscribers of its tenant and conversation
+     *
+     * @param event The event
+     */
+    public void publish(ConversationEvent event) {
+        Set<Subscriber> tenantSubscribers = subscribers.get(event.getTenantId());
+        if (tenantSubscribers == null || tenantSubscribers.isEmpty()) {
+            return;
+        }
+        published.incrementAndGet();
+        for (Subscriber subscriber : tenantSubscribers) {
+            if (subscriber.conversationId == null || subscriber.conversationId.equals(event.getConversationId())) {
+                offer(subscriber, event);
+            }
+        }
+    }
+
+    /**
+     * Push an event once the current transaction commits, so that a client fetching what changed finds it;
+     * at once outside a transaction
+     *
+     * @param event The event
+     */
+    public void publishAfterCommit(ConversationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    /**
+     * Number of connected subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Number of events published to at least one subscriber since startup
+     */
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    /**
+     * Number of subscribers evicted for being too slow, or for a write that did not complete in time, since startup
+     */
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    private void offer(Subscriber subscriber, ConversationEvent event) {
+        if (!subscriber.buffer.offer(event)) {
+            evicted.incrementAndGet();
+            log.warn("Evicting slow subscriber of tenant {}: {} events not sent",
+                    subscriber.tenantId, subscriber.buffer.size());
+            close(subscriber);
+            return;
+        }
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    /**
+     * Send the buffered events of a subscriber; one sender at a time per subscriber
+     */
+    private void send(Subscriber subscriber) {
+        try {
+            ConversationEvent event;
+            while ((event = subscriber.buffer.poll()) != null) {
+                subscriber.writeStartedAt = System.nanoTime();
+                if (event == HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(Long.toString(eventIds.incrementAndGet()))
+                            .name(event.getType().name())
+                            .data(event));
+                }
+                subscriber.writeStartedAt = 0;
+            }
+        } catch (Exception e) {
+            // The client is gone
+            log.debug("Dropping subscriber of tenant {}: {}", subscriber.tenantId, e.getMessage());
+            close(subscriber);
+            return;
+        } finally {
+            subscriber.writeStartedAt = 0;
+            subscriber.sending.set(false);
+        }
+        // An event offered while the sender was finishing
+        if (!subscriber.buffer.isEmpty() && subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void sendHeartbeats() {
+        try {
+            long now = System.nanoTime();
+            long writeTimeout = settings.getWriteTimeout().toNanos();
+            subscribers.values().forEach(tenantSubscribers -> tenantSubscribers.forEach(subscriber -> {
+                long writeStartedAt = subscriber.writeStartedAt;
+                if (writeStartedAt != 0 && now - writeStartedAt > writeTimeout) {
+                    evictStalled(subscriber);
+                } else {
+                    offer(subscriber, HEARTBEAT);
+                }
+            }));
+        } catch (Exception e) {
+            log.error("Error sending heartbeats: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Evict a subscriber whose write is blocked. Its emitter is completed by a sender thread, as completing waits for
+     * the blocked write.
+     */
+    private void evictStalled(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            evicted.incrementAndGet();
+            log.warn("Evicting stalled subscriber of tenant {}: no write completed for {}",
+                    subscriber.tenantId, settings.getWriteTimeout());
+            subscriber.buffer.clear();
+            senders.execute(() -> complete(subscriber));
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            subscriber.buffer.clear();
+            complete(subscriber);
+        }
+    }
+
+    private void complete(Subscriber subscriber) {
+        try {
+            subscriber.emitter.complete();
+        } catch (Exception e) {
+            log.debug("Error closing subscriber of tenant {}: {}", subscriber.tenantId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return false if the subscriber was already removed
+     */
+    private boolean remove(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true)) {
+            return false;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.tenantId, (tenantId, tenantSubscribers) -> {
+            tenantSubscribers.remove(subscriber);
+            return tenantSubscribers.isEmpty() ? null : tenantSubscribers;
+        });
+        return true;
+    }
+
+    /**
+     * A connected client and the events waiting to be sent to it
+     */
+    private static final class Subscriber {
+
+        private final UUID tenantId;
+        private final UUID conversationId;
+        private final SseEmitter emitter;
+        private final Queue<ConversationEvent> buffer;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+
+        /**
+         * When the running write started, 0 if none is running
+         */
+        private volatile long writeStartedAt;
+
+        private Subscriber(UUID tenantId, UUID conversationId, SseEmitter emitter, int bufferSize) {
+            this.tenantId = tenantId;
+            this.conversationId = conversationId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.whatsapp.client.conversation.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.whatsapp.api.domain.messages.TextMessage;
 import com.whatsapp.api.domain.messages.response.MessageResponse;
+import com.whatsapp.api.domain.webhook.Audio;
+import com.whatsapp.api.domain.webhook.Button;
+import com.whatsapp.api.domain.webhook.Document;
+import com.whatsapp.api.domain.webhook.Image;
+import com.whatsapp.api.domain.webhook.Interactive;
+import com.whatsapp.api.domain.webhook.Location;
+import com.whatsapp.api.domain.webhook.Video;
 import com.whatsapp.api.impl.WhatsappBusinessCloudApi;
 import com.whatsapp.client.api.factory.WhatsAppClientFactory;
 import com.whatsapp.client.common.WhatsAppConstants.Message;
+import com.whatsapp.client.conversation.dto.ConversationEvent;
+import com.whatsapp.client.conversation.dto.KeysetPage;
 import com.whatsapp.client.conversation.model.Conversation;
 import com.whatsapp.client.conversation.model.Message.MessageDirection;
 import com.whatsapp.client.conversation.model.Message.MessageStatus;
@@ -14,18 +22,30 @@ import com.whatsapp.client.conversation.model.Message.MessageType;
 import com.whatsapp.client.conversation.repository.ConversationRepository;
 import com.whatsapp.client.conversation.repository.MessageRepository;
 import com.whatsapp.client.tenant.model.WhatsAppTenant;
-import com.whatsapp.client.tenant.repository.WhatsAppTenantRepository;
+import com.whatsapp.client.tenant.service.TenantDirectory;
+import com.whatsapp.client.webhook.model.StatusUpdateRecord;
+import com.whatsapp.client.webhook.repository.WebhookBatchRepository;
+import com.whatsapp.client.webhook.repository.WebhookBatchRepository.StatusChange;
+import com.whatsapp.client.webhook.service.MessageStatusAggregator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 /**
  * Service for managing WhatsApp conversations and messages
@@ -34,24 +54,35 @@ import java.util.UUID;
 @Slf4j
 public class ConversationService {
     
+    /**
+     * Maximum number of rows of a keyset page
+     */
+    public static final int MAX_PAGE_SIZE = 200;
+    
     private final ConversationRepository conversationRepository;
     private final MessageRepository messageRepository;
-    private final WhatsAppTenantRepository tenantRepository;
+    private final TenantDirectory tenantDirectory;
+    private final WebhookBatchRepository webhookBatchRepository;
     private final WhatsAppClientFactory clientFactory;
     private final ObjectMapper objectMapper;
+    private final ConversationEventBroker eventBroker;
     
     @Autowired
     public ConversationService(
             ConversationRepository conversationRepository,
             MessageRepository messageRepository,
-            WhatsAppTenantRepository tenantRepository,
+            TenantDirectory tenantDirectory,
+            WebhookBatchRepository webhookBatchRepository,
             WhatsAppClientFactory clientFactory,
-            @Qualifier("whatsAppObjectMapper") ObjectMapper objectMapper) {
+            @Qualifier("whatsAppObjectMapper") ObjectMapper objectMapper,
+            ConversationEventBroker eventBroker) {
         this.conversationRepository = conversationRepository;
         this.messageRepository = messageRepository;
-        this.tenantRepository = tenantRepository;
+        this.tenantDirectory = tenantDirectory;
+        this.webhookBatchRepository = webhookBatchRepository;
         this.clientFactory = clientFactory;
         this.objectMapper = objectMapper;
+        this.eventBroker = eventBroker;
     }
     
     /**
@@ -76,6 +107,114 @@ public class ConversationService {
         return messageRepository.findByConversationIdOrderBySentAtDesc(conversationId, pageable);
     }
     
+    /**
+     * Get a page of the conversations of a tenant, ordered by most recent message.
+     * Unlike {@link #getConversations(UUID, Pageable)} the page starts after a cursor instead of an offset:
+     * its cost does not grow with the depth of the page, no count query is run, and new rows do not shift the
+     * pages that follow. A conversation that gets a new message moves to the first page, and so is not listed by
+     * the pages that follow if it was not listed yet.
+     * 
+     * @param tenantId The tenant ID
+     * @param cursor The cursor returned with the previous page, null for the first page
+     * @param limit Maximum number of conversations to return, up to {@value #MAX_PAGE_SIZE}
+     * @return Page of conversations
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public KeysetPage<Conversation> getConversations(UUID tenantId, String cursor, int limit) {
+        return keysetPage(
+                KeysetCursor.decode(cursor),
+                limit,
+                n -> conversationRepository.findFirstKeyset(tenantId, n),
+                (after, n) -> conversationRepository.findNextKeyset(tenantId, after.timestamp(), after.id(), n),
+                n -> conversationRepository.findFirstKeysetWithoutMessages(tenantId, n),
+                (after, n) -> conversationRepository.findNextKeysetWithoutMessages(tenantId, after.id(), n),
+                conversation -> new KeysetCursor(conversation.getLastMessageAt(), conversation.getId()));
+    }
+    
+    /**
+     * Get a page of the messages of a conversation, newest first.
+     * Unlike {@link #getMessages(UUID, Pageable)} the page starts after a cursor instead of an offset.
+     * Every message has a sent time, which never changes, so messages are neither skipped nor repeated.
+     * 
+     * @param conversationId The conversation ID
+     * @param cursor The cursor returned with the previous page, null for the first page
+     * @param limit Maximum number of messages to return, up to {@value #MAX_PAGE_SIZE}
+     * @return Page of messages
+     * @throws IllegalArgumentException if the cursor is invalid
+     */
+    public KeysetPage<com.whatsapp.client.conversation.model.Message> getMessages(UUID conversationId, String cursor, int limit) {
+        return keysetPage(
+                KeysetCursor.decode(cursor),
+                limit,
+                n -> messageRepository.findFirstKeyset(conversationId, n),
+                (after, n) -> messageRepository.findNextKeyset(conversationId, after.timestamp(), after.id(), n),
+                null,
+                null,
+                message -> new KeysetCursor(message.getSentAt(), message.getId()));
+    }
+    
+    /**
+     * Find a conversation of a tenant
+     * 
+     * @param tenantId The tenant ID
+     * @param conversationId The conversation ID
+     * @return Optional conversation, empty if it does not exist or belongs to another tenant
+     */
+    public Optional<Conversation> findConversation(UUID tenantId, UUID conversationId) {
+        return conversationRepository.findById(conversationId)
+                .filter(conversation -> tenantId.equals(conversation.getTenantId()));
+    }
+    
+    /**
+     * Read a keyset page: the rows with a sort time, then those without one.
+     * One row more than the limit is read to know whether there is a next page.
+     * 
+     * @param after The position after which the page starts, null for the first page
+     * @param limit Maximum number of rows to return
+     * @param first Reads the first rows with a sort time
+     * @param next Reads the rows with a sort time after a position
+     * @param firstWithoutTime Reads the first rows without a sort time, null if every row has one
+     * @param nextWithoutTime Reads the rows without a sort time after a position, null if every row has one
+     * @param positionOf The position of a row
+     * @return The page
+     */
+    private static <T> KeysetPage<T> keysetPage(
+            KeysetCursor after,
+            int limit,
+            IntFunction<List<T>> first,
+            BiFunction<KeysetCursor, Integer, List<T>> next,
+            IntFunction<List<T>> firstWithoutTime,
+            BiFunction<KeysetCursor, Integer, List<T>> nextWithoutTime,
+            Function<T, KeysetCursor> positionOf) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        int fetch = Math.min(limit, MAX_PAGE_SIZE) + 1;
+        
+        List<T> rows = new ArrayList<>(fetch);
+        if (after == null) {
+            rows.addAll(first.apply(fetch));
+        } else if (after.timestamp() != null) {
+            rows.addAll(next.apply(after, fetch));
+        }
+        if (rows.size() < fetch && firstWithoutTime != null) {
+            // The rows without a sort time come last
+            int remaining = fetch - rows.size();
+            rows.addAll(after == null || after.timestamp() != null
+                    ? firstWithoutTime.apply(remaining)
+                    : nextWithoutTime.apply(after, remaining));
+        }
+        
+        if (rows.size() < fetch) {
+            return KeysetPage.<T>builder().items(rows).build();
+        }
+        List<T> items = rows.subList(0, fetch - 1);
+        return KeysetPage.<T>builder()
+                .items(new ArrayList<>(items))
+                .nextCursor(positionOf.apply(items.get(items.size() - 1)).encode())
+                .build();
+    }
+    
     /**
      * Send a text message to a customer
      * 
@@ -94,7 +233,7 @@ public class ConversationService {
             Conversation conversation = findOrCreateConversation(tenantId, customerPhone);
             
             // Get the tenant for phone number ID
-            WhatsAppTenant tenant = tenantRepository.findByTenantId(tenantId)
+            WhatsAppTenant tenant = tenantDirectory.findByTenantId(tenantId)
                     .orElseThrow(() -> new IllegalArgumentException("Tenant not found: " + tenantId));
             
             if (tenant.getBusinessPhoneNumberId() == null) {
@@ -126,6 +265,7 @@ public class ConversationService {
             
             // Save the message
             dbMessage = messageRepository.save(dbMessage);
+            eventBroker.publishAfterCommit(ConversationEvent.message(tenantId, dbMessage));
             
             // Update the conversation
             conversation.setLastMessageAt(OffsetDateTime.now());
@@ -165,165 +305,109 @@ public class ConversationService {
         return conversationRepository.save(conversation);
     }
     
-    /**
-     * Handle an incoming message from a webhook
-     * 
-     * @param tenantId The tenant ID
-     * @param messageNode The message JSON node
-     * @param metadataNode The metadata JSON node (for contact info)
-     */
-    @Transactional
-    public void handleIncomingMessage(UUID tenantId, JsonNode messageNode, JsonNode metadataNode) {
-        try {
-            String messageId = messageNode.get(Message.ID).asText();
-            String messageType = messageNode.get(Message.TYPE).asText();
-            
-            // Check if we've already processed this message
-            if (messageRepository.findByWhatsappMessageId(messageId).isPresent()) {
-                log.info("Skipping already processed message: {}", messageId);
-                return;
-            }
-            
-            // Extract customer information
-            JsonNode contacts = metadataNode.get(Message.CONTACTS);
-            if (contacts == null || contacts.size() == 0) {
-                log.warn("No contact information in message: {}", messageId);
-                return;
-            }
-            
-            JsonNode contact = contacts.get(0);
-            String customerWaId = contact.get(Message.CONTACT_WAID).asText();
-            String customerPhone = contact.path(Message.CONTACT_WAID).asText();
-            String customerName = contact.path(Message.CONTACT_PROFILE).path(Message.CONTACT_NAME).asText(null);
-            
-            // Find or create conversation
-            Optional<Conversation> conversationOpt = conversationRepository.findByTenantIdAndCustomerWaId(
-                    tenantId, customerWaId);
-            
-            Conversation conversation;
-            if (conversationOpt.isPresent()) {
-                conversation = conversationOpt.get();
-                
-                // Update customer info if needed
-                if (customerName != null && (conversation.getCustomerName() == null || 
-                        !conversation.getCustomerName().equals(customerName))) {
-                    conversation.setCustomerName(customerName);
-                }
-            } else {
-                // Create new conversation
-                conversation = Conversation.builder()
-                        .tenantId(tenantId)
-                        .customerWaId(customerWaId)
-                        .customerPhone(customerPhone)
-                        .customerName(customerName)
-                        .status(Conversation.ConversationStatus.ACTIVE)
-                        .build();
-            }
-            
-            // Create message based on type
-            com.whatsapp.client.conversation.model.Message message = createMessageFromWebhook(conversation.getId(), messageNode, messageType);
-            
-            // Save message
-            message = messageRepository.save(message);
-            
-            // Update conversation
-            conversation.setLastMessageAt(message.getSentAt());
-            conversationRepository.save(conversation);
-            
-        } catch (Exception e) {
-            log.error("Error handling incoming message for tenant {}: {}", tenantId, e.getMessage(), e);
-        }
-    }
-    
     /**
      * Create a message object from webhook data
      * 
      * @param conversationId The conversation ID
-     * @param messageNode The message JSON node
-     * @param messageType The message type
-     * @return The created message
+     * @param webhookMessage The message of the webhook
+     * @return The created message, without sent time if the webhook has no timestamp
      */
-    private com.whatsapp.client.conversation.model.Message createMessageFromWebhook(UUID conversationId, JsonNode messageNode, String messageType) {
-        String messageId = messageNode.get(Message.ID).asText();
+    public com.whatsapp.client.conversation.model.Message createMessageFromWebhook(UUID conversationId, com.whatsapp.api.domain.webhook.Message webhookMessage) {
         com.whatsapp.client.conversation.model.Message.MessageBuilder builder = com.whatsapp.client.conversation.model.Message.builder()
                 .conversationId(conversationId)
-                .whatsappMessageId(messageId)
+                .whatsappMessageId(webhookMessage.id())
                 .direction(MessageDirection.INBOUND)
                 .status(MessageStatus.DELIVERED) // Incoming messages are delivered by definition
                 .statusUpdatedAt(OffsetDateTime.now());
         
+        // The time WhatsApp received the message: a redelivery gets the same sent time, and so the same partition
+        builder.sentAt(toSentAt(webhookMessage.timestamp()));
+        
+        // Types added by WhatsApp after the SDK are read as null
+        com.whatsapp.api.domain.messages.type.MessageType messageType = webhookMessage.type();
+        if (messageType == null) {
+            return builder.messageType(MessageType.UNKNOWN)
+                    .content("Unsupported message type")
+                    .build();
+        }
+        
         // Set the message type and content based on type
-        switch (messageType.toLowerCase()) {
-            case Message.TYPE_TEXT:
-                JsonNode text = messageNode.get(Message.TYPE_TEXT);
+        switch (messageType) {
+            case TEXT:
                 builder.messageType(MessageType.TEXT)
-                        .content(text.get(Message.TEXT_BODY).asText());
+                        .content(webhookMessage.text() != null ? webhookMessage.text().body() : null);
                 break;
                 
-            case Message.TYPE_IMAGE:
-                JsonNode image = messageNode.get(Message.TYPE_IMAGE);
-                builder.messageType(MessageType.IMAGE)
-                        .mediaId(image.path(Message.MEDIA_ID).asText(null))
-                        .mediaUrl(image.path(Message.MEDIA_LINK).asText(null))
-                        .mediaMimeType(image.path(Message.MEDIA_MIMETYPE).asText(null))
-                        .content(image.path(Message.MEDIA_CAPTION).asText(null));
+            case IMAGE:
+                Image image = webhookMessage.image();
+                builder.messageType(MessageType.IMAGE);
+                if (image != null) {
+                    builder.mediaId(image.id())
+                            .mediaMimeType(image.mimeType())
+                            .content(image.caption());
+                }
                 break;
                 
-            case Message.TYPE_AUDIO:
-                JsonNode audio = messageNode.get(Message.TYPE_AUDIO);
-                builder.messageType(MessageType.AUDIO)
-                        .mediaId(audio.path(Message.MEDIA_ID).asText(null))
-                        .mediaUrl(audio.path(Message.MEDIA_LINK).asText(null))
-                        .mediaMimeType(audio.path(Message.MEDIA_MIMETYPE).asText(null));
+            case AUDIO:
+                Audio audio = webhookMessage.audio();
+                builder.messageType(MessageType.AUDIO);
+                if (audio != null) {
+                    builder.mediaId(audio.id())
+                            .mediaMimeType(audio.mimeType());
+                }
                 break;
                 
-            case Message.TYPE_VIDEO:
-                JsonNode video = messageNode.get(Message.TYPE_VIDEO);
-                builder.messageType(MessageType.VIDEO)
-                        .mediaId(video.path(Message.MEDIA_ID).asText(null))
-                        .mediaUrl(video.path(Message.MEDIA_LINK).asText(null))
-                        .mediaMimeType(video.path(Message.MEDIA_MIMETYPE).asText(null))
-                        .content(video.path(Message.MEDIA_CAPTION).asText(null));
+            case VIDEO:
+                Video video = webhookMessage.video();
+                builder.messageType(MessageType.VIDEO);
+                if (video != null) {
+                    builder.mediaId(video.id())
+                            .mediaMimeType(video.mimeType())
+                            .content(video.caption());
+                }
                 break;
                 
-            case Message.TYPE_DOCUMENT:
-                JsonNode document = messageNode.get(Message.TYPE_DOCUMENT);
-                builder.messageType(MessageType.DOCUMENT)
-                        .mediaId(document.path(Message.MEDIA_ID).asText(null))
-                        .mediaUrl(document.path(Message.MEDIA_LINK).asText(null))
-                        .mediaMimeType(document.path(Message.MEDIA_MIMETYPE).asText(null))
-                        .mediaFilename(document.path(Message.MEDIA_FILENAME).asText(null))
-                        .content(document.path(Message.MEDIA_CAPTION).asText(null));
+            case DOCUMENT:
+                Document document = webhookMessage.document();
+                builder.messageType(MessageType.DOCUMENT);
+                if (document != null) {
+                    builder.mediaId(document.id())
+                            .mediaMimeType(document.mimeType())
+                            .mediaFilename(document.filename())
+                            .content(document.caption());
+                }
                 break;
                 
-            case Message.TYPE_LOCATION:
-                JsonNode location = messageNode.get(Message.TYPE_LOCATION);
-                String locationContent = String.format(
+            case LOCATION:
+                Location location = webhookMessage.location();
+                String locationContent = location == null ? null : String.format(
                         "Latitude: %s, Longitude: %s, Name: %s, Address: %s",
-                        location.path(Message.LOCATION_LATITUDE).asText("N/A"),
-                        location.path(Message.LOCATION_LONGITUDE).asText("N/A"),
-                        location.path(Message.LOCATION_NAME).asText("N/A"),
-                        location.path(Message.LOCATION_ADDRESS).asText("N/A")
+                        location.latitude(),
+                        location.longitude(),
+                        location.name() != null ? location.name() : "N/A",
+                        location.address() != null ? location.address() : "N/A"
                 );
                 builder.messageType(MessageType.LOCATION)
                         .content(locationContent);
                 break;
                 
-            case Message.TYPE_BUTTON:
-                JsonNode button = messageNode.get(Message.TYPE_BUTTON);
+            case BUTTON:
+                Button button = webhookMessage.button();
                 builder.messageType(MessageType.BUTTON)
-                        .content(button.path(Message.TEXT_BODY).asText("Button clicked"));
+                        .content(button != null && button.text() != null ? button.text() : "Button clicked");
                 break;
                 
-            case Message.TYPE_INTERACTIVE:
-                JsonNode interactive = messageNode.get(Message.TYPE_INTERACTIVE);
-                String interactiveType = interactive.path(Message.INTERACTIVE_TYPE).asText();
+            case INTERACTIVE:
+                Interactive interactive = webhookMessage.interactive();
+                String interactiveType = interactive != null ? interactive.type() : null;
                 String interactiveContent;
                 
                 if (Message.INTERACTIVE_BUTTON_REPLY.equals(interactiveType)) {
-                    interactiveContent = interactive.path(Message.INTERACTIVE_BUTTON_REPLY).path(Message.INTERACTIVE_TITLE).asText("Button reply");
+                    interactiveContent = interactive.buttonReply() != null && interactive.buttonReply().title() != null
+                            ? interactive.buttonReply().title() : "Button reply";
                 } else if (Message.INTERACTIVE_LIST_REPLY.equals(interactiveType)) {
-                    interactiveContent = interactive.path(Message.INTERACTIVE_LIST_REPLY).path(Message.INTERACTIVE_TITLE).asText("List reply");
+                    interactiveContent = interactive.listReply() != null && interactive.listReply().title() != null
+                            ? interactive.listReply().title() : "List reply";
                 } else {
                     interactiveContent = "Interactive message: " + interactiveType;
                 }
@@ -334,13 +418,26 @@ public class ConversationService {
                 
             default:
                 builder.messageType(MessageType.UNKNOWN)
-                        .content("Unsupported message type: " + messageType);
+                        .content("Unsupported message type: " + messageType.getValue());
                 break;
         }
         
         return builder.build();
     }
     
+    /**
+     * The sent time of a webhook message, from its timestamp in epoch seconds
+     * 
+     * @param timestamp The timestamp of the message
+     * @return The sent time, null if the message has no valid timestamp
+     */
+    private static OffsetDateTime toSentAt(String timestamp) {
+        if (timestamp == null || !timestamp.matches("\\d+")) {
+            return null;
+        }
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(Long.parseLong(timestamp)), ZoneOffset.UTC);
+    }
+    
     /**
      * Update a message status based on a webhook event
      * 
@@ -350,15 +447,6 @@ public class ConversationService {
     @Transactional
     public void updateMessageStatus(String messageId, String status) {
         try {
-            Optional<com.whatsapp.client.conversation.model.Message> messageOpt = messageRepository.findByWhatsappMessageId(messageId);
-            
-            if (messageOpt.isEmpty()) {
-                log.warn("Received status update for unknown message: {}", messageId);
-                return;
-            }
-            
-            com.whatsapp.client.conversation.model.Message message = messageOpt.get();
-            
             // Map WhatsApp status to our status enum
             MessageStatus newStatus;
             switch (status.toLowerCase()) {
@@ -379,10 +467,19 @@ public class ConversationService {
                     return;
             }
             
-            // Update the message status
-            if (message.updateStatus(newStatus, OffsetDateTime.now())) {
-                messageRepository.save(message);
+            // Update the message status in place, only if the new status is more advanced
+            MessageStatusAggregator update = new MessageStatusAggregator();
+            update.add(StatusUpdateRecord.builder()
+                    .whatsappMessageId(messageId)
+                    .status(newStatus)
+                    .timestamp(OffsetDateTime.now())
+                    .build());
+            List<StatusChange> changes = update.isEmpty() ? List.of() : webhookBatchRepository.updateMessageStatuses(update.getStates());
+            if (!changes.isEmpty()) {
                 log.info("Updated message {} status to {}", messageId, newStatus);
+                changes.forEach(change -> eventBroker.publishAfterCommit(ConversationEvent.status(change)));
+            } else {
+                log.debug("Status {} not applied to message {}: unknown message or status not more advanced", newStatus, messageId);
             }
             
         } catch (Exception e) {
@@ -408,6 +505,7 @@ public class ConversationService {
      * @param text The message text
      * @param response The WhatsApp API response
      */
+    @Async
     @Transactional
     public void trackOutboundMessage(UUID tenantId, String recipientPhone, String text, MessageResponse response) {
         try {
@@ -429,7 +527,8 @@ public class ConversationService {
                     .build();
             
             // Save the message
-            messageRepository.save(dbMessage);
+            dbMessage = messageRepository.save(dbMessage);
+            eventBroker.publishAfterCommit(ConversationEvent.message(tenantId, dbMessage));
             
             // Update the conversation
             conversation.setLastMessageAt(OffsetDateTime.now());
@@ -440,6 +539,47 @@ public class ConversationService {
         }
     }
     
+    /**
+     * Track an outbound message sent by a bulk send.
+     * Runs on the task executor rather than on the HTTP thread completing the send.
+     * 
+     * @param tenantId The tenant ID
+     * @param recipientPhone The recipient phone number
+     * @param messageType The message type
+     * @param content The message content or a description of it
+     * @param whatsappMessageId The WhatsApp message ID
+     */
+    @Async
+    @Transactional
+    public void trackOutboundBulkMessage(UUID tenantId, String recipientPhone, MessageType messageType, String content, String whatsappMessageId) {
+        try {
+            // Find or create conversation
+            Conversation conversation = findOrCreateConversation(tenantId, recipientPhone);
+            
+            // Create a message record
+            com.whatsapp.client.conversation.model.Message dbMessage = com.whatsapp.client.conversation.model.Message.builder()
+                    .conversationId(conversation.getId())
+                    .whatsappMessageId(whatsappMessageId)
+                    .direction(MessageDirection.OUTBOUND)
+                    .messageType(messageType)
+                    .content(content)
+                    .status(MessageStatus.SENT)
+                    .statusUpdatedAt(OffsetDateTime.now())
+                    .build();
+            
+            // Save the message
+            dbMessage = messageRepository.save(dbMessage);
+            eventBroker.publishAfterCommit(ConversationEvent.message(tenantId, dbMessage));
+            
+            // Update the conversation
+            conversation.setLastMessageAt(OffsetDateTime.now());
+            conversationRepository.save(conversation);
+            
+        } catch (Exception e) {
+            log.error("Error tracking outbound bulk message for tenant {}: {}", tenantId, e.getMessage(), e);
+        }
+    }
+    
     /**
      * Track an outbound template message
      * 
@@ -448,6 +588,7 @@ public class ConversationService {
      * @param templateInfo Information about the template
      * @param response The WhatsApp API response
      */
+    @Async
     @Transactional
     public void trackOutboundTemplateMessage(UUID tenantId, String recipientPhone, String templateInfo, MessageResponse response) {
         try {
@@ -469,7 +610,8 @@ public class ConversationService {
                     .build();
             
             // Save the message
-            messageRepository.save(dbMessage);
+            dbMessage = messageRepository.save(dbMessage);
+            eventBroker.publishAfterCommit(ConversationEvent.message(tenantId, dbMessage));
             
             // Update the conversation
             conversation.setLastMessageAt(OffsetDateTime.now());
@@ -488,6 +630,7 @@ public class ConversationService {
      * @param mediaInfo Information about the media
      * @param response The WhatsApp API response
      */
+    @Async
     @Transactional
     public void trackOutboundMediaMessage(UUID tenantId, String recipientPhone, String mediaInfo, MessageResponse response) {
         try {
@@ -509,7 +652,8 @@ public class ConversationService {
                     .build();
             
             // Save the message
-            messageRepository.save(dbMessage);
+            dbMessage = messageRepository.save(dbMessage);
+            eventBroker.publishAfterCommit(ConversationEvent.message(tenantId, dbMessage));
             
             // Update the conversation
             conversation.setLastMessageAt(OffsetDateTime.now());
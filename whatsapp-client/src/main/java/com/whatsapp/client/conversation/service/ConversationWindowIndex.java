@@ -0,0 +1,392 @@
+package com.whatsapp.client.conversation.service;
+
+import com.whatsapp.api.domain.webhook.Conversation;
+import com.whatsapp.api.domain.webhook.Pricing;
+import com.whatsapp.api.domain.webhook.Status;
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.conversation.dto.ConversationWindowSummary;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of the open 24-hour customer service windows and of the billable conversations of each tenant, by customer,
+ * so that the send path knows whether a free-form message can be sent without a Graph call or a database query.
+ * <p>
+ * A customer service window opens, or is extended, by each message of the customer: the inbound messages of the
+ * webhooks update it. The conversation and pricing of the status webhooks update the conversation of the customer:
+ * its ID, category, expiry and whether it is billable. Expired entries are swept at an interval.
+ * <p>
+ * The windows are rebuilt from the inbound messages of the last window when the application starts; until then
+ * a customer without an open window is not known to have none.
+ */
+@Service
+@Slf4j
+public class ConversationWindowIndex {
+
+    /**
+     * Length of a conversation whose status carries no expiry
+     */
+    private static final Duration CONVERSATION_LENGTH = Duration.ofHours(24);
+
+    private static final int REBUILD_FETCH_SIZE = 10000;
+
+    /**
+     * What the index knows of the customer service window of a customer
+     */
+    public enum WindowState {
+        /** The customer wrote within the window: free-form messages can be sent */
+        OPEN,
+        /** The customer did not write within the window: only template messages can be sent */
+        CLOSED,
+        /** The index is not rebuilt yet and has no open window for the customer */
+        UNKNOWN
+    }
+
+    /**
+     * The customer service window and the last conversation of a customer
+     *
+     * @param serviceWindowExpiresAt When the customer service window closes, null if unknown
+     * @param conversationId The ID of the conversation of the last status, null if none
+     * @param category The category of the conversation, e.g. service or marketing
+     * @param conversationExpiresAt When the conversation expires, null if none
+     * @param billable Whether the conversation is billable
+     * @param pricingModel The pricing model of the conversation
+     */
+    public record CustomerWindow(
+            Instant serviceWindowExpiresAt,
+            String conversationId,
+            String category,
+            Instant conversationExpiresAt,
+            boolean billable,
+            String pricingModel) {
+
+        private boolean isServiceWindowOpen(Instant now) {
+            return serviceWindowExpiresAt != null && serviceWindowExpiresAt.isAfter(now);
+        }
+
+        private boolean isConversationOpen(Instant now) {
+            return conversationExpiresAt != null && conversationExpiresAt.isAfter(now);
+        }
+    }
+
+    private final WhatsAppProperties.ConversationWindow settings;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Windows by tenant ID, then by customer WhatsApp ID
+     */
+    private final Map<UUID, Map<String, CustomerWindow>> windows = new ConcurrentHashMap<>();
+
+    private final AtomicLong open = new AtomicLong();
+    private final AtomicLong closed = new AtomicLong();
+
+    private ScheduledExecutorService sweeper;
+    private volatile boolean ready;
+
+    @Autowired
+    public ConversationWindowIndex(
+            WhatsAppProperties whatsAppProperties,
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager) {
+        this.settings = whatsAppProperties.getConversationWindow();
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(REBUILD_FETCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Rebuild the windows in the background, so that startup does not wait for it, and start sweeping them
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread rebuilder = new Thread(this::load, "conversation-window-rebuild");
+        rebuilder.setDaemon(true);
+        rebuilder.start();
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "conversation-window-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = settings.getSweepInterval().toMillis();
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Record a message of a customer, which opens or extends its customer service window
+     *
+     * @param tenantId The tenant ID
+     * @param customerWaId The WhatsApp ID of the customer
+     * @param sentAt When the customer sent the message
+     */
+    public void recordInbound(UUID tenantId, String customerWaId, Instant sentAt) {
+        String key = normalize(customerWaId);
+        if (tenantId == null || key == null || sentAt == null) {
+            return;
+        }
+        Instant expiresAt = sentAt.plus(settings.getServiceWindow());
+        tenantWindows(tenantId).compute(key, (waId, window) -> {
+            if (window == null) {
+                return new CustomerWindow(expiresAt, null, null, null, false, null);
+            }
+            if (window.serviceWindowExpiresAt() != null && !window.serviceWindowExpiresAt().isBefore(expiresAt)) {
+                return window;
+            }
+            return new CustomerWindow(expiresAt, window.conversationId(), window.category(),
+                    window.conversationExpiresAt(), window.billable(), window.pricingModel());
+        });
+    }
+
+    /**
+     * Record the conversation and pricing of a status of a message sent to a customer
+     *
+     * @param tenantId The tenant ID
+     * @param status The status of the webhook
+     * @param at When the status occurred
+     */
+    public void recordStatus(UUID tenantId, Status status, Instant at) {
+        String key = normalize(status.recipientId());
+        Conversation conversation = status.conversation();
+        if (tenantId == null || key == null || conversation == null || conversation.id() == null) {
+            return;
+        }
+        Pricing pricing = status.pricing();
+        // The expiry is only sent with the first status of a conversation
+        Instant expiresAt = toInstant(conversation.expirationTimestamp());
+        String category = pricing != null && pricing.category() != null ? pricing.category()
+                : conversation.origin() != null ? conversation.origin().type() : null;
+
+        tenantWindows(tenantId).compute(key, (waId, window) -> {
+            if (window != null && conversation.id().equals(window.conversationId())) {
+                return new CustomerWindow(window.serviceWindowExpiresAt(), window.conversationId(),
+                        category != null ? category : window.category(),
+                        expiresAt != null ? expiresAt : window.conversationExpiresAt(),
+                        pricing != null ? pricing.billable() : window.billable(),
+                        pricing != null ? pricing.pricingModel() : window.pricingModel());
+            }
+            Instant conversationExpiresAt = expiresAt != null ? expiresAt : at.plus(CONVERSATION_LENGTH);
+            if (window != null && window.conversationExpiresAt() != null
+                    && window.conversationExpiresAt().isAfter(conversationExpiresAt)) {
+                // A late status of an earlier conversation
+                return window;
+            }
+            return new CustomerWindow(window != null ? window.serviceWindowExpiresAt() : null, conversation.id(),
+                    category, conversationExpiresAt,
+                    pricing != null && pricing.billable(),
+                    pricing != null ? pricing.pricingModel() : null);
+        });
+    }
+
+    /**
+     * Look the customer service window of a customer up
+     *
+     * @param tenantId The tenant ID
+     * @param customerPhone The phone number or WhatsApp ID of the customer
+     * @return Whether the window is open
+     */
+    public WindowState check(UUID tenantId, String customerPhone) {
+        CustomerWindow window = find(tenantId, customerPhone);
+        if (window != null && window.isServiceWindowOpen(Instant.now())) {
+            open.incrementAndGet();
+            return WindowState.OPEN;
+        }
+        if (!ready) {
+            return WindowState.UNKNOWN;
+        }
+        closed.incrementAndGet();
+        return WindowState.CLOSED;
+    }
+
+    /**
+     * Whether a free-form message can be sent to a customer: its window is not known to be closed,
+     * or the windows are not enforced. When they are not, a closed window is only logged at debug level: the index
+     * only knows the webhooks of this instance, and the WhatsApp ID of a customer may differ from the phone number
+     * sent to.
+     *
+     * @param tenantId The tenant ID
+     * @param customerPhone The phone number or WhatsApp ID of the customer
+     * @return false if only a template message can be sent
+     */
+    public boolean canSendFreeForm(UUID tenantId, String customerPhone) {
+        if (check(tenantId, customerPhone) != WindowState.CLOSED) {
+            return true;
+        }
+        if (!settings.isEnforce()) {
+            log.debug("Customer service window with {} of tenant {} looks closed, sending anyway", customerPhone, tenantId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether free-form messages are refused to customers whose window is closed
+     */
+    public boolean isEnforced() {
+        return settings.isEnforce();
+    }
+
+    /**
+     * Get the window and the conversation of a customer
+     *
+     * @param tenantId The tenant ID
+     * @param customerPhone The phone number or WhatsApp ID of the customer
+     * @return The window, null if the customer has neither an open window nor a conversation
+     */
+    public CustomerWindow find(UUID tenantId, String customerPhone) {
+        String key = normalize(customerPhone);
+        Map<String, CustomerWindow> tenantWindows = windows.get(tenantId);
+        return tenantWindows == null || key == null ? null : tenantWindows.get(key);
+    }
+
+    /**
+     * Count the open windows and conversations of a tenant
+     *
+     * @param tenantId The tenant ID
+     * @return The counts
+     */
+    public ConversationWindowSummary summarize(UUID tenantId) {
+        Instant now = Instant.now();
+        long openWindows = 0;
+        long openConversations = 0;
+        long billableConversations = 0;
+        Map<String, Long> byCategory = new TreeMap<>();
+        for (CustomerWindow window : windows.getOrDefault(tenantId, Map.of()).values()) {
+            if (window.isServiceWindowOpen(now)) {
+                openWindows++;
+            }
+            if (window.isConversationOpen(now)) {
+                openConversations++;
+                if (window.billable()) {
+                    billableConversations++;
+                }
+                byCategory.merge(window.category() != null ? window.category() : "unknown", 1L, Long::sum);
+            }
+        }
+        return ConversationWindowSummary.builder()
+                .tenantId(tenantId)
+                .openServiceWindows(openWindows)
+                .openConversations(openConversations)
+                .billableConversations(billableConversations)
+                .conversationsByCategory(byCategory)
+                .complete(ready)
+                .build();
+    }
+
+    /**
+     * Number of lookups answered as open since startup
+     */
+    public long getOpenCount() {
+        return open.get();
+    }
+
+    /**
+     * Number of lookups answered as closed since startup
+     */
+    public long getClosedCount() {
+        return closed.get();
+    }
+
+    /**
+     * Whether the windows have been rebuilt
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    private Map<String, CustomerWindow> tenantWindows(UUID tenantId) {
+        return windows.computeIfAbsent(tenantId, id -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Remove the customers whose window and conversation are both expired
+     */
+    private void sweep() {
+        try {
+            Instant now = Instant.now();
+            long removed = 0;
+            for (Map<String, CustomerWindow> tenantWindows : windows.values()) {
+                int before = tenantWindows.size();
+                tenantWindows.values().removeIf(window -> !window.isServiceWindowOpen(now) && !window.isConversationOpen(now));
+                removed += before - tenantWindows.size();
+            }
+            log.debug("Swept {} expired conversation windows", removed);
+        } catch (Exception e) {
+            log.error("Error sweeping conversation windows: {}", e.getMessage(), e);
+        }
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        Timestamp since = Timestamp.from(Instant.now().minus(settings.getServiceWindow()));
+        try {
+            AtomicLong loaded = new AtomicLong();
+            // In a transaction, so that PostgreSQL streams the rows by fetch size
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(
+                    "SELECT c.tenant_id, c.customer_wa_id, MAX(m.sent_at) FROM whatsapp_integration.messages m "
+                            + "JOIN whatsapp_integration.conversations c ON c.id = m.conversation_id "
+                            + "WHERE m.direction = 'INBOUND' AND m.sent_at >= ? "
+                            + "GROUP BY c.tenant_id, c.customer_wa_id",
+                    rs -> {
+                        recordInbound(rs.getObject(1, UUID.class), rs.getString(2), rs.getTimestamp(3).toInstant());
+                        loaded.incrementAndGet();
+                    },
+                    since));
+            ready = true;
+            log.info("Conversation window index rebuilt with {} customers since {} in {} ms",
+                    loaded.get(), since, (System.nanoTime() - started) / 1_000_000);
+        } catch (Exception e) {
+            // Windows are then only known from the webhooks received, and never known to be closed
+            log.error("Error rebuilding conversation window index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The WhatsApp ID of a phone number: its digits
+     */
+    private static String normalize(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String digits = phone.replaceAll("\\D", "");
+        return digits.isEmpty() ? null : digits;
+    }
+
+    /**
+     * Convert a webhook timestamp (epoch seconds), null if absent
+     */
+    private static Instant toInstant(String timestamp) {
+        if (timestamp == null || !timestamp.matches("\\d+")) {
+            return null;
+        }
+        return Instant.ofEpochSecond(Long.parseLong(timestamp));
+    }
+}
@@ -0,0 +1,56 @@
+package com.whatsapp.client.conversation.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of a keyset paginated listing: the sort time and ID of the last row returned.
+ * Encoded as an opaque URL-safe string for clients to pass back.
+ *
+ * @param timestamp Sort time of the last row, null for the rows without one, which are listed last
+ * @param id        ID of the last row
+ */
+public record KeysetCursor(OffsetDateTime timestamp, UUID id) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Encode the cursor for a client
+     *
+     * @return The opaque cursor
+     */
+    public String encode() {
+        String key = (timestamp != null ? timestamp.toInstant().toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor from a client
+     *
+     * @param cursor The opaque cursor, may be null or blank for the first page
+     * @return The cursor, or null for the first page
+     * @throws IllegalArgumentException if the cursor is not one returned by {@link #encode()}
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            OffsetDateTime timestamp = separator == 0 ? null
+                    : OffsetDateTime.ofInstant(Instant.parse(key.substring(0, separator)), ZoneOffset.UTC);
+            return new KeysetCursor(timestamp, UUID.fromString(key.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
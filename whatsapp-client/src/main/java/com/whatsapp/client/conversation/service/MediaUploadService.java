@@ -0,0 +1,159 @@
+package com.whatsapp.client.conversation.service;
+
+import com.whatsapp.api.cache.MediaUploadCache;
+import com.whatsapp.api.cache.MediaUploadStore;
+import com.whatsapp.api.domain.media.FileType;
+import com.whatsapp.api.domain.media.UploadResponse;
+import com.whatsapp.api.impl.WhatsappBusinessCloudApi;
+import com.whatsapp.client.api.factory.WhatsAppClientFactory;
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.tenant.model.WhatsAppTenant;
+import com.whatsapp.client.tenant.service.WhatsAppTenantService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for uploading media of a tenant.
+ * The same content is uploaded once per business phone number and its media id reused until it expires.
+ * Each tenant has one upload cache, so that concurrent uploads of the same content share one Graph API call; it is
+ * replaced with the API client of the tenant when its token is renewed. The expired uploads are deleted from the
+ * store at the cleanup interval.
+ */
+@Service
+@Slf4j
+public class MediaUploadService {
+
+    private final WhatsAppTenantService tenantService;
+    private final WhatsAppClientFactory clientFactory;
+    private final MediaUploadStore mediaUploadStore;
+    private final WhatsAppProperties whatsAppProperties;
+
+    /**
+     * The upload cache of each tenant, with the API client it uploads with
+     */
+    private final Map<UUID, TenantUploads> caches = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService cleaner;
+
+    @Autowired
+    public MediaUploadService(
+            WhatsAppTenantService tenantService,
+            WhatsAppClientFactory clientFactory,
+            MediaUploadStore mediaUploadStore,
+            WhatsAppProperties whatsAppProperties) {
+        this.tenantService = tenantService;
+        this.clientFactory = clientFactory;
+        this.mediaUploadStore = mediaUploadStore;
+        this.whatsAppProperties = whatsAppProperties;
+    }
+
+    /**
+     * Delete the expired uploads now and then at the cleanup interval
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "media-upload-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = whatsAppProperties.getMedia().getCleanupInterval().toMillis();
+        cleaner.scheduleWithFixedDelay(this::removeExpired, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+    }
+
+    /**
+     * Upload a media for a tenant, or return the media id of a previous upload of the same content
+     *
+     * @param tenantId The tenant ID
+     * @param fileName The file name
+     * @param contentType The MIME type of the file
+     * @param content The file content
+     * @return The upload response with the media ID
+     */
+    public UploadResponse uploadMedia(UUID tenantId, String fileName, String contentType, byte[] content) {
+        WhatsAppTenant tenant = tenantService.getTenant(tenantId);
+        if (tenant.getBusinessPhoneNumberId() == null) {
+            throw new IllegalStateException("Phone number ID not found for tenant: " + tenantId);
+        }
+        FileType fileType = getFileType(contentType);
+
+        MediaUploadCache cache = getCache(tenantId);
+        long uploadsBefore = cache.getUploadCount();
+        UploadResponse response = cache.uploadMedia(tenant.getBusinessPhoneNumberId(), fileName, fileType, content);
+        log.info("Media {} for tenant {} {} as {}", fileName, tenantId,
+                cache.getUploadCount() > uploadsBefore ? "uploaded" : "already uploaded", response.id());
+        return response;
+    }
+
+    /**
+     * Get the upload cache of a tenant. The client of a tenant changes when its token is renewed: the cache is then
+     * replaced, the uploads being kept by the shared store.
+     */
+    private MediaUploadCache getCache(UUID tenantId) {
+        WhatsappBusinessCloudApi client = clientFactory.getClientForTenant(tenantId);
+        TenantUploads uploads = caches.get(tenantId);
+        if (uploads == null || uploads.client() != client) {
+            uploads = caches.compute(tenantId, (id, current) -> current != null && current.client() == client
+                    ? current
+                    : new TenantUploads(client, new MediaUploadCache(
+                            client,
+                            mediaUploadStore,
+                            whatsAppProperties.getMedia().getUploadLifetime(),
+                            Clock.systemUTC())));
+        }
+        return uploads.cache();
+    }
+
+    private void removeExpired() {
+        try {
+            int removed = mediaUploadStore.removeExpired(Instant.now());
+            if (removed > 0) {
+                log.info("Removed {} expired media uploads", removed);
+            }
+        } catch (Exception e) {
+            // Retried at the next interval
+            log.error("Error removing expired media uploads: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the file type of a MIME type
+     *
+     * @param contentType The MIME type
+     * @return The file type
+     * @throws IllegalArgumentException if WhatsApp does not support the MIME type
+     */
+    private FileType getFileType(String contentType) {
+        return Arrays.stream(FileType.values())
+                .filter(fileType -> fileType.getType().equalsIgnoreCase(contentType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported media type: " + contentType));
+    }
+
+    /**
+     * The upload cache of a tenant and the API client it uploads with
+     */
+    private record TenantUploads(WhatsappBusinessCloudApi client, MediaUploadCache cache) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.whatsapp.client.conversation.service;
+
+import com.whatsapp.client.config.WhatsAppProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of the WhatsApp IDs of recently stored inbound messages, to drop redelivered webhooks without writing them.
+ * <p>
+ * The most recent IDs are kept in a bounded LRU map: an ID found there is known to be stored. Any other ID is written,
+ * and the unique constraint on the WhatsApp message ID and sent time absorbs a redelivery the map no longer holds.
+ */
+@Service
+public class MessageIdIndex {
+
+    private final Map<String, Boolean> recent;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public MessageIdIndex(WhatsAppProperties whatsAppProperties) {
+        int recentCapacity = whatsAppProperties.getMessageIndex().getRecentCapacity();
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > recentCapacity;
+            }
+        };
+    }
+
+    /**
+     * Whether a message ID is known to be stored
+     *
+     * @param whatsappMessageId The WhatsApp message ID
+     * @return false if the message may be new
+     */
+    public boolean isStored(String whatsappMessageId) {
+        boolean stored;
+        synchronized (recent) {
+            stored = recent.containsKey(whatsappMessageId);
+        }
+        (stored ? hits : misses).incrementAndGet();
+        return stored;
+    }
+
+    /**
+     * Record a stored message ID. Within a transaction the ID is recorded after the commit, so that a rolled back
+     * message is not taken for stored when it is delivered again.
+     *
+     * @param whatsappMessageId The WhatsApp message ID
+     */
+    public void add(String whatsappMessageId) {
+        if (whatsappMessageId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(whatsappMessageId);
+                }
+            });
+        } else {
+            record(whatsappMessageId);
+        }
+    }
+
+    /**
+     * Number of lookups answered as stored since startup
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Number of lookups of IDs not known to be stored since startup
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private void record(String whatsappMessageId) {
+        synchronized (recent) {
+            recent.put(whatsappMessageId, Boolean.TRUE);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.whatsapp.client.partition.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly partitions of the partitioned tables of the whatsapp_integration schema, created by its
+ * create_monthly_partition function.
+ * Partitions are named after their table and month, e.g. messages_2025_01; the default partition of a table is
+ * not a monthly partition.
+ */
+@Repository
+public class PartitionRepository {
+
+    /**
+     * Key of the advisory lock held while partitions are maintained, so that only one instance does it at a time
+     */
+    private static final long MAINTENANCE_LOCK_KEY = 0x77615F7061727473L;
+
+    private static final String SCHEMA = "whatsapp_integration";
+
+    private static final String ARCHIVE_SCHEMA = "whatsapp_integration_archive";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Take the maintenance lock until the end of the current transaction, without waiting
+     *
+     * @return false if another transaction holds the lock
+     */
+    public boolean tryLockMaintenance() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK_KEY));
+    }
+
+    /**
+     * Create the partition of a table for a month, if missing
+     *
+     * @param table The partitioned table, in the whatsapp_integration schema
+     * @param month Any day of the month
+     * @return Name of the partition
+     */
+    public String createMonthlyPartition(String table, LocalDate month) {
+        return jdbcTemplate.queryForObject(
+                "SELECT whatsapp_integration.create_monthly_partition(CAST(? AS regclass), ?)",
+                String.class, qualifiedName(table), Date.valueOf(month));
+    }
+
+    /**
+     * Find the monthly partitions of a table
+     *
+     * @param table The partitioned table, in the whatsapp_integration schema
+     * @return The partitions, oldest first
+     */
+    public List<Partition> findMonthlyPartitions(String table) {
+        Pattern monthly = Pattern.compile(Pattern.quote(table) + "_(\\d{4})_(\\d{2})");
+        List<Partition> partitions = new ArrayList<>();
+        jdbcTemplate.query(
+                "SELECT n.nspname, c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "WHERE i.inhparent = CAST(? AS regclass)",
+                rs -> {
+                    Matcher matcher = monthly.matcher(rs.getString("relname"));
+                    if (matcher.matches()) {
+                        partitions.add(new Partition(
+                                rs.getString("nspname"),
+                                rs.getString("relname"),
+                                LocalDate.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)), 1)));
+                    }
+                },
+                qualifiedName(table));
+        partitions.sort(Comparator.comparing(Partition::month));
+        return partitions;
+    }
+
+    /**
+     * Detach a partition from its table and move it to the archive schema.
+     * Its rows are no longer read nor maintained with the table.
+     *
+     * @param table The partitioned table
+     * @param partition The partition
+     */
+    public void archivePartition(String table, Partition partition) {
+        detachPartition(table, partition);
+        jdbcTemplate.execute("ALTER TABLE " + partition.qualifiedName() + " SET SCHEMA " + identifier(ARCHIVE_SCHEMA));
+    }
+
+    /**
+     * Detach a partition from its table and drop it
+     *
+     * @param table The partitioned table
+     * @param partition The partition
+     */
+    public void dropPartition(String table, Partition partition) {
+        detachPartition(table, partition);
+        jdbcTemplate.execute("DROP TABLE " + partition.qualifiedName());
+    }
+
+    private void detachPartition(String table, Partition partition) {
+        jdbcTemplate.execute("ALTER TABLE " + qualifiedName(table) + " DETACH PARTITION " + partition.qualifiedName());
+    }
+
+    private static String qualifiedName(String table) {
+        return identifier(SCHEMA) + "." + identifier(table);
+    }
+
+    private static String identifier(String name) {
+        return '"' + name.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * A monthly partition
+     *
+     * @param schema Schema of the partition
+     * @param name Name of the partition
+     * @param month First day of the month of the partition
+     */
+    public record Partition(String schema, String name, LocalDate month) {
+
+        private String qualifiedName() {
+            return identifier(schema) + "." + identifier(name);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.whatsapp.client.partition.service;
+
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.partition.repository.PartitionRepository;
+import com.whatsapp.client.partition.repository.PartitionRepository.Partition;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the monthly partitions of the messages and webhook events tables:
+ * creates the partitions of the coming months before rows reach them, and retires the partitions of the months
+ * past the retention, archiving or dropping a whole month at once instead of deleting its rows.
+ * <p>
+ * Rows are written to the default partition of their table when no monthly partition covers them, so a late run
+ * loses nothing; a month whose rows are in the default partition has to be moved by an operator.
+ */
+@Service
+@Slf4j
+public class PartitionMaintenanceService {
+
+    private static final String MESSAGES = "messages";
+    private static final String WEBHOOK_EVENTS = "webhook_events";
+
+    private final WhatsAppProperties.Partitions settings;
+    private final PartitionRepository partitionRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public PartitionMaintenanceService(
+            WhatsAppProperties whatsAppProperties,
+            PartitionRepository partitionRepository,
+            PlatformTransactionManager transactionManager) {
+        this.settings = whatsAppProperties.getPartitions();
+        this.partitionRepository = partitionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Maintain the partitions now and then at the check interval
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!settings.isEnabled()) {
+            log.info("Partition maintenance disabled");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(
+                this::maintain, 0, settings.getCheckInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Maintain the partitions of each table, unless another instance is doing it
+     */
+    public void maintain() {
+        LocalDate currentMonth = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        maintain(MESSAGES, settings.getMessagesRetentionMonths(), currentMonth);
+        maintain(WEBHOOK_EVENTS, settings.getWebhookEventsRetentionMonths(), currentMonth);
+    }
+
+    private void maintain(String table, int retentionMonths, LocalDate currentMonth) {
+        try {
+            // One transaction per table: the DDL of a table is applied entirely or not at all
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!partitionRepository.tryLockMaintenance()) {
+                    log.debug("Partitions of {} maintained by another instance", table);
+                    return;
+                }
+
+                for (int i = 0; i <= settings.getPremakeMonths(); i++) {
+                    partitionRepository.createMonthlyPartition(table, currentMonth.plusMonths(i));
+                }
+
+                if (retentionMonths <= 0) {
+                    return;
+                }
+                LocalDate oldestKept = currentMonth.minusMonths(retentionMonths);
+                for (Partition partition : partitionRepository.findMonthlyPartitions(table)) {
+                    if (!partition.month().isBefore(oldestKept)) {
+                        break;
+                    }
+                    switch (settings.getRetentionAction()) {
+                        case ARCHIVE -> partitionRepository.archivePartition(table, partition);
+                        case DROP -> partitionRepository.dropPartition(table, partition);
+                    }
+                    log.info("Partition {} of {} past the retention of {} months: {}",
+                            partition.name(), table, retentionMonths, settings.getRetentionAction());
+                }
+            });
+        } catch (Exception e) {
+            log.error("Error maintaining partitions of {}: {}", table, e.getMessage(), e);
+        }
+    }
+}
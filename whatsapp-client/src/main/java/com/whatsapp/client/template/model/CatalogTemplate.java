@@ -0,0 +1,40 @@
+package com.whatsapp.client.template.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A message template of a tenant, with the number of parameters its sends must carry
+ */
+@Value
+@Builder(toBuilder = true)
+public class CatalogTemplate {
+    
+    String templateId;
+    
+    String name;
+    
+    String language;
+    
+    String category;
+    
+    /**
+     * Review status, e.g. APPROVED, PENDING or REJECTED: only approved templates can be sent
+     */
+    String status;
+    
+    /**
+     * The components of the template as JSON, as returned by the Graph API
+     */
+    String components;
+    
+    /**
+     * Parameters of the header: one per variable of a text header, one for a media header
+     */
+    int headerParameters;
+    
+    /**
+     * Parameters of the body: one per variable
+     */
+    int bodyParameters;
+}
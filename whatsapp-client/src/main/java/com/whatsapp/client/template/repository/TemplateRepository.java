@@ -0,0 +1,104 @@
+package com.whatsapp.client.template.repository;
+
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.template.model.CatalogTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Storage of the message templates of the tenants, so that a restarted instance loads them without the Graph API
+ */
+@Repository
+public class TemplateRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+
+    public TemplateRepository(JdbcTemplate jdbcTemplate, WhatsAppProperties whatsAppProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = whatsAppProperties.getTemplates().getTable();
+    }
+
+    /**
+     * Find the templates of a tenant, without their parameter counts
+     *
+     * @param tenantId The tenant ID
+     * @return The templates
+     */
+    public List<CatalogTemplate> findByTenantId(UUID tenantId) {
+        return jdbcTemplate.query(
+                "SELECT template_id, template_name, language_code, category, status, components FROM " + table
+                        + " WHERE tenant_id = ?",
+                (rs, rowNum) -> CatalogTemplate.builder()
+                        .templateId(rs.getString(1))
+                        .name(rs.getString(2))
+                        .language(rs.getString(3))
+                        .category(rs.getString(4))
+                        .status(rs.getString(5))
+                        .components(rs.getString(6))
+                        .build(),
+                tenantId);
+    }
+
+    /**
+     * Insert or update templates, by name and language
+     *
+     * @param tenantId The tenant ID
+     * @param templates The templates
+     * @param updatedAt The update time to record
+     */
+    public void upsert(UUID tenantId, List<CatalogTemplate> templates, Instant updatedAt) {
+        Timestamp timestamp = Timestamp.from(updatedAt);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO " + table + " (tenant_id, template_name, template_id, language_code, category, status, "
+                        + "components, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, CAST(? AS jsonb), ?, ?) "
+                        + "ON CONFLICT (tenant_id, template_name, language_code) DO UPDATE SET "
+                        + "template_id = EXCLUDED.template_id, category = EXCLUDED.category, status = EXCLUDED.status, "
+                        + "components = EXCLUDED.components, updated_at = EXCLUDED.updated_at",
+                templates,
+                templates.size(),
+                (ps, template) -> {
+                    ps.setObject(1, tenantId);
+                    ps.setString(2, template.getName());
+                    ps.setString(3, template.getTemplateId());
+                    ps.setString(4, template.getLanguage());
+                    ps.setString(5, template.getCategory());
+                    ps.setString(6, template.getStatus());
+                    ps.setString(7, template.getComponents());
+                    ps.setTimestamp(8, timestamp);
+                    ps.setTimestamp(9, timestamp);
+                });
+    }
+
+    /**
+     * Delete the templates of a tenant not updated since a time, i.e. not found by a full synchronization
+     *
+     * @param tenantId The tenant ID
+     * @param before The time the synchronization started
+     * @return Number of templates deleted
+     */
+    public int deleteUpdatedBefore(UUID tenantId, Instant before) {
+        return jdbcTemplate.update("DELETE FROM " + table + " WHERE tenant_id = ? AND updated_at < ?",
+                tenantId, Timestamp.from(before));
+    }
+
+    /**
+     * Update the status of a template
+     *
+     * @param tenantId The tenant ID
+     * @param name The template name
+     * @param language The language code
+     * @param status The new status
+     * @return Number of templates updated
+     */
+    public int updateStatus(UUID tenantId, String name, String language, String status) {
+        return jdbcTemplate.update("UPDATE " + table + " SET status = ?, updated_at = now() "
+                        + "WHERE tenant_id = ? AND template_name = ? AND language_code = ?",
+                status, tenantId, name, language);
+    }
+}
@@ -0,0 +1,490 @@
+package com.whatsapp.client.template.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.whatsapp.api.domain.messages.Component;
+import com.whatsapp.api.domain.messages.TemplateMessage;
+import com.whatsapp.api.domain.messages.type.ComponentType;
+import com.whatsapp.api.domain.templates.response.MessageTemplates;
+import com.whatsapp.api.domain.templates.response.Template;
+import com.whatsapp.api.domain.webhook.type.EventType;
+import com.whatsapp.api.impl.WhatsappBusinessManagementApi;
+import com.whatsapp.client.api.factory.WhatsAppClientFactory;
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.template.model.CatalogTemplate;
+import com.whatsapp.client.template.repository.TemplateRepository;
+import com.whatsapp.client.tenant.model.WhatsAppTenant;
+import com.whatsapp.client.tenant.service.TenantDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Catalog of the message templates of each tenant, to validate template sends locally instead of having them
+ * rejected by the Graph API after a round trip.
+ * <p>
+ * The templates of a tenant are loaded in the background when first needed: from the templates table, or from the
+ * Graph API, page by page, when the table has none. A template status webhook fetches the templates of its name
+ * again, so that the catalog follows their reviews. A template not in the catalog is looked up by name before the
+ * send is refused, in case it was created since; a name the Graph API does not have is not looked up again for a
+ * while. The catalog is reloaded from the table at an interval, in the background, to pick up the webhooks received
+ * by other instances.
+ * <p>
+ * Sends are not refused while the catalog of their tenant is loading, nor once it failed to load: they are left for
+ * the Graph API to validate. A failed load is retried after an interval, not on every send.
+ */
+@Service
+@Slf4j
+public class TemplateCatalog {
+
+    private static final String APPROVED = "APPROVED";
+
+    /**
+     * A variable of a template text: {{1}} or {{name}}
+     */
+    private static final Pattern VARIABLE = Pattern.compile("\\{\\{\\s*([^{}]+?)\\s*}}");
+
+    private final WhatsAppProperties.Templates settings;
+    private final TemplateRepository templateRepository;
+    private final TenantDirectory tenantDirectory;
+    private final WhatsAppClientFactory clientFactory;
+    private final AsyncTaskExecutor taskExecutor;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The catalog of each tenant, or its loading, shared by whoever needs it meanwhile
+     */
+    private final Map<UUID, CompletableFuture<TenantTemplates>> catalogs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TemplateCatalog(
+            WhatsAppProperties whatsAppProperties,
+            TemplateRepository templateRepository,
+            TenantDirectory tenantDirectory,
+            WhatsAppClientFactory clientFactory,
+            @Qualifier("whatsAppTaskExecutor") AsyncTaskExecutor taskExecutor,
+            @Qualifier("whatsAppObjectMapper") ObjectMapper objectMapper) {
+        this.settings = whatsAppProperties.getTemplates();
+        this.templateRepository = templateRepository;
+        this.tenantDirectory = tenantDirectory;
+        this.clientFactory = clientFactory;
+        this.taskExecutor = taskExecutor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Validate a template message against the catalog of the tenant: the template exists in its language,
+     * is approved, and the header and body have as many parameters as the template has variables
+     *
+     * @param tenantId The tenant ID
+     * @param message The template message
+     * @throws IllegalArgumentException if the message would be rejected
+     */
+    public void validate(UUID tenantId, TemplateMessage message) {
+        if (!settings.isValidate()) {
+            return;
+        }
+        if (message == null || message.getName() == null) {
+            throw new IllegalArgumentException("Template name is required");
+        }
+        if (message.getLanguage() == null || message.getLanguage().code() == null) {
+            throw new IllegalArgumentException("Template language is required");
+        }
+        String name = message.getName();
+        String language = message.getLanguage().code().getValue();
+
+        TenantTemplates templates = catalog(tenantId).getNow(null);
+        if (templates == null || !templates.isAvailable()) {
+            // Left for the Graph API to validate until the catalog is loaded
+            log.debug("Templates of tenant {} not loaded, template {} not validated", tenantId, name);
+            return;
+        }
+
+        CatalogTemplate template;
+        try {
+            template = templates.get(name, language);
+            if (template == null && !templates.isUnknown(name, language, settings.getUnknownNameTtl().toNanos())) {
+                template = fetch(tenantId, templates, name).get(key(name, language));
+                if (template == null) {
+                    templates.unknown.put(key(name, language), System.nanoTime());
+                }
+            }
+        } catch (Exception e) {
+            // Left for the Graph API to validate
+            log.warn("Cannot validate template {} of tenant {}: {}", name, tenantId, e.getMessage());
+            return;
+        }
+
+        if (template == null) {
+            throw new IllegalArgumentException("Template not found: " + name + " (" + language + ")");
+        }
+        if (!APPROVED.equals(template.getStatus())) {
+            throw new IllegalArgumentException("Template " + name + " (" + language + ") is " + template.getStatus());
+        }
+        checkParameters(template, "header", template.getHeaderParameters(), countParameters(message, ComponentType.HEADER));
+        checkParameters(template, "body", template.getBodyParameters(), countParameters(message, ComponentType.BODY));
+    }
+
+    /**
+     * Get the templates of a tenant
+     *
+     * @param tenantId The tenant ID
+     * @return The templates
+     */
+    public Collection<CatalogTemplate> getTemplates(UUID tenantId) {
+        return loaded(tenantId).templates.values();
+    }
+
+    /**
+     * Synchronize the templates of a tenant with the Graph API, deleting those it no longer has
+     *
+     * @param tenantId The tenant ID
+     * @return The templates
+     */
+    public Collection<CatalogTemplate> synchronize(UUID tenantId) {
+        TenantTemplates templates = new TenantTemplates(synchronizeAll(tenantId));
+        catalogs.put(tenantId, CompletableFuture.completedFuture(templates));
+        return templates.templates.values();
+    }
+
+    /**
+     * Follow a template status webhook: fetch the templates of its name again, or only record the status
+     * if they cannot be fetched
+     *
+     * @param tenantId The tenant ID
+     * @param name The template name
+     * @param language The template language
+     * @param event The status event
+     */
+    @Async
+    public void onStatusUpdate(UUID tenantId, String name, String language, EventType event) {
+        if (name == null) {
+            return;
+        }
+        try {
+            TenantTemplates templates = loaded(tenantId);
+            fetch(tenantId, templates, name);
+            log.info("Refreshed template {} of tenant {} after {}", name, tenantId, event);
+        } catch (Exception e) {
+            log.error("Error refreshing template {} of tenant {}: {}", name, tenantId, e.getMessage(), e);
+            String status = toStatus(event);
+            if (status != null && language != null) {
+                templateRepository.updateStatus(tenantId, name, language, status);
+                CompletableFuture<TenantTemplates> loaded = catalogs.get(tenantId);
+                if (loaded != null && loaded.isDone()) {
+                    loaded.join().templates.computeIfPresent(key(name, language),
+                            (k, template) -> template.toBuilder().status(status).build());
+                }
+            }
+        }
+    }
+
+    /**
+     * Forget the templates of a tenant, e.g. when it disconnects
+     *
+     * @param tenantId The tenant ID
+     */
+    public void invalidate(UUID tenantId) {
+        catalogs.remove(tenantId);
+    }
+
+    /**
+     * Wait for the catalog of a tenant
+     *
+     * @throws IllegalStateException if it cannot be loaded
+     */
+    private TenantTemplates loaded(UUID tenantId) {
+        TenantTemplates templates = catalog(tenantId).join();
+        if (!templates.isAvailable()) {
+            throw new IllegalStateException("Templates of tenant " + tenantId + " cannot be loaded: " + templates.failure);
+        }
+        return templates;
+    }
+
+    /**
+     * Get the catalog of a tenant, or its loading. It is loaded once for every concurrent caller, again once the
+     * retry interval of a failed load is over, and reloaded in the background once stale.
+     */
+    private CompletableFuture<TenantTemplates> catalog(UUID tenantId) {
+        while (true) {
+            CompletableFuture<TenantTemplates> existing = catalogs.get(tenantId);
+            if (existing == null) {
+                CompletableFuture<TenantTemplates> loading = new CompletableFuture<>();
+                if (catalogs.putIfAbsent(tenantId, loading) == null) {
+                    return startLoading(tenantId, loading);
+                }
+                continue;
+            }
+
+            TenantTemplates templates = existing.getNow(null);
+            if (templates == null) {
+                return existing;
+            }
+            if (!templates.isAvailable()) {
+                if (templates.isStale(settings.getRetryInterval().toNanos())) {
+                    CompletableFuture<TenantTemplates> loading = new CompletableFuture<>();
+                    if (catalogs.replace(tenantId, existing, loading)) {
+                        return startLoading(tenantId, loading);
+                    }
+                    continue;
+                }
+                return existing;
+            }
+            if (templates.isStale(settings.getReloadInterval().toNanos()) && templates.reloading.compareAndSet(false, true)) {
+                taskExecutor.execute(() -> reload(tenantId, existing));
+            }
+            return existing;
+        }
+    }
+
+    private CompletableFuture<TenantTemplates> startLoading(UUID tenantId, CompletableFuture<TenantTemplates> loading) {
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    loading.complete(new TenantTemplates(load(tenantId)));
+                } catch (Exception e) {
+                    log.error("Error loading templates of tenant {}: {}", tenantId, e.getMessage(), e);
+                    // Kept until the retry interval is over, so that sends do not load it again each
+                    loading.complete(TenantTemplates.failed(e));
+                }
+            });
+        } catch (RuntimeException e) {
+            loading.complete(TenantTemplates.failed(e));
+        }
+        return loading;
+    }
+
+    private void reload(UUID tenantId, CompletableFuture<TenantTemplates> stale) {
+        try {
+            TenantTemplates templates = new TenantTemplates(withParameters(templateRepository.findByTenantId(tenantId)));
+            catalogs.replace(tenantId, stale, CompletableFuture.completedFuture(templates));
+        } catch (Exception e) {
+            log.error("Error reloading templates of tenant {}: {}", tenantId, e.getMessage(), e);
+            stale.join().reloading.set(false);
+        }
+    }
+
+    /**
+     * Load the templates of a tenant from the table, or from the Graph API if the table has none
+     */
+    private List<CatalogTemplate> load(UUID tenantId) {
+        List<CatalogTemplate> stored = templateRepository.findByTenantId(tenantId);
+        if (!stored.isEmpty()) {
+            log.debug("Loaded {} templates of tenant {}", stored.size(), tenantId);
+            return withParameters(stored);
+        }
+        return synchronizeAll(tenantId);
+    }
+
+    private List<CatalogTemplate> synchronizeAll(UUID tenantId) {
+        Instant started = Instant.now();
+        WhatsappBusinessManagementApi api = clientFactory.getManagementClientForTenant(tenantId);
+        String wabaId = getWabaId(tenantId);
+
+        List<CatalogTemplate> templates;
+        // The next page is fetched while the current one is converted
+        try (Stream<Template> pages = api.streamTemplates(wabaId, settings.getPageSize())) {
+            templates = pages.map(this::toCatalogTemplate).toList();
+        }
+
+        templateRepository.upsert(tenantId, templates, started);
+        int deleted = templateRepository.deleteUpdatedBefore(tenantId, started);
+        log.info("Synchronized {} templates of tenant {}, {} deleted", templates.size(), tenantId, deleted);
+        return templates;
+    }
+
+    /**
+     * Fetch the templates of a name, in every language, into the table and the catalog
+     *
+     * @return The templates by key
+     */
+    private Map<String, CatalogTemplate> fetch(UUID tenantId, TenantTemplates templates, String name) {
+        MessageTemplates found = clientFactory.getManagementClientForTenant(tenantId)
+                .retrieveTemplates(getWabaId(tenantId), name);
+        Map<String, CatalogTemplate> fetched = new ConcurrentHashMap<>();
+        if (found.data() != null) {
+            for (Template template : found.data()) {
+                // The name filter of the Graph API also matches longer names
+                if (name.equals(template.name())) {
+                    CatalogTemplate catalogTemplate = toCatalogTemplate(template);
+                    fetched.put(key(catalogTemplate.getName(), catalogTemplate.getLanguage()), catalogTemplate);
+                }
+            }
+        }
+        if (!fetched.isEmpty()) {
+            templateRepository.upsert(tenantId, new ArrayList<>(fetched.values()), Instant.now());
+            templates.templates.putAll(fetched);
+            fetched.keySet().forEach(templates.unknown::remove);
+        }
+        return fetched;
+    }
+
+    private String getWabaId(UUID tenantId) {
+        String wabaId = tenantDirectory.findByTenantId(tenantId)
+                .map(WhatsAppTenant::getWabaId)
+                .orElse(null);
+        if (wabaId == null) {
+            throw new IllegalStateException("WABA ID not found for tenant: " + tenantId);
+        }
+        return wabaId;
+    }
+
+    private CatalogTemplate toCatalogTemplate(Template template) {
+        String components;
+        try {
+            components = objectMapper.writeValueAsString(template.components() != null ? template.components() : List.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize components of template " + template.name(), e);
+        }
+        return withParameters(CatalogTemplate.builder()
+                .templateId(template.id())
+                .name(template.name())
+                .language(template.language())
+                .category(template.category() != null ? template.category().name() : "UNKNOWN")
+                .status(template.status())
+                .components(components)
+                .build());
+    }
+
+    private List<CatalogTemplate> withParameters(List<CatalogTemplate> templates) {
+        List<CatalogTemplate> counted = new ArrayList<>(templates.size());
+        templates.forEach(template -> counted.add(withParameters(template)));
+        return counted;
+    }
+
+    /**
+     * Count the parameters of the header and the body from the components of a template
+     */
+    private CatalogTemplate withParameters(CatalogTemplate template) {
+        int header = 0;
+        int body = 0;
+        try {
+            JsonNode components = objectMapper.readTree(template.getComponents() != null ? template.getComponents() : "[]");
+            for (JsonNode component : components) {
+                String type = component.path("type").asText();
+                if ("HEADER".equalsIgnoreCase(type)) {
+                    String format = component.path("format").asText("TEXT");
+                    header = "TEXT".equalsIgnoreCase(format) ? countVariables(component.path("text").asText(""))
+                            // A media header takes its media as parameter; a location header its location
+                            : 1;
+                } else if ("BODY".equalsIgnoreCase(type)) {
+                    body = countVariables(component.path("text").asText(""));
+                }
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Cannot read components of template {}: {}", template.getName(), e.getMessage());
+        }
+        return template.toBuilder().headerParameters(header).bodyParameters(body).build();
+    }
+
+    private static int countVariables(String text) {
+        Set<String> variables = new HashSet<>();
+        Matcher matcher = VARIABLE.matcher(text);
+        while (matcher.find()) {
+            variables.add(matcher.group(1));
+        }
+        return variables.size();
+    }
+
+    private static int countParameters(TemplateMessage message, ComponentType type) {
+        int count = 0;
+        if (message.getComponents() != null) {
+            for (Component<?> component : message.getComponents()) {
+                if (component.getType() == type && component.getParameters() != null) {
+                    count += component.getParameters().size();
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void checkParameters(CatalogTemplate template, String component, int expected, int actual) {
+        if (expected != actual) {
+            throw new IllegalArgumentException("Template " + template.getName() + " (" + template.getLanguage() + ") expects "
+                    + expected + " " + component + " parameters but got " + actual);
+        }
+    }
+
+    /**
+     * The status a webhook event gives a template, null if it does not change it
+     */
+    private static String toStatus(EventType event) {
+        if (event == null) {
+            return null;
+        }
+        return switch (event) {
+            case APPROVED, REINSTATED -> APPROVED;
+            case REJECTED, PENDING, DISABLED -> event.name();
+            default -> null;
+        };
+    }
+
+    private static String key(String name, String language) {
+        return name + '\u0000' + language;
+    }
+
+    /**
+     * The templates of a tenant, by name and language, or the failure to load them
+     */
+    private static final class TenantTemplates {
+
+        private final Map<String, CatalogTemplate> templates = new ConcurrentHashMap<>();
+
+        /**
+         * When the templates the Graph API did not have were looked up, by name and language
+         */
+        private final Map<String, Long> unknown = new ConcurrentHashMap<>();
+        private final long loadedAt = System.nanoTime();
+        private final AtomicBoolean reloading = new AtomicBoolean();
+        private final String failure;
+
+        private TenantTemplates(List<CatalogTemplate> loaded) {
+            loaded.forEach(template -> templates.put(key(template.getName(), template.getLanguage()), template));
+            this.failure = null;
+        }
+
+        private TenantTemplates(String failure) {
+            this.failure = failure;
+        }
+
+        private static TenantTemplates failed(Exception e) {
+            return new TenantTemplates(String.valueOf(e.getMessage()));
+        }
+
+        private boolean isAvailable() {
+            return failure == null;
+        }
+
+        private CatalogTemplate get(String name, String language) {
+            return templates.get(key(name, language));
+        }
+
+        private boolean isUnknown(String name, String language, long ttlNanos) {
+            Long lookedUpAt = unknown.get(key(name, language));
+            return lookedUpAt != null && System.nanoTime() - lookedUpAt <= ttlNanos;
+        }
+
+        private boolean isStale(long reloadIntervalNanos) {
+            return System.nanoTime() - loadedAt > reloadIntervalNanos;
+        }
+    }
+}
@@ -4,6 +4,8 @@ import com.whatsapp.client.tenant.model.WhatsAppTenant;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -45,6 +47,14 @@ public interface WhatsAppTenantRepository extends JpaRepository<WhatsAppTenant,
      */
     Optional<WhatsAppTenant> findByPhoneNumber(String phoneNumber);
     
+    /**
+     * Find the tenants with a refresh token whose access token expires before a time
+     * 
+     * @param expiresBefore The time
+     * @return The tenants, the earliest expiring first
+     */
+    List<WhatsAppTenant> findByRefreshTokenIsNotNullAndTokenExpiresAtBeforeOrderByTokenExpiresAt(OffsetDateTime expiresBefore);
+    
     /**
      * Check if a tenant exists by tenant ID
      * 
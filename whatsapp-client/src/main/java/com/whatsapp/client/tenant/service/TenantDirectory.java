@@ -0,0 +1,209 @@
+package com.whatsapp.client.tenant.service;
+
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.tenant.model.WhatsAppTenant;
+import com.whatsapp.client.tenant.repository.WhatsAppTenantRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of tenants indexed by tenant ID, WABA ID and business phone number ID.
+ * Routing a webhook or sending a message looks the tenant up here instead of querying the database each time.
+ * Unknown WABA and phone number IDs are cached too, for a shorter time, so that webhooks of unknown accounts
+ * do not query the database either.
+ * <p>
+ * Entries are dropped by {@link #invalidate(UUID)} when a tenant changes, and expire after the configured TTL
+ * so that changes made by other instances are picked up. The returned tenants are shared and must not be modified.
+ */
+@Service
+@Slf4j
+public class TenantDirectory {
+
+    private final WhatsAppTenantRepository tenantRepository;
+    private final WhatsAppProperties.TenantCache settings;
+
+    private final Map<UUID, CachedTenant> byTenantId = new ConcurrentHashMap<>();
+    private final Map<String, CachedTenant> byWabaId = new ConcurrentHashMap<>();
+    private final Map<String, CachedTenant> byPhoneNumberId = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented by every invalidation, so that a lookup racing with an invalidation does not cache what it loaded
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public TenantDirectory(WhatsAppTenantRepository tenantRepository, WhatsAppProperties whatsAppProperties) {
+        this.tenantRepository = tenantRepository;
+        this.settings = whatsAppProperties.getTenantCache();
+    }
+
+    /**
+     * Find a tenant by tenant ID
+     *
+     * @param tenantId The tenant ID
+     * @return Optional WhatsAppTenant
+     */
+    public Optional<WhatsAppTenant> findByTenantId(UUID tenantId) {
+        return find(byTenantId, tenantId, () -> tenantRepository.findByTenantId(tenantId));
+    }
+
+    /**
+     * Find a tenant by WhatsApp Business Account ID
+     *
+     * @param wabaId The WABA ID
+     * @return Optional WhatsAppTenant
+     */
+    public Optional<WhatsAppTenant> findByWabaId(String wabaId) {
+        return find(byWabaId, wabaId, () -> tenantRepository.findByWabaId(wabaId));
+    }
+
+    /**
+     * Find a tenant by business phone number ID
+     *
+     * @param businessPhoneNumberId The phone number ID
+     * @return Optional WhatsAppTenant
+     */
+    public Optional<WhatsAppTenant> findByBusinessPhoneNumberId(String businessPhoneNumberId) {
+        return find(byPhoneNumberId, businessPhoneNumberId,
+                () -> tenantRepository.findByBusinessPhoneNumberId(businessPhoneNumberId));
+    }
+
+    /**
+     * Drop the cached entries of a tenant, and the cached unknown WABA and phone number IDs as the tenant may now own one.
+     * Within a transaction the entries are dropped again after the commit, so that a lookup made before the commit
+     * does not keep the previous state.
+     *
+     * @param tenantId The tenant ID
+     */
+    public void invalidate(UUID tenantId) {
+        evict(tenantId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(tenantId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drop every cached entry
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        byTenantId.clear();
+        byWabaId.clear();
+        byPhoneNumberId.clear();
+    }
+
+    /**
+     * Number of lookups answered from the cache since startup
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Number of lookups that queried the database since startup
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Number of cached tenants
+     */
+    public int size() {
+        return byTenantId.size();
+    }
+
+    private <K> Optional<WhatsAppTenant> find(Map<K, CachedTenant> index, K key, Supplier<Optional<WhatsAppTenant>> loader) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        long now = System.nanoTime();
+        CachedTenant cached = index.get(key);
+        if (cached != null && cached.isValidAt(now)) {
+            hits.incrementAndGet();
+            return Optional.ofNullable(cached.tenant());
+        }
+
+        misses.incrementAndGet();
+        long loadedGeneration = generation.get();
+        Optional<WhatsAppTenant> tenant = loader.get();
+        if (generation.get() == loadedGeneration) {
+            if (tenant.isPresent()) {
+                put(tenant.get(), now);
+            } else if (index != byTenantId) {
+                putNegative(index, key, now);
+            }
+        }
+        return tenant;
+    }
+
+    /**
+     * Index a loaded tenant under all its IDs
+     */
+    private void put(WhatsAppTenant tenant, long now) {
+        CachedTenant cached = new CachedTenant(tenant, now + settings.getTtl().toNanos());
+        byTenantId.put(tenant.getTenantId(), cached);
+        if (tenant.getWabaId() != null) {
+            byWabaId.put(tenant.getWabaId(), cached);
+        }
+        if (tenant.getBusinessPhoneNumberId() != null) {
+            byPhoneNumberId.put(tenant.getBusinessPhoneNumberId(), cached);
+        }
+    }
+
+    private void evict(UUID tenantId) {
+        generation.incrementAndGet();
+        byTenantId.remove(tenantId);
+        // The tenant may have been indexed under IDs it no longer has
+        byWabaId.values().removeIf(cached -> cached.isNegative() || cached.belongsTo(tenantId));
+        byPhoneNumberId.values().removeIf(cached -> cached.isNegative() || cached.belongsTo(tenantId));
+        log.debug("Invalidated cached tenant {}", tenantId);
+    }
+
+    /**
+     * Remember that an ID is unknown. Webhooks of many unknown accounts must not grow the cache without bound,
+     * so the unknown IDs are dropped once the index reaches the maximum size.
+     */
+    private <K> void putNegative(Map<K, CachedTenant> index, K key, long now) {
+        if (index.size() >= settings.getMaxEntries()) {
+            index.values().removeIf(CachedTenant::isNegative);
+        }
+        index.put(key, new CachedTenant(null, now + settings.getNegativeTtl().toNanos()));
+    }
+
+    /**
+     * A cached lookup; a null tenant means the ID is unknown
+     */
+    private record CachedTenant(WhatsAppTenant tenant, long expiresAt) {
+
+        private boolean isValidAt(long now) {
+            return expiresAt - now > 0;
+        }
+
+        private boolean isNegative() {
+            return tenant == null;
+        }
+
+        private boolean belongsTo(UUID tenantId) {
+            return tenant != null && tenantId.equals(tenant.getTenantId());
+        }
+    }
+}
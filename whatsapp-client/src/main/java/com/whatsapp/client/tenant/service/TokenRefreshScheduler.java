@@ -0,0 +1,321 @@
+package com.whatsapp.client.tenant.service;
+
+import com.whatsapp.client.api.factory.WhatsAppClientFactory;
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.tenant.model.WhatsAppTenant;
+import com.whatsapp.client.tenant.repository.WhatsAppTenantRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refreshes the access tokens of the tenants ahead of their expiry, so that a send never waits for an OAuth round trip.
+ * <p>
+ * The tenants whose token expires within the next scan are loaded at each scan and queued by the time their token
+ * is due for refresh, the earliest first. Due tokens are refreshed on a pool bounded to the configured concurrency,
+ * one refresh at a time per tenant; the refreshed token replaces the cached API clients of the tenant at once.
+ * A failed refresh is retried after the retry delay until the token is refreshed or the tenant loses its refresh token.
+ * <p>
+ * Instances refresh the token of a tenant one at a time, under a database advisory lock, so that a rotating refresh
+ * token is never spent twice. A token refreshed by another instance meanwhile is not refreshed again: the tenant is
+ * reloaded under the lock, and the cached API clients take its token.
+ */
+@Service
+@Slf4j
+public class TokenRefreshScheduler {
+
+    /**
+     * First key of the advisory locks held while a token is refreshed, the second being derived from the tenant ID
+     */
+    private static final int REFRESH_LOCK_KEY = 0x77615F74;
+
+    private final WhatsAppProperties.TokenRefresh settings;
+    private final WhatsAppTenantRepository tenantRepository;
+    private final WhatsAppTenantService tenantService;
+    private final WhatsAppClientFactory clientFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Tenants by the time their token is due for refresh; guarded by itself, with {@link #dueAt}
+     */
+    private final PriorityQueue<ScheduledRefresh> queue = new PriorityQueue<>();
+
+    /**
+     * The time each queued tenant is due, so that a tenant is queued once, at its earliest time
+     */
+    private final Map<UUID, Instant> dueAt = new HashMap<>();
+
+    /**
+     * The refresh running for each tenant, shared by whoever asks for it meanwhile
+     */
+    private final Map<UUID, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong refreshed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private ExecutorService refreshPool;
+    private Thread scheduler;
+    private volatile boolean stopped;
+
+    @Autowired
+    public TokenRefreshScheduler(
+            WhatsAppProperties whatsAppProperties,
+            WhatsAppTenantRepository tenantRepository,
+            WhatsAppTenantService tenantService,
+            WhatsAppClientFactory clientFactory,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.settings = whatsAppProperties.getTokenRefresh();
+        this.tenantRepository = tenantRepository;
+        this.tenantService = tenantService;
+        this.clientFactory = clientFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Start scanning the tenants and refreshing their tokens
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!settings.isEnabled()) {
+            log.info("Token refresh disabled");
+            return;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        refreshPool = Executors.newFixedThreadPool(settings.getMaxConcurrent(), runnable -> {
+            Thread thread = new Thread(runnable, "token-refresh-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = new Thread(this::run, "token-refresh-scheduler");
+        scheduler.setDaemon(true);
+        scheduler.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        if (scheduler != null) {
+            scheduler.interrupt();
+        }
+        if (refreshPool != null) {
+            refreshPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Refresh the token of a tenant now, or join the refresh already running for it
+     *
+     * @param tenantId The tenant ID
+     * @return Completes with true if the token was refreshed, false if it could not be
+     */
+    public CompletableFuture<Boolean> refresh(UUID tenantId) {
+        if (refreshPool == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Token refresh is not running"));
+        }
+        CompletableFuture<Boolean> refresh = inFlight.computeIfAbsent(tenantId,
+                id -> CompletableFuture.supplyAsync(() -> refreshIfDue(id), refreshPool));
+        refresh.whenComplete((result, e) -> inFlight.remove(tenantId, refresh));
+        return refresh;
+    }
+
+    /**
+     * Number of tokens refreshed since startup
+     */
+    public long getRefreshedCount() {
+        return refreshed.get();
+    }
+
+    /**
+     * Number of refreshes failed since startup
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Number of tenants queued for refresh
+     */
+    public int getQueueSize() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Number of refreshes running
+     */
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    private void run() {
+        Instant nextScan = Instant.now();
+        while (!stopped) {
+            try {
+                if (!Instant.now().isBefore(nextScan)) {
+                    scan();
+                    nextScan = Instant.now().plus(settings.getScanInterval());
+                }
+
+                ScheduledRefresh due;
+                while ((due = pollDue()) != null) {
+                    UUID tenantId = due.tenantId();
+                    refresh(tenantId).whenComplete((success, e) -> {
+                        if (!Boolean.TRUE.equals(success)) {
+                            schedule(tenantId, Instant.now().plus(settings.getRetryDelay()));
+                        }
+                    });
+                }
+
+                awaitNext(nextScan);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // A failed scan is retried at the next one
+                log.error("Error scheduling token refreshes: {}", e.getMessage(), e);
+                nextScan = Instant.now().plus(settings.getScanInterval());
+            }
+        }
+    }
+
+    /**
+     * Queue the tenants whose token is due for refresh before the next scan
+     */
+    private void scan() {
+        OffsetDateTime horizon = OffsetDateTime.now().plus(settings.getRefreshAhead()).plus(settings.getScanInterval());
+        int queued = 0;
+        for (WhatsAppTenant tenant : tenantRepository.findByRefreshTokenIsNotNullAndTokenExpiresAtBeforeOrderByTokenExpiresAt(horizon)) {
+            schedule(tenant.getTenantId(), tenant.getTokenExpiresAt().toInstant().minus(settings.getRefreshAhead()));
+            queued++;
+        }
+        log.debug("Token refresh scan found {} tenants expiring before {}", queued, horizon);
+    }
+
+    private void schedule(UUID tenantId, Instant at) {
+        if (stopped) {
+            return;
+        }
+        synchronized (queue) {
+            Instant queuedAt = dueAt.get(tenantId);
+            if (queuedAt != null && !queuedAt.isAfter(at)) {
+                return;
+            }
+            if (queuedAt != null) {
+                queue.remove(new ScheduledRefresh(tenantId, queuedAt));
+            }
+            dueAt.put(tenantId, at);
+            queue.add(new ScheduledRefresh(tenantId, at));
+            queue.notifyAll();
+        }
+    }
+
+    private ScheduledRefresh pollDue() {
+        synchronized (queue) {
+            ScheduledRefresh head = queue.peek();
+            if (head == null || head.at().isAfter(Instant.now())) {
+                return null;
+            }
+            queue.poll();
+            dueAt.remove(head.tenantId());
+            return head;
+        }
+    }
+
+    /**
+     * Wait until the first queued tenant is due, a tenant is queued, or the next scan
+     */
+    private void awaitNext(Instant nextScan) throws InterruptedException {
+        synchronized (queue) {
+            ScheduledRefresh head = queue.peek();
+            Instant wakeUp = head != null && head.at().isBefore(nextScan) ? head.at() : nextScan;
+            long millis = wakeUp.toEpochMilli() - System.currentTimeMillis();
+            if (millis > 0) {
+                queue.wait(millis);
+            }
+        }
+    }
+
+    /**
+     * Refresh the token of a tenant unless it was refreshed meanwhile, by another instance or an earlier retry.
+     * The tenant is reloaded and refreshed in one transaction holding the refresh lock of the tenant.
+     *
+     * @return true if the token is fresh, false if the refresh failed or the tenant has no refresh token
+     */
+    private boolean refreshIfDue(UUID tenantId) {
+        running.incrementAndGet();
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> refreshLocked(tenantId)));
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.error("Error refreshing access token of tenant {}: {}", tenantId, e.getMessage(), e);
+            return false;
+        } finally {
+            running.decrementAndGet();
+        }
+    }
+
+    private boolean refreshLocked(UUID tenantId) {
+        // Waits for a refresh of another instance, whose token is then read below
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?, ?)", rs -> {
+        }, REFRESH_LOCK_KEY, tenantId.hashCode());
+
+        WhatsAppTenant tenant = tenantRepository.findByTenantId(tenantId).orElse(null);
+        if (tenant == null || tenant.getRefreshToken() == null) {
+            log.debug("Tenant {} has no refresh token anymore", tenantId);
+            // Nothing left to retry
+            return true;
+        }
+        if (tenant.getTokenExpiresAt() != null
+                && tenant.getTokenExpiresAt().isAfter(OffsetDateTime.now().plus(settings.getRefreshAhead()))) {
+            log.debug("Token of tenant {} already refreshed", tenantId);
+            // Possibly by another instance: the cached clients may still have the previous token
+            clientFactory.swapClients(tenantId, tenant.getAccessToken());
+            return true;
+        }
+
+        boolean success = tenantService.refreshToken(tenantId);
+        if (success) {
+            refreshed.incrementAndGet();
+            log.info("Refreshed access token of tenant {}", tenantId);
+        } else {
+            failed.incrementAndGet();
+            log.warn("Could not refresh access token of tenant {}, retrying in {}", tenantId, settings.getRetryDelay());
+        }
+        return success;
+    }
+
+    /**
+     * A tenant whose token is due for refresh at a time
+     */
+    private record ScheduledRefresh(UUID tenantId, Instant at) implements Comparable<ScheduledRefresh> {
+
+        @Override
+        public int compareTo(ScheduledRefresh other) {
+            return at.compareTo(other.at);
+        }
+    }
+}
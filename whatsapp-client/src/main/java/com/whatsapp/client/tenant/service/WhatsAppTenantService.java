@@ -7,6 +7,7 @@ import com.whatsapp.client.common.WhatsAppConstants.Api;
 import com.whatsapp.client.common.WhatsAppConstants.OAuth;
 import com.whatsapp.client.common.WhatsAppConstants.Request;
 import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.template.service.TemplateCatalog;
 import com.whatsapp.client.tenant.model.WhatsAppTenant;
 import com.whatsapp.client.tenant.repository.WhatsAppTenantRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -31,7 +32,9 @@ import java.util.UUID;
 public class WhatsAppTenantService {
     
     private final WhatsAppTenantRepository tenantRepository;
+    private final TenantDirectory tenantDirectory;
     private final WhatsAppClientFactory clientFactory;
+    private final TemplateCatalog templateCatalog;
     private final WhatsAppProperties whatsAppProperties;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
@@ -39,12 +42,16 @@ public class WhatsAppTenantService {
     @Autowired
     public WhatsAppTenantService(
             WhatsAppTenantRepository tenantRepository,
+            TenantDirectory tenantDirectory,
             WhatsAppClientFactory clientFactory,
+            TemplateCatalog templateCatalog,
             WhatsAppProperties whatsAppProperties,
             @Qualifier("whatsAppRestTemplate") RestTemplate restTemplate,
             @Qualifier("whatsAppObjectMapper") ObjectMapper objectMapper) {
         this.tenantRepository = tenantRepository;
+        this.tenantDirectory = tenantDirectory;
         this.clientFactory = clientFactory;
+        this.templateCatalog = templateCatalog;
         this.whatsAppProperties = whatsAppProperties;
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
@@ -73,6 +80,9 @@ public class WhatsAppTenantService {
         
         tenantRepository.save(tenant);
         
+        // Drop a cached lookup of the tenant made before it existed
+        clientFactory.invalidateClient(tenantId);
+        
         // Generate state parameter for CSRF protection (includes tenant ID)
         String state = tenantId.toString();
         
@@ -159,6 +169,7 @@ public class WhatsAppTenantService {
             log.error("Error handling WhatsApp OAuth callback for tenant {}: {}", tenantId, e.getMessage(), e);
             tenant.setConnectionStatus(WhatsAppTenant.ConnectionStatus.ERROR);
             tenantRepository.save(tenant);
+            clientFactory.invalidateClient(tenantId);
             throw new RuntimeException("Failed to connect WhatsApp: " + e.getMessage(), e);
         }
     }
@@ -201,6 +212,7 @@ public class WhatsAppTenantService {
             log.error("Error completing WhatsApp onboarding for tenant {}: {}", tenantId, e.getMessage(), e);
             tenant.setConnectionStatus(WhatsAppTenant.ConnectionStatus.ERROR);
             tenantRepository.save(tenant);
+            clientFactory.invalidateClient(tenantId);
             throw new RuntimeException("Failed to complete WhatsApp onboarding: " + e.getMessage(), e);
         }
     }
@@ -252,6 +264,7 @@ public class WhatsAppTenantService {
                 // If successful, update the tenant status
                 tenant.setConnectionStatus(WhatsAppTenant.ConnectionStatus.CONNECTED);
                 tenantRepository.save(tenant);
+                clientFactory.invalidateClient(tenantId);
             } else {
                 throw new RuntimeException("Failed to register phone number: " + response.getBody());
             }
@@ -345,8 +358,9 @@ public class WhatsAppTenantService {
         
         tenantRepository.save(tenant);
         
-        // Invalidate any cached API instance
+        // Invalidate any cached API instance and templates
         clientFactory.invalidateClient(tenantId);
+        templateCatalog.invalidate(tenantId);
     }
     
     /**
@@ -406,8 +420,8 @@ public class WhatsAppTenantService {
             
             tenantRepository.save(tenant);
             
-            // Invalidate any cached API instance
-            clientFactory.invalidateClient(tenantId);
+            // Replace the cached API instances, so that sends switch to the new token without waiting
+            clientFactory.swapClients(tenantId, accessToken);
             
             return true;
             
@@ -418,37 +432,37 @@ public class WhatsAppTenantService {
     }
     
     /**
-     * Get WhatsApp connection status for a tenant
+     * Get WhatsApp connection status for a tenant, from the tenant directory
      * 
      * @param tenantId The tenant ID
      * @return The connection status
      */
     public WhatsAppTenant.ConnectionStatus getConnectionStatus(UUID tenantId) {
-        return tenantRepository.findByTenantId(tenantId)
+        return tenantDirectory.findByTenantId(tenantId)
                 .map(WhatsAppTenant::getConnectionStatus)
                 .orElse(WhatsAppTenant.ConnectionStatus.DISCONNECTED);
     }
     
     /**
-     * Check if a tenant's WhatsApp is connected
+     * Check if a tenant's WhatsApp is connected, from the tenant directory
      * 
      * @param tenantId The tenant ID
      * @return true if WhatsApp is connected
      */
     public boolean isConnected(UUID tenantId) {
-        return tenantRepository.findByTenantId(tenantId)
+        return tenantDirectory.findByTenantId(tenantId)
                 .map(WhatsAppTenant::isConnected)
                 .orElse(false);
     }
     
     /**
-     * Get tenant details by ID
+     * Get tenant details by ID, from the tenant directory. The tenant is shared and must not be modified.
      * 
      * @param tenantId The tenant ID
      * @return The WhatsApp tenant
      */
     public WhatsAppTenant getTenant(UUID tenantId) {
-        return tenantRepository.findByTenantId(tenantId)
+        return tenantDirectory.findByTenantId(tenantId)
                 .orElseThrow(() -> new IllegalArgumentException("WhatsApp tenant not found for ID: " + tenantId));
     }
 }
\ No newline at end of file
@@ -1,18 +1,19 @@
 package com.whatsapp.client.webhook.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.whatsapp.client.common.WhatsAppConstants.Webhook;
 import com.whatsapp.client.config.WhatsAppProperties;
 import com.whatsapp.client.webhook.service.WebhookProcessorService;
+import com.whatsapp.client.webhook.service.WebhookSpoolService;
+import com.whatsapp.client.webhook.spool.WebhookSpool;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.CrossOrigin;
 
+import java.io.InputStream;
+
 /**
  * Controller for handling WhatsApp webhook events
  */
@@ -24,16 +25,16 @@ public class WebhookController {
     
     private final WhatsAppProperties whatsAppProperties;
     private final WebhookProcessorService webhookProcessorService;
-    private final ObjectMapper objectMapper;
+    private final WebhookSpoolService webhookSpoolService;
     
     @Autowired
     public WebhookController(
             WhatsAppProperties whatsAppProperties,
             WebhookProcessorService webhookProcessorService,
-            @Qualifier("whatsAppObjectMapper") ObjectMapper objectMapper) {
+            WebhookSpoolService webhookSpoolService) {
         this.whatsAppProperties = whatsAppProperties;
         this.webhookProcessorService = webhookProcessorService;
-        this.objectMapper = objectMapper;
+        this.webhookSpoolService = webhookSpoolService;
     }
     
     /**
@@ -63,23 +64,39 @@ public class WebhookController {
     }
     
     /**
-     * Handle incoming webhook events from WhatsApp
+     * Handle incoming webhook events from WhatsApp.
+     * The body is spooled as received, or decoded as it is read when the spool is disabled.
      * 
-     * @param payload The webhook payload
-     * @return Acknowledgment response
+     * @param body The webhook payload
+     * @return Acknowledgment response, or 503 when the spool or ingestion queue is full so that WhatsApp redelivers the webhook
      */
     @PostMapping
-    public ResponseEntity<String> handleWebhook(@RequestBody String payload) {
-        log.debug("Received webhook event: {}", payload);
-        
+    public ResponseEntity<String> handleWebhook(InputStream body) {
         try {
-            // Parse the payload
-            JsonNode jsonPayload = objectMapper.readTree(payload);
+            if (!webhookSpoolService.isEnabled()) {
+                // Queue the webhook events to be written in batches
+                if (!webhookProcessorService.processWebhook(body)) {
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+                }
+                return ResponseEntity.ok(Webhook.RESPONSE_SUCCESS);
+            }
             
-            // Process the webhook event asynchronously
-            webhookProcessorService.processWebhook(jsonPayload);
+            byte[] payload = body.readAllBytes();
+            log.debug("Received webhook event of {} bytes", payload.length);
+            try {
+                // Acknowledge once the payload is on disk; it is processed from the spool
+                webhookSpoolService.append(payload);
+                return ResponseEntity.ok(Webhook.RESPONSE_SUCCESS);
+            } catch (WebhookSpool.SpoolFullException e) {
+                log.warn("Webhook spool full, asking for redelivery: {}", e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            } catch (Exception e) {
+                log.error("Error spooling webhook, processing it directly: {}", e.getMessage(), e);
+            }
             
-            // Always return 200 OK to acknowledge receipt
+            if (!webhookProcessorService.processWebhook(payload, null)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }
             return ResponseEntity.ok(Webhook.RESPONSE_SUCCESS);
             
         } catch (Exception e) {
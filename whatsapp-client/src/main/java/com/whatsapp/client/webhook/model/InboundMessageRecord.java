@@ -0,0 +1,28 @@
+package com.whatsapp.client.webhook.model;
+
+import com.whatsapp.client.conversation.model.Message;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * A message received from a customer, written to the messages table of its conversation
+ */
+@Value
+@Builder
+public class InboundMessageRecord implements WebhookRecord {
+    
+    UUID tenantId;
+    
+    String customerWaId;
+    
+    String customerPhone;
+    
+    String customerName;
+    
+    /**
+     * The message, without conversation ID: the conversation is found or created when the batch is written
+     */
+    Message message;
+}
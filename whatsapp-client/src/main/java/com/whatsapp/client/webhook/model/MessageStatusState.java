@@ -0,0 +1,37 @@
+package com.whatsapp.client.webhook.model;
+
+import com.whatsapp.client.conversation.model.Message.MessageStatus;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.OffsetDateTime;
+
+/**
+ * The final state of a message after the status updates of a window are coalesced
+ */
+@Value
+@Builder(toBuilder = true)
+public class MessageStatusState {
+    
+    String whatsappMessageId;
+    
+    /**
+     * The most advanced status
+     */
+    MessageStatus status;
+    
+    /**
+     * When the message reached that status
+     */
+    OffsetDateTime statusUpdatedAt;
+    
+    /**
+     * When the message was delivered, null if no delivered update was received
+     */
+    OffsetDateTime deliveredAt;
+    
+    /**
+     * When the message was read, null if no read update was received
+     */
+    OffsetDateTime readAt;
+}
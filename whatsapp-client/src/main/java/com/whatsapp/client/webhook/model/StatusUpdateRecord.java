@@ -0,0 +1,21 @@
+package com.whatsapp.client.webhook.model;
+
+import com.whatsapp.client.conversation.model.Message.MessageStatus;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A status change of a sent message (delivered, read...)
+ */
+@Value
+@Builder
+public class StatusUpdateRecord implements WebhookRecord {
+    
+    String whatsappMessageId;
+    
+    MessageStatus status;
+    
+    OffsetDateTime timestamp;
+}
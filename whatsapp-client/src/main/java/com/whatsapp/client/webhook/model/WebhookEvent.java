@@ -14,7 +14,7 @@ import java.util.UUID;
  * Entity for storing incoming webhook events from WhatsApp
  */
 @Entity
-@Table(name = "webhook_events")
+@Table(name = "webhook_events", schema = "whatsapp_integration")
 @Getter
 @Setter
 @NoArgsConstructor
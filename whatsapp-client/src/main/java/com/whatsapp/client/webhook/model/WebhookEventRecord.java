@@ -0,0 +1,31 @@
+package com.whatsapp.client.webhook.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * A webhook entry, written to the webhook_events table
+ */
+@Value
+@Builder
+public class WebhookEventRecord implements WebhookRecord {
+    
+    UUID id;
+    
+    /**
+     * The tenant of the WABA, null when the WABA is unknown
+     */
+    UUID tenantId;
+    
+    String eventType;
+    
+    /**
+     * The entry as JSON
+     */
+    String payload;
+    
+    OffsetDateTime receivedAt;
+}
@@ -0,0 +1,7 @@
+package com.whatsapp.client.webhook.model;
+
+/**
+ * A parsed part of a webhook, queued to be written to the database in a batch
+ */
+public interface WebhookRecord {
+}
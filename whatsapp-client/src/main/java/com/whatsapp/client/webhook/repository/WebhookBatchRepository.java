@@ -0,0 +1,265 @@
+package com.whatsapp.client.webhook.repository;
+
+import com.whatsapp.client.conversation.model.Message;
+import com.whatsapp.client.conversation.model.Message.MessageStatus;
+import com.whatsapp.client.webhook.model.InboundMessageRecord;
+import com.whatsapp.client.webhook.model.MessageStatusState;
+import com.whatsapp.client.webhook.model.WebhookEventRecord;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Multi-row writes of webhook batches.
+ * Each method issues one statement per chunk of rows instead of one per row.
+ */
+@Repository
+public class WebhookBatchRepository {
+
+    /**
+     * Rows per statement, well below the 65535 bind parameters PostgreSQL accepts
+     */
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WebhookBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert webhook events, marked as processed as they are written with the rest of their batch
+     *
+     * @param events The events
+     */
+    public void insertWebhookEvents(List<WebhookEventRecord> events) {
+        for (List<WebhookEventRecord> chunk : chunks(events)) {
+            StringBuilder sql = new StringBuilder(
+                    "INSERT INTO whatsapp_integration.webhook_events (id, tenant_id, event_type, payload, processed, created_at) VALUES ");
+            sql.append(rows("(?, ?, ?, CAST(? AS jsonb), TRUE, ?)", chunk.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 5);
+            for (WebhookEventRecord event : chunk) {
+                args.add(event.getId());
+                args.add(event.getTenantId());
+                args.add(event.getEventType());
+                args.add(event.getPayload());
+                args.add(timestamp(event.getReceivedAt()));
+            }
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    /**
+     * Find the conversations of customers, creating the missing ones
+     *
+     * @param messages The inbound messages whose conversations are needed
+     * @return Conversation ID by tenant ID and customer WhatsApp ID
+     */
+    public Map<ConversationKey, UUID> findOrCreateConversations(List<InboundMessageRecord> messages) {
+        Map<ConversationKey, InboundMessageRecord> customers = new LinkedHashMap<>();
+        for (InboundMessageRecord message : messages) {
+            customers.putIfAbsent(new ConversationKey(message.getTenantId(), message.getCustomerWaId()), message);
+        }
+
+        Map<ConversationKey, UUID> conversationIds = findConversations(customers.keySet());
+        List<InboundMessageRecord> missing = customers.entrySet().stream()
+                .filter(customer -> !conversationIds.containsKey(customer.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+        if (missing.isEmpty()) {
+            return conversationIds;
+        }
+
+        for (List<InboundMessageRecord> chunk : chunks(missing)) {
+            StringBuilder sql = new StringBuilder(
+                    "INSERT INTO whatsapp_integration.conversations (id, tenant_id, customer_wa_id, customer_phone, customer_name, status, created_at, updated_at) VALUES ");
+            sql.append(rows("(?, ?, ?, ?, ?, 'ACTIVE', now(), now())", chunk.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 5);
+            for (InboundMessageRecord customer : chunk) {
+                args.add(UUID.randomUUID());
+                args.add(customer.getTenantId());
+                args.add(customer.getCustomerWaId());
+                args.add(customer.getCustomerPhone());
+                args.add(customer.getCustomerName());
+            }
+            // Another writer may have created the conversation in the meantime
+            sql.append(" ON CONFLICT (tenant_id, customer_wa_id) DO NOTHING");
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+
+        Set<ConversationKey> created = new HashSet<>();
+        for (InboundMessageRecord customer : missing) {
+            created.add(new ConversationKey(customer.getTenantId(), customer.getCustomerWaId()));
+        }
+        conversationIds.putAll(findConversations(created));
+        return conversationIds;
+    }
+
+    /**
+     * Insert inbound messages, skipping messages already stored
+     *
+     * @param messages The messages, with their conversation ID set
+     * @return WhatsApp IDs of the inserted messages
+     */
+    public Set<String> insertMessages(List<Message> messages) {
+        Set<String> inserted = new HashSet<>();
+        for (List<Message> chunk : chunks(messages)) {
+            StringBuilder sql = new StringBuilder(
+                    "INSERT INTO whatsapp_integration.messages (id, conversation_id, whatsapp_message_id, direction, message_type, content, "
+                            + "media_url, media_mime_type, media_filename, media_id, status, status_updated_at, sent_at) VALUES ");
+            sql.append(rows("(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", chunk.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 13);
+            for (Message message : chunk) {
+                if (message.getId() == null) {
+                    message.setId(UUID.randomUUID());
+                }
+                args.add(message.getId());
+                args.add(message.getConversationId());
+                args.add(message.getWhatsappMessageId());
+                args.add(message.getDirection().name());
+                args.add(message.getMessageType().name());
+                args.add(message.getContent());
+                args.add(message.getMediaUrl());
+                args.add(message.getMediaMimeType());
+                args.add(message.getMediaFilename());
+                args.add(message.getMediaId());
+                args.add(message.getStatus().name());
+                args.add(timestamp(message.getStatusUpdatedAt()));
+                args.add(timestamp(message.getSentAt()));
+            }
+            // WhatsApp delivers webhooks at least once; a redelivered message has the same sent time
+            sql.append(" ON CONFLICT (whatsapp_message_id, sent_at) DO NOTHING RETURNING whatsapp_message_id");
+            inserted.addAll(jdbcTemplate.queryForList(sql.toString(), String.class, args.toArray()));
+        }
+        return inserted;
+    }
+
+    /**
+     * Move the last message time of conversations forward and refresh the customer names
+     *
+     * @param lastMessageAt Time of the newest message by conversation ID
+     * @param customerNames Customer name by conversation ID, when the webhook had one
+     */
+    public void updateConversations(Map<UUID, OffsetDateTime> lastMessageAt, Map<UUID, String> customerNames) {
+        List<UUID> conversationIds = new ArrayList<>(lastMessageAt.keySet());
+        for (List<UUID> chunk : chunks(conversationIds)) {
+            StringBuilder sql = new StringBuilder("UPDATE whatsapp_integration.conversations c SET "
+                    + "last_message_at = GREATEST(c.last_message_at, v.last_message_at), "
+                    + "customer_name = COALESCE(v.customer_name, c.customer_name), "
+                    + "updated_at = now() FROM (VALUES ");
+            sql.append(rows("(CAST(? AS uuid), CAST(? AS timestamptz), CAST(? AS varchar))", chunk.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            for (UUID conversationId : chunk) {
+                args.add(conversationId);
+                args.add(timestamp(lastMessageAt.get(conversationId)));
+                args.add(customerNames.get(conversationId));
+            }
+            sql.append(") AS v(id, last_message_at, customer_name) WHERE c.id = v.id");
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+    }
+
+    /**
+     * Apply the coalesced states of messages, with one statement per chunk of messages and without loading them.
+     * A message only moves to a status of higher rank: SENT -> DELIVERED -> READ; a failed message is left as is.
+     * The first delivered and read times are kept.
+     *
+     * @param states The final state of each message
+     * @return The messages updated, with their new status
+     * @see MessageStatus#rank()
+     */
+    public List<StatusChange> updateMessageStatuses(List<MessageStatusState> states) {
+        List<StatusChange> updated = new ArrayList<>();
+        for (List<MessageStatusState> chunk : chunks(states)) {
+            StringBuilder sql = new StringBuilder("UPDATE whatsapp_integration.messages m SET "
+                    + "status = v.status, status_updated_at = v.status_updated_at, "
+                    + "delivered_at = COALESCE(m.delivered_at, v.delivered_at), "
+                    + "read_at = COALESCE(m.read_at, v.read_at) FROM (VALUES ");
+            sql.append(rows("(CAST(? AS varchar), CAST(? AS varchar), CAST(? AS integer), "
+                    + "CAST(? AS timestamptz), CAST(? AS timestamptz), CAST(? AS timestamptz))", chunk.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 6);
+            for (MessageStatusState state : chunk) {
+                args.add(state.getWhatsappMessageId());
+                args.add(state.getStatus().name());
+                args.add(state.getStatus().rank());
+                args.add(timestamp(state.getStatusUpdatedAt()));
+                args.add(timestamp(state.getDeliveredAt()));
+                args.add(timestamp(state.getReadAt()));
+            }
+            sql.append(") AS v(whatsapp_message_id, status, status_rank, status_updated_at, delivered_at, read_at), "
+                    + "whatsapp_integration.conversations c "
+                    + "WHERE m.whatsapp_message_id = v.whatsapp_message_id AND c.id = m.conversation_id "
+                    + "AND (CASE m.status WHEN 'SENT' THEN 1 WHEN 'DELIVERED' THEN 2 WHEN 'READ' THEN 3 ELSE 4 END) < v.status_rank "
+                    + "RETURNING c.tenant_id, m.conversation_id, m.id, m.whatsapp_message_id, m.status, m.status_updated_at");
+            updated.addAll(jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new StatusChange(
+                    rs.getObject("tenant_id", UUID.class),
+                    rs.getObject("conversation_id", UUID.class),
+                    rs.getObject("id", UUID.class),
+                    rs.getString("whatsapp_message_id"),
+                    MessageStatus.valueOf(rs.getString("status")),
+                    rs.getObject("status_updated_at", OffsetDateTime.class)), args.toArray()));
+        }
+        return updated;
+    }
+
+    private Map<ConversationKey, UUID> findConversations(Set<ConversationKey> keys) {
+        Map<ConversationKey, UUID> conversationIds = new HashMap<>();
+        for (List<ConversationKey> chunk : chunks(new ArrayList<>(keys))) {
+            StringBuilder sql = new StringBuilder(
+                    "SELECT id, tenant_id, customer_wa_id FROM whatsapp_integration.conversations WHERE (tenant_id, customer_wa_id) IN (");
+            sql.append(rows("(?, ?)", chunk.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 2);
+            for (ConversationKey key : chunk) {
+                args.add(key.tenantId());
+                args.add(key.customerWaId());
+            }
+            sql.append(")");
+            jdbcTemplate.query(sql.toString(), rs -> {
+                conversationIds.put(
+                        new ConversationKey(rs.getObject("tenant_id", UUID.class), rs.getString("customer_wa_id")),
+                        rs.getObject("id", UUID.class));
+            }, args.toArray());
+        }
+        return conversationIds;
+    }
+
+    private static String rows(String row, int count) {
+        return String.join(", ", Collections.nCopies(count, row));
+    }
+
+    private static <T> List<List<T>> chunks(List<T> rows) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i += MAX_ROWS_PER_STATEMENT) {
+            chunks.add(rows.subList(i, Math.min(rows.size(), i + MAX_ROWS_PER_STATEMENT)));
+        }
+        return chunks;
+    }
+
+    private static Timestamp timestamp(OffsetDateTime dateTime) {
+        return dateTime == null ? null : Timestamp.from(dateTime.toInstant());
+    }
+
+    /**
+     * A conversation is identified by its tenant and customer
+     */
+    public record ConversationKey(UUID tenantId, String customerWaId) {
+    }
+
+    /**
+     * A message moved to a new status
+     */
+    public record StatusChange(UUID tenantId, UUID conversationId, UUID messageId, String whatsappMessageId,
+                               MessageStatus status, OffsetDateTime statusUpdatedAt) {
+    }
+}
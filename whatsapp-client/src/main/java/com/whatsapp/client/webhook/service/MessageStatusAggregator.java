@@ -0,0 +1,81 @@
+package com.whatsapp.client.webhook.service;
+
+import com.whatsapp.client.conversation.model.Message.MessageStatus;
+import com.whatsapp.client.webhook.model.MessageStatusState;
+import com.whatsapp.client.webhook.model.StatusUpdateRecord;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces the status updates of a window into the final state of each message.
+ * Statuses only move forward, SENT -> DELIVERED -> READ, as in {@link com.whatsapp.client.conversation.model.Message#updateStatus}:
+ * the sent, delivered and read callbacks of a message arriving together become one row to update, instead of one
+ * read-modify-write each. Updates that cannot move a message forward (SENT, FAILED) are dropped.
+ */
+public class MessageStatusAggregator {
+
+    private final Map<String, MessageStatusState> states = new LinkedHashMap<>();
+
+    /**
+     * Merge a status update into the state of its message
+     *
+     * @param update The status update
+     */
+    public void add(StatusUpdateRecord update) {
+        if (update.getWhatsappMessageId() == null || update.getStatus() == null
+                || update.getStatus().rank() <= MessageStatus.SENT.rank()) {
+            return;
+        }
+        states.merge(update.getWhatsappMessageId(), toState(update), MessageStatusAggregator::merge);
+    }
+
+    /**
+     * Whether no message has a state to apply
+     */
+    public boolean isEmpty() {
+        return states.isEmpty();
+    }
+
+    /**
+     * The final state of each message, in the order the messages were first updated
+     */
+    public List<MessageStatusState> getStates() {
+        return new ArrayList<>(states.values());
+    }
+
+    private static MessageStatusState toState(StatusUpdateRecord update) {
+        OffsetDateTime timestamp = update.getTimestamp();
+        return MessageStatusState.builder()
+                .whatsappMessageId(update.getWhatsappMessageId())
+                .status(update.getStatus())
+                .statusUpdatedAt(timestamp)
+                .deliveredAt(update.getStatus() == MessageStatus.DELIVERED ? timestamp : null)
+                .readAt(update.getStatus() == MessageStatus.READ ? timestamp : null)
+                .build();
+    }
+
+    private static MessageStatusState merge(MessageStatusState state, MessageStatusState update) {
+        MessageStatusState.MessageStatusStateBuilder merged = state.toBuilder()
+                .deliveredAt(earliest(state.getDeliveredAt(), update.getDeliveredAt()))
+                .readAt(earliest(state.getReadAt(), update.getReadAt()));
+        if (update.getStatus().rank() > state.getStatus().rank()) {
+            merged.status(update.getStatus())
+                    .statusUpdatedAt(update.getStatusUpdatedAt());
+        }
+        return merged.build();
+    }
+
+    private static OffsetDateTime earliest(OffsetDateTime a, OffsetDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.isBefore(b) ? a : b;
+    }
+}
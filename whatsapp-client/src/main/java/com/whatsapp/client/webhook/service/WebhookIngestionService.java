@@ -0,0 +1,389 @@
+package com.whatsapp.client.webhook.service;
+
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.conversation.dto.ConversationEvent;
+import com.whatsapp.client.conversation.model.Message;
+import com.whatsapp.client.conversation.service.ConversationEventBroker;
+import com.whatsapp.client.conversation.service.MessageIdIndex;
+import com.whatsapp.client.webhook.model.InboundMessageRecord;
+import com.whatsapp.client.webhook.model.StatusUpdateRecord;
+import com.whatsapp.client.webhook.model.WebhookEventRecord;
+import com.whatsapp.client.webhook.model.WebhookRecord;
+import com.whatsapp.client.webhook.repository.WebhookBatchRepository;
+import com.whatsapp.client.webhook.repository.WebhookBatchRepository.ConversationKey;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers parsed webhook records in a bounded queue and writes them to the database in micro-batches.
+ * A batch is written when it is full, or when its first record has waited for the linger time.
+ * Each batch is one transaction of multi-row statements, instead of one transaction and several round trips per webhook.
+ * Once a batch is committed, its new messages and statuses are pushed to the subscribers of their conversations.
+ */
+@Service
+@Slf4j
+public class WebhookIngestionService {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final WebhookBatchRepository batchRepository;
+    private final MessageIdIndex messageIdIndex;
+    private final ConversationEventBroker eventBroker;
+    private final TransactionTemplate transactionTemplate;
+    private final WhatsAppProperties.Ingestion settings;
+    private final BlockingQueue<QueuedRecord> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * Free room in the queue; a webhook takes room for all its records or none
+     */
+    private final Semaphore capacity;
+
+    private final AtomicLong writtenRecords = new AtomicLong();
+    private final AtomicLong failedRecords = new AtomicLong();
+    private final AtomicLong rejectedRecords = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    @Autowired
+    public WebhookIngestionService(
+            WebhookBatchRepository batchRepository,
+            MessageIdIndex messageIdIndex,
+            ConversationEventBroker eventBroker,
+            PlatformTransactionManager transactionManager,
+            WhatsAppProperties whatsAppProperties) {
+        this.batchRepository = batchRepository;
+        this.messageIdIndex = messageIdIndex;
+        this.eventBroker = eventBroker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settings = whatsAppProperties.getIngestion();
+        this.capacity = new Semaphore(settings.getQueueCapacity());
+    }
+
+    /**
+     * Start the thread writing the batches
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::run, "webhook-ingestion");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Webhook ingestion started: batch size {}, linger {}, queue capacity {}",
+                settings.getBatchSize(), settings.getLinger(), settings.getQueueCapacity());
+    }
+
+    /**
+     * Stop accepting records and write the queued ones
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(settings.getShutdownTimeout().toMillis());
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Webhook ingestion stopped with {} records not written", queue.size());
+        }
+    }
+
+    /**
+     * Queue records to be written. Waits for room in the queue up to the enqueue timeout.
+     *
+     * @param records The records of one webhook
+     * @return false if the queue stayed full and the records were not queued; the webhook should then be redelivered
+     */
+    public boolean enqueue(List<? extends WebhookRecord> records) {
+        return enqueue(records, null);
+    }
+
+    /**
+     * Queue records to be written, all of them or none. Waits for room in the queue up to the enqueue timeout.
+     *
+     * @param records The records of one webhook
+     * @param onWritten Run once every record is written, or failed to be written for a reason a retry would not fix; may be null
+     * @return false if the queue stayed full and the records were not queued; the webhook should then be redelivered
+     * @throws BatchTooLargeException if the webhook has more records than the queue can hold, so that it would never be queued
+     */
+    public boolean enqueue(List<? extends WebhookRecord> records, Runnable onWritten) {
+        if (!running) {
+            return false;
+        }
+        if (records.isEmpty()) {
+            if (onWritten != null) {
+                onWritten.run();
+            }
+            return true;
+        }
+        if (records.size() > settings.getQueueCapacity()) {
+            failedRecords.addAndGet(records.size());
+            throw new BatchTooLargeException("Webhook of " + records.size()
+                    + " records exceeds the ingestion queue capacity of " + settings.getQueueCapacity());
+        }
+        try {
+            if (!capacity.tryAcquire(records.size(), settings.getEnqueueTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                rejectedRecords.addAndGet(records.size());
+                log.warn("Webhook ingestion queue full, rejected {} records", records.size());
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        WriteTracker tracker = onWritten == null ? null : new WriteTracker(records.size(), onWritten);
+        for (WebhookRecord record : records) {
+            queue.add(new QueuedRecord(record, tracker));
+        }
+        return true;
+    }
+
+    /**
+     * Number of records waiting to be written
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Number of records written since startup
+     */
+    public long getWrittenRecords() {
+        return writtenRecords.get();
+    }
+
+    /**
+     * Number of records that could not be written since startup
+     */
+    public long getFailedRecords() {
+        return failedRecords.get();
+    }
+
+    /**
+     * Number of records rejected because the queue was full since startup
+     */
+    public long getRejectedRecords() {
+        return rejectedRecords.get();
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                List<QueuedRecord> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error in webhook ingestion: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Wait for a first record, then collect records until the batch is full or the linger time is over
+     */
+    private List<QueuedRecord> nextBatch() throws InterruptedException {
+        QueuedRecord first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return List.of();
+        }
+        int batchSize = settings.getBatchSize();
+        List<QueuedRecord> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        long deadline = System.nanoTime() + settings.getLinger().toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            QueuedRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        capacity.release(batch.size());
+        return batch;
+    }
+
+    /**
+     * Write a batch in one transaction. While the database is unreachable the batch is retried as is;
+     * a batch failing for another reason is split in halves and retried, so that one bad record does not lose the others.
+     */
+    private void flush(List<QueuedRecord> batch) throws InterruptedException {
+        while (true) {
+            try {
+                List<ConversationEvent> events = transactionTemplate.execute(status -> write(batch));
+                recordStoredMessages(batch);
+                events.forEach(eventBroker::publish);
+                writtenRecords.addAndGet(batch.size());
+                log.debug("Wrote webhook batch of {} records", batch.size());
+                batch.forEach(QueuedRecord::done);
+                return;
+            } catch (TransientDataAccessException | CannotCreateTransactionException e) {
+                log.warn("Database unavailable, retrying webhook batch of {} records in {}: {}",
+                        batch.size(), settings.getRetryBackoff(), e.getMessage());
+                Thread.sleep(settings.getRetryBackoff().toMillis());
+            } catch (Exception e) {
+                if (batch.size() == 1) {
+                    failedRecords.incrementAndGet();
+                    log.error("Error writing webhook record {}: {}", batch.get(0).record(), e.getMessage(), e);
+                    batch.get(0).done();
+                    return;
+                }
+                int half = batch.size() / 2;
+                flush(batch.subList(0, half));
+                flush(batch.subList(half, batch.size()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The events of the messages and statuses written, to publish once committed
+     */
+    private List<ConversationEvent> write(List<QueuedRecord> batch) {
+        List<ConversationEvent> conversationEvents = new ArrayList<>();
+        List<WebhookEventRecord> events = new ArrayList<>();
+        List<InboundMessageRecord> inboundMessages = new ArrayList<>();
+        MessageStatusAggregator statusUpdates = new MessageStatusAggregator();
+        for (QueuedRecord queued : batch) {
+            WebhookRecord record = queued.record();
+            if (record instanceof WebhookEventRecord event) {
+                events.add(event);
+            } else if (record instanceof InboundMessageRecord inboundMessage) {
+                inboundMessages.add(inboundMessage);
+            } else if (record instanceof StatusUpdateRecord statusUpdate) {
+                // Statuses of a message in the batch become one row
+                statusUpdates.add(statusUpdate);
+            }
+        }
+
+        if (!events.isEmpty()) {
+            batchRepository.insertWebhookEvents(events);
+        }
+        if (!inboundMessages.isEmpty()) {
+            writeInboundMessages(inboundMessages, conversationEvents);
+        }
+        // After the messages, so that statuses of messages in the same batch apply
+        if (!statusUpdates.isEmpty()) {
+            batchRepository.updateMessageStatuses(statusUpdates.getStates())
+                    .forEach(change -> conversationEvents.add(ConversationEvent.status(change)));
+        }
+        return conversationEvents;
+    }
+
+    private void writeInboundMessages(List<InboundMessageRecord> inboundMessages, List<ConversationEvent> conversationEvents) {
+        // Redeliveries of recently stored messages are dropped without touching the database
+        inboundMessages = inboundMessages.stream()
+                .filter(inboundMessage -> !messageIdIndex.isStored(inboundMessage.getMessage().getWhatsappMessageId()))
+                .toList();
+        if (inboundMessages.isEmpty()) {
+            return;
+        }
+
+        Map<ConversationKey, UUID> conversationIds = batchRepository.findOrCreateConversations(inboundMessages);
+
+        List<Message> messages = new ArrayList<>(inboundMessages.size());
+        for (InboundMessageRecord inboundMessage : inboundMessages) {
+            Message message = inboundMessage.getMessage();
+            message.setConversationId(conversationIds.get(
+                    new ConversationKey(inboundMessage.getTenantId(), inboundMessage.getCustomerWaId())));
+            messages.add(message);
+        }
+        Set<String> inserted = batchRepository.insertMessages(messages);
+
+        // Conversations only move forward for messages that were not already stored
+        Map<UUID, OffsetDateTime> lastMessageAt = new HashMap<>();
+        Map<UUID, String> customerNames = new HashMap<>();
+        for (InboundMessageRecord inboundMessage : inboundMessages) {
+            Message message = inboundMessage.getMessage();
+            if (!inserted.contains(message.getWhatsappMessageId())) {
+                continue;
+            }
+            conversationEvents.add(ConversationEvent.message(inboundMessage.getTenantId(), message));
+            lastMessageAt.merge(message.getConversationId(), message.getSentAt(),
+                    (a, b) -> a.isAfter(b) ? a : b);
+            if (inboundMessage.getCustomerName() != null) {
+                customerNames.put(message.getConversationId(), inboundMessage.getCustomerName());
+            }
+        }
+        if (!lastMessageAt.isEmpty()) {
+            batchRepository.updateConversations(lastMessageAt, customerNames);
+        }
+    }
+
+    /**
+     * Record the inbound messages of a committed batch as stored
+     */
+    private void recordStoredMessages(List<QueuedRecord> batch) {
+        for (QueuedRecord queued : batch) {
+            if (queued.record() instanceof InboundMessageRecord inboundMessage) {
+                messageIdIndex.add(inboundMessage.getMessage().getWhatsappMessageId());
+            }
+        }
+    }
+
+    /**
+     * Calls back once every record of a webhook is written
+     */
+    private static final class WriteTracker {
+
+        private final AtomicInteger remaining;
+        private final Runnable onWritten;
+
+        private WriteTracker(int records, Runnable onWritten) {
+            this.remaining = new AtomicInteger(records);
+            this.onWritten = onWritten;
+        }
+
+        private void recordDone() {
+            if (remaining.decrementAndGet() == 0) {
+                onWritten.run();
+            }
+        }
+    }
+
+    private record QueuedRecord(WebhookRecord record, WriteTracker tracker) {
+
+        private void done() {
+            if (tracker != null) {
+                tracker.recordDone();
+            }
+        }
+    }
+
+    /**
+     * Thrown by {@link #enqueue(List, Runnable)} when a webhook has more records than the queue can hold
+     */
+    public static class BatchTooLargeException extends IllegalStateException {
+
+        public BatchTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,150 +1,186 @@
 package com.whatsapp.client.webhook.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.whatsapp.client.common.WhatsAppConstants.Message;
-import com.whatsapp.client.common.WhatsAppConstants.Webhook;
+import com.whatsapp.api.domain.webhook.Change;
+import com.whatsapp.api.domain.webhook.Contact;
+import com.whatsapp.api.domain.webhook.Entry;
+import com.whatsapp.api.domain.webhook.Status;
+import com.whatsapp.api.domain.webhook.Value;
+import com.whatsapp.api.domain.webhook.WebHook;
+import com.whatsapp.api.domain.webhook.WebHookListener;
+import com.whatsapp.client.conversation.model.Message.MessageStatus;
 import com.whatsapp.client.conversation.service.ConversationService;
-import com.whatsapp.client.tenant.repository.WhatsAppTenantRepository;
+import com.whatsapp.client.conversation.service.ConversationWindowIndex;
+import com.whatsapp.client.template.service.TemplateCatalog;
+import com.whatsapp.client.tenant.model.WhatsAppTenant;
+import com.whatsapp.client.tenant.service.TenantDirectory;
 import com.whatsapp.client.tenant.service.WhatsAppTenantService;
-import com.whatsapp.client.webhook.model.WebhookEvent;
-import com.whatsapp.client.webhook.repository.WebhookEventRepository;
+import com.whatsapp.client.webhook.model.InboundMessageRecord;
+import com.whatsapp.client.webhook.model.StatusUpdateRecord;
+import com.whatsapp.client.webhook.model.WebhookEventRecord;
+import com.whatsapp.client.webhook.model.WebhookRecord;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
- * Service for processing WhatsApp webhook events
+ * Service for processing WhatsApp webhook events.
+ * Webhooks are decoded as they are read, into the typed records of the SDK, without building a String or a JSON tree;
+ * their events, messages and statuses are written in batches by the {@link WebhookIngestionService}.
+ * The messages and the conversations of the statuses also update the {@link ConversationWindowIndex} as they are decoded.
  */
 @Service
 @Slf4j
 public class WebhookProcessorService {
     
-    private final WebhookEventRepository webhookEventRepository;
-    private final WhatsAppTenantRepository tenantRepository;
+    private final WebhookIngestionService webhookIngestionService;
+    private final TenantDirectory tenantDirectory;
     private final WhatsAppTenantService tenantService;
     private final ConversationService conversationService;
+    private final ConversationWindowIndex conversationWindowIndex;
+    private final TemplateCatalog templateCatalog;
     private final ObjectMapper objectMapper;
     
     @Autowired
     public WebhookProcessorService(
-            WebhookEventRepository webhookEventRepository,
-            WhatsAppTenantRepository tenantRepository,
+            WebhookIngestionService webhookIngestionService,
+            TenantDirectory tenantDirectory,
             WhatsAppTenantService tenantService,
             ConversationService conversationService,
+            ConversationWindowIndex conversationWindowIndex,
+            TemplateCatalog templateCatalog,
             @Qualifier("whatsAppObjectMapper") ObjectMapper objectMapper) {
-        this.webhookEventRepository = webhookEventRepository;
-        this.tenantRepository = tenantRepository;
+        this.webhookIngestionService = webhookIngestionService;
+        this.tenantDirectory = tenantDirectory;
         this.tenantService = tenantService;
         this.conversationService = conversationService;
+        this.conversationWindowIndex = conversationWindowIndex;
+        this.templateCatalog = templateCatalog;
         this.objectMapper = objectMapper;
     }
     
     /**
-     * Process an incoming webhook event
+     * Decode an incoming webhook from the request body and queue its events, messages and statuses to be written in batches
      * 
      * @param payload The webhook payload
+     * @return false if the ingestion queue is full and the webhook should be redelivered
+     * @throws WebhookIngestionService.BatchTooLargeException if the webhook has more records than the ingestion queue can hold
      */
-    @Async
-    @Transactional
-    public void processWebhook(JsonNode payload) {
+    public boolean processWebhook(InputStream payload) {
+        WebhookRecords records = new WebhookRecords();
         try {
-            String object = payload.get(Webhook.OBJECT_TYPE).asText();
-            
-            // Only process WhatsApp Business Account webhooks
-            if (!Webhook.OBJECT_WHATSAPP.equals(object)) {
-                log.warn("Ignoring non-WhatsApp webhook: {}", object);
-                return;
-            }
-            
-            // Process each entry in the webhook
-            for (JsonNode entry : payload.get(Webhook.ENTRY)) {
-                processEntry(entry);
-            }
-            
-        } catch (Exception e) {
+            WebHook.decode(payload, records);
+        } catch (IOException e) {
+            // A malformed webhook would fail again if redelivered
             log.error("Error processing webhook: {}", e.getMessage(), e);
+            records.clear();
         }
+        
+        return webhookIngestionService.enqueue(records.records, null);
     }
     
     /**
-     * Process an entry in the webhook payload
+     * Decode a webhook and queue its events, messages and statuses to be written in batches.
+     * The events keep the JSON of their entry as received.
      * 
-     * @param entry The entry node
+     * @param payload The webhook payload
+     * @param onWritten Run once the webhook is written, or ignored; may be null
+     * @return false if the ingestion queue is full and the webhook should be redelivered
+     * @throws WebhookIngestionService.BatchTooLargeException if the webhook has more records than the ingestion queue can hold
      */
-    private void processEntry(JsonNode entry) {
+    public boolean processWebhook(byte[] payload, Runnable onWritten) {
+        WebhookRecords records = new WebhookRecords();
         try {
-            String wabaId = entry.get(Webhook.ID).asText();
-            
-            // Find the tenant for this WABA ID
-            var tenantOpt = tenantRepository.findByWabaId(wabaId);
-            
-            if (tenantOpt.isEmpty()) {
-                log.warn("Received webhook for unknown WABA ID: {}", wabaId);
-                // Store the event anyway for future processing
-                storeWebhookEvent(null, entry);
-                return;
-            }
-            
-            var tenant = tenantOpt.get();
-            UUID tenantId = tenant.getTenantId();
-            
-            // Store the event
-            WebhookEvent event = storeWebhookEvent(tenantId, entry);
-            
-            // Process changes in the entry
-            if (entry.has(Webhook.CHANGES)) {
-                for (JsonNode change : entry.get(Webhook.CHANGES)) {
-                    processChange(tenant.getTenantId(), change, event);
-                }
-            }
-            
-        } catch (Exception e) {
-            log.error("Error processing webhook entry: {}", e.getMessage(), e);
+            WebHook.decode(payload, records);
+        } catch (IOException e) {
+            // A malformed webhook would fail again if redelivered
+            log.error("Error processing webhook: {}", e.getMessage(), e);
+            records.clear();
         }
+        
+        return webhookIngestionService.enqueue(records.records, onWritten);
     }
     
     /**
-     * Process a change in a webhook entry
-     * 
-     * @param tenantId The tenant ID
-     * @param change The change node
-     * @param event The stored webhook event
+     * Collects the records of one webhook as its entries and changes are decoded
      */
-    private void processChange(UUID tenantId, JsonNode change, WebhookEvent event) {
-        try {
-            String field = change.get(Webhook.FIELD).asText();
-            JsonNode value = change.get(Webhook.VALUE);
+    private class WebhookRecords implements WebHookListener {
+        
+        private final List<WebhookRecord> records = new ArrayList<>();
+        
+        /**
+         * Tenant of the entry being decoded, null if its WABA is unknown
+         */
+        private UUID tenantId;
+        
+        @Override
+        public void onEntry(Entry entry, String json) {
+            try {
+                String wabaId = entry.id();
+                
+                // Find the tenant for this WABA ID
+                var tenantOpt = tenantDirectory.findByWabaId(wabaId);
+                
+                if (tenantOpt.isEmpty()) {
+                    log.warn("Received webhook for unknown WABA ID: {}", wabaId);
+                }
+                tenantId = tenantOpt.map(WhatsAppTenant::getTenantId).orElse(null);
+                
+                // Store the event, even for an unknown WABA for future processing
+                records.add(createWebhookEvent(tenantId, entry, json));
             
-            switch (field) {
-                case Webhook.FIELD_ACCOUNT_UPDATE:
-                    processAccountUpdate(tenantId, value, event);
-                    break;
-                    
-                case Webhook.FIELD_MESSAGES:
-                    processMessages(tenantId, value, event);
-                    break;
-                    
-                case Webhook.FIELD_TEMPLATE_STATUS:
-                    processTemplateStatusUpdate(tenantId, value, event);
-                    break;
-                    
-                default:
-                    log.info("Unhandled webhook field type: {}", field);
-                    break;
+            } catch (Exception e) {
+                log.error("Error processing webhook entry: {}", e.getMessage(), e);
+                tenantId = null;
+            }
+        }
+        
+        @Override
+        public void onMessages(Entry entry, Value value) {
+            if (tenantId != null) {
+                processMessages(tenantId, value, records);
             }
-            
-            // Mark the event as processed
-            event.markProcessed();
-            webhookEventRepository.save(event);
-            
-        } catch (Exception e) {
-            log.error("Error processing webhook change: {}", e.getMessage(), e);
+        }
+        
+        @Override
+        public void onAccountUpdate(Entry entry, Value value) {
+            if (tenantId != null) {
+                processAccountUpdate(tenantId, entry, value);
+            }
+        }
+        
+        @Override
+        public void onTemplateStatusUpdate(Entry entry, Value value) {
+            if (tenantId != null) {
+                processTemplateStatusUpdate(tenantId, value);
+            }
+        }
+        
+        @Override
+        public void onOtherChange(Entry entry, Change change) {
+            if (tenantId != null) {
+                log.info("Unhandled webhook field type: {}", change.field() != null ? change.field().getValue() : null);
+            }
+        }
+        
+        @Override
+        public void onUnsupportedObject(String object) {
+            log.warn("Ignoring non-WhatsApp webhook: {}", object);
+        }
+        
+        private void clear() {
+            records.clear();
         }
     }
     
@@ -152,48 +188,40 @@ public class WebhookProcessorService {
      * Process account update events
      * 
      * @param tenantId The tenant ID
-     * @param value The value node
-     * @param event The stored webhook event
+     * @param entry The entry of the update
+     * @param value The value of the update
      */
-    private void processAccountUpdate(UUID tenantId, JsonNode value, WebhookEvent event) {
+    private void processAccountUpdate(UUID tenantId, Entry entry, Value value) {
         try {
-            String eventType = value.get(Webhook.EVENT).asText();
+            if (value.event() == null) {
+                log.info("Account update for tenant {}: {}", tenantId, value);
+                return;
+            }
             
-            switch (eventType) {
-                case Webhook.EVENT_PARTNER_ADDED:
+            switch (value.event()) {
+                case PARTNER_ADDED:
                     // This event indicates the WhatsApp Business Account (WABA) has been created
                     // and our app has been added as a partner
-                    if (value.has(Webhook.WABA_INFO)) {
-                        JsonNode wabaInfo = value.get(Webhook.WABA_INFO);
-                        String wabaId = wabaInfo.get(Webhook.WABA_ID).asText();
-                        
-                        log.info("WABA created and partner added for tenant {}: {}", tenantId, wabaId);
-                        
-                        // We need to wait for phone_number events to get the phone number ID
-                    }
-                    break;
+                    log.info("WABA created and partner added for tenant {}: {}", tenantId, entry.id());
                     
-                case Webhook.EVENT_ACCOUNT_UPDATE:
-                    // General account update, could be various things
-                    log.info("Account update for tenant {}: {}", tenantId, value);
+                    // We need to wait for phone_number events to get the phone number ID
                     break;
-                    
-                case Webhook.EVENT_ACCOUNT_VERIFIED:
-                case Webhook.EVENT_VERIFIED_ACCOUNT:
+                
+                case VERIFIED_ACCOUNT:
                     // Account has been verified
                     log.info("Account verified for tenant {}", tenantId);
                     break;
-                    
-                case Webhook.EVENT_DISABLED_UPDATE:
+                
+                case DISABLED_UPDATE:
                     // Account has been disabled
                     log.warn("Account disabled for tenant {}", tenantId);
                     break;
-                    
+                
                 default:
-                    log.info("Unhandled account update event: {}", eventType);
+                    log.info("Unhandled account update event: {}", value.event());
                     break;
             }
-            
+        
         } catch (Exception e) {
             log.error("Error processing account update: {}", e.getMessage(), e);
         }
@@ -203,95 +231,173 @@ public class WebhookProcessorService {
      * Process message events
      * 
      * @param tenantId The tenant ID
-     * @param value The value node
-     * @param event The stored webhook event
+     * @param value The value of the change
+     * @param records Receives the records to write
      */
-    private void processMessages(UUID tenantId, JsonNode value, WebhookEvent event) {
+    private void processMessages(UUID tenantId, Value value, List<WebhookRecord> records) {
         try {
             // Check if this is an incoming message
-            if (value.has(Message.MESSAGES)) {
-                // Handle incoming messages
-                for (JsonNode message : value.get(Message.MESSAGES)) {
-                    String messageId = message.get(Message.ID).asText();
-                    
-                    // Forward to conversation service to handle the message
-                    conversationService.handleIncomingMessage(tenantId, message, value);
+            if (value.messages() != null) {
+                for (com.whatsapp.api.domain.webhook.Message message : value.messages()) {
+                    // The window opens when the message was sent, which an undated message cannot tell
+                    if (hasTimestamp(message.timestamp())) {
+                        conversationWindowIndex.recordInbound(tenantId, message.from(), toDateTime(message.timestamp()).toInstant());
+                    }
+                    InboundMessageRecord inboundMessage = createInboundMessage(tenantId, message, value);
+                    if (inboundMessage != null) {
+                        records.add(inboundMessage);
+                    }
                 }
             }
             
             // Check if this is a message status update
-            if (value.has(Message.STATUSES)) {
+            if (value.statuses() != null) {
                 // Handle status updates (delivered, read, etc.)
-                for (JsonNode status : value.get(Message.STATUSES)) {
-                    String messageId = status.get(Message.ID).asText();
-                    String statusType = status.get(Message.STATUS).asText();
-                    
-                    // Forward to conversation service to update the message status
-                    conversationService.updateMessageStatus(messageId, statusType);
+                for (Status status : value.statuses()) {
+                    conversationWindowIndex.recordStatus(tenantId, status, toDateTime(status.timestamp()).toInstant());
+                    MessageStatus newStatus = toMessageStatus(status.status());
+                    if (newStatus == null) {
+                        log.warn("Unknown message status for message: {}", status.id());
+                        continue;
+                    }
+                    records.add(StatusUpdateRecord.builder()
+                            .whatsappMessageId(status.id())
+                            .status(newStatus)
+                            .timestamp(toDateTime(status.timestamp()))
+                            .build());
                 }
             }
-            
+        
         } catch (Exception e) {
             log.error("Error processing messages: {}", e.getMessage(), e);
         }
     }
     
+    /**
+     * Create the record of an incoming message
+     * 
+     * @param tenantId The tenant ID
+     * @param webhookMessage The message of the webhook
+     * @param value The value of the change, with the contacts
+     * @return The record, or null if the webhook has no contact information or no timestamp
+     */
+    private InboundMessageRecord createInboundMessage(UUID tenantId, com.whatsapp.api.domain.webhook.Message webhookMessage, Value value) {
+        List<Contact> contacts = value.contacts();
+        if (contacts == null || contacts.isEmpty()) {
+            log.warn("No contact information in message: {}", webhookMessage.id());
+            return null;
+        }
+        
+        // The contact of the sender, the first one if none matches
+        Contact contact = contacts.get(0);
+        for (Contact candidate : contacts) {
+            if (candidate.waId() != null && candidate.waId().equals(webhookMessage.from())) {
+                contact = candidate;
+                break;
+            }
+        }
+        String customerWaId = contact.waId();
+        String customerName = contact.profile() != null ? contact.profile().name() : null;
+        
+        com.whatsapp.client.conversation.model.Message message = conversationService.createMessageFromWebhook(null, webhookMessage);
+        // A redelivery is only recognized with the same sent time
+        if (message.getSentAt() == null) {
+            log.warn("No timestamp in message, skipping it: {}", webhookMessage.id());
+            return null;
+        }
+        
+        return InboundMessageRecord.builder()
+                .tenantId(tenantId)
+                .customerWaId(customerWaId)
+                .customerPhone(customerWaId)
+                .customerName(customerName)
+                .message(message)
+                .build();
+    }
+    
     /**
      * Process template status update events
      * 
      * @param tenantId The tenant ID
-     * @param value The value node
-     * @param event The stored webhook event
+     * @param value The value of the update
      */
-    private void processTemplateStatusUpdate(UUID tenantId, JsonNode value, WebhookEvent event) {
+    private void processTemplateStatusUpdate(UUID tenantId, Value value) {
         try {
-            String eventType = value.get(Webhook.EVENT).asText();
-            String templateId = value.get("message_template_id").asText();
-            String templateName = value.get("message_template_name").asText();
-            
-            log.info("Template status update for tenant {}: {} - {} - {}", 
-                    tenantId, templateName, templateId, eventType);
-            
-            // We could implement template management here if needed
+            log.info("Template status update for tenant {}: {} - {} - {}",
+                    tenantId, value.messageTemplateName(), value.messageTemplateId(), value.event());
             
+            // Refreshed in the background, the webhook is not held by the Graph API
+            templateCatalog.onStatusUpdate(tenantId, value.messageTemplateName(), value.messageTemplateLanguage(), value.event());
+        
         } catch (Exception e) {
             log.error("Error processing template status update: {}", e.getMessage(), e);
         }
     }
     
     /**
-     * Store a webhook event in the database
+     * Create the record of a webhook entry
      * 
      * @param tenantId The tenant ID (can be null)
-     * @param payload The webhook payload
-     * @return The stored webhook event
+     * @param entry The webhook entry
+     * @param json The JSON of the entry as received, null to serialize the decoded entry
+     * @return The webhook event record
      */
-    private WebhookEvent storeWebhookEvent(UUID tenantId, JsonNode payload) {
-        try {
-            // Extract the event type
-            String eventType = "UNKNOWN";
-            
-            if (payload.has(Webhook.CHANGES) && payload.get(Webhook.CHANGES).isArray() && 
-                    payload.get(Webhook.CHANGES).size() > 0) {
-                JsonNode firstChange = payload.get(Webhook.CHANGES).get(0);
-                if (firstChange.has(Webhook.FIELD)) {
-                    eventType = firstChange.get(Webhook.FIELD).asText();
-                }
-            }
-            
-            // Create and save the event
-            WebhookEvent event = WebhookEvent.builder()
-                    .tenantId(tenantId)
-                    .eventType(eventType)
-                    .payload(payload)
-                    .processed(false)
-                    .build();
-            
-            return webhookEventRepository.save(event);
-            
-        } catch (Exception e) {
-            log.error("Error storing webhook event: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to store webhook event", e);
+    private WebhookEventRecord createWebhookEvent(UUID tenantId, Entry entry, String json) throws JsonProcessingException {
+        // Extract the event type
+        String eventType = "UNKNOWN";
+        
+        if (entry.changes() != null && !entry.changes().isEmpty() && entry.changes().get(0).field() != null) {
+            eventType = entry.changes().get(0).field().getValue();
+        }
+        
+        return WebhookEventRecord.builder()
+                .id(UUID.randomUUID())
+                .tenantId(tenantId)
+                .eventType(eventType)
+                .payload(json != null ? json : objectMapper.writeValueAsString(entry))
+                .receivedAt(OffsetDateTime.now())
+                .build();
+    }
+    
+    /**
+     * Map a WhatsApp status to the message status
+     * 
+     * @param status The WhatsApp status
+     * @return The message status, or null if unknown
+     */
+    private MessageStatus toMessageStatus(com.whatsapp.api.domain.webhook.type.MessageStatus status) {
+        if (status == null) {
+            return null;
+        }
+        return switch (status) {
+            case SENT -> MessageStatus.SENT;
+            case DELIVERED -> MessageStatus.DELIVERED;
+            case READ -> MessageStatus.READ;
+            case FAILED -> MessageStatus.FAILED;
+            default -> null;
+        };
+    }
+    
+    /**
+     * Convert a webhook timestamp (epoch seconds) to a date time, now if absent
+     * 
+     * @param timestamp The timestamp
+     * @return The date time
+     */
+    private OffsetDateTime toDateTime(String timestamp) {
+        if (!hasTimestamp(timestamp)) {
+            return OffsetDateTime.now();
         }
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(Long.parseLong(timestamp)), ZoneOffset.UTC);
+    }
+    
+    /**
+     * Whether a webhook timestamp is present, in epoch seconds
+     * 
+     * @param timestamp The timestamp
+     * @return false if it is missing or malformed
+     */
+    private boolean hasTimestamp(String timestamp) {
+        return timestamp != null && timestamp.matches("\\d+");
     }
-}
\ No newline at end of file
+}
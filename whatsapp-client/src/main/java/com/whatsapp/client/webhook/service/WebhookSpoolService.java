@@ -0,0 +1,234 @@
+package com.whatsapp.client.webhook.service;
+
+import com.whatsapp.client.config.WhatsAppProperties;
+import com.whatsapp.client.webhook.spool.SpoolPosition;
+import com.whatsapp.client.webhook.spool.SpoolRecord;
+import com.whatsapp.client.webhook.spool.WebhookSpool;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes webhooks durable before they are acknowledged.
+ * The controller appends each raw payload to a local {@link WebhookSpool}, which forces it to disk; a background consumer
+ * reads the spool and hands the payloads to the {@link WebhookProcessorService}.
+ * The spool checkpoint only moves past a payload once its records are written to the database, so after a crash the
+ * payloads not yet written are processed again. A payload that could never be queued is moved to a dead letter directory
+ * next to the spool segments.
+ */
+@Service
+@Slf4j
+public class WebhookSpoolService {
+
+    /**
+     * Directory of the payloads set aside, under the spool directory
+     */
+    private static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+
+    private final WebhookProcessorService webhookProcessorService;
+    private final WhatsAppProperties.Spool settings;
+
+    /**
+     * Payloads handed to the processor and not yet checkpointed, in spool order. Only used by the consumer thread.
+     */
+    private final Deque<PendingPayload> pending = new ArrayDeque<>();
+
+    private final AtomicLong appendedPayloads = new AtomicLong();
+    private final AtomicLong consumedPayloads = new AtomicLong();
+    private final AtomicLong deadLetterPayloads = new AtomicLong();
+
+    private WebhookSpool spool;
+    private volatile boolean running;
+    private Thread consumer;
+
+    @Autowired
+    public WebhookSpoolService(
+            WebhookProcessorService webhookProcessorService,
+            WhatsAppProperties whatsAppProperties) {
+        this.webhookProcessorService = webhookProcessorService;
+        this.settings = whatsAppProperties.getSpool();
+    }
+
+    /**
+     * Open the spool and start consuming it, starting with the payloads left by the previous run
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!settings.isEnabled()) {
+            log.info("Webhook spool disabled, webhooks are processed without being spooled");
+            return;
+        }
+        spool = new WebhookSpool(Path.of(settings.getDirectory()), (int) settings.getSegmentSize().toBytes(), settings.getMaxSegments());
+        running = true;
+        consumer = new Thread(this::run, "webhook-spool-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+        log.info("Webhook spool opened in {}, resuming at {}", settings.getDirectory(), spool.getCheckpoint());
+    }
+
+    /**
+     * Stop consuming. Payloads not yet written stay in the spool for the next run.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (consumer != null) {
+            consumer.join(settings.getCheckpointInterval().toMillis() * 10);
+            spool.close();
+        }
+    }
+
+    /**
+     * Whether webhooks go through the spool
+     */
+    public boolean isEnabled() {
+        return spool != null && running;
+    }
+
+    /**
+     * Append a raw webhook payload to the spool. Returns once the payload is on disk.
+     *
+     * @param payload The raw payload
+     * @throws WebhookSpool.SpoolFullException if the consumer is too far behind
+     * @throws IOException if the payload cannot be written
+     */
+    public void append(byte[] payload) throws IOException {
+        spool.append(payload);
+        appendedPayloads.incrementAndGet();
+    }
+
+    /**
+     * Number of payloads appended since startup
+     */
+    public long getAppendedPayloads() {
+        return appendedPayloads.get();
+    }
+
+    /**
+     * Number of payloads consumed and written since startup
+     */
+    public long getConsumedPayloads() {
+        return consumedPayloads.get();
+    }
+
+    /**
+     * Number of payloads moved to the dead letter directory since startup
+     */
+    public long getDeadLetterPayloads() {
+        return deadLetterPayloads.get();
+    }
+
+    /**
+     * Number of spool segment files
+     */
+    public int getSegmentCount() {
+        return spool == null ? 0 : spool.getSegmentCount();
+    }
+
+    private void run() {
+        SpoolPosition position = spool.getCheckpoint();
+        long nextCheckpoint = System.nanoTime() + settings.getCheckpointInterval().toNanos();
+        while (running) {
+            try {
+                SpoolRecord record = spool.read(position);
+                if (record != null) {
+                    if (consume(record)) {
+                        position = record.next();
+                    } else {
+                        // The ingestion queue is full, try the same payload again
+                        Thread.sleep(settings.getPollInterval().toMillis());
+                    }
+                } else {
+                    Thread.sleep(settings.getPollInterval().toMillis());
+                }
+                if (System.nanoTime() - nextCheckpoint >= 0) {
+                    checkpoint();
+                    nextCheckpoint = System.nanoTime() + settings.getCheckpointInterval().toNanos();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Error consuming webhook spool at {}: {}", position, e.getMessage(), e);
+                try {
+                    Thread.sleep(settings.getCheckpointInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            log.error("Error writing webhook spool checkpoint: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Hand a spooled payload to the processor. A malformed payload is skipped by the processor, which then reports it written.
+     * A payload with more records than the ingestion queue can hold is moved to the dead letter directory instead,
+     * so that it does not hold up the payloads after it.
+     *
+     * @return false if the processor could not queue it
+     */
+    private boolean consume(SpoolRecord record) throws IOException {
+        PendingPayload pendingPayload = new PendingPayload(record.next());
+        try {
+            if (!webhookProcessorService.processWebhook(record.payload(), () -> pendingPayload.written = true)) {
+                return false;
+            }
+        } catch (WebhookIngestionService.BatchTooLargeException e) {
+            Path file = deadLetter(record);
+            deadLetterPayloads.incrementAndGet();
+            log.error("Webhook spool payload at {} set aside in {}: {}", record.position(), file, e.getMessage());
+            pendingPayload.written = true;
+        }
+        pending.add(pendingPayload);
+        return true;
+    }
+
+    /**
+     * Write a payload that cannot be processed to the dead letter directory, named after its spool position
+     */
+    private Path deadLetter(SpoolRecord record) throws IOException {
+        Path directory = Files.createDirectories(Path.of(settings.getDirectory(), DEAD_LETTER_DIRECTORY));
+        Path file = directory.resolve(record.position().segment() + "-" + record.position().offset() + ".json");
+        Files.write(file, record.payload());
+        return file;
+    }
+
+    /**
+     * Move the checkpoint past the payloads written so far, in spool order
+     */
+    private void checkpoint() throws IOException {
+        SpoolPosition written = null;
+        while (!pending.isEmpty() && pending.peekFirst().written) {
+            written = pending.pollFirst().next;
+            consumedPayloads.incrementAndGet();
+        }
+        if (written != null) {
+            spool.checkpoint(written);
+        }
+    }
+
+    private static final class PendingPayload {
+
+        private final SpoolPosition next;
+
+        private volatile boolean written;
+
+        private PendingPayload(SpoolPosition next) {
+            this.next = next;
+        }
+    }
+}
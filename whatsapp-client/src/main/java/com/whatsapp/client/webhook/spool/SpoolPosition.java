@@ -0,0 +1,16 @@
+package com.whatsapp.client.webhook.spool;
+
+/**
+ * A position in a {@link WebhookSpool}: a segment and an offset in that segment
+ *
+ * @param segment The sequence number of the segment
+ * @param offset  The offset in the segment
+ */
+public record SpoolPosition(long segment, int offset) implements Comparable<SpoolPosition> {
+
+    @Override
+    public int compareTo(SpoolPosition other) {
+        int bySegment = Long.compare(segment, other.segment);
+        return bySegment != 0 ? bySegment : Integer.compare(offset, other.offset);
+    }
+}
@@ -0,0 +1,11 @@
+package com.whatsapp.client.webhook.spool;
+
+/**
+ * A record read from a {@link WebhookSpool}
+ *
+ * @param position The position of the record
+ * @param next     The position after the record, to read the next one and to checkpoint once the record is consumed
+ * @param payload  The raw payload
+ */
+public record SpoolRecord(SpoolPosition position, SpoolPosition next, byte[] payload) {
+}
@@ -0,0 +1,390 @@
+package com.whatsapp.client.webhook.spool;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of raw webhook payloads, kept in memory-mapped segment files.
+ * <p>
+ * Each record is a 4 byte length, a 4 byte CRC32 and the payload. {@link #append(byte[])} returns once the record is
+ * forced to disk; appends that arrive while another append is forcing the segment are forced together by the next
+ * force, so concurrent writers share the cost of the fsync.
+ * <p>
+ * A single reader reads the forced records with {@link #read(SpoolPosition)} and saves its progress with
+ * {@link #checkpoint(SpoolPosition)}; segments before the checkpoint are deleted. After a crash the records after the
+ * last checkpoint are read again, and a record torn by the crash is detected by its CRC and overwritten.
+ */
+public class WebhookSpool implements Closeable {
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    /**
+     * Segments not yet consumed, by sequence number; the last one is written to
+     */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private final Object writeLock = new Object();
+
+    private final Object syncLock = new Object();
+
+    private Segment active;
+
+    private int writeOffset;
+
+    private volatile SpoolPosition checkpoint;
+
+    /**
+     * Segment the reader is in, mapped separately from the writer's mapping
+     */
+    private Segment reading;
+
+    /**
+     * Open a spool, recovering the segments and checkpoint left in its directory
+     *
+     * @param directory   The directory of the segment files, created if missing
+     * @param segmentSize The size of a segment file; a payload must fit in one segment
+     * @param maxSegments The number of segments after which appends are rejected until the reader catches up
+     * @throws IOException if the directory cannot be read or written
+     */
+    public WebhookSpool(Path directory, int segmentSize, int maxSegments) throws IOException {
+        if (segmentSize <= HEADER_SIZE || maxSegments < 2) {
+            throw new IllegalArgumentException("segmentSize must hold a record and maxSegments must be at least 2");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.checkpoint = readCheckpoint();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                String name = file.getFileName().toString();
+                long sequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                if (sequence < checkpoint.segment()) {
+                    Files.delete(file);
+                } else {
+                    segments.put(sequence, new Segment(sequence, file));
+                }
+            }
+        }
+
+        if (segments.isEmpty()) {
+            active = createSegment(checkpoint.segment());
+            writeOffset = 0;
+        } else {
+            // Segments before the last one were sealed; the reader stops at their first invalid record
+            for (Segment segment : segments.values()) {
+                segment.sealedOffset = segmentSize;
+            }
+            active = segments.lastEntry().getValue();
+            active.map(segmentSize);
+            writeOffset = recover(active);
+        }
+        active.syncedOffset = writeOffset;
+        if (checkpoint.segment() < segments.firstKey()) {
+            checkpoint = new SpoolPosition(segments.firstKey(), 0);
+        }
+    }
+
+    /**
+     * Append a payload and force it to disk
+     *
+     * @param payload The payload
+     * @return The position of the record
+     * @throws SpoolFullException if the spool has reached its maximum number of segments
+     * @throws IOException        if the record cannot be written
+     */
+    public SpoolPosition append(byte[] payload) throws IOException {
+        Objects.requireNonNull(payload, "payload cannot be null");
+        if (payload.length == 0) {
+            throw new IllegalArgumentException("payload cannot be empty");
+        }
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IOException("Payload of " + payload.length + " bytes does not fit in a spool segment");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        Segment segment;
+        int end;
+        SpoolPosition position;
+        synchronized (writeLock) {
+            if (writeOffset + recordSize > segmentSize) {
+                roll();
+            }
+            segment = active;
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.putInt(writeOffset + 4, (int) crc.getValue());
+            buffer.put(writeOffset + HEADER_SIZE, payload);
+            buffer.putInt(writeOffset, payload.length);
+            position = new SpoolPosition(segment.sequence, writeOffset);
+            writeOffset += recordSize;
+            end = writeOffset;
+        }
+        sync(segment, end);
+        return position;
+    }
+
+    /**
+     * Read the first forced record at or after a position. Must only be called by one thread.
+     *
+     * @param from The position of the record, usually the next position of the previous record
+     * @return The record, or null if no forced record follows the position yet
+     * @throws IOException if a segment cannot be read
+     */
+    public SpoolRecord read(SpoolPosition from) throws IOException {
+        SpoolPosition position = from;
+        while (true) {
+            Segment segment;
+            boolean isActive;
+            int limit;
+            synchronized (writeLock) {
+                var entry = segments.ceilingEntry(position.segment());
+                if (entry == null) {
+                    return null;
+                }
+                segment = entry.getValue();
+                if (segment.sequence != position.segment()) {
+                    position = new SpoolPosition(segment.sequence, 0);
+                }
+                // The active segment is read up to what is forced, sealed segments up to their end
+                isActive = segment == active;
+                limit = isActive ? segment.syncedOffset : segment.sealedOffset;
+            }
+            if (isActive && position.offset() >= limit) {
+                return null;
+            }
+
+            ByteBuffer buffer = readBuffer(segment);
+            int offset = position.offset();
+            if (offset + HEADER_SIZE <= limit) {
+                int length = buffer.getInt(offset);
+                if (length > 0 && offset + HEADER_SIZE + length <= limit) {
+                    byte[] payload = new byte[length];
+                    buffer.get(offset + HEADER_SIZE, payload);
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if ((int) crc.getValue() == buffer.getInt(offset + 4)) {
+                        return new SpoolRecord(position, new SpoolPosition(segment.sequence, offset + HEADER_SIZE + length), payload);
+                    }
+                }
+            }
+            if (isActive) {
+                throw new IOException("Corrupted spool record at " + position);
+            }
+            // End of a sealed segment
+            position = new SpoolPosition(segment.sequence + 1, 0);
+        }
+    }
+
+    /**
+     * Save the position up to which records are consumed, and delete the segments before it
+     *
+     * @param position The position after the last consumed record
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void checkpoint(SpoolPosition position) throws IOException {
+        if (position.compareTo(checkpoint) <= 0) {
+            return;
+        }
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap((position.segment() + " " + position.offset()).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpoint = position;
+
+        List<Segment> consumed = new ArrayList<>();
+        synchronized (writeLock) {
+            while (segments.firstKey() < position.segment() && segments.firstEntry().getValue() != active) {
+                consumed.add(segments.pollFirstEntry().getValue());
+            }
+        }
+        for (Segment segment : consumed) {
+            if (segment == reading) {
+                reading = null;
+            }
+            Files.deleteIfExists(segment.file);
+        }
+    }
+
+    /**
+     * The position after the last consumed record, where reading resumes after a restart
+     */
+    public SpoolPosition getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Number of segment files, the active one included
+     */
+    public int getSegmentCount() {
+        synchronized (writeLock) {
+            return segments.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            active.buffer.force();
+            active.syncedOffset = writeOffset;
+        }
+    }
+
+    /**
+     * Force the records of a segment up to an offset, together with the records appended since
+     */
+    private void sync(Segment segment, int end) {
+        synchronized (syncLock) {
+            if (segment.syncedOffset >= end) {
+                // Forced by another append
+                return;
+            }
+            int target;
+            synchronized (writeLock) {
+                target = segment == active ? writeOffset : segment.sealedOffset;
+            }
+            int from = segment.syncedOffset;
+            segment.buffer.force(from, target - from);
+            segment.syncedOffset = target;
+        }
+    }
+
+    /**
+     * Seal the active segment and start a new one. Called with the write lock held.
+     */
+    private void roll() throws IOException {
+        if (segments.size() >= maxSegments) {
+            throw new SpoolFullException("Webhook spool is full: " + segments.size() + " segments not consumed");
+        }
+        Segment sealed = active;
+        sealed.buffer.force();
+        sealed.sealedOffset = writeOffset;
+        sealed.syncedOffset = writeOffset;
+        active = createSegment(sealed.sequence + 1);
+        writeOffset = 0;
+    }
+
+    private Segment createSegment(long sequence) throws IOException {
+        Segment segment = new Segment(sequence, directory.resolve(String.format("%020d%s", sequence, SEGMENT_SUFFIX)));
+        segment.map(segmentSize);
+        segments.put(sequence, segment);
+        return segment;
+    }
+
+    /**
+     * Find the end of the valid records of the last segment, and clear a record torn by a crash
+     */
+    private int recover(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_SIZE, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+            offset += HEADER_SIZE + length;
+        }
+        if (offset + HEADER_SIZE <= segmentSize && buffer.getLong(offset) != 0) {
+            // Zero the rest of the segment, so that the remains of the torn record are not read as a record
+            byte[] zeros = new byte[64 * 1024];
+            for (int i = offset; i < segmentSize; i += zeros.length) {
+                buffer.put(i, zeros, 0, Math.min(zeros.length, segmentSize - i));
+            }
+            buffer.force();
+        }
+        return offset;
+    }
+
+    private ByteBuffer readBuffer(Segment segment) throws IOException {
+        if (reading == null || reading.sequence != segment.sequence) {
+            reading = new Segment(segment.sequence, segment.file);
+            reading.map(segmentSize);
+        }
+        return reading.buffer;
+    }
+
+    private SpoolPosition readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return new SpoolPosition(0, 0);
+        }
+        String[] parts = Files.readString(file, StandardCharsets.US_ASCII).trim().split(" ");
+        return new SpoolPosition(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    private static final class Segment {
+
+        private final long sequence;
+
+        private final Path file;
+
+        private MappedByteBuffer buffer;
+
+        /**
+         * Offset up to which the segment is forced
+         */
+        private volatile int syncedOffset;
+
+        /**
+         * End of the records once the segment is sealed
+         */
+        private volatile int sealedOffset;
+
+        private Segment(long sequence, Path file) {
+            this.sequence = sequence;
+            this.file = file;
+        }
+
+        private void map(int size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+    }
+
+    /**
+     * Thrown by {@link #append(byte[])} when the reader is too far behind
+     */
+    public static class SpoolFullException extends IOException {
+
+        public SpoolFullException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+-- Media uploaded per business phone number, keyed by content hash
+-- Lets the same file attached to many messages be uploaded once per media lifetime (30 days)
+CREATE TABLE whatsapp_integration.media_uploads (
+    phone_number_id VARCHAR(255) NOT NULL,
+    sha256 CHAR(64) NOT NULL,
+    media_id VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (phone_number_id, sha256)
+);
+
+CREATE INDEX idx_media_uploads_expires_at ON whatsapp_integration.media_uploads(expires_at);
@@ -0,0 +1,8 @@
+-- Composite indexes for the keyset pagination of conversations and messages
+-- A page after a cursor is an index range scan on (sort time, id) that stops at the page size,
+-- instead of reading and discarding every row before an offset
+CREATE INDEX idx_conversations_tenant_keyset
+    ON whatsapp_integration.conversations(tenant_id, last_message_at DESC, id DESC);
+
+CREATE INDEX idx_messages_conversation_keyset
+    ON whatsapp_integration.messages(conversation_id, sent_at DESC, id DESC);
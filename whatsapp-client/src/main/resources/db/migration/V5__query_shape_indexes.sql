@@ -0,0 +1,28 @@
+-- Indexes matching the queries the application runs, replacing the single-column indexes of V1
+
+-- Conversations are looked up by customer within a tenant;
+-- lookups by tenant alone are served by unique_tenant_customer and idx_conversations_tenant_keyset
+CREATE INDEX idx_conversations_tenant_customer_phone ON whatsapp_integration.conversations(tenant_id, customer_phone);
+DROP INDEX whatsapp_integration.idx_conversations_customer_phone;
+DROP INDEX whatsapp_integration.idx_conversations_tenant_id;
+
+-- Messages are read by conversation newest first, served by idx_messages_conversation_keyset;
+-- the direction alone is too unselective to be worth maintaining on every insert
+DROP INDEX whatsapp_integration.idx_messages_conversation_id;
+DROP INDEX whatsapp_integration.idx_messages_direction;
+
+-- Webhook events are listed by tenant or by type, newest first
+CREATE INDEX idx_webhook_events_tenant_created_at ON whatsapp_integration.webhook_events(tenant_id, created_at DESC);
+CREATE INDEX idx_webhook_events_event_type_created_at ON whatsapp_integration.webhook_events(event_type, created_at DESC);
+DROP INDEX whatsapp_integration.idx_webhook_events_tenant_id;
+DROP INDEX whatsapp_integration.idx_webhook_events_event_type;
+
+-- Unprocessed webhook events are polled oldest first; the index holds only the few not yet processed
+CREATE INDEX idx_webhook_events_unprocessed ON whatsapp_integration.webhook_events(created_at) WHERE processed = FALSE;
+
+-- Time ranges over the append-only tables: rows are inserted in about time order,
+-- so a BRIN index answers them at a fraction of the size and write cost of a B-tree
+CREATE INDEX idx_messages_sent_at_brin ON whatsapp_integration.messages USING BRIN (sent_at);
+CREATE INDEX idx_webhook_events_created_at_brin ON whatsapp_integration.webhook_events USING BRIN (created_at);
+DROP INDEX whatsapp_integration.idx_messages_sent_at;
+DROP INDEX whatsapp_integration.idx_webhook_events_created_at;
@@ -0,0 +1,130 @@
+-- Monthly range partitioning of messages and webhook_events
+-- Old months are dropped or archived as whole partitions instead of deleted row by row,
+-- so that vacuum and index maintenance only ever work on the recent months
+
+-- Detached partitions are moved here by the ARCHIVE retention action
+CREATE SCHEMA IF NOT EXISTS whatsapp_integration_archive;
+
+-- Create the partition of a table for the month of a date, if missing, and return its name
+-- Partitions are named <table>_YYYY_MM and cover the month in UTC
+CREATE OR REPLACE FUNCTION whatsapp_integration.create_monthly_partition(parent REGCLASS, month DATE)
+RETURNS TEXT
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    first_day DATE := date_trunc('month', month)::DATE;
+    parent_schema TEXT;
+    parent_table TEXT;
+    partition_table TEXT;
+BEGIN
+    SELECT n.nspname, c.relname INTO parent_schema, parent_table
+    FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+    WHERE c.oid = parent;
+
+    partition_table := parent_table || '_' || to_char(first_day, 'YYYY_MM');
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I.%I PARTITION OF %I.%I FOR VALUES FROM (%L) TO (%L)',
+            parent_schema, partition_table, parent_schema, parent_table,
+            first_day::TIMESTAMP AT TIME ZONE 'UTC',
+            (first_day + INTERVAL '1 month') AT TIME ZONE 'UTC');
+    RETURN partition_table;
+END;
+$$;
+
+-- Messages
+-- The partition key must be part of every unique constraint: inbound messages are stored with the time
+-- WhatsApp received them, so a redelivered message still conflicts on (whatsapp_message_id, sent_at)
+ALTER TABLE whatsapp_integration.messages RENAME TO messages_unpartitioned;
+
+CREATE TABLE whatsapp_integration.messages (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    conversation_id UUID NOT NULL,
+    whatsapp_message_id VARCHAR(255),
+    direction VARCHAR(20) NOT NULL CHECK (direction IN ('INBOUND', 'OUTBOUND')),
+    message_type VARCHAR(50) NOT NULL,
+    content TEXT,
+    media_url TEXT,
+    media_mime_type VARCHAR(100),
+    media_filename VARCHAR(255),
+    media_id VARCHAR(255),
+    status VARCHAR(50) NOT NULL DEFAULT 'SENT',
+    status_updated_at TIMESTAMP WITH TIME ZONE,
+    sent_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    delivered_at TIMESTAMP WITH TIME ZONE,
+    read_at TIMESTAMP WITH TIME ZONE,
+    failed_reason TEXT,
+    CONSTRAINT fk_conversation FOREIGN KEY (conversation_id) REFERENCES whatsapp_integration.conversations(id) ON DELETE CASCADE
+) PARTITION BY RANGE (sent_at);
+
+-- Rows outside every monthly partition, e.g. older than the retention, rather than failing the insert
+CREATE TABLE whatsapp_integration.messages_default PARTITION OF whatsapp_integration.messages DEFAULT;
+
+-- Partitions from the oldest message to three months ahead
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(COALESCE(sent_at, status_updated_at)), CURRENT_TIMESTAMP) AT TIME ZONE 'UTC')::DATE
+    INTO month
+    FROM whatsapp_integration.messages_unpartitioned;
+    WHILE month <= (CURRENT_DATE + INTERVAL '3 months') LOOP
+        PERFORM whatsapp_integration.create_monthly_partition('whatsapp_integration.messages', month);
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END;
+$$;
+
+INSERT INTO whatsapp_integration.messages (
+    id, conversation_id, whatsapp_message_id, direction, message_type, content, media_url, media_mime_type,
+    media_filename, media_id, status, status_updated_at, sent_at, delivered_at, read_at, failed_reason)
+SELECT id, conversation_id, whatsapp_message_id, direction, message_type, content, media_url, media_mime_type,
+    media_filename, media_id, status, status_updated_at, COALESCE(sent_at, status_updated_at, CURRENT_TIMESTAMP),
+    delivered_at, read_at, failed_reason
+FROM whatsapp_integration.messages_unpartitioned;
+
+DROP TABLE whatsapp_integration.messages_unpartitioned;
+
+ALTER TABLE whatsapp_integration.messages ADD CONSTRAINT messages_pkey PRIMARY KEY (id, sent_at);
+ALTER TABLE whatsapp_integration.messages ADD CONSTRAINT unique_whatsapp_message_id UNIQUE (whatsapp_message_id, sent_at);
+CREATE INDEX idx_messages_conversation_keyset ON whatsapp_integration.messages(conversation_id, sent_at DESC, id DESC);
+CREATE INDEX idx_messages_sent_at_brin ON whatsapp_integration.messages USING BRIN (sent_at);
+
+-- Webhook events
+ALTER TABLE whatsapp_integration.webhook_events RENAME TO webhook_events_unpartitioned;
+
+CREATE TABLE whatsapp_integration.webhook_events (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    tenant_id UUID,
+    event_type VARCHAR(100) NOT NULL,
+    payload JSONB NOT NULL,
+    processed BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_tenant FOREIGN KEY (tenant_id) REFERENCES whatsapp_integration.tenants(tenant_id) ON DELETE SET NULL
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE whatsapp_integration.webhook_events_default PARTITION OF whatsapp_integration.webhook_events DEFAULT;
+
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(created_at), CURRENT_TIMESTAMP) AT TIME ZONE 'UTC')::DATE
+    INTO month
+    FROM whatsapp_integration.webhook_events_unpartitioned;
+    WHILE month <= (CURRENT_DATE + INTERVAL '3 months') LOOP
+        PERFORM whatsapp_integration.create_monthly_partition('whatsapp_integration.webhook_events', month);
+        month := month + INTERVAL '1 month';
+    END LOOP;
+END;
+$$;
+
+INSERT INTO whatsapp_integration.webhook_events (id, tenant_id, event_type, payload, processed, created_at)
+SELECT id, tenant_id, event_type, payload, processed, COALESCE(created_at, CURRENT_TIMESTAMP)
+FROM whatsapp_integration.webhook_events_unpartitioned;
+
+DROP TABLE whatsapp_integration.webhook_events_unpartitioned;
+
+ALTER TABLE whatsapp_integration.webhook_events ADD CONSTRAINT webhook_events_pkey PRIMARY KEY (id, created_at);
+CREATE INDEX idx_webhook_events_tenant_created_at ON whatsapp_integration.webhook_events(tenant_id, created_at DESC);
+CREATE INDEX idx_webhook_events_event_type_created_at ON whatsapp_integration.webhook_events(event_type, created_at DESC);
+CREATE INDEX idx_webhook_events_unprocessed ON whatsapp_integration.webhook_events(created_at) WHERE processed = FALSE;
+CREATE INDEX idx_webhook_events_created_at_brin ON whatsapp_integration.webhook_events USING BRIN (created_at);
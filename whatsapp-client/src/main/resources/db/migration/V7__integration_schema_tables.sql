@@ -0,0 +1,60 @@
+-- Conversations, messages and webhook events are read and written in the whatsapp_integration schema,
+-- by the JPA entities and by the JDBC statements alike; tenants stay in public.tenants
+
+-- whatsapp_integration.tenants is never written: tenants are public.tenants, so these keys would reject every row
+ALTER TABLE whatsapp_integration.conversations DROP CONSTRAINT IF EXISTS fk_tenant;
+ALTER TABLE whatsapp_integration.webhook_events DROP CONSTRAINT IF EXISTS fk_tenant;
+
+-- Rows written to the public tables before the entities were qualified are copied over;
+-- the public tables are left in place for an operator to drop
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    IF to_regclass('public.conversations') IS NOT NULL THEN
+        INSERT INTO whatsapp_integration.conversations (
+            id, tenant_id, customer_wa_id, customer_phone, customer_name, customer_profile_pic_url, status,
+            last_message_at, created_at, updated_at)
+        SELECT id, tenant_id, customer_wa_id, customer_phone, customer_name, customer_profile_pic_url, status,
+            last_message_at, created_at, updated_at
+        FROM public.conversations
+        ON CONFLICT DO NOTHING;
+    END IF;
+
+    IF to_regclass('public.messages') IS NOT NULL THEN
+        -- Monthly partitions for the copied months, so that their rows do not land in the default partition
+        SELECT date_trunc('month', COALESCE(MIN(COALESCE(sent_at, status_updated_at)), CURRENT_TIMESTAMP) AT TIME ZONE 'UTC')::DATE
+        INTO month
+        FROM public.messages;
+        WHILE month <= CURRENT_DATE LOOP
+            PERFORM whatsapp_integration.create_monthly_partition('whatsapp_integration.messages', month);
+            month := month + INTERVAL '1 month';
+        END LOOP;
+
+        INSERT INTO whatsapp_integration.messages (
+            id, conversation_id, whatsapp_message_id, direction, message_type, content, media_url, media_mime_type,
+            media_filename, media_id, status, status_updated_at, sent_at, delivered_at, read_at, failed_reason)
+        SELECT m.id, m.conversation_id, m.whatsapp_message_id, m.direction, m.message_type, m.content, m.media_url,
+            m.media_mime_type, m.media_filename, m.media_id, m.status, m.status_updated_at,
+            COALESCE(m.sent_at, m.status_updated_at, CURRENT_TIMESTAMP), m.delivered_at, m.read_at, m.failed_reason
+        FROM public.messages m
+        WHERE EXISTS (SELECT 1 FROM whatsapp_integration.conversations c WHERE c.id = m.conversation_id)
+        ON CONFLICT DO NOTHING;
+    END IF;
+
+    IF to_regclass('public.webhook_events') IS NOT NULL THEN
+        SELECT date_trunc('month', COALESCE(MIN(created_at), CURRENT_TIMESTAMP) AT TIME ZONE 'UTC')::DATE
+        INTO month
+        FROM public.webhook_events;
+        WHILE month <= CURRENT_DATE LOOP
+            PERFORM whatsapp_integration.create_monthly_partition('whatsapp_integration.webhook_events', month);
+            month := month + INTERVAL '1 month';
+        END LOOP;
+
+        INSERT INTO whatsapp_integration.webhook_events (id, tenant_id, event_type, payload, processed, created_at)
+        SELECT id, tenant_id, event_type, payload, processed, COALESCE(created_at, CURRENT_TIMESTAMP)
+        FROM public.webhook_events
+        ON CONFLICT DO NOTHING;
+    END IF;
+END;
+$$;
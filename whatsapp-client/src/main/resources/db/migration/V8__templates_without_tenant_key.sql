@@ -0,0 +1,3 @@
+-- Templates are written for the tenants of public.tenants; whatsapp_integration.tenants is never written,
+-- so this key rejected every template upsert
+ALTER TABLE whatsapp_integration.templates DROP CONSTRAINT IF EXISTS fk_tenant;
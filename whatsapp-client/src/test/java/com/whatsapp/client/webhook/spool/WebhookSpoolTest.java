@@ -0,0 +1,157 @@
+package com.whatsapp.client.webhook.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WebhookSpoolTest {
+
+    /**
+     * A record is a 8 byte header and its payload: two 20 byte payloads fill a segment
+     */
+    private static final int SEGMENT_SIZE = 56;
+
+    /**
+     * Method under test: {@link WebhookSpool#read(SpoolPosition)}
+     */
+    @Test
+    void testAppendAndRead(@TempDir Path dir) throws IOException {
+        try (WebhookSpool spool = new WebhookSpool(dir, 1024, 2)) {
+            SpoolPosition first = spool.append(payload(1));
+            SpoolPosition second = spool.append(payload(2));
+
+            SpoolRecord record = spool.read(spool.getCheckpoint());
+            assertEquals(first, record.position());
+            assertArrayEquals(payload(1), record.payload());
+
+            record = spool.read(record.next());
+            assertEquals(second, record.position());
+            assertArrayEquals(payload(2), record.payload());
+
+            assertNull(spool.read(record.next()));
+        }
+    }
+
+    /**
+     * Method under test: {@link WebhookSpool#WebhookSpool(Path, int, int)}
+     */
+    @Test
+    void testTornRecordIsRecovered(@TempDir Path dir) throws IOException {
+        SpoolPosition torn;
+        try (WebhookSpool spool = new WebhookSpool(dir, 1024, 2)) {
+            spool.append(payload(1));
+            torn = spool.read(spool.append(payload(2))).next();
+        }
+        // A crash while the third record was written: its length is there, its payload and CRC are not
+        try (FileChannel channel = FileChannel.open(segmentFiles(dir).get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(12).putInt(20).putInt(0).putInt(0x7b226f62).flip(), torn.offset());
+        }
+
+        try (WebhookSpool spool = new WebhookSpool(dir, 1024, 2)) {
+            List<byte[]> payloads = readAll(spool, spool.getCheckpoint());
+            assertEquals(2, payloads.size());
+
+            // The torn record is overwritten by the next append
+            assertEquals(torn, spool.append(payload(3)));
+            SpoolRecord record = spool.read(torn);
+            assertNotNull(record);
+            assertArrayEquals(payload(3), record.payload());
+        }
+    }
+
+    /**
+     * Method under test: {@link WebhookSpool#append(byte[])}
+     */
+    @Test
+    void testSegmentsRoll(@TempDir Path dir) throws IOException {
+        try (WebhookSpool spool = new WebhookSpool(dir, SEGMENT_SIZE, 3)) {
+            for (int i = 0; i < 5; i++) {
+                spool.append(payload(i));
+            }
+            assertEquals(3, spool.getSegmentCount());
+            assertEquals(3, segmentFiles(dir).size());
+
+            List<byte[]> payloads = readAll(spool, spool.getCheckpoint());
+            assertEquals(5, payloads.size());
+            for (int i = 0; i < 5; i++) {
+                assertArrayEquals(payload(i), payloads.get(i));
+            }
+
+            // The third segment is full and no segment was consumed
+            spool.append(payload(5));
+            assertThrows(WebhookSpool.SpoolFullException.class, () -> spool.append(payload(6)));
+            assertThrows(IOException.class, () -> spool.append(new byte[SEGMENT_SIZE]));
+        }
+    }
+
+    /**
+     * Method under test: {@link WebhookSpool#checkpoint(SpoolPosition)}
+     */
+    @Test
+    void testCheckpointDeletesConsumedSegments(@TempDir Path dir) throws IOException {
+        SpoolPosition afterThird;
+        try (WebhookSpool spool = new WebhookSpool(dir, SEGMENT_SIZE, 3)) {
+            for (int i = 0; i < 5; i++) {
+                spool.append(payload(i));
+            }
+            SpoolRecord record = spool.read(spool.getCheckpoint());
+            record = spool.read(record.next());
+            record = spool.read(record.next());
+            afterThird = record.next();
+
+            spool.checkpoint(afterThird);
+            assertEquals(afterThird, spool.getCheckpoint());
+            // The first segment is consumed, the second still holds the fourth record
+            assertEquals(2, spool.getSegmentCount());
+            assertEquals(2, segmentFiles(dir).size());
+
+            // Room for a new segment once the first is deleted
+            spool.append(payload(5));
+            spool.append(payload(6));
+        }
+
+        try (WebhookSpool spool = new WebhookSpool(dir, SEGMENT_SIZE, 3)) {
+            assertEquals(afterThird, spool.getCheckpoint());
+            List<byte[]> payloads = readAll(spool, spool.getCheckpoint());
+            assertEquals(4, payloads.size());
+            assertArrayEquals(payload(3), payloads.get(0));
+            assertArrayEquals(payload(6), payloads.get(3));
+        }
+    }
+
+    private static byte[] payload(int i) {
+        return String.format("{\"webhook\":%08d}", i).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static List<byte[]> readAll(WebhookSpool spool, SpoolPosition from) throws IOException {
+        List<byte[]> payloads = new ArrayList<>();
+        SpoolRecord record = spool.read(from);
+        while (record != null) {
+            payloads.add(record.payload());
+            record = spool.read(record.next());
+        }
+        return payloads;
+    }
+
+    private static List<Path> segmentFiles(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".spool")).sorted().toList();
+        }
+    }
+}